@@ -0,0 +1,78 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.jmh;
+
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Date;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+
+
+/**
+ * Shared benchmark utilities.
+ */
+final class BenchmarkUtils {
+
+
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+
+	/**
+	 * Returns random bytes.
+	 *
+	 * @param length The number of bytes.
+	 *
+	 * @return The random bytes.
+	 */
+	static byte[] randomBytes(final int length) {
+
+		byte[] bytes = new byte[length];
+		RANDOM.nextBytes(bytes);
+		return bytes;
+	}
+
+
+	/**
+	 * Returns a typical access token claims set, valid for one hour from
+	 * the specified time.
+	 *
+	 * @param now The current time.
+	 *
+	 * @return The claims set.
+	 */
+	static JWTClaimsSet sampleClaimsSet(final Date now) {
+
+		return new JWTClaimsSet.Builder()
+			.issuer("https://c2id.com")
+			.subject("alice")
+			.audience(Arrays.asList("https://api.example.com", "https://other.example.com"))
+			.expirationTime(new Date(now.getTime() + 3600_000L))
+			.notBeforeTime(now)
+			.issueTime(now)
+			.jwtID("d5f0c2a7-3b4e-4f5a-9c6d-7e8f9a0b1c2d")
+			.claim("scope", "openid email profile")
+			.claim("client_id", "000123")
+			.claim("email_verified", true)
+			.build();
+	}
+
+
+	private BenchmarkUtils() { }
+}
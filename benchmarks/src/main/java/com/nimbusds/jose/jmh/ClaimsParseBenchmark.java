@@ -0,0 +1,107 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.jmh;
+
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.nimbusds.jose.util.JSONObjectUtils;
+import com.nimbusds.jwt.JWTClaimsSet;
+
+
+/**
+ * JWT claims set parse benchmarks: the streaming parser, which keeps the
+ * registered claims in typed fields and materialises the custom claims
+ * lazily, compared to the parsing of an intermediate JSON object map. Run
+ * with {@code -prof gc} to compare the allocated bytes per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClaimsParseBenchmark {
+
+
+	/**
+	 * The number of additional custom claims.
+	 */
+	@Param({"0", "20"})
+	public int extraClaims;
+
+
+	private String json;
+
+
+	@Setup
+	public void setUp() {
+
+		JWTClaimsSet.Builder builder = new JWTClaimsSet.Builder(BenchmarkUtils.sampleClaimsSet(new Date()));
+		for (int i=0; i < extraClaims; i++) {
+			builder.claim("claim-" + i, "value-" + i);
+		}
+		json = builder.build().toString();
+	}
+
+
+	private static void consumeRegistered(final JWTClaimsSet claimsSet, final Blackhole bh) {
+
+		bh.consume(claimsSet.getIssuer());
+		bh.consume(claimsSet.getSubject());
+		bh.consume(claimsSet.getAudience());
+		bh.consume(claimsSet.getExpirationTime());
+		bh.consume(claimsSet.getNotBeforeTime());
+	}
+
+
+	@Benchmark
+	public void streamingParseRegisteredAccess(final Blackhole bh)
+		throws Exception {
+
+		consumeRegistered(JWTClaimsSet.parse(json), bh);
+	}
+
+
+	@Benchmark
+	public void mapParseRegisteredAccess(final Blackhole bh)
+		throws Exception {
+
+		consumeRegistered(JWTClaimsSet.parse(JSONObjectUtils.parse(json)), bh);
+	}
+
+
+	@Benchmark
+	public int streamingParseAllClaims()
+		throws Exception {
+
+		return JWTClaimsSet.parse(json).getClaims().size();
+	}
+
+
+	@Benchmark
+	public int mapParseAllClaims()
+		throws Exception {
+
+		return JWTClaimsSet.parse(JSONObjectUtils.parse(json)).getClaims().size();
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.jmh;
+
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.proc.BadJWTException;
+import com.nimbusds.jwt.proc.DefaultJWTClaimsVerifier;
+import com.nimbusds.jwt.util.CoarseEpochClock;
+
+
+/**
+ * JWT claims verification benchmarks: accept and reject throughput of a
+ * verifier with an accepted audience, an exact match, required and
+ * prohibited claims. Run with {@code -prof gc} for the allocation per
+ * operation, add {@code -jvmArgs -XX:-DoEscapeAnalysis} to count the
+ * objects that the JIT would otherwise scalar-replace.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClaimsVerifyBenchmark {
+
+
+	private DefaultJWTClaimsVerifier<SecurityContext> verifier;
+
+
+	private DefaultJWTClaimsVerifier<SecurityContext> systemClockVerifier;
+
+
+	private JWTClaimsSet validClaims;
+
+
+	private String validClaimsJSON;
+
+
+	private JWTClaimsSet expiredClaims;
+
+
+	private JWTClaimsSet wrongAudienceClaims;
+
+
+	@Setup
+	public void setUp() {
+
+		verifier = createVerifier();
+		verifier.setClock(CoarseEpochClock.getInstance());
+		systemClockVerifier = createVerifier();
+
+		Date now = new Date();
+		validClaims = BenchmarkUtils.sampleClaimsSet(now);
+		validClaimsJSON = validClaims.toString();
+		expiredClaims = BenchmarkUtils.sampleClaimsSet(new Date(now.getTime() - 7200_000L));
+		wrongAudienceClaims = new JWTClaimsSet.Builder(validClaims)
+			.audience("https://unknown.example.com")
+			.build();
+	}
+
+
+	private static DefaultJWTClaimsVerifier<SecurityContext> createVerifier() {
+
+		return new DefaultJWTClaimsVerifier<>(
+			Collections.singleton("https://api.example.com"),
+			new JWTClaimsSet.Builder().issuer("https://c2id.com").build(),
+			new HashSet<>(Arrays.asList("sub", "exp", "nbf", "iat", "jti")),
+			new HashSet<>(Arrays.asList("act", "may_act")));
+	}
+
+
+	private Exception reject(final JWTClaimsSet claimsSet) {
+
+		try {
+			verifier.verify(claimsSet, null);
+		} catch (BadJWTException e) {
+			return e;
+		}
+		throw new IllegalStateException("Invalid claims accepted");
+	}
+
+
+	@Benchmark
+	public JWTClaimsSet accept()
+		throws Exception {
+
+		verifier.verify(validClaims, null);
+		return validClaims;
+	}
+
+
+	@Benchmark
+	public JWTClaimsSet acceptSystemClock()
+		throws Exception {
+
+		systemClockVerifier.verify(validClaims, null);
+		return validClaims;
+	}
+
+
+	@Benchmark
+	public JWTClaimsSet acceptParsed()
+		throws Exception {
+
+		JWTClaimsSet claimsSet = JWTClaimsSet.parse(validClaimsJSON);
+		verifier.verify(claimsSet, null);
+		return claimsSet;
+	}
+
+
+	@Benchmark
+	public Exception rejectExpired() {
+
+		return reject(expiredClaims);
+	}
+
+
+	@Benchmark
+	public Exception rejectAudience() {
+
+		return reject(wrongAudienceClaims);
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.jmh;
+
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nimbusds.jose.*;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jca.JCAContext;
+import com.nimbusds.jose.util.Base64URL;
+
+
+/**
+ * Compact JWS parse and verify benchmarks: the offset-based parsing with
+ * the signing input passed to the verifier as a slice of the compact
+ * serialisation, compared to the string split with the signing input
+ * composed and copied. Run with {@code -prof gc} to compare the allocated
+ * bytes per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompactJWSBenchmark {
+
+
+	@Param({"HS256", "RS256"})
+	private String alg;
+
+
+	private String compactJWS;
+
+
+	private JWSVerifier verifier;
+
+
+	private JWSVerifier copyingVerifier;
+
+
+	@Setup
+	public void setUp()
+		throws Exception {
+
+		JWSAlgorithm jwsAlg = JWSAlgorithm.parse(alg);
+
+		JWSSigner signer;
+
+		if (JWSAlgorithm.Family.HMAC_SHA.contains(jwsAlg)) {
+			byte[] secret = BenchmarkUtils.randomBytes(32);
+			signer = new MACSigner(secret);
+			verifier = new MACVerifier(secret);
+		} else {
+			KeyPairGenerator gen = KeyPairGenerator.getInstance("RSA");
+			gen.initialize(2048);
+			KeyPair keyPair = gen.generateKeyPair();
+			signer = new RSASSASigner((RSAPrivateKey) keyPair.getPrivate());
+			verifier = new RSASSAVerifier((RSAPublicKey) keyPair.getPublic());
+		}
+
+		copyingVerifier = new CopyingVerifier(verifier);
+
+		JWSObject jwsObject = new JWSObject(
+			new JWSHeader.Builder(jwsAlg).keyID("1").type(JOSEObjectType.JWT).build(),
+			new Payload(BenchmarkUtils.sampleClaimsSet(new Date()).toJSONObject()));
+		jwsObject.sign(signer);
+		compactJWS = jwsObject.serialize();
+	}
+
+
+	@Benchmark
+	public boolean offsetParseAndVerify()
+		throws Exception {
+
+		return JWSObject.parse(compactJWS).verify(verifier);
+	}
+
+
+	@Benchmark
+	public boolean splitParseAndVerify()
+		throws Exception {
+
+		Base64URL[] parts = JOSEObject.split(compactJWS);
+		return new JWSObject(parts[0], parts[1], parts[2]).verify(copyingVerifier);
+	}
+
+
+	/**
+	 * Hides the slice verification of the wrapped verifier, so the
+	 * signing input gets copied.
+	 */
+	private static final class CopyingVerifier implements JWSVerifier {
+
+
+		private final JWSVerifier verifier;
+
+
+		private CopyingVerifier(final JWSVerifier verifier) {
+			this.verifier = verifier;
+		}
+
+
+		@Override
+		public boolean verify(final JWSHeader header, final byte[] signingInput, final Base64URL signature)
+			throws JOSEException {
+			return verifier.verify(header, signingInput, signature);
+		}
+
+
+		@Override
+		public Set<JWSAlgorithm> supportedJWSAlgorithms() {
+			return verifier.supportedJWSAlgorithms();
+		}
+
+
+		@Override
+		public JCAContext getJCAContext() {
+			return verifier.getJCAContext();
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.jmh;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nimbusds.jose.util.DeflateUtils;
+
+
+/**
+ * DEFLATE compression and decompression of a JSON like plain text, with
+ * {@link DeflateUtils} and with a new deflater / inflater stream per call as
+ * the baseline.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeflateBenchmark {
+
+
+	@Param({"1024", "16384"})
+	public int size;
+
+
+	private byte[] plainText;
+
+
+	private byte[] compressed;
+
+
+	@Setup
+	public void setUp()
+		throws Exception {
+
+		StringBuilder sb = new StringBuilder("{");
+		Random random = new Random(42);
+		while (sb.length() < size) {
+			sb.append("\"claim-").append(random.nextInt(100)).append("\":\"").append(random.nextInt()).append("\",");
+		}
+		plainText = sb.substring(0, size).getBytes(StandardCharsets.UTF_8);
+		compressed = DeflateUtils.compress(plainText);
+	}
+
+
+	@Benchmark
+	public byte[] compress()
+		throws IOException {
+
+		return DeflateUtils.compress(plainText);
+	}
+
+
+	@Benchmark
+	public byte[] decompress()
+		throws IOException {
+
+		return DeflateUtils.decompress(compressed);
+	}
+
+
+	@Benchmark
+	public byte[] compressStream()
+		throws IOException {
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Deflater deflater = new Deflater(Deflater.DEFLATED, true);
+		try (DeflaterOutputStream def = new DeflaterOutputStream(out, deflater)) {
+			def.write(plainText);
+		} finally {
+			deflater.end();
+		}
+		return out.toByteArray();
+	}
+
+
+	@Benchmark
+	public byte[] decompressStream()
+		throws IOException {
+
+		Inflater inflater = new Inflater(true);
+		try (InflaterInputStream inf = new InflaterInputStream(new ByteArrayInputStream(compressed), inflater)) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buf = new byte[1024];
+			int len;
+			while ((len = inf.read(buf)) > 0) {
+				out.write(buf, 0, len);
+			}
+			return out.toByteArray();
+		} finally {
+			inflater.end();
+		}
+	}
+}
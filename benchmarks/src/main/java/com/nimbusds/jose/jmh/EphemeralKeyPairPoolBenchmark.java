@@ -0,0 +1,126 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.jmh;
+
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nimbusds.jose.*;
+import com.nimbusds.jose.crypto.ECDHEncrypter;
+import com.nimbusds.jose.crypto.EphemeralKeyPairPool;
+import com.nimbusds.jose.crypto.X25519Encrypter;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.OctetKeyPairGenerator;
+
+
+/**
+ * ECDH-ES JWE encryption latency with the ephemeral key pair generated
+ * inline and taken from a pool. The benchmark thread consumes key pairs
+ * faster than a single producer can generate them, the "pool" figure thus
+ * includes the inline fallback once the pool runs dry and reflects the
+ * steady-state gain for a service with idle periods in between bursts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EphemeralKeyPairPoolBenchmark {
+
+
+	@Param({"P-256", "X25519"})
+	public String crv;
+
+
+	@Param({"inline", "pool"})
+	public String ephemeral;
+
+
+	private final JWEHeader header = new JWEHeader(JWEAlgorithm.ECDH_ES, EncryptionMethod.A128GCM);
+
+
+	private final Payload payload = new Payload("Hello, world!");
+
+
+	private JWEEncrypter encrypter;
+
+
+	private EphemeralKeyPairPool pool;
+
+
+	@Setup
+	public void setUp()
+		throws Exception {
+
+		Curve curve = Curve.parse(crv);
+
+		if (Curve.X25519.equals(curve)) {
+			X25519Encrypter x25519Encrypter = new X25519Encrypter(new OctetKeyPairGenerator(curve).generate().toPublicJWK());
+			if ("pool".equals(ephemeral)) {
+				pool = new EphemeralKeyPairPool(Collections.singleton(curve), 4096);
+				x25519Encrypter.setEphemeralKeyPairPool(pool);
+			}
+			encrypter = x25519Encrypter;
+		} else {
+			ECDHEncrypter ecdhEncrypter = new ECDHEncrypter(new ECKeyGenerator(curve).generate().toPublicJWK());
+			if ("pool".equals(ephemeral)) {
+				pool = new EphemeralKeyPairPool(Collections.singleton(curve), 4096);
+				ecdhEncrypter.setEphemeralKeyPairPool(pool);
+			}
+			encrypter = ecdhEncrypter;
+		}
+	}
+
+
+	@Setup(Level.Iteration)
+	public void awaitRefill()
+		throws InterruptedException {
+
+		if (pool == null) {
+			return;
+		}
+
+		Curve curve = Curve.parse(crv);
+		while (pool.size(curve) < pool.getCapacity()) {
+			Thread.sleep(10L);
+		}
+	}
+
+
+	@TearDown
+	public void tearDown() {
+
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+
+
+	@Benchmark
+	public String encrypt()
+		throws Exception {
+
+		JWEObject jweObject = new JWEObject(header, payload);
+		jweObject.encrypt(encrypter);
+		return jweObject.serialize();
+	}
+}
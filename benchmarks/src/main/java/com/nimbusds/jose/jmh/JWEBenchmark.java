@@ -0,0 +1,300 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.jmh;
+
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nimbusds.jose.*;
+import com.nimbusds.jose.crypto.*;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+
+
+/**
+ * JWE encryption and decryption benchmarks for each JWE algorithm and
+ * encryption method pair. The deprecated A128CBC+HS256 and A256CBC+HS512
+ * methods are omitted, the ECDH-1PU key wrapping algorithms are paired with
+ * AES_CBC_HMAC_SHA2 methods only, as required by the spec.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JWEBenchmark {
+
+
+	@Param({
+		"RSA1_5 A128CBC-HS256",
+		"RSA1_5 A192CBC-HS384",
+		"RSA1_5 A256CBC-HS512",
+		"RSA1_5 A128GCM",
+		"RSA1_5 A192GCM",
+		"RSA1_5 A256GCM",
+		"RSA1_5 XC20P",
+		"RSA-OAEP A128CBC-HS256",
+		"RSA-OAEP A192CBC-HS384",
+		"RSA-OAEP A256CBC-HS512",
+		"RSA-OAEP A128GCM",
+		"RSA-OAEP A192GCM",
+		"RSA-OAEP A256GCM",
+		"RSA-OAEP XC20P",
+		"RSA-OAEP-256 A128CBC-HS256",
+		"RSA-OAEP-256 A192CBC-HS384",
+		"RSA-OAEP-256 A256CBC-HS512",
+		"RSA-OAEP-256 A128GCM",
+		"RSA-OAEP-256 A192GCM",
+		"RSA-OAEP-256 A256GCM",
+		"RSA-OAEP-256 XC20P",
+		"RSA-OAEP-384 A128CBC-HS256",
+		"RSA-OAEP-384 A192CBC-HS384",
+		"RSA-OAEP-384 A256CBC-HS512",
+		"RSA-OAEP-384 A128GCM",
+		"RSA-OAEP-384 A192GCM",
+		"RSA-OAEP-384 A256GCM",
+		"RSA-OAEP-384 XC20P",
+		"RSA-OAEP-512 A128CBC-HS256",
+		"RSA-OAEP-512 A192CBC-HS384",
+		"RSA-OAEP-512 A256CBC-HS512",
+		"RSA-OAEP-512 A128GCM",
+		"RSA-OAEP-512 A192GCM",
+		"RSA-OAEP-512 A256GCM",
+		"RSA-OAEP-512 XC20P",
+		"A128KW A128CBC-HS256",
+		"A128KW A192CBC-HS384",
+		"A128KW A256CBC-HS512",
+		"A128KW A128GCM",
+		"A128KW A192GCM",
+		"A128KW A256GCM",
+		"A128KW XC20P",
+		"A192KW A128CBC-HS256",
+		"A192KW A192CBC-HS384",
+		"A192KW A256CBC-HS512",
+		"A192KW A128GCM",
+		"A192KW A192GCM",
+		"A192KW A256GCM",
+		"A192KW XC20P",
+		"A256KW A128CBC-HS256",
+		"A256KW A192CBC-HS384",
+		"A256KW A256CBC-HS512",
+		"A256KW A128GCM",
+		"A256KW A192GCM",
+		"A256KW A256GCM",
+		"A256KW XC20P",
+		"A128GCMKW A128CBC-HS256",
+		"A128GCMKW A192CBC-HS384",
+		"A128GCMKW A256CBC-HS512",
+		"A128GCMKW A128GCM",
+		"A128GCMKW A192GCM",
+		"A128GCMKW A256GCM",
+		"A128GCMKW XC20P",
+		"A192GCMKW A128CBC-HS256",
+		"A192GCMKW A192CBC-HS384",
+		"A192GCMKW A256CBC-HS512",
+		"A192GCMKW A128GCM",
+		"A192GCMKW A192GCM",
+		"A192GCMKW A256GCM",
+		"A192GCMKW XC20P",
+		"A256GCMKW A128CBC-HS256",
+		"A256GCMKW A192CBC-HS384",
+		"A256GCMKW A256CBC-HS512",
+		"A256GCMKW A128GCM",
+		"A256GCMKW A192GCM",
+		"A256GCMKW A256GCM",
+		"A256GCMKW XC20P",
+		"dir A128CBC-HS256",
+		"dir A192CBC-HS384",
+		"dir A256CBC-HS512",
+		"dir A128GCM",
+		"dir A192GCM",
+		"dir A256GCM",
+		"dir XC20P",
+		"ECDH-ES A128CBC-HS256",
+		"ECDH-ES A192CBC-HS384",
+		"ECDH-ES A256CBC-HS512",
+		"ECDH-ES A128GCM",
+		"ECDH-ES A192GCM",
+		"ECDH-ES A256GCM",
+		"ECDH-ES XC20P",
+		"ECDH-ES+A128KW A128CBC-HS256",
+		"ECDH-ES+A128KW A192CBC-HS384",
+		"ECDH-ES+A128KW A256CBC-HS512",
+		"ECDH-ES+A128KW A128GCM",
+		"ECDH-ES+A128KW A192GCM",
+		"ECDH-ES+A128KW A256GCM",
+		"ECDH-ES+A128KW XC20P",
+		"ECDH-ES+A192KW A128CBC-HS256",
+		"ECDH-ES+A192KW A192CBC-HS384",
+		"ECDH-ES+A192KW A256CBC-HS512",
+		"ECDH-ES+A192KW A128GCM",
+		"ECDH-ES+A192KW A192GCM",
+		"ECDH-ES+A192KW A256GCM",
+		"ECDH-ES+A192KW XC20P",
+		"ECDH-ES+A256KW A128CBC-HS256",
+		"ECDH-ES+A256KW A192CBC-HS384",
+		"ECDH-ES+A256KW A256CBC-HS512",
+		"ECDH-ES+A256KW A128GCM",
+		"ECDH-ES+A256KW A192GCM",
+		"ECDH-ES+A256KW A256GCM",
+		"ECDH-ES+A256KW XC20P",
+		"ECDH-1PU A128CBC-HS256",
+		"ECDH-1PU A192CBC-HS384",
+		"ECDH-1PU A256CBC-HS512",
+		"ECDH-1PU A128GCM",
+		"ECDH-1PU A192GCM",
+		"ECDH-1PU A256GCM",
+		"ECDH-1PU XC20P",
+		"ECDH-1PU+A128KW A128CBC-HS256",
+		"ECDH-1PU+A128KW A192CBC-HS384",
+		"ECDH-1PU+A128KW A256CBC-HS512",
+		"ECDH-1PU+A192KW A128CBC-HS256",
+		"ECDH-1PU+A192KW A192CBC-HS384",
+		"ECDH-1PU+A192KW A256CBC-HS512",
+		"ECDH-1PU+A256KW A128CBC-HS256",
+		"ECDH-1PU+A256KW A192CBC-HS384",
+		"ECDH-1PU+A256KW A256CBC-HS512",
+		"PBES2-HS256+A128KW A128CBC-HS256",
+		"PBES2-HS256+A128KW A192CBC-HS384",
+		"PBES2-HS256+A128KW A256CBC-HS512",
+		"PBES2-HS256+A128KW A128GCM",
+		"PBES2-HS256+A128KW A192GCM",
+		"PBES2-HS256+A128KW A256GCM",
+		"PBES2-HS256+A128KW XC20P",
+		"PBES2-HS384+A192KW A128CBC-HS256",
+		"PBES2-HS384+A192KW A192CBC-HS384",
+		"PBES2-HS384+A192KW A256CBC-HS512",
+		"PBES2-HS384+A192KW A128GCM",
+		"PBES2-HS384+A192KW A192GCM",
+		"PBES2-HS384+A192KW A256GCM",
+		"PBES2-HS384+A192KW XC20P",
+		"PBES2-HS512+A256KW A128CBC-HS256",
+		"PBES2-HS512+A256KW A192CBC-HS384",
+		"PBES2-HS512+A256KW A256CBC-HS512",
+		"PBES2-HS512+A256KW A128GCM",
+		"PBES2-HS512+A256KW A192GCM",
+		"PBES2-HS512+A256KW A256GCM",
+		"PBES2-HS512+A256KW XC20P"
+	})
+	public String algEnc;
+
+
+	private JWEHeader header;
+
+
+	private Payload payload;
+
+
+	private JWEEncrypter encrypter;
+
+
+	private JWEDecrypter decrypter;
+
+
+	private String compactJWE;
+
+
+	@Setup
+	public void setUp()
+		throws Exception {
+
+		String[] parts = algEnc.split(" ");
+		JWEAlgorithm alg = JWEAlgorithm.parse(parts[0]);
+		EncryptionMethod enc = EncryptionMethod.parse(parts[1]);
+
+		if (JWEAlgorithm.Family.RSA.contains(alg)) {
+			RSAKey rsaJWK = new RSAKeyGenerator(2048).generate();
+			encrypter = new RSAEncrypter(rsaJWK.toRSAPublicKey());
+			decrypter = new RSADecrypter(rsaJWK);
+		} else if (JWEAlgorithm.Family.AES_KW.contains(alg) || JWEAlgorithm.Family.AES_GCM_KW.contains(alg)) {
+			SecretKey kek = aesKey(keyBitLength(alg));
+			encrypter = new AESEncrypter(kek);
+			decrypter = new AESDecrypter(kek);
+		} else if (JWEAlgorithm.DIR.equals(alg)) {
+			SecretKey cek = aesKey(enc.cekBitLength());
+			encrypter = new DirectEncrypter(cek);
+			decrypter = new DirectDecrypter(cek);
+		} else if (JWEAlgorithm.Family.ECDH_ES.contains(alg)) {
+			ECKey ecJWK = new ECKeyGenerator(Curve.P_256).generate();
+			encrypter = new ECDHEncrypter(ecJWK.toECPublicKey());
+			decrypter = new ECDHDecrypter(ecJWK);
+		} else if (JWEAlgorithm.Family.ECDH_1PU.contains(alg)) {
+			ECKey senderJWK = new ECKeyGenerator(Curve.P_256).generate();
+			ECKey recipientJWK = new ECKeyGenerator(Curve.P_256).generate();
+			encrypter = new ECDH1PUEncrypter(senderJWK.toECPrivateKey(), recipientJWK.toECPublicKey());
+			decrypter = new ECDH1PUDecrypter(recipientJWK.toECPrivateKey(), senderJWK.toECPublicKey());
+		} else if (JWEAlgorithm.Family.PBES2.contains(alg)) {
+			byte[] password = BenchmarkUtils.randomBytes(16);
+			encrypter = new PasswordBasedEncrypter(password, 16, PasswordBasedEncrypter.MIN_RECOMMENDED_ITERATION_COUNT);
+			decrypter = new PasswordBasedDecrypter(password);
+		} else {
+			throw new IllegalArgumentException("Unsupported JWE algorithm: " + alg);
+		}
+
+		header = new JWEHeader(alg, enc);
+		payload = new Payload(BenchmarkUtils.sampleClaimsSet(new Date()).toJSONObject());
+		compactJWE = encrypt();
+	}
+
+
+	private static int keyBitLength(final JWEAlgorithm alg) {
+
+		if (JWEAlgorithm.A128KW.equals(alg) || JWEAlgorithm.A128GCMKW.equals(alg)) {
+			return 128;
+		} else if (JWEAlgorithm.A192KW.equals(alg) || JWEAlgorithm.A192GCMKW.equals(alg)) {
+			return 192;
+		} else {
+			return 256;
+		}
+	}
+
+
+	private static SecretKey aesKey(final int bitLength) {
+
+		return new SecretKeySpec(BenchmarkUtils.randomBytes(bitLength / 8), "AES");
+	}
+
+
+	@Benchmark
+	public String encrypt()
+		throws JOSEException {
+
+		JWEObject jweObject = new JWEObject(header, payload);
+		jweObject.encrypt(encrypter);
+		return jweObject.serialize();
+	}
+
+
+	@Benchmark
+	public Payload decrypt()
+		throws Exception {
+
+		JWEObject jweObject = JWEObject.parse(compactJWE);
+		jweObject.decrypt(decrypter);
+		return jweObject.getPayload();
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.jmh;
+
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.jwk.*;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+
+
+/**
+ * JWK selection benchmarks for JWK sets of increasing size, comparing the
+ * indexed {@link JWKSelector} with a linear scan of the keys.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JWKSelectorBenchmark {
+
+
+	@Param({"10", "100", "1000"})
+	public int keyCount;
+
+
+	private JWKSet jwkSet;
+
+
+	private JWKSelector selector;
+
+
+	@Setup
+	public void setUp()
+		throws Exception {
+
+		List<JWK> keys = new ArrayList<>(keyCount);
+		for (int i=0; i < keyCount; i++) {
+			keys.add(new ECKeyGenerator(Curve.P_256)
+				.keyID("key-" + i)
+				.keyUse(KeyUse.SIGNATURE)
+				.algorithm(JWSAlgorithm.ES256)
+				.generate()
+				.toPublicJWK());
+		}
+		jwkSet = new JWKSet(keys);
+
+		// Sought key in the middle of the set
+		JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.ES256).keyID("key-" + keyCount / 2).build();
+		selector = new JWKSelector(JWKMatcher.forJWSHeader(header));
+	}
+
+
+	@Benchmark
+	public List<JWK> selectIndexed() {
+
+		return selector.select(jwkSet);
+	}
+
+
+	@Benchmark
+	public List<JWK> selectLinearScan() {
+
+		List<JWK> selectedKeys = new LinkedList<>();
+		for (JWK key: jwkSet.getKeys()) {
+			if (selector.getMatcher().matches(key)) {
+				selectedKeys.add(key);
+			}
+		}
+		return selectedKeys;
+	}
+}
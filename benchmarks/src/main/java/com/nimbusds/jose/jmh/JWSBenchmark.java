@@ -0,0 +1,118 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.jmh;
+
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nimbusds.jose.*;
+import com.nimbusds.jose.crypto.*;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.OctetKeyPairGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.util.Base64URL;
+
+
+/**
+ * JWS signing and verification benchmarks for each JWS algorithm family:
+ * HMAC, RSASSA-PKCS1-v1_5, RSASSA-PSS, ECDSA and EdDSA.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JWSBenchmark {
+
+
+	@Param({"HS256", "HS384", "HS512", "RS256", "RS384", "RS512", "PS256", "PS384", "PS512", "ES256", "ES384", "ES512", "EdDSA"})
+	public String alg;
+
+
+	private JWSHeader header;
+
+
+	private JWSSigner signer;
+
+
+	private JWSVerifier verifier;
+
+
+	private byte[] signingInput;
+
+
+	private Base64URL signature;
+
+
+	@Setup
+	public void setUp()
+		throws Exception {
+
+		JWSAlgorithm jwsAlg = JWSAlgorithm.parse(alg);
+
+		if (JWSAlgorithm.Family.HMAC_SHA.contains(jwsAlg)) {
+			byte[] secret = BenchmarkUtils.randomBytes(64);
+			signer = new MACSigner(secret);
+			verifier = new MACVerifier(secret);
+		} else if (JWSAlgorithm.Family.RSA.contains(jwsAlg)) {
+			RSAKey rsaJWK = new RSAKeyGenerator(2048).generate();
+			signer = new RSASSASigner(rsaJWK);
+			verifier = new RSASSAVerifier(rsaJWK.toPublicJWK());
+		} else if (JWSAlgorithm.Family.EC.contains(jwsAlg)) {
+			ECKey ecJWK = new ECKeyGenerator(Curve.forJWSAlgorithm(jwsAlg).iterator().next()).generate();
+			signer = new ECDSASigner(ecJWK);
+			verifier = new ECDSAVerifier(ecJWK.toPublicJWK());
+		} else if (JWSAlgorithm.EdDSA.equals(jwsAlg)) {
+			OctetKeyPair okp = new OctetKeyPairGenerator(Curve.Ed25519).generate();
+			signer = new Ed25519Signer(okp);
+			verifier = new Ed25519Verifier(okp.toPublicJWK());
+		} else {
+			throw new IllegalArgumentException("Unsupported JWS algorithm: " + alg);
+		}
+
+		header = new JWSHeader.Builder(jwsAlg).type(JOSEObjectType.JWT).build();
+
+		JWSObject jwsObject = new JWSObject(header, new Payload(BenchmarkUtils.sampleClaimsSet(new Date()).toJSONObject()));
+		signingInput = jwsObject.getSigningInput();
+		signature = signer.sign(header, signingInput);
+	}
+
+
+	@Benchmark
+	public Base64URL sign()
+		throws JOSEException {
+
+		return signer.sign(header, signingInput);
+	}
+
+
+	@Benchmark
+	public boolean verify()
+		throws JOSEException {
+
+		return verifier.verify(header, signingInput, signature);
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.jmh;
+
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetSequenceKey;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.OctetSequenceKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import com.nimbusds.jwt.proc.JWTProcessingResult;
+
+
+/**
+ * Batch JWT processing benchmarks: a burst of signed JWTs processed one by
+ * one, with {@code processAll} in the calling thread and with
+ * {@code processAll} spread across an executor. Throughput is in batches per
+ * second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JWTBatchBenchmark {
+
+
+	@Param({"HS256", "RS256"})
+	public String alg;
+
+
+	@Param({"1000"})
+	public int batchSize;
+
+
+	private DefaultJWTProcessor<SecurityContext> processor;
+
+
+	private List<String> jwts;
+
+
+	private ExecutorService executor;
+
+
+	@Setup
+	public void setUp()
+		throws Exception {
+
+		JWSAlgorithm jwsAlg = JWSAlgorithm.parse(alg);
+
+		JWK jwk;
+		MACSigner macSigner = null;
+		RSASSASigner rsaSigner = null;
+		if (JWSAlgorithm.Family.HMAC_SHA.contains(jwsAlg)) {
+			OctetSequenceKey octKey = new OctetSequenceKeyGenerator(256).keyID("1").generate();
+			macSigner = new MACSigner(octKey);
+			jwk = octKey;
+		} else {
+			RSAKey rsaKey = new RSAKeyGenerator(2048).keyID("1").generate();
+			rsaSigner = new RSASSASigner(rsaKey);
+			jwk = rsaKey.toPublicJWK();
+		}
+
+		jwts = new ArrayList<>(batchSize);
+		Date now = new Date();
+		for (int i=0; i < batchSize; i++) {
+			JWTClaimsSet claimsSet = new JWTClaimsSet.Builder(BenchmarkUtils.sampleClaimsSet(now))
+				.subject("user-" + i)
+				.build();
+			SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(jwsAlg).keyID("1").build(), claimsSet);
+			if (macSigner != null) {
+				jwt.sign(macSigner);
+			} else {
+				jwt.sign(rsaSigner);
+			}
+			jwts.add(jwt.serialize());
+		}
+
+		processor = new DefaultJWTProcessor<>();
+		processor.setJWSKeySelector(new JWSVerificationKeySelector<>(
+			jwsAlg,
+			new ImmutableJWKSet<SecurityContext>(new JWKSet(jwk))));
+
+		executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+	}
+
+
+	@TearDown
+	public void tearDown() {
+
+		executor.shutdown();
+	}
+
+
+	@Benchmark
+	public int processLoop()
+		throws Exception {
+
+		int accepted = 0;
+		for (String jwt: jwts) {
+			processor.process(jwt, null);
+			accepted++;
+		}
+		return accepted;
+	}
+
+
+	@Benchmark
+	public List<JWTProcessingResult> processAll() {
+
+		return processor.processAll(jwts, null);
+	}
+
+
+	@Benchmark
+	public List<JWTProcessingResult> processAllExecutor() {
+
+		return processor.processAll(jwts, null, executor);
+	}
+}
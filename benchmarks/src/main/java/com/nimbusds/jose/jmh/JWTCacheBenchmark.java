@@ -0,0 +1,97 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.jmh;
+
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.CachingJWTProcessor;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+
+
+/**
+ * Repeated processing of the same RS256 signed JWT, with the default JWT
+ * processor and with the caching JWT processor.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JWTCacheBenchmark {
+
+
+	private DefaultJWTProcessor<SecurityContext> processor;
+
+
+	private CachingJWTProcessor<SecurityContext> cachingProcessor;
+
+
+	private String jwt;
+
+
+	@Setup
+	public void setUp()
+		throws Exception {
+
+		RSAKey rsaKey = new RSAKeyGenerator(2048).keyID("1").generate();
+
+		SignedJWT signedJWT = new SignedJWT(
+			new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("1").build(),
+			BenchmarkUtils.sampleClaimsSet(new Date()));
+		signedJWT.sign(new RSASSASigner(rsaKey));
+		jwt = signedJWT.serialize();
+
+		processor = new DefaultJWTProcessor<>();
+		processor.setJWSKeySelector(new JWSVerificationKeySelector<>(
+			JWSAlgorithm.RS256,
+			new ImmutableJWKSet<SecurityContext>(new JWKSet(rsaKey.toPublicJWK()))));
+
+		cachingProcessor = new CachingJWTProcessor<>(processor);
+	}
+
+
+	@Benchmark
+	public JWTClaimsSet process()
+		throws Exception {
+
+		return processor.process(jwt, null);
+	}
+
+
+	@Benchmark
+	public JWTClaimsSet processCached()
+		throws Exception {
+
+		return cachingProcessor.process(jwt, null);
+	}
+}
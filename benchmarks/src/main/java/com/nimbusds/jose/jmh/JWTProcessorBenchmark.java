@@ -0,0 +1,108 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.jmh;
+
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.*;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.OctetSequenceKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+
+
+/**
+ * End-to-end signed JWT processing benchmarks: parsing, key selection from a
+ * JWK set, signature verification and claims verification.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JWTProcessorBenchmark {
+
+
+	@Param({"HS256", "RS256", "ES256"})
+	public String alg;
+
+
+	private DefaultJWTProcessor<SecurityContext> jwtProcessor;
+
+
+	private String jwtString;
+
+
+	@Setup
+	public void setUp()
+		throws Exception {
+
+		JWSAlgorithm jwsAlg = JWSAlgorithm.parse(alg);
+
+		JWK jwk;
+		JWSSigner signer;
+		if (JWSAlgorithm.Family.HMAC_SHA.contains(jwsAlg)) {
+			OctetSequenceKey octJWK = new OctetSequenceKeyGenerator(256).keyID("1").generate();
+			signer = new MACSigner(octJWK);
+			jwk = octJWK;
+		} else if (JWSAlgorithm.Family.RSA.contains(jwsAlg)) {
+			RSAKey rsaJWK = new RSAKeyGenerator(2048).keyID("1").generate();
+			signer = new RSASSASigner(rsaJWK);
+			jwk = rsaJWK.toPublicJWK();
+		} else {
+			ECKey ecJWK = new ECKeyGenerator(Curve.P_256).keyID("1").generate();
+			signer = new ECDSASigner(ecJWK);
+			jwk = ecJWK.toPublicJWK();
+		}
+
+		SignedJWT jwt = new SignedJWT(
+			new JWSHeader.Builder(jwsAlg).keyID("1").build(),
+			BenchmarkUtils.sampleClaimsSet(new Date()));
+		jwt.sign(signer);
+		jwtString = jwt.serialize();
+
+		jwtProcessor = new DefaultJWTProcessor<>();
+		jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(
+			jwsAlg,
+			new ImmutableJWKSet<SecurityContext>(new JWKSet(jwk))));
+	}
+
+
+	@Benchmark
+	public JWTClaimsSet process()
+		throws Exception {
+
+		return jwtProcessor.process(jwtString, null);
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.jmh;
+
+
+import java.security.Key;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.*;
+import com.nimbusds.jose.jwk.gen.OctetSequenceKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.JWSKeySelector;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import com.nimbusds.jwt.proc.JWTClaimsSetAwareJWSKeySelector;
+
+
+/**
+ * Signed JWT reject path benchmarks: processing of a token with a forged
+ * signature. With a plain JWS key selector the signature is verified before
+ * the claims are parsed, with a JWT claims set aware key selector the claims
+ * must be parsed first.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JWTRejectBenchmark {
+
+
+	@Param({"HS256", "RS256"})
+	public String alg;
+
+
+	/**
+	 * The number of additional claims, to vary the payload size.
+	 */
+	@Param({"0", "50"})
+	public int extraClaims;
+
+
+	private DefaultJWTProcessor<SecurityContext> verifyFirstProcessor;
+
+
+	private DefaultJWTProcessor<SecurityContext> parseFirstProcessor;
+
+
+	private String forgedJWT;
+
+
+	@Setup
+	public void setUp()
+		throws Exception {
+
+		JWSAlgorithm jwsAlg = JWSAlgorithm.parse(alg);
+
+		JWK jwk;
+		JWSSigner forgingSigner;
+		if (JWSAlgorithm.Family.HMAC_SHA.contains(jwsAlg)) {
+			jwk = new OctetSequenceKeyGenerator(256).keyID("1").generate();
+			forgingSigner = new MACSigner(new OctetSequenceKeyGenerator(256).generate());
+		} else {
+			jwk = new RSAKeyGenerator(2048).keyID("1").generate().toPublicJWK();
+			forgingSigner = new RSASSASigner(new RSAKeyGenerator(2048).generate());
+		}
+
+		JWTClaimsSet.Builder builder = new JWTClaimsSet.Builder(BenchmarkUtils.sampleClaimsSet(new Date()));
+		for (int i=0; i < extraClaims; i++) {
+			builder.claim("claim-" + i, "value-" + i);
+		}
+
+		SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(jwsAlg).keyID("1").build(), builder.build());
+		jwt.sign(forgingSigner);
+		forgedJWT = jwt.serialize();
+
+		final JWSKeySelector<SecurityContext> keySelector = new JWSVerificationKeySelector<>(
+			jwsAlg,
+			new ImmutableJWKSet<SecurityContext>(new JWKSet(jwk)));
+
+		verifyFirstProcessor = new DefaultJWTProcessor<>();
+		verifyFirstProcessor.setJWSKeySelector(keySelector);
+
+		parseFirstProcessor = new DefaultJWTProcessor<>();
+		parseFirstProcessor.setJWTClaimsSetAwareJWSKeySelector(new JWTClaimsSetAwareJWSKeySelector<SecurityContext>() {
+			@Override
+			public List<? extends Key> selectKeys(final JWSHeader header, final JWTClaimsSet claimsSet, final SecurityContext context)
+				throws KeySourceException {
+				return keySelector.selectJWSKeys(header, context);
+			}
+		});
+	}
+
+
+	private static Exception process(final DefaultJWTProcessor<SecurityContext> processor, final String jwt)
+		throws Exception {
+
+		try {
+			processor.process(jwt, null);
+		} catch (BadJOSEException e) {
+			return e;
+		}
+		throw new IllegalStateException("Forged JWT accepted");
+	}
+
+
+	@Benchmark
+	public Exception rejectVerifyFirst()
+		throws Exception {
+
+		return process(verifyFirstProcessor, forgedJWT);
+	}
+
+
+	@Benchmark
+	public Exception rejectParseFirst()
+		throws Exception {
+
+		return process(parseFirstProcessor, forgedJWT);
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.jmh;
+
+
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jose.crypto.impl.HMAC;
+import com.nimbusds.jose.util.Base64URL;
+
+
+/**
+ * HMAC benchmarks comparing the keyed {@link Mac} template used by the
+ * {@link MACVerifier} with a {@link Mac} initialised for each operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MACBenchmark {
+
+
+	@Param({"HS256", "HS512"})
+	public String alg;
+
+
+	@Param({"300", "2000"})
+	public int messageLength;
+
+
+	private String jcaAlg;
+
+
+	private byte[] secret;
+
+
+	private byte[] message;
+
+
+	private JWSHeader header;
+
+
+	private MACVerifier verifier;
+
+
+	private Base64URL signature;
+
+
+	private Mac keyedTemplate;
+
+
+	@Setup
+	public void setUp()
+		throws Exception {
+
+		jcaAlg = "HS256".equals(alg) ? "HMACSHA256" : "HMACSHA512";
+		secret = BenchmarkUtils.randomBytes(64);
+		message = BenchmarkUtils.randomBytes(messageLength);
+		header = new JWSHeader(JWSAlgorithm.parse(alg));
+		verifier = new MACVerifier(secret);
+		signature = Base64URL.encode(HMAC.compute(jcaAlg, secret, message, null));
+		keyedTemplate = Mac.getInstance(jcaAlg);
+		keyedTemplate.init(new SecretKeySpec(secret, jcaAlg));
+	}
+
+
+	@Benchmark
+	public boolean verifyWithKeyedTemplate()
+		throws JOSEException {
+
+		return verifier.verify(header, message, signature);
+	}
+
+
+	@Benchmark
+	public byte[] computeWithInitPerCall()
+		throws JOSEException {
+
+		return HMAC.compute(jcaAlg, secret, message, null);
+	}
+
+
+	@Benchmark
+	public byte[] computeWithKeyedTemplate()
+		throws CloneNotSupportedException {
+
+		// What the MAC verifier does internally, minus the signature
+		// decoding and comparison
+		return ((Mac) keyedTemplate.clone()).doFinal(message);
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.jmh;
+
+
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nimbusds.jose.*;
+import com.nimbusds.jose.crypto.RSAEncrypter;
+import com.nimbusds.jose.util.Pair;
+
+
+/**
+ * Encryption of a 64 KiB document for RSA-OAEP-256 recipients, with a
+ * compact {@link JWEObject} for each recipient and with a single
+ * {@link JWEObjectJSON}, in the calling thread and on an executor.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MultiRecipientJWEBenchmark {
+
+
+	@Param({"10", "50"})
+	public int recipientCount;
+
+
+	private final Payload payload = new Payload(new byte[64 * 1024]);
+
+
+	private List<Pair<UnprotectedHeader, JWEKeyEncrypter>> recipients;
+
+
+	private ExecutorService executor;
+
+
+	@Setup
+	public void setUp()
+		throws Exception {
+
+		KeyPairGenerator gen = KeyPairGenerator.getInstance("RSA");
+		gen.initialize(2048);
+
+		recipients = new ArrayList<>();
+		for (int i=0; i < recipientCount; i++) {
+			UnprotectedHeader header = new UnprotectedHeader.Builder()
+				.param(HeaderParameterNames.ALGORITHM, JWEAlgorithm.RSA_OAEP_256.getName())
+				.keyID("" + i)
+				.build();
+			RSAEncrypter encrypter = new RSAEncrypter((RSAPublicKey) gen.generateKeyPair().getPublic());
+			recipients.add(Pair.<UnprotectedHeader, JWEKeyEncrypter>of(header, encrypter));
+		}
+
+		executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+	}
+
+
+	@TearDown
+	public void tearDown() {
+
+		executor.shutdown();
+	}
+
+
+	@Benchmark
+	public List<String> compactPerRecipient()
+		throws Exception {
+
+		List<String> out = new ArrayList<>(recipientCount);
+		for (Pair<UnprotectedHeader, JWEKeyEncrypter> recipient: recipients) {
+			JWEHeader header = new JWEHeader.Builder(JWEAlgorithm.RSA_OAEP_256, EncryptionMethod.A256GCM)
+				.keyID(recipient.getLeft().getKeyID())
+				.build();
+			JWEObject jweObject = new JWEObject(header, payload);
+			jweObject.encrypt((RSAEncrypter) recipient.getRight());
+			out.add(jweObject.serialize());
+		}
+		return out;
+	}
+
+
+	@Benchmark
+	public String jsonCallingThread()
+		throws Exception {
+
+		JWEObjectJSON jweObject = new JWEObjectJSON(EncryptionMethod.A256GCM, payload);
+		jweObject.encrypt(recipients);
+		return jweObject.serializeGeneral();
+	}
+
+
+	@Benchmark
+	public String jsonExecutor()
+		throws Exception {
+
+		JWEObjectJSON jweObject = new JWEObjectJSON(EncryptionMethod.A256GCM, payload);
+		jweObject.encrypt(recipients, executor);
+		return jweObject.serializeGeneral();
+	}
+}
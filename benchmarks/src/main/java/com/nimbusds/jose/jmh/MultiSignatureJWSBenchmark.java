@@ -0,0 +1,170 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.jmh;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nimbusds.jose.*;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.util.Pair;
+
+
+/**
+ * Signing and verification of a {@link JWSObjectJSON} with alternating
+ * RS256 and ES256 signatures, one signature at a time and in a batch, in
+ * the calling thread and on an executor. One RSA and one EC key, so each
+ * signature has a single verifier for its algorithm.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MultiSignatureJWSBenchmark {
+
+
+	@Param({"4", "16"})
+	public int signatureCount;
+
+
+	private final Payload payload = new Payload(new byte[4 * 1024]);
+
+
+	private List<Pair<JWSHeader, JWSSigner>> signers;
+
+
+	private List<JWSVerifier> verifiers;
+
+
+	private String json;
+
+
+	private ExecutorService executor;
+
+
+	@Setup
+	public void setUp()
+		throws Exception {
+
+		RSAKey rsaJWK = new RSAKeyGenerator(2048).generate();
+		ECKey ecJWK = new ECKeyGenerator(Curve.P_256).generate();
+
+		signers = new ArrayList<>();
+
+		for (int i=0; i < signatureCount; i++) {
+			if (i % 2 == 0) {
+				signers.add(Pair.<JWSHeader, JWSSigner>of(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("" + i).build(), new RSASSASigner(rsaJWK)));
+			} else {
+				signers.add(Pair.<JWSHeader, JWSSigner>of(new JWSHeader.Builder(JWSAlgorithm.ES256).keyID("" + i).build(), new ECDSASigner(ecJWK)));
+			}
+		}
+
+		verifiers = new ArrayList<>();
+		verifiers.add(new RSASSAVerifier(rsaJWK.toPublicJWK()));
+		verifiers.add(new ECDSAVerifier(ecJWK.toPublicJWK()));
+
+		JWSObjectJSON jwsObject = new JWSObjectJSON(payload);
+		jwsObject.sign(signers);
+		json = jwsObject.serializeGeneral();
+
+		executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+	}
+
+
+	@TearDown
+	public void tearDown() {
+
+		executor.shutdown();
+	}
+
+
+	@Benchmark
+	public String signSequential()
+		throws Exception {
+
+		JWSObjectJSON jwsObject = new JWSObjectJSON(payload);
+		for (Pair<JWSHeader, JWSSigner> pair: signers) {
+			jwsObject.sign(pair.getLeft(), pair.getRight());
+		}
+		return jwsObject.serializeGeneral();
+	}
+
+
+	@Benchmark
+	public String signBatchExecutor()
+		throws Exception {
+
+		JWSObjectJSON jwsObject = new JWSObjectJSON(payload);
+		jwsObject.sign(signers, executor);
+		return jwsObject.serializeGeneral();
+	}
+
+
+	@Benchmark
+	public boolean verifySequential()
+		throws Exception {
+
+		JWSObjectJSON jwsObject = JWSObjectJSON.parse(json);
+		List<JWSObjectJSON.Signature> signatures = jwsObject.getSignatures();
+		for (int i=0; i < signatures.size(); i++) {
+			if (! signatures.get(i).verify(verifiers.get(i % 2))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	@Benchmark
+	public boolean verifyAllOfCallingThread()
+		throws Exception {
+
+		return JWSObjectJSON.parse(json).verify(verifiers, JWSObjectJSON.VerificationPolicy.ALL_OF);
+	}
+
+
+	@Benchmark
+	public boolean verifyAllOfExecutor()
+		throws Exception {
+
+		return JWSObjectJSON.parse(json).verify(verifiers, JWSObjectJSON.VerificationPolicy.ALL_OF, executor);
+	}
+
+
+	@Benchmark
+	public boolean verifyAnyOfExecutor()
+		throws Exception {
+
+		return JWSObjectJSON.parse(json).verify(verifiers, JWSObjectJSON.VerificationPolicy.ANY_OF, executor);
+	}
+}
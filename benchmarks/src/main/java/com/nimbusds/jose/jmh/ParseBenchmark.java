@@ -0,0 +1,122 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.jmh;
+
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nimbusds.jose.*;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import com.nimbusds.jwt.JWTClaimsSet;
+
+
+/**
+ * Parsing and serialisation benchmarks: compact JWS, JWT claims sets,
+ * Base64URL and JSON objects.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+
+	private JWSObject jwsObject;
+
+
+	private String compactJWS;
+
+
+	private String claimsJSON;
+
+
+	private byte[] bytes;
+
+
+	private Base64URL base64URL;
+
+
+	@Setup
+	public void setUp()
+		throws Exception {
+
+		JWTClaimsSet claimsSet = BenchmarkUtils.sampleClaimsSet(new Date());
+
+		claimsJSON = claimsSet.toString();
+
+		jwsObject = new JWSObject(new JWSHeader.Builder(JWSAlgorithm.HS256).keyID("1").type(JOSEObjectType.JWT).build(), new Payload(claimsSet.toJSONObject()));
+		jwsObject.sign(new MACSigner(BenchmarkUtils.randomBytes(32)));
+		compactJWS = jwsObject.serialize();
+
+		bytes = BenchmarkUtils.randomBytes(1024);
+		base64URL = Base64URL.encode(bytes);
+	}
+
+
+	@Benchmark
+	public JWSObject jwsObjectParse()
+		throws Exception {
+
+		return JWSObject.parse(compactJWS);
+	}
+
+
+	@Benchmark
+	public String jwsObjectSerialize() {
+
+		return jwsObject.serialize();
+	}
+
+
+	@Benchmark
+	public JWTClaimsSet jwtClaimsSetParse()
+		throws Exception {
+
+		return JWTClaimsSet.parse(claimsJSON);
+	}
+
+
+	@Benchmark
+	public Map<String, Object> jsonObjectParse()
+		throws Exception {
+
+		return JSONObjectUtils.parse(claimsJSON);
+	}
+
+
+	@Benchmark
+	public Base64URL base64URLEncode() {
+
+		return Base64URL.encode(bytes);
+	}
+
+
+	@Benchmark
+	public byte[] base64URLDecode() {
+
+		return base64URL.decode();
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.jmh;
+
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nimbusds.jose.*;
+import com.nimbusds.jose.crypto.AESEncrypter;
+import com.nimbusds.jose.crypto.DirectEncrypter;
+import com.nimbusds.jose.jca.PrefetchingSecureRandomSource;
+import com.nimbusds.jose.jca.StripedSecureRandomSource;
+import com.nimbusds.jose.jca.ThreadLocalSecureRandomSource;
+
+
+/**
+ * Multi-threaded JWE encryption with each way of provisioning the secure
+ * random generator for the CEK and IV generation: a new generator per
+ * operation (the default), a single shared generator and the thread-local,
+ * striped and prefetching secure random sources. The encrypters are shared
+ * between the threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class SecureRandomBenchmark {
+
+
+	@Param({"new", "shared", "thread-local", "striped", "prefetching"})
+	public String random;
+
+
+	@Param({"dir A128GCM", "A128KW A128CBC-HS256"})
+	public String algs;
+
+
+	private JWEHeader header;
+
+
+	private JWEEncrypter encrypter;
+
+
+	private final Payload payload = new Payload("Hello, world!");
+
+
+	@Setup
+	public void setUp()
+		throws Exception {
+
+		String[] parts = algs.split(" ");
+		JWEAlgorithm alg = JWEAlgorithm.parse(parts[0]);
+		EncryptionMethod enc = EncryptionMethod.parse(parts[1]);
+		header = new JWEHeader(alg, enc);
+
+		if (JWEAlgorithm.DIR.equals(alg)) {
+			SecretKey cek = new SecretKeySpec(BenchmarkUtils.randomBytes(enc.cekBitLength() / 8), "AES");
+			encrypter = new DirectEncrypter(cek);
+		} else {
+			SecretKey kek = new SecretKeySpec(BenchmarkUtils.randomBytes(16), "AES");
+			encrypter = new AESEncrypter(kek);
+		}
+
+		switch (random) {
+			case "new":
+				break;
+			case "shared":
+				encrypter.getJCAContext().setSecureRandom(new SecureRandom());
+				break;
+			case "thread-local":
+				encrypter.getJCAContext().setSecureRandomSource(new ThreadLocalSecureRandomSource());
+				break;
+			case "striped":
+				encrypter.getJCAContext().setSecureRandomSource(new StripedSecureRandomSource());
+				break;
+			case "prefetching":
+				encrypter.getJCAContext().setSecureRandomSource(new PrefetchingSecureRandomSource());
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown random: " + random);
+		}
+	}
+
+
+	@Benchmark
+	public String encrypt()
+		throws Exception {
+
+		JWEObject jweObject = new JWEObject(header, payload);
+		jweObject.encrypt(encrypter);
+		return jweObject.serialize();
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.jmh;
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nimbusds.jose.*;
+import com.nimbusds.jose.crypto.ECDH1PUDecrypter;
+import com.nimbusds.jose.crypto.ECDH1PUEncrypter;
+import com.nimbusds.jose.crypto.StaticSharedSecretCache;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+
+
+/**
+ * ECDH-1PU decryption of messages between the same sender and recipient,
+ * with the static shared secret (Zs) derived for each message and taken
+ * from a {@link StaticSharedSecretCache}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StaticSharedSecretCacheBenchmark {
+
+
+	@Param({"P-256", "P-384"})
+	public String crv;
+
+
+	@Param({"false", "true"})
+	public boolean cached;
+
+
+	private JWEObject jweObject;
+
+
+	private ECDH1PUDecrypter decrypter;
+
+
+	@Setup
+	public void setUp()
+		throws Exception {
+
+		Curve curve = Curve.parse(crv);
+		ECKey sender = new ECKeyGenerator(curve).generate();
+		ECKey recipient = new ECKeyGenerator(curve).generate();
+
+		JWEObject jwe = new JWEObject(new JWEHeader(JWEAlgorithm.ECDH_1PU_A128KW, EncryptionMethod.A128CBC_HS256), new Payload("Hello, world!"));
+		jwe.encrypt(new ECDH1PUEncrypter(sender.toECPrivateKey(), recipient.toECPublicKey()));
+		jweObject = JWEObject.parse(jwe.serialize());
+
+		decrypter = new ECDH1PUDecrypter(recipient.toECPrivateKey(), sender.toECPublicKey());
+		if (cached) {
+			decrypter.setStaticSharedSecretCache(new StaticSharedSecretCache());
+		}
+	}
+
+
+	@Benchmark
+	public byte[] decrypt()
+		throws Exception {
+
+		return decrypter.decrypt(
+			jweObject.getHeader(),
+			jweObject.getEncryptedKey(),
+			jweObject.getIV(),
+			jweObject.getCipherText(),
+			jweObject.getAuthTag());
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.jmh;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nimbusds.jose.*;
+import com.nimbusds.jose.crypto.DirectDecrypter;
+import com.nimbusds.jose.crypto.DirectEncrypter;
+
+
+/**
+ * Encryption and decryption of a large payload with {@link JWEObject} and
+ * with {@link StreamingJWE}, the output is discarded.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamingJWEBenchmark {
+
+
+	@Param({"A256GCM", "A128CBC-HS256"})
+	public String enc;
+
+
+	@Param({"1048576"})
+	public int size;
+
+
+	private static final OutputStream NULL_OUTPUT = new OutputStream() {
+		@Override
+		public void write(final int b) { }
+		@Override
+		public void write(final byte[] b, final int off, final int len) { }
+	};
+
+
+	private JWEHeader header;
+
+
+	private byte[] clearText;
+
+
+	private byte[] jwe;
+
+
+	private DirectEncrypter encrypter;
+
+
+	private DirectDecrypter decrypter;
+
+
+	@Setup
+	public void setUp()
+		throws Exception {
+
+		EncryptionMethod method = EncryptionMethod.parse(enc);
+		header = new JWEHeader(JWEAlgorithm.DIR, method);
+		clearText = BenchmarkUtils.randomBytes(size);
+		SecretKey key = new SecretKeySpec(BenchmarkUtils.randomBytes(method.cekBitLength() / 8), "AES");
+		encrypter = new DirectEncrypter(key);
+		decrypter = new DirectDecrypter(key);
+
+		JWEObject jweObject = new JWEObject(header, new Payload(clearText));
+		jweObject.encrypt(encrypter);
+		jwe = jweObject.serialize().getBytes("UTF-8");
+	}
+
+
+	@Benchmark
+	public String encryptJWEObject()
+		throws Exception {
+
+		JWEObject jweObject = new JWEObject(header, new Payload(clearText));
+		jweObject.encrypt(encrypter);
+		return jweObject.serialize();
+	}
+
+
+	@Benchmark
+	public JWEHeader encryptStreaming()
+		throws Exception {
+
+		return StreamingJWE.encrypt(header, new ByteArrayInputStream(clearText), encrypter, NULL_OUTPUT);
+	}
+
+
+	@Benchmark
+	public Payload decryptJWEObject()
+		throws Exception {
+
+		JWEObject jweObject = JWEObject.parse(new String(jwe, "UTF-8"));
+		jweObject.decrypt(decrypter);
+		return jweObject.getPayload();
+	}
+
+
+	@Benchmark
+	public JWEHeader decryptStreaming()
+		throws Exception {
+
+		return StreamingJWE.decrypt(new ByteArrayInputStream(jwe), decrypter, NULL_OUTPUT);
+	}
+}
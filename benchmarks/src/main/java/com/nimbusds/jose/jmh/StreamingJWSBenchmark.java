@@ -0,0 +1,111 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.jmh;
+
+
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.nimbusds.jose.*;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.MACVerifier;
+
+
+/**
+ * Signing and verification of a large unencoded (RFC 7797) detached
+ * payload with {@link JWSObject} and with {@link StreamingJWS}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamingJWSBenchmark {
+
+
+	@Param({"1048576"})
+	public int size;
+
+
+	private JWSHeader header;
+
+
+	private byte[] payload;
+
+
+	private String jws;
+
+
+	private MACSigner signer;
+
+
+	private MACVerifier verifier;
+
+
+	@Setup
+	public void setUp()
+		throws Exception {
+
+		header = new JWSHeader.Builder(JWSAlgorithm.HS256)
+			.base64URLEncodePayload(false)
+			.criticalParams(Collections.singleton(HeaderParameterNames.BASE64_URL_ENCODE_PAYLOAD))
+			.build();
+		payload = BenchmarkUtils.randomBytes(size);
+		byte[] secret = BenchmarkUtils.randomBytes(32);
+		signer = new MACSigner(secret);
+		verifier = new MACVerifier(secret);
+		jws = StreamingJWS.sign(header, new ByteArrayInputStream(payload), signer);
+	}
+
+
+	@Benchmark
+	public String signJWSObject()
+		throws Exception {
+
+		JWSObject jwsObject = new JWSObject(header, new Payload(payload));
+		jwsObject.sign(signer);
+		return jwsObject.serialize(true);
+	}
+
+
+	@Benchmark
+	public String signStreaming()
+		throws Exception {
+
+		return StreamingJWS.sign(header, new ByteArrayInputStream(payload), signer);
+	}
+
+
+	@Benchmark
+	public boolean verifyJWSObject()
+		throws Exception {
+
+		return JWSObject.parse(jws, new Payload(payload)).verify(verifier);
+	}
+
+
+	@Benchmark
+	public boolean verifyStreaming()
+		throws Exception {
+
+		return StreamingJWS.verify(jws, new ByteArrayInputStream(payload), verifier);
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose;
+
+
+import java.text.ParseException;
+
+import net.jcip.annotations.Immutable;
+
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jose.util.StandardCharset;
+
+
+/**
+ * Offset-based view of a JOSE object in compact encoding. The serialised
+ * object is encoded to a single byte array and the parts are located by
+ * their offsets in it, without creating intermediate strings. The signing
+ * input of a JWS object is the slice up to the second delimiter and can be
+ * passed as is to a {@link JWSSliceVerifier}.
+ *
+ * <p>Alternative to {@link JOSEObject#split}.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+@Immutable
+public final class CompactParts {
+
+
+	/**
+	 * The part delimiter.
+	 */
+	private static final byte DELIMITER = '.';
+
+
+	/**
+	 * The UTF-8 encoded compact serialisation, with any leading and
+	 * trailing whitespace removed.
+	 */
+	private final byte[] bytes;
+
+
+	/**
+	 * The positions of the part delimiters in the byte array.
+	 */
+	private final int[] delimiters;
+
+
+	/**
+	 * Creates a new compact parts instance.
+	 *
+	 * @param bytes      The UTF-8 encoded compact serialisation.
+	 * @param delimiters The positions of the part delimiters.
+	 */
+	private CompactParts(final byte[] bytes, final int[] delimiters) {
+		this.bytes = bytes;
+		this.delimiters = delimiters;
+	}
+
+
+	/**
+	 * Returns the number of parts, three for a JWS or unsecured object
+	 * and five for a JWE object.
+	 *
+	 * @return The number of parts.
+	 */
+	public int size() {
+
+		return delimiters.length + 1;
+	}
+
+
+	/**
+	 * Returns the offset of the specified part.
+	 *
+	 * @param index The part index.
+	 *
+	 * @return The offset in the byte array.
+	 */
+	public int getOffset(final int index) {
+
+		checkIndex(index);
+		return index == 0 ? 0 : delimiters[index - 1] + 1;
+	}
+
+
+	/**
+	 * Returns the length of the specified part.
+	 *
+	 * @param index The part index.
+	 *
+	 * @return The part length in bytes, zero if empty.
+	 */
+	public int getLength(final int index) {
+
+		checkIndex(index);
+		int end = index == delimiters.length ? bytes.length : delimiters[index];
+		return end - getOffset(index);
+	}
+
+
+	/**
+	 * Returns the specified part as a Base64URL value.
+	 *
+	 * @param index The part index.
+	 *
+	 * @return The Base64URL part.
+	 */
+	public Base64URL getPart(final int index) {
+
+		return new Base64URL(new String(bytes, getOffset(index), getLength(index), StandardCharset.UTF_8));
+	}
+
+
+	/**
+	 * Returns the length of the signing input of a JWS object, i.e. the
+	 * number of bytes preceding the second delimiter.
+	 *
+	 * @return The signing input length.
+	 */
+	public int getSigningInputLength() {
+
+		return delimiters[1];
+	}
+
+
+	/**
+	 * Returns the UTF-8 encoded compact serialisation. The returned array
+	 * is not copied and must not be modified.
+	 *
+	 * @return The byte array.
+	 */
+	byte[] getBytes() {
+
+		return bytes;
+	}
+
+
+	/**
+	 * Checks the specified part index.
+	 *
+	 * @param index The part index.
+	 */
+	private void checkIndex(final int index) {
+
+		if (index < 0 || index > delimiters.length) {
+			throw new IndexOutOfBoundsException("Invalid part index: " + index);
+		}
+	}
+
+
+	/**
+	 * Parses the specified JOSE object in compact encoding. The string
+	 * is encoded once, the part delimiters are then located in the
+	 * resulting byte array. The '.' delimiter is never part of a
+	 * multi-byte UTF-8 sequence.
+	 *
+	 * @param s The serialised JOSE object. Must not be {@code null}.
+	 *
+	 * @return The compact parts, three for a JWS or unsecured object and
+	 *         five for a JWE object.
+	 *
+	 * @throws ParseException If the string couldn't be split into three
+	 *                        or five parts.
+	 */
+	public static CompactParts parse(final String s)
+		throws ParseException {
+
+		final byte[] bytes = s.trim().getBytes(StandardCharset.UTF_8);
+
+		// We must have 2 (JWS) or 4 dots (JWE)
+		final int[] dots = new int[4];
+		int count = 0;
+
+		for (int i=0; i < bytes.length; i++) {
+
+			if (bytes[i] != DELIMITER) {
+				continue;
+			}
+
+			if (count == dots.length) {
+				throw new ParseException("Invalid serialized unsecured/JWS/JWE object: Too many part delimiters", 0);
+			}
+
+			dots[count++] = i;
+		}
+
+		switch (count) {
+			case 0:
+				throw new ParseException("Invalid serialized unsecured/JWS/JWE object: Missing part delimiters", 0);
+			case 1:
+				throw new ParseException("Invalid serialized unsecured/JWS/JWE object: Missing second delimiter", 0);
+			case 2:
+				return new CompactParts(bytes, new int[]{dots[0], dots[1]});
+			case 3:
+				throw new ParseException("Invalid serialized JWE object: Missing fourth delimiter", 0);
+			default:
+				return new CompactParts(bytes, dots);
+		}
+	}
+}
@@ -18,6 +18,10 @@
 package com.nimbusds.jose;
 
 
+import java.util.Collections;
+import java.util.Set;
+
+
 /**
  * JOSE header validation utility.
  */
@@ -51,4 +55,45 @@ class HeaderValidation {
 			}
 		}
 	}
+	
+	
+	/**
+	 * Ensures the parameter names in the JWE protected header, the shared
+	 * unprotected header and the per-recipient unprotected header are
+	 * disjoint.
+	 *
+	 * <p>See https://datatracker.ietf.org/doc/html/rfc7516#section-7.2.1
+	 *
+	 * @param protectedParamNames The parameter names in the JWE protected
+	 *                            header. Must not be {@code null}.
+	 * @param sharedHeader        The shared unprotected header,
+	 *                            {@code null} if not specified.
+	 * @param recipientHeader     The per-recipient unprotected header,
+	 *                            {@code null} if not specified.
+	 *
+	 * @throws IllegalHeaderException If the headers are not disjoint.
+	 */
+	static void ensureDisjoint(final Set<String> protectedParamNames,
+				   final UnprotectedHeader sharedHeader,
+				   final UnprotectedHeader recipientHeader)
+		throws IllegalHeaderException {
+		
+		Set<String> sharedParamNames = sharedHeader != null ? sharedHeader.getIncludedParams() : Collections.<String>emptySet();
+		
+		for (String name: sharedParamNames) {
+			if (protectedParamNames.contains(name)) {
+				throw new IllegalHeaderException("The parameters in the JWE protected header and the shared unprotected header must be disjoint");
+			}
+		}
+		
+		if (recipientHeader == null) {
+			return;
+		}
+		
+		for (String name: recipientHeader.getIncludedParams()) {
+			if (protectedParamNames.contains(name) || sharedParamNames.contains(name)) {
+				throw new IllegalHeaderException("The parameters in the JWE protected header, the shared unprotected header and the per-recipient unprotected header must be disjoint");
+			}
+		}
+	}
 }
@@ -31,7 +31,7 @@ import com.nimbusds.jose.util.JSONObjectUtils;
  * Encryption (JWE) secured objects serialisable to JSON.
  *
  * @author Vladimir Dzhuvinov
- * @version 2021-10-05
+ * @version 2022-06-09
  */
 public abstract class JOSEObjectJSON implements Serializable {
 	
@@ -172,7 +172,8 @@ public abstract class JOSEObjectJSON implements Serializable {
 	 * @param jsonObject The JSON object to parse. Must not be
 	 *                   {@code null}.
 	 *
-	 * @return The corresponding {@link JWSObjectJSON}.
+	 * @return The corresponding {@link JWSObjectJSON} or
+	 *         {@link JWEObjectJSON}.
 	 *
 	 * @throws ParseException If the JSON object couldn't be parsed to a
 	 *                        valid JWS or JWE secured object.
@@ -183,7 +184,7 @@ public abstract class JOSEObjectJSON implements Serializable {
 		if (jsonObject.containsKey("signature") || jsonObject.containsKey("signatures")) {
 			return JWSObjectJSON.parse(jsonObject);
 		} else if (jsonObject.containsKey("ciphertext")) {
-			throw new ParseException("JWE JSON not supported", 0); // TODO not supported yet
+			return JWEObjectJSON.parse(jsonObject);
 		} else {
 			throw new ParseException("Invalid JOSE object", 0);
 		}
@@ -195,7 +196,8 @@ public abstract class JOSEObjectJSON implements Serializable {
 	 *
 	 * @param json The JSON string to parse. Must not be {@code null}.
 	 *
-	 * @return The corresponding {@link JWSObjectJSON}.
+	 * @return The corresponding {@link JWSObjectJSON} or
+	 *         {@link JWEObjectJSON}.
 	 *
 	 * @throws ParseException If the string couldn't be parsed to a valid 
 	 *                        JWS or JWE secured object.
@@ -0,0 +1,91 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose;
+
+
+import net.jcip.annotations.Immutable;
+
+import com.nimbusds.jose.util.Base64URL;
+
+
+/**
+ * A Content Encryption Key (CEK) encrypted for a JSON Web Encryption (JWE)
+ * recipient, with the recipient's JWE header. See {@link JWEKeyEncrypter}.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+@Immutable
+public final class JWEEncryptedKey {
+
+
+	/**
+	 * The JWE header, with any parameters added by the key management.
+	 */
+	private final JWEHeader header;
+
+
+	/**
+	 * The encrypted key.
+	 */
+	private final Base64URL encryptedKey;
+
+
+	/**
+	 * Creates a new encrypted key.
+	 *
+	 * @param header       The JWE header, with any parameters added by the
+	 *                     key management, such as the ephemeral public
+	 *                     key. Must not be {@code null}.
+	 * @param encryptedKey The encrypted key. Must not be {@code null}.
+	 */
+	public JWEEncryptedKey(final JWEHeader header, final Base64URL encryptedKey) {
+
+		if (header == null) {
+			throw new IllegalArgumentException("The JWE header must not be null");
+		}
+		this.header = header;
+
+		if (encryptedKey == null) {
+			throw new IllegalArgumentException("The encrypted key must not be null");
+		}
+		this.encryptedKey = encryptedKey;
+	}
+
+
+	/**
+	 * Returns the JWE header.
+	 *
+	 * @return The JWE header, with any parameters added by the key
+	 *         management.
+	 */
+	public JWEHeader getHeader() {
+
+		return header;
+	}
+
+
+	/**
+	 * Returns the encrypted key.
+	 *
+	 * @return The encrypted key.
+	 */
+	public Base64URL getEncryptedKey() {
+
+		return encryptedKey;
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose;
+
+
+import javax.crypto.SecretKey;
+
+
+/**
+ * JSON Web Encryption (JWE) encrypter which can encrypt a supplied Content
+ * Encryption Key (CEK) alone, without the content. Enables a
+ * {@link JWEObjectJSON JWE secured object with multiple recipients} to
+ * encrypt the content once and the CEK for each recipient.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+public interface JWEKeyEncrypter extends JWEProvider {
+
+
+	/**
+	 * Encrypts the specified Content Encryption Key (CEK) for the
+	 * recipient.
+	 *
+	 * @param header The JWE header for the recipient. Must specify a
+	 *               supported JWE key encryption or key agreement with
+	 *               key wrapping algorithm. Must not be {@code null}.
+	 * @param cek    The CEK. Must not be {@code null}.
+	 *
+	 * @return The encrypted CEK with the JWE header, updated with any
+	 *         parameters added by the key management, such as the
+	 *         ephemeral public key.
+	 *
+	 * @throws JOSEException If the JWE algorithm is not supported or if
+	 *                       encryption failed for some other internal
+	 *                       reason.
+	 */
+	JWEEncryptedKey encryptKey(final JWEHeader header, final SecretKey cek)
+		throws JOSEException;
+}
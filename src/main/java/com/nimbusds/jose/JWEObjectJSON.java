@@ -0,0 +1,1105 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose;
+
+
+import java.text.ParseException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import javax.crypto.SecretKey;
+
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import com.nimbusds.jose.crypto.impl.ContentCryptoProvider;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jose.util.JSONArrayUtils;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import com.nimbusds.jose.util.Pair;
+
+
+/**
+ * JSON Web Encryption (JWE) secured object with one or more recipients,
+ * serialisable to
+ * <a href="https://datatracker.ietf.org/doc/html/rfc7516#section-7.2">JSON</a>.
+ *
+ * <p>The content is encrypted once, with a single Content Encryption Key
+ * (CEK), and the CEK is encrypted for each recipient with a
+ * {@link JWEKeyEncrypter}. The CEK encryptions may run in parallel on a
+ * supplied executor. The encryption method ({@code enc}) and the optional
+ * compression algorithm ({@code zip}) are set in the JWE protected header,
+ * the key management algorithm ({@code alg}) and the other parameters of
+ * each recipient in its unprotected header.
+ *
+ * <p>Example:
+ *
+ * <pre>
+ * JWEObjectJSON jweObject = new JWEObjectJSON(EncryptionMethod.A256GCM, new Payload("Hello, world!"));
+ *
+ * jweObject.encrypt(Arrays.asList(
+ *         Pair.&lt;UnprotectedHeader, JWEKeyEncrypter&gt;of(
+ *                 new UnprotectedHeader.Builder().param("alg", "RSA-OAEP-256").keyID("1").build(),
+ *                 new RSAEncrypter(rsaPublicKey)),
+ *         Pair.&lt;UnprotectedHeader, JWEKeyEncrypter&gt;of(
+ *                 new UnprotectedHeader.Builder().param("alg", "ECDH-ES+A256KW").keyID("2").build(),
+ *                 new ECDHEncrypter(ecPublicKey))),
+ *         executor);
+ *
+ * String json = jweObject.serializeGeneral();
+ * </pre>
+ *
+ * <p>The JWE {@code aad} member is not supported.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+@ThreadSafe
+public class JWEObjectJSON extends JOSEObjectJSON {
+	
+	
+	private static final long serialVersionUID = 1L;
+	
+	
+	/**
+	 * Individual recipient in a JWE secured object serialisable to JSON.
+	 */
+	@Immutable
+	public static final class Recipient {
+		
+		
+		/**
+		 * The complete JWE header of the recipient.
+		 */
+		private final JWEHeader header;
+		
+		
+		/**
+		 * The per-recipient unprotected header, {@code null} if none.
+		 */
+		private final UnprotectedHeader unprotectedHeader;
+		
+		
+		/**
+		 * The encrypted key, {@code null} if none.
+		 */
+		private final Base64URL encryptedKey;
+		
+		
+		/**
+		 * Creates a new recipient.
+		 *
+		 * @param header            The complete JWE header. Must not
+		 *                          be {@code null}.
+		 * @param unprotectedHeader The per-recipient unprotected
+		 *                          header, {@code null} if none.
+		 * @param encryptedKey      The encrypted key, {@code null} if
+		 *                          none.
+		 */
+		private Recipient(final JWEHeader header,
+				  final UnprotectedHeader unprotectedHeader,
+				  final Base64URL encryptedKey) {
+			
+			Objects.requireNonNull(header);
+			this.header = header;
+			this.unprotectedHeader = unprotectedHeader;
+			this.encryptedKey = encryptedKey;
+		}
+		
+		
+		/**
+		 * Returns the complete JWE header of the recipient, the union
+		 * of the JWE protected header, the shared unprotected header
+		 * and the per-recipient unprotected header.
+		 *
+		 * @return The JWE header.
+		 */
+		public JWEHeader getHeader() {
+			return header;
+		}
+		
+		
+		/**
+		 * Returns the per-recipient unprotected header.
+		 *
+		 * @return The per-recipient unprotected header, {@code null}
+		 *         if none.
+		 */
+		public UnprotectedHeader getUnprotectedHeader() {
+			return unprotectedHeader;
+		}
+		
+		
+		/**
+		 * Returns the encrypted key.
+		 *
+		 * @return The encrypted key, {@code null} if none.
+		 */
+		public Base64URL getEncryptedKey() {
+			return encryptedKey;
+		}
+		
+		
+		/**
+		 * Returns a JSON object representation for use in the general
+		 * and flattened serialisations.
+		 *
+		 * @return The JSON object.
+		 */
+		private Map<String, Object> toJSONObject() {
+			
+			Map<String, Object> jsonObject = JSONObjectUtils.newJSONObject();
+			
+			if (unprotectedHeader != null && ! unprotectedHeader.getIncludedParams().isEmpty()) {
+				jsonObject.put("header", unprotectedHeader.toJSONObject());
+			}
+			
+			if (encryptedKey != null) {
+				jsonObject.put("encrypted_key", encryptedKey.toString());
+			}
+			
+			return jsonObject;
+		}
+	}
+	
+	
+	/**
+	 * The Base64URL-encoded JWE protected header.
+	 */
+	private final Base64URL protectedHeader;
+	
+	
+	/**
+	 * The JWE protected header parameters.
+	 */
+	private final Map<String, Object> protectedHeaderParams;
+	
+	
+	/**
+	 * The encryption method.
+	 */
+	private final EncryptionMethod enc;
+	
+	
+	/**
+	 * The shared unprotected header, {@code null} if none.
+	 */
+	private final UnprotectedHeader sharedUnprotectedHeader;
+	
+	
+	/**
+	 * The recipients, empty if not encrypted.
+	 */
+	private volatile List<Recipient> recipients;
+	
+	
+	/**
+	 * The initialisation vector, {@code null} if not encrypted or none.
+	 */
+	private volatile Base64URL iv;
+	
+	
+	/**
+	 * The cipher text, {@code null} if not encrypted.
+	 */
+	private volatile Base64URL cipherText;
+	
+	
+	/**
+	 * The authentication tag, {@code null} if not encrypted or none.
+	 */
+	private volatile Base64URL authTag;
+	
+	
+	/**
+	 * The JWE object state.
+	 */
+	private volatile JWEObject.State state;
+	
+	
+	/**
+	 * Creates a new to-be-encrypted JSON Web Encryption (JWE) secured
+	 * object with the specified encryption method and payload.
+	 *
+	 * @param enc     The encryption method. Must not be {@code null}.
+	 * @param payload The payload. Must not be {@code null}.
+	 */
+	public JWEObjectJSON(final EncryptionMethod enc, final Payload payload) {
+		
+		this(enc, null, payload);
+	}
+	
+	
+	/**
+	 * Creates a new to-be-encrypted JSON Web Encryption (JWE) secured
+	 * object with the specified encryption method, compression algorithm
+	 * and payload.
+	 *
+	 * @param enc     The encryption method. Must be one of the
+	 *                AES/CBC/HMAC-SHA2, AES/GCM or XC20P methods. Must
+	 *                not be {@code null}.
+	 * @param zip     The compression algorithm, {@code null} if none.
+	 * @param payload The payload. Must not be {@code null}.
+	 */
+	public JWEObjectJSON(final EncryptionMethod enc,
+			     final CompressionAlgorithm zip,
+			     final Payload payload) {
+		
+		super(payload);
+		
+		Objects.requireNonNull(enc, "The encryption method must not be null");
+		Objects.requireNonNull(payload, "The payload must not be null");
+		
+		if (EncryptionMethod.A128CBC_HS256_DEPRECATED.equals(enc) || EncryptionMethod.A256CBC_HS512_DEPRECATED.equals(enc)) {
+			// The deprecated methods bind the encrypted key
+			throw new IllegalArgumentException("The " + enc + " encryption method is not supported with multiple recipients");
+		}
+		
+		Map<String, Object> params = JSONObjectUtils.newJSONObject();
+		params.put(HeaderParameterNames.ENCRYPTION_ALGORITHM, enc.getName());
+		if (zip != null) {
+			params.put(HeaderParameterNames.COMPRESSION_ALGORITHM, zip.getName());
+		}
+		
+		this.enc = enc;
+		protectedHeaderParams = Collections.unmodifiableMap(params);
+		protectedHeader = Base64URL.encode(JSONObjectUtils.toJSONString(params));
+		sharedUnprotectedHeader = null;
+		recipients = Collections.emptyList();
+		state = JWEObject.State.UNENCRYPTED;
+	}
+	
+	
+	/**
+	 * Creates a new encrypted JSON Web Encryption (JWE) secured object.
+	 *
+	 * @param protectedHeader         The Base64URL-encoded JWE protected
+	 *                                header. Must not be {@code null}.
+	 * @param protectedHeaderParams   The JWE protected header parameters.
+	 *                                Must not be {@code null}.
+	 * @param enc                     The encryption method. Must not be
+	 *                                {@code null}.
+	 * @param sharedUnprotectedHeader The shared unprotected header,
+	 *                                {@code null} if none.
+	 * @param recipients              The recipients. Must be at least
+	 *                                one.
+	 * @param iv                      The initialisation vector,
+	 *                                {@code null} if none.
+	 * @param cipherText              The cipher text. Must not be
+	 *                                {@code null}.
+	 * @param authTag                 The authentication tag,
+	 *                                {@code null} if none.
+	 */
+	private JWEObjectJSON(final Base64URL protectedHeader,
+			      final Map<String, Object> protectedHeaderParams,
+			      final EncryptionMethod enc,
+			      final UnprotectedHeader sharedUnprotectedHeader,
+			      final List<Recipient> recipients,
+			      final Base64URL iv,
+			      final Base64URL cipherText,
+			      final Base64URL authTag) {
+		
+		super(null);
+		
+		this.protectedHeader = protectedHeader;
+		this.protectedHeaderParams = Collections.unmodifiableMap(protectedHeaderParams);
+		this.enc = enc;
+		this.sharedUnprotectedHeader = sharedUnprotectedHeader;
+		
+		if (recipients.isEmpty()) {
+			throw new IllegalArgumentException("At least one recipient required");
+		}
+		
+		this.recipients = Collections.unmodifiableList(new ArrayList<>(recipients));
+		this.iv = iv;
+		this.cipherText = Objects.requireNonNull(cipherText);
+		this.authTag = authTag;
+		state = JWEObject.State.ENCRYPTED;
+	}
+	
+	
+	/**
+	 * Returns the Base64URL-encoded JWE protected header.
+	 *
+	 * @return The JWE protected header.
+	 */
+	public Base64URL getProtectedHeader() {
+		
+		return protectedHeader;
+	}
+	
+	
+	/**
+	 * Returns the shared unprotected header.
+	 *
+	 * @return The shared unprotected header, {@code null} if none.
+	 */
+	public UnprotectedHeader getSharedUnprotectedHeader() {
+		
+		return sharedUnprotectedHeader;
+	}
+	
+	
+	/**
+	 * Returns the encryption method.
+	 *
+	 * @return The encryption method.
+	 */
+	public EncryptionMethod getEncryptionMethod() {
+		
+		return enc;
+	}
+	
+	
+	/**
+	 * Returns the recipients.
+	 *
+	 * @return The recipients, as an unmodifiable list, empty list if not
+	 *         encrypted.
+	 */
+	public List<Recipient> getRecipients() {
+		
+		return recipients;
+	}
+	
+	
+	/**
+	 * Returns the recipient with the specified key ID ({@code kid}).
+	 *
+	 * @param kid The key ID. Must not be {@code null}.
+	 *
+	 * @return The first recipient with the key ID, {@code null} if none.
+	 */
+	public Recipient getRecipient(final String kid) {
+		
+		for (Recipient recipient: recipients) {
+			if (kid.equals(recipient.getHeader().getKeyID())) {
+				return recipient;
+			}
+		}
+		
+		return null;
+	}
+	
+	
+	/**
+	 * Returns the initialisation vector (IV).
+	 *
+	 * @return The initialisation vector, {@code null} if not encrypted or
+	 *         none.
+	 */
+	public Base64URL getIV() {
+		
+		return iv;
+	}
+	
+	
+	/**
+	 * Returns the cipher text.
+	 *
+	 * @return The cipher text, {@code null} if not encrypted.
+	 */
+	public Base64URL getCipherText() {
+		
+		return cipherText;
+	}
+	
+	
+	/**
+	 * Returns the authentication tag.
+	 *
+	 * @return The authentication tag, {@code null} if not encrypted or
+	 *         none.
+	 */
+	public Base64URL getAuthTag() {
+		
+		return authTag;
+	}
+	
+	
+	/**
+	 * Returns the state of this JWE secured object.
+	 *
+	 * @return The state.
+	 */
+	public JWEObject.State getState() {
+		
+		return state;
+	}
+	
+	
+	/**
+	 * Encrypts this JWE secured object for the specified recipients in
+	 * the calling thread. See {@link #encrypt(List, Executor)}.
+	 *
+	 * @param recipients The per-recipient unprotected headers, each
+	 *                   specifying the JWE algorithm ({@code alg}), with
+	 *                   their key encrypters. Must be at least one.
+	 *
+	 * @throws IllegalStateException If the JWE object is not in an
+	 *                               unencrypted state.
+	 * @throws JOSEException         If the JWE object couldn't be
+	 *                               encrypted.
+	 */
+	public void encrypt(final List<Pair<UnprotectedHeader, JWEKeyEncrypter>> recipients)
+		throws JOSEException {
+		
+		encrypt(recipients, null);
+	}
+	
+	
+	/**
+	 * Encrypts this JWE secured object for the specified recipients. The
+	 * payload is encrypted once with a generated Content Encryption Key
+	 * (CEK), the CEK is encrypted for each recipient.
+	 *
+	 * <p>The CEK encryptions are submitted to the specified executor.
+	 * The calling thread takes up the encryptions not yet started by the
+	 * executor, or rejected by it, and returns when all are complete.
+	 *
+	 * @param recipients The per-recipient unprotected headers, each
+	 *                   specifying the JWE algorithm ({@code alg}), with
+	 *                   their key encrypters. Must be at least one.
+	 * @param executor   The executor for the CEK encryptions,
+	 *                   {@code null} to encrypt in the calling thread
+	 *                   only.
+	 *
+	 * @throws IllegalStateException If the JWE object is not in an
+	 *                               unencrypted state.
+	 * @throws JOSEException         If the JWE object couldn't be
+	 *                               encrypted.
+	 */
+	public synchronized void encrypt(final List<Pair<UnprotectedHeader, JWEKeyEncrypter>> recipients,
+					 final Executor executor)
+		throws JOSEException {
+		
+		if (state != JWEObject.State.UNENCRYPTED) {
+			throw new IllegalStateException("The JWE object must be in an unencrypted state");
+		}
+		
+		if (recipients.isEmpty()) {
+			throw new IllegalArgumentException("At least one recipient required");
+		}
+		
+		final int n = recipients.size();
+		final JWEHeader[] headers = new JWEHeader[n];
+		
+		for (int i=0; i < n; i++) {
+			
+			UnprotectedHeader unprotectedHeader = recipients.get(i).getLeft();
+			JWEKeyEncrypter encrypter = recipients.get(i).getRight();
+			
+			try {
+				headers[i] = toJWEHeader(unprotectedHeader);
+			} catch (IllegalHeaderException | ParseException e) {
+				throw new IllegalArgumentException("Invalid recipient header: " + e.getMessage(), e);
+			}
+			
+			if (! encrypter.supportedJWEAlgorithms().contains(headers[i].getAlgorithm())) {
+				throw new JOSEException("The " + headers[i].getAlgorithm() +
+					" algorithm is not supported by the JWE encrypter: Supported algorithms: " + encrypter.supportedJWEAlgorithms());
+			}
+		}
+		
+		final JWEHeader contentHeader = headers[0];
+		final JWEKeyEncrypter contentEncrypter = recipients.get(0).getRight();
+		
+		if (! contentEncrypter.supportedEncryptionMethods().contains(contentHeader.getEncryptionMethod())) {
+			throw new JOSEException("The " + contentHeader.getEncryptionMethod() +
+				" encryption method or key size is not supported by the JWE encrypter: Supported methods: " + contentEncrypter.supportedEncryptionMethods());
+		}
+		
+		final SecretKey cek = ContentCryptoProvider.generateCEK(
+			contentHeader.getEncryptionMethod(),
+			contentEncrypter.getJCAContext().getSecureRandom());
+		
+		// Encrypt the CEK for the recipients on the executor and the
+		// content in the calling thread meanwhile
+		final List<FutureTask<JWEEncryptedKey>> tasks = submitKeyEncryptions(recipients, headers, cek, executor);
+		
+		JWECryptoParts parts;
+		try {
+			// The AAD is computed from the JWE protected header only,
+			// the parsed Base64URL of the recipient header
+			parts = ContentCryptoProvider.encrypt(contentHeader, getPayload().toBytes(), cek, null, contentEncrypter.getJCAContext());
+		} catch (Exception e) {
+			cancel(tasks);
+			if (e instanceof JOSEException) {
+				throw (JOSEException) e;
+			}
+			// Prevent throwing unchecked exceptions at this point,
+			// see issue #20
+			throw new JOSEException(e.getMessage(), e);
+		}
+		
+		final JWEEncryptedKey[] encryptedKeys = awaitKeyEncryptions(tasks);
+		
+		List<Recipient> recipientList = new ArrayList<>(n);
+		
+		for (int i=0; i < n; i++) {
+			
+			UnprotectedHeader unprotectedHeader = addKeyManagementParams(recipients.get(i).getLeft(), encryptedKeys[i].getHeader());
+			
+			try {
+				recipientList.add(new Recipient(toJWEHeader(unprotectedHeader), unprotectedHeader, encryptedKeys[i].getEncryptedKey()));
+			} catch (IllegalHeaderException | ParseException e) {
+				throw new JOSEException("Invalid recipient header: " + e.getMessage(), e);
+			}
+		}
+		
+		this.recipients = Collections.unmodifiableList(recipientList);
+		iv = parts.getInitializationVector();
+		cipherText = parts.getCipherText();
+		authTag = parts.getAuthenticationTag();
+		state = JWEObject.State.ENCRYPTED;
+	}
+	
+	
+	/**
+	 * Submits the encryption of the specified Content Encryption Key
+	 * (CEK) for each recipient to the specified executor.
+	 *
+	 * @param recipients The recipients with their key encrypters.
+	 * @param headers    The complete JWE headers of the recipients.
+	 * @param cek        The CEK.
+	 * @param executor   The executor, {@code null} if none.
+	 *
+	 * @return The CEK encryption tasks, in the order of the recipients.
+	 */
+	private static List<FutureTask<JWEEncryptedKey>> submitKeyEncryptions(final List<Pair<UnprotectedHeader, JWEKeyEncrypter>> recipients,
+									      final JWEHeader[] headers,
+									      final SecretKey cek,
+									      final Executor executor) {
+		
+		final List<FutureTask<JWEEncryptedKey>> tasks = new ArrayList<>(headers.length);
+		
+		for (int i=0; i < headers.length; i++) {
+			
+			final JWEHeader header = headers[i];
+			final JWEKeyEncrypter encrypter = recipients.get(i).getRight();
+			
+			FutureTask<JWEEncryptedKey> task = new FutureTask<>(new Callable<JWEEncryptedKey>() {
+				@Override
+				public JWEEncryptedKey call() throws JOSEException {
+					return encrypter.encryptKey(header, cek);
+				}
+			});
+			tasks.add(task);
+			
+			if (executor != null) {
+				try {
+					executor.execute(task);
+				} catch (RejectedExecutionException e) {
+					// Run by the calling thread
+				}
+			}
+		}
+		
+		return tasks;
+	}
+	
+	
+	/**
+	 * Runs the specified CEK encryption tasks not started by the executor
+	 * in the calling thread and waits for the others to complete.
+	 *
+	 * @param tasks The CEK encryption tasks.
+	 *
+	 * @return The encrypted keys, in the order of the tasks.
+	 *
+	 * @throws JOSEException If a CEK encryption failed.
+	 */
+	private static JWEEncryptedKey[] awaitKeyEncryptions(final List<FutureTask<JWEEncryptedKey>> tasks)
+		throws JOSEException {
+		
+		// Started and completed tasks are not run again
+		for (FutureTask<JWEEncryptedKey> task: tasks) {
+			task.run();
+		}
+		
+		final JWEEncryptedKey[] encryptedKeys = new JWEEncryptedKey[tasks.size()];
+		boolean interrupted = false;
+		
+		try {
+			for (int i=0; i < encryptedKeys.length; i++) {
+				while (true) {
+					try {
+						encryptedKeys[i] = tasks.get(i).get();
+						break;
+					} catch (InterruptedException e) {
+						// Finish the encryption, restore the flag on return
+						interrupted = true;
+					} catch (ExecutionException e) {
+						cancel(tasks);
+						Throwable cause = e.getCause();
+						if (cause instanceof JOSEException) {
+							throw (JOSEException) cause;
+						} else if (cause instanceof Error) {
+							throw (Error) cause;
+						}
+						// Prevent throwing unchecked exceptions at this
+						// point, see issue #20
+						throw new JOSEException(cause.getMessage(), cause);
+					}
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		return encryptedKeys;
+	}
+	
+	
+	/**
+	 * Cancels the specified CEK encryption tasks not started yet.
+	 *
+	 * @param tasks The CEK encryption tasks.
+	 */
+	private static void cancel(final List<FutureTask<JWEEncryptedKey>> tasks) {
+		
+		for (FutureTask<JWEEncryptedKey> task: tasks) {
+			task.cancel(false);
+		}
+	}
+	
+	
+	/**
+	 * Adds the parameters set by the key management, such as the
+	 * ephemeral public key, to the specified per-recipient unprotected
+	 * header.
+	 *
+	 * @param unprotectedHeader The per-recipient unprotected header.
+	 * @param updatedHeader     The JWE header returned by the key
+	 *                          encrypter.
+	 *
+	 * @return The per-recipient unprotected header.
+	 */
+	private UnprotectedHeader addKeyManagementParams(final UnprotectedHeader unprotectedHeader,
+							 final JWEHeader updatedHeader) {
+		
+		UnprotectedHeader.Builder builder = new UnprotectedHeader.Builder();
+		
+		for (String name: unprotectedHeader.getIncludedParams()) {
+			builder.param(name, unprotectedHeader.getParam(name));
+		}
+		
+		for (Map.Entry<String, Object> param: updatedHeader.toJSONObject().entrySet()) {
+			if (! protectedHeaderParams.containsKey(param.getKey()) &&
+			    ! unprotectedHeader.getIncludedParams().contains(param.getKey())) {
+				builder.param(param.getKey(), param.getValue());
+			}
+		}
+		
+		return builder.build();
+	}
+	
+	
+	/**
+	 * Returns the complete JWE header for the specified per-recipient
+	 * unprotected header. The header Base64URL, used for the Additional
+	 * Authenticated Data (AAD), is set to the JWE protected header.
+	 *
+	 * @param unprotectedHeader The per-recipient unprotected header,
+	 *                          {@code null} if none.
+	 *
+	 * @return The JWE header.
+	 *
+	 * @throws IllegalHeaderException If the headers are not disjoint.
+	 * @throws ParseException         If the JWE header is invalid.
+	 */
+	private JWEHeader toJWEHeader(final UnprotectedHeader unprotectedHeader)
+		throws IllegalHeaderException, ParseException {
+		
+		return toJWEHeader(protectedHeader, protectedHeaderParams, sharedUnprotectedHeader, unprotectedHeader);
+	}
+	
+	
+	/**
+	 * Returns the complete JWE header, the union of the specified
+	 * headers.
+	 *
+	 * @param protectedHeader         The Base64URL-encoded JWE protected
+	 *                                header.
+	 * @param protectedHeaderParams   The JWE protected header parameters.
+	 * @param sharedUnprotectedHeader The shared unprotected header,
+	 *                                {@code null} if none.
+	 * @param unprotectedHeader       The per-recipient unprotected
+	 *                                header, {@code null} if none.
+	 *
+	 * @return The JWE header.
+	 *
+	 * @throws IllegalHeaderException If the headers are not disjoint.
+	 * @throws ParseException         If the JWE header is invalid.
+	 */
+	private static JWEHeader toJWEHeader(final Base64URL protectedHeader,
+					     final Map<String, Object> protectedHeaderParams,
+					     final UnprotectedHeader sharedUnprotectedHeader,
+					     final UnprotectedHeader unprotectedHeader)
+		throws IllegalHeaderException, ParseException {
+		
+		HeaderValidation.ensureDisjoint(protectedHeaderParams.keySet(), sharedUnprotectedHeader, unprotectedHeader);
+		
+		Map<String, Object> params = JSONObjectUtils.newJSONObject();
+		params.putAll(protectedHeaderParams);
+		if (sharedUnprotectedHeader != null) {
+			params.putAll(sharedUnprotectedHeader.toJSONObject());
+		}
+		if (unprotectedHeader != null) {
+			params.putAll(unprotectedHeader.toJSONObject());
+		}
+		
+		if (params.get(HeaderParameterNames.ALGORITHM) == null) {
+			throw new ParseException("Missing JWE \"alg\" parameter", 0);
+		}
+		
+		return JWEHeader.parse(params, protectedHeader);
+	}
+	
+	
+	/**
+	 * Decrypts this JWE secured object with the specified decrypter. If
+	 * there is more than one recipient the decryption is attempted for
+	 * each recipient with a JWE algorithm supported by the decrypter,
+	 * until successful. Use {@link #decrypt(String, JWEDecrypter)} to
+	 * select the recipient by key ID.
+	 *
+	 * @param decrypter The JWE decrypter. Must not be {@code null}.
+	 *
+	 * @throws IllegalStateException If the JWE object is not in an
+	 *                               encrypted state.
+	 * @throws JOSEException         If the JWE object couldn't be
+	 *                               decrypted.
+	 */
+	public synchronized void decrypt(final JWEDecrypter decrypter)
+		throws JOSEException {
+		
+		ensureEncryptedState();
+		
+		JOSEException lastException = null;
+		
+		for (Recipient recipient: recipients) {
+			
+			if (recipients.size() > 1 && ! decrypter.supportedJWEAlgorithms().contains(recipient.getHeader().getAlgorithm())) {
+				continue;
+			}
+			
+			try {
+				decrypt(recipient, decrypter);
+				return;
+			} catch (JOSEException e) {
+				lastException = e;
+			}
+		}
+		
+		if (lastException != null) {
+			throw lastException;
+		}
+		
+		throw new JOSEException("No recipient with a JWE algorithm supported by the JWE decrypter: Supported algorithms: " + decrypter.supportedJWEAlgorithms());
+	}
+	
+	
+	/**
+	 * Decrypts this JWE secured object for the recipient with the
+	 * specified key ID ({@code kid}).
+	 *
+	 * @param kid       The key ID of the recipient. Must not be
+	 *                  {@code null}.
+	 * @param decrypter The JWE decrypter. Must not be {@code null}.
+	 *
+	 * @throws IllegalStateException If the JWE object is not in an
+	 *                               encrypted state.
+	 * @throws JOSEException         If there is no recipient with the
+	 *                               key ID or the JWE object couldn't be
+	 *                               decrypted.
+	 */
+	public synchronized void decrypt(final String kid, final JWEDecrypter decrypter)
+		throws JOSEException {
+		
+		ensureEncryptedState();
+		
+		Recipient recipient = getRecipient(kid);
+		
+		if (recipient == null) {
+			throw new JOSEException("No recipient with key ID " + kid);
+		}
+		
+		decrypt(recipient, decrypter);
+	}
+	
+	
+	/**
+	 * Decrypts this JWE secured object for the specified recipient.
+	 *
+	 * @param recipient The recipient.
+	 * @param decrypter The JWE decrypter.
+	 *
+	 * @throws JOSEException If the JWE object couldn't be decrypted.
+	 */
+	private void decrypt(final Recipient recipient, final JWEDecrypter decrypter)
+		throws JOSEException {
+		
+		try {
+			setPayload(new Payload(decrypter.decrypt(
+				recipient.getHeader(),
+				recipient.getEncryptedKey(),
+				getIV(),
+				getCipherText(),
+				getAuthTag())));
+			
+		} catch (JOSEException e) {
+			
+			throw e;
+			
+		} catch (Exception e) {
+			
+			// Prevent throwing unchecked exceptions at this point,
+			// see issue #20
+			throw new JOSEException(e.getMessage(), e);
+		}
+		
+		state = JWEObject.State.DECRYPTED;
+	}
+	
+	
+	/**
+	 * Ensures the current state is encrypted.
+	 *
+	 * @throws IllegalStateException If the current state is not
+	 *                               encrypted.
+	 */
+	private void ensureEncryptedState() {
+		
+		if (state != JWEObject.State.ENCRYPTED) {
+			throw new IllegalStateException("The JWE object must be in an encrypted state");
+		}
+	}
+	
+	
+	/**
+	 * Returns the JSON object members common to the general and flattened
+	 * serialisations.
+	 *
+	 * @return The JSON object.
+	 */
+	private Map<String, Object> toJSONObject() {
+		
+		if (state == JWEObject.State.UNENCRYPTED) {
+			throw new IllegalStateException("The JWE object must be in an encrypted or decrypted state");
+		}
+		
+		Map<String, Object> jsonObject = JSONObjectUtils.newJSONObject();
+		jsonObject.put("protected", protectedHeader.toString());
+		
+		if (sharedUnprotectedHeader != null && ! sharedUnprotectedHeader.getIncludedParams().isEmpty()) {
+			jsonObject.put("unprotected", sharedUnprotectedHeader.toJSONObject());
+		}
+		
+		if (iv != null) {
+			jsonObject.put("iv", iv.toString());
+		}
+		
+		jsonObject.put("ciphertext", cipherText.toString());
+		
+		if (authTag != null) {
+			jsonObject.put("tag", authTag.toString());
+		}
+		
+		return jsonObject;
+	}
+	
+	
+	@Override
+	public Map<String, Object> toGeneralJSONObject() {
+		
+		Map<String, Object> jsonObject = toJSONObject();
+		
+		List<Object> recipientsJSONArray = JSONArrayUtils.newJSONArray();
+		
+		for (Recipient recipient: recipients) {
+			recipientsJSONArray.add(recipient.toJSONObject());
+		}
+		
+		jsonObject.put("recipients", recipientsJSONArray);
+		
+		return jsonObject;
+	}
+	
+	
+	@Override
+	public Map<String, Object> toFlattenedJSONObject() {
+		
+		Map<String, Object> jsonObject = toJSONObject();
+		
+		if (recipients.size() != 1) {
+			throw new IllegalStateException("The flattened JWE JSON serialization requires exactly one recipient");
+		}
+		
+		jsonObject.putAll(recipients.get(0).toJSONObject());
+		
+		return jsonObject;
+	}
+	
+	
+	@Override
+	public String serializeGeneral() {
+		return JSONObjectUtils.toJSONString(toGeneralJSONObject());
+	}
+	
+	
+	@Override
+	public String serializeFlattened() {
+		return JSONObjectUtils.toJSONString(toFlattenedJSONObject());
+	}
+	
+	
+	/**
+	 * Parses a recipient from the specified JSON object.
+	 *
+	 * @param jsonObject              The JSON object, the top-level
+	 *                                object in the flattened
+	 *                                serialisation.
+	 * @param protectedHeader         The Base64URL-encoded JWE protected
+	 *                                header.
+	 * @param protectedHeaderParams   The JWE protected header parameters.
+	 * @param sharedUnprotectedHeader The shared unprotected header,
+	 *                                {@code null} if none.
+	 *
+	 * @return The recipient.
+	 *
+	 * @throws ParseException If parsing failed.
+	 */
+	private static Recipient parseRecipient(final Map<String, Object> jsonObject,
+						final Base64URL protectedHeader,
+						final Map<String, Object> protectedHeaderParams,
+						final UnprotectedHeader sharedUnprotectedHeader)
+		throws ParseException {
+		
+		UnprotectedHeader unprotectedHeader = UnprotectedHeader.parse(JSONObjectUtils.getJSONObject(jsonObject, "header"));
+		
+		JWEHeader header;
+		try {
+			header = toJWEHeader(protectedHeader, protectedHeaderParams, sharedUnprotectedHeader, unprotectedHeader);
+		} catch (IllegalHeaderException e) {
+			throw new ParseException(e.getMessage(), 0);
+		}
+		
+		return new Recipient(header, unprotectedHeader, JSONObjectUtils.getBase64URL(jsonObject, "encrypted_key"));
+	}
+	
+	
+	/**
+	 * Parses a JWE secured object from the specified JSON object
+	 * representation.
+	 *
+	 * @param jsonObject The JSON object to parse. Must not be
+	 *                   {@code null}.
+	 *
+	 * @return The JWE secured object.
+	 *
+	 * @throws ParseException If the JSON object couldn't be parsed to a
+	 *                        JWE secured object.
+	 */
+	public static JWEObjectJSON parse(final Map<String, Object> jsonObject)
+		throws ParseException {
+		
+		Base64URL protectedHeader = JSONObjectUtils.getBase64URL(jsonObject, "protected");
+		
+		if (protectedHeader == null) {
+			throw new ParseException("Missing protected header (required by this library)", 0);
+		}
+		
+		Map<String, Object> protectedHeaderParams = JSONObjectUtils.parse(protectedHeader.decodeToString(), Header.MAX_HEADER_STRING_LENGTH);
+		
+		String encName = JSONObjectUtils.getString(protectedHeaderParams, HeaderParameterNames.ENCRYPTION_ALGORITHM);
+		
+		if (encName == null) {
+			// enc required in protected header by this library (not the spec)
+			throw new ParseException("Missing JWE \"enc\" parameter in protected header (required by this library)", 0);
+		}
+		
+		if (jsonObject.containsKey("aad")) {
+			throw new ParseException("The JWE \"aad\" member is not supported", 0);
+		}
+		
+		UnprotectedHeader sharedUnprotectedHeader = UnprotectedHeader.parse(JSONObjectUtils.getJSONObject(jsonObject, "unprotected"));
+		
+		Base64URL cipherText = JSONObjectUtils.getBase64URL(jsonObject, "ciphertext");
+		
+		if (cipherText == null) {
+			throw new ParseException("Missing \"ciphertext\" member", 0);
+		}
+		
+		List<Recipient> recipientList = new ArrayList<>();
+		
+		if (jsonObject.containsKey("recipients")) {
+			
+			// https://datatracker.ietf.org/doc/html/rfc7516#section-7.2.2
+			if (jsonObject.containsKey("header") || jsonObject.containsKey("encrypted_key")) {
+				throw new ParseException("The \"header\" and \"encrypted_key\" members must not be present at top-level in general JWE JSON serialization", 0);
+			}
+			
+			Map<String, Object>[] recipients = JSONObjectUtils.getJSONObjectArray(jsonObject, "recipients");
+			if (recipients == null || recipients.length == 0) {
+				throw new ParseException("The \"recipients\" member must not be empty in general JWE JSON serialization", 0);
+			}
+			
+			for (Map<String, Object> recipientJSONObject: recipients) {
+				recipientList.add(parseRecipient(recipientJSONObject, protectedHeader, protectedHeaderParams, sharedUnprotectedHeader));
+			}
+			
+		} else {
+			recipientList.add(parseRecipient(jsonObject, protectedHeader, protectedHeaderParams, sharedUnprotectedHeader));
+		}
+		
+		return new JWEObjectJSON(
+			protectedHeader,
+			protectedHeaderParams,
+			EncryptionMethod.parse(encName),
+			sharedUnprotectedHeader,
+			recipientList,
+			JSONObjectUtils.getBase64URL(jsonObject, "iv"),
+			cipherText,
+			JSONObjectUtils.getBase64URL(jsonObject, "tag"));
+	}
+	
+	
+	/**
+	 * Parses a JWE secured object from the specified JSON object string.
+	 *
+	 * @param json The JSON object string to parse. Must not be
+	 *             {@code null}.
+	 *
+	 * @return The JWE secured object.
+	 *
+	 * @throws ParseException If the string couldn't be parsed to a JWE
+	 *                        secured object.
+	 */
+	public static JWEObjectJSON parse(final String json)
+		throws ParseException {
+		
+		return parse(JSONObjectUtils.parse(json));
+	}
+}
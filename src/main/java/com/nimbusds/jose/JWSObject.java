@@ -19,6 +19,7 @@ package com.nimbusds.jose;
 
 
 import java.text.ParseException;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicReference;
 
 import net.jcip.annotations.ThreadSafe;
@@ -35,7 +36,7 @@ import com.nimbusds.jose.util.StandardCharset;
  * <p>This class is thread-safe.
  *
  * @author Vladimir Dzhuvinov
- * @version 2021-10-05
+ * @version 2022-06-09
  */
 @ThreadSafe
 public class JWSObject extends JOSEObject {
@@ -79,9 +80,17 @@ public class JWSObject extends JOSEObject {
 
 
 	/**
-	 * The signing input for this JWS object.
+	 * The array holding the UTF-8 encoded signing input for this JWS
+	 * object, starting at offset zero. For a parsed JWS object this is
+	 * the entire compact serialisation.
 	 */
-	private final String signingInputString;
+	private final byte[] signingInputBuffer;
+
+
+	/**
+	 * The length of the signing input in the array.
+	 */
+	private final int signingInputLength;
 
 
 	/**
@@ -116,7 +125,8 @@ public class JWSObject extends JOSEObject {
 		}
 		setPayload(payload);
 		
-		signingInputString = composeSigningInput();
+		signingInputBuffer = composeSigningInput().getBytes(StandardCharset.UTF_8);
+		signingInputLength = signingInputBuffer.length;
 		signature = null;
 		state.set(State.UNSIGNED);
 	}
@@ -172,7 +182,8 @@ public class JWSObject extends JOSEObject {
 		}
 		setPayload(payload);
 		
-		signingInputString = composeSigningInput();
+		signingInputBuffer = composeSigningInput().getBytes(StandardCharset.UTF_8);
+		signingInputLength = signingInputBuffer.length;
 
 		if (thirdPart == null) {
 			throw new IllegalArgumentException("The third part must not be null");
@@ -187,6 +198,55 @@ public class JWSObject extends JOSEObject {
 		}
 	}
 
+	/**
+	 * Creates a new signed JSON Web Signature (JWS) object from the
+	 * specified compact parts. The signing input is kept as a slice of
+	 * the compact serialisation, for a JWS object with an unencoded
+	 * payload (RFC 7797) it is composed from the parts. The state will be
+	 * {@link State#SIGNED signed}.
+	 *
+	 * @param parts The compact parts. Must not be {@code null} and must
+	 *              have a size of three.
+	 *
+	 * @throws ParseException If parsing of the parts failed.
+	 */
+	protected JWSObject(final CompactParts parts)
+		throws ParseException {
+
+		if (parts.size() != 3) {
+			throw new ParseException("Unexpected number of Base64URL parts, must be three", 0);
+		}
+
+		Base64URL firstPart = parts.getPart(0);
+		try {
+			this.header = JWSHeader.parse(firstPart);
+		} catch (ParseException e) {
+			throw new ParseException("Invalid JWS header: " + e.getMessage(), 0);
+		}
+
+		Base64URL secondPart = parts.getPart(1);
+		setPayload(new Payload(secondPart));
+
+		if (header.isBase64URLEncodePayload()) {
+			signingInputBuffer = parts.getBytes();
+			signingInputLength = parts.getSigningInputLength();
+		} else {
+			signingInputBuffer = composeSigningInput().getBytes(StandardCharset.UTF_8);
+			signingInputLength = signingInputBuffer.length;
+		}
+
+		Base64URL thirdPart = parts.getPart(2);
+		signature = thirdPart;
+		state.set(State.SIGNED); // but signature not verified yet!
+
+		if (header.isBase64URLEncodePayload()) {
+			setParsedParts(firstPart, secondPart, thirdPart);
+		} else {
+			setParsedParts(firstPart, new Base64URL(""), thirdPart);
+		}
+	}
+
+
 	@Override
 	public JWSHeader getHeader() {
 
@@ -216,7 +276,7 @@ public class JWSObject extends JOSEObject {
 	 */
 	public byte[] getSigningInput() {
 		
-		return signingInputString.getBytes(StandardCharset.UTF_8);
+		return Arrays.copyOf(signingInputBuffer, signingInputLength);
 	}
 
 
@@ -363,7 +423,12 @@ public class JWSObject extends JOSEObject {
 		boolean verified;
 
 		try {
-			verified = verifier.verify(getHeader(), getSigningInput(), getSignature());
+			if (verifier instanceof JWSSliceVerifier) {
+				// No copy of the signing input
+				verified = ((JWSSliceVerifier) verifier).verify(getHeader(), signingInputBuffer, 0, signingInputLength, getSignature());
+			} else {
+				verified = verifier.verify(getHeader(), getSigningInput(), getSignature());
+			}
 
 		} catch (JOSEException e) {
 
@@ -430,7 +495,7 @@ public class JWSObject extends JOSEObject {
 			return header.toBase64URL().toString() + '.' + '.' + signature.toString();
 		}
 
-		return signingInputString + '.' + signature.toString();
+		return new String(signingInputBuffer, 0, signingInputLength, StandardCharset.UTF_8) + '.' + signature.toString();
 	}
 
 	
@@ -448,14 +513,7 @@ public class JWSObject extends JOSEObject {
 	public static JWSObject parse(final String s)
 		throws ParseException {
 
-		Base64URL[] parts = JOSEObject.split(s);
-
-		if (parts.length != 3) {
-
-			throw new ParseException("Unexpected number of Base64URL parts, must be three", 0);
-		}
-
-		return new JWSObject(parts[0], parts[1], parts[2]);
+		return new JWSObject(CompactParts.parse(s));
 	}
 	
 	
@@ -20,6 +20,7 @@ package com.nimbusds.jose;
 
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import net.jcip.annotations.Immutable;
@@ -28,17 +29,22 @@ import net.jcip.annotations.ThreadSafe;
 import com.nimbusds.jose.util.Base64URL;
 import com.nimbusds.jose.util.JSONArrayUtils;
 import com.nimbusds.jose.util.JSONObjectUtils;
+import com.nimbusds.jose.util.Pair;
 
 
 /**
  * JSON Web Signature (JWS) secured object serialisable to
  * <a href="https://datatracker.ietf.org/doc/html/rfc7515#section-3.2">JSON</a>.
  *
+ * <p>Multiple signatures can be created and verified concurrently on a
+ * supplied {@link Executor}, see {@link #sign(List, Executor)} and
+ * {@link #verify(List, VerificationPolicy, Executor)}.
+ *
  * <p>This class is thread-safe.
  *
  * @author Alexander Martynov
  * @author Vladimir Dzhuvinov
- * @version 2021-10-09
+ * @version 2022-06-09
  */
 @ThreadSafe
 public class JWSObjectJSON extends JOSEObjectJSON {
@@ -250,6 +256,26 @@ public class JWSObjectJSON extends JOSEObjectJSON {
 	}
 	
 	
+	/**
+	 * Enumeration of the policies for verifying a JSON Web Signature
+	 * (JWS) secured object with multiple signatures.
+	 */
+	public enum VerificationPolicy {
+		
+		
+		/**
+		 * At least one signature must be successfully verified.
+		 */
+		ANY_OF,
+		
+		
+		/**
+		 * All signatures must be successfully verified.
+		 */
+		ALL_OF
+	}
+	
+	
 	/**
 	 * The applied signatures.
 	 */
@@ -357,6 +383,401 @@ public class JWSObjectJSON extends JOSEObjectJSON {
 	}
 	
 	
+	/**
+	 * Signs this JWS secured object with the specified JWS signers in the
+	 * calling thread. See {@link #sign(List, Executor)}.
+	 *
+	 * @param signers The JWS protected headers with their JWS signers. Must
+	 *                be at least one.
+	 *
+	 * @throws JOSEException If the JWS object couldn't be signed.
+	 */
+	public void sign(final List<Pair<JWSHeader, JWSSigner>> signers)
+		throws JOSEException {
+		
+		sign(signers, null);
+	}
+	
+	
+	/**
+	 * Signs this JWS secured object with the specified JWS signers and
+	 * adds the resulting signatures to it, in the order of the signers.
+	 * The signatures are added only if all signers succeed.
+	 *
+	 * <p>The signing operations are submitted to the specified executor.
+	 * The calling thread takes up the operations not yet started by the
+	 * executor, or rejected by it, and returns when all are complete.
+	 *
+	 * @param signers  The JWS protected headers with their JWS signers.
+	 *                 The algorithm specified by each header must be
+	 *                 supported by its JWS signer. Must be at least one.
+	 * @param executor The executor for the signing operations,
+	 *                 {@code null} to sign in the calling thread only.
+	 *
+	 * @throws JOSEException If the JWS object couldn't be signed.
+	 */
+	public synchronized void sign(final List<Pair<JWSHeader, JWSSigner>> signers,
+				      final Executor executor)
+		throws JOSEException {
+		
+		if (signers.isEmpty()) {
+			throw new IllegalArgumentException("At least one signer required");
+		}
+		
+		for (Pair<JWSHeader, JWSSigner> pair: signers) {
+			
+			JWSHeader jwsHeader = pair.getLeft();
+			JWSSigner signer = pair.getRight();
+			
+			if (! signer.supportedJWSAlgorithms().contains(jwsHeader.getAlgorithm())) {
+				throw new JOSEException("The " + jwsHeader.getAlgorithm() +
+					" algorithm is not allowed or supported by the JWS signer: Supported algorithms: " + signer.supportedJWSAlgorithms());
+			}
+		}
+		
+		final Payload payload = getPayload();
+		
+		final List<FutureTask<Base64URL>> tasks = new ArrayList<>(signers.size());
+		
+		for (Pair<JWSHeader, JWSSigner> pair: signers) {
+			
+			final JWSHeader jwsHeader = pair.getLeft();
+			final JWSSigner signer = pair.getRight();
+			
+			tasks.add(new FutureTask<>(new Callable<Base64URL>() {
+				@Override
+				public Base64URL call() throws JOSEException {
+					JWSObject jwsObject = new JWSObject(jwsHeader, payload);
+					jwsObject.sign(signer);
+					return jwsObject.getSignature();
+				}
+			}));
+		}
+		
+		submit(tasks, executor);
+		
+		// Started and completed tasks are not run again
+		for (FutureTask<Base64URL> task: tasks) {
+			task.run();
+		}
+		
+		final List<Signature> signatureList = new ArrayList<>(tasks.size());
+		boolean interrupted = false;
+		
+		try {
+			for (int i=0; i < tasks.size(); i++) {
+				while (true) {
+					try {
+						signatureList.add(new Signature(payload, signers.get(i).getLeft(), null, tasks.get(i).get()));
+						break;
+					} catch (InterruptedException e) {
+						// Finish the signing, restore the flag on return
+						interrupted = true;
+					} catch (ExecutionException e) {
+						cancel(tasks);
+						throw toJOSEException(e.getCause());
+					}
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		signatures.addAll(signatureList);
+	}
+	
+	
+	/**
+	 * Verifies the signatures of this JWS secured object with the
+	 * specified JWS verifiers in the calling thread. See
+	 * {@link #verify(List, VerificationPolicy, Executor)}.
+	 *
+	 * @param verifiers The JWS verifiers. Must not be {@code null}.
+	 * @param policy    The verification policy. Must not be
+	 *                  {@code null}.
+	 *
+	 * @return {@code true} if the signatures satisfy the policy, else
+	 *         {@code false}.
+	 *
+	 * @throws IllegalStateException If the JWS object has no signatures.
+	 * @throws JOSEException         If a signature verification failed.
+	 */
+	public boolean verify(final List<JWSVerifier> verifiers,
+			      final VerificationPolicy policy)
+		throws JOSEException {
+		
+		return verify(verifiers, policy, null);
+	}
+	
+	
+	/**
+	 * Verifies the signatures of this JWS secured object with the
+	 * specified JWS verifiers. Each signature is checked with the
+	 * verifiers supporting its algorithm, until one succeeds.
+	 *
+	 * <p>The signature verifications are submitted to the specified
+	 * executor. The calling thread takes up the verifications not yet
+	 * started by the executor, or rejected by it. The method returns as
+	 * soon as the outcome is decided, the remaining verifications are
+	 * then cancelled and their signatures stay unverified:
+	 *
+	 * <ul>
+	 *     <li>{@link VerificationPolicy#ANY_OF} -- with the first
+	 *         successfully verified signature. If no signature is
+	 *         verified the first exception, if any, is thrown.
+	 *     <li>{@link VerificationPolicy#ALL_OF} -- with the first
+	 *         signature that is invalid, has no verifier for its
+	 *         algorithm or throws an exception.
+	 * </ul>
+	 *
+	 * <p>The {@link Signature#isVerified() verified} state of each checked
+	 * signature is updated.
+	 *
+	 * @param verifiers The JWS verifiers. Must not be {@code null}.
+	 * @param policy    The verification policy. Must not be
+	 *                  {@code null}.
+	 * @param executor  The executor for the signature verifications,
+	 *                  {@code null} to verify in the calling thread only.
+	 *
+	 * @return {@code true} if the signatures satisfy the policy, else
+	 *         {@code false}.
+	 *
+	 * @throws IllegalStateException If the JWS object has no signatures.
+	 * @throws JOSEException         If a signature verification failed.
+	 */
+	public boolean verify(final List<JWSVerifier> verifiers,
+			      final VerificationPolicy policy,
+			      final Executor executor)
+		throws JOSEException {
+		
+		Objects.requireNonNull(verifiers, "The verifiers must not be null");
+		Objects.requireNonNull(policy, "The verification policy must not be null");
+		
+		final List<Signature> signatureList;
+		
+		synchronized (this) {
+			signatureList = new ArrayList<>(signatures);
+		}
+		
+		if (signatureList.isEmpty()) {
+			throw new IllegalStateException("The JWS object must be in a signed or verified state");
+		}
+		
+		final BlockingQueue<Future<Boolean>> completed = new LinkedBlockingQueue<>();
+		final List<VerificationTask> tasks = new ArrayList<>(signatureList.size());
+		
+		for (Signature sig: signatureList) {
+			
+			List<JWSVerifier> candidates = new ArrayList<>();
+			
+			for (JWSVerifier verifier: verifiers) {
+				if (verifier.supportedJWSAlgorithms().contains(sig.getHeader().getAlgorithm())) {
+					candidates.add(verifier);
+				}
+			}
+			
+			if (candidates.isEmpty()) {
+				if (VerificationPolicy.ALL_OF.equals(policy)) {
+					return false;
+				}
+				continue;
+			}
+			
+			tasks.add(new VerificationTask(sig, candidates, completed));
+		}
+		
+		submit(tasks, executor);
+		
+		JOSEException firstException = null;
+		boolean interrupted = false;
+		int next = 0;
+		
+		try {
+			for (int remaining = tasks.size(); remaining > 0; ) {
+				
+				Future<Boolean> done = completed.poll();
+				
+				if (done == null) {
+					if (next < tasks.size()) {
+						// Started and completed tasks are not run again
+						tasks.get(next++).run();
+						continue;
+					}
+					try {
+						done = completed.take();
+					} catch (InterruptedException e) {
+						// Finish the verification, restore the flag on return
+						interrupted = true;
+						continue;
+					}
+				}
+				
+				remaining--;
+				
+				boolean verified;
+				try {
+					verified = done.get();
+				} catch (InterruptedException e) {
+					// Not thrown, the task is complete
+					throw new IllegalStateException(e);
+				} catch (ExecutionException e) {
+					JOSEException exception = toJOSEException(e.getCause());
+					if (VerificationPolicy.ALL_OF.equals(policy)) {
+						cancel(tasks);
+						throw exception;
+					}
+					if (firstException == null) {
+						firstException = exception;
+					}
+					continue;
+				}
+				
+				if (verified && VerificationPolicy.ANY_OF.equals(policy)) {
+					cancel(tasks);
+					return true;
+				}
+				
+				if (! verified && VerificationPolicy.ALL_OF.equals(policy)) {
+					cancel(tasks);
+					return false;
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		if (firstException != null) {
+			throw firstException;
+		}
+		
+		return VerificationPolicy.ALL_OF.equals(policy);
+	}
+	
+	
+	/**
+	 * Submits the specified tasks to the specified executor. Tasks
+	 * rejected by the executor are left to the calling thread.
+	 *
+	 * @param tasks    The tasks.
+	 * @param executor The executor, {@code null} if none.
+	 */
+	private static void submit(final List<? extends Runnable> tasks, final Executor executor) {
+		
+		if (executor == null) {
+			return;
+		}
+		
+		for (Runnable task: tasks) {
+			try {
+				executor.execute(task);
+			} catch (RejectedExecutionException e) {
+				// Run by the calling thread
+			}
+		}
+	}
+	
+	
+	/**
+	 * Cancels the specified tasks not started yet.
+	 *
+	 * @param tasks The tasks.
+	 */
+	private static void cancel(final List<? extends Future<?>> tasks) {
+		
+		for (Future<?> task: tasks) {
+			task.cancel(false);
+		}
+	}
+	
+	
+	/**
+	 * Returns the specified task failure cause as a JOSE exception.
+	 *
+	 * @param cause The cause.
+	 *
+	 * @return The JOSE exception.
+	 */
+	private static JOSEException toJOSEException(final Throwable cause) {
+		
+		if (cause instanceof JOSEException) {
+			return (JOSEException) cause;
+		} else if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		
+		// Prevent throwing unchecked exceptions at this point, see
+		// issue #20
+		return new JOSEException(cause.getMessage(), cause);
+	}
+	
+	
+	/**
+	 * Signature verification task, queued on completion.
+	 */
+	private static final class VerificationTask extends FutureTask<Boolean> {
+		
+		
+		/**
+		 * The queue of completed tasks.
+		 */
+		private final BlockingQueue<Future<Boolean>> completed;
+		
+		
+		/**
+		 * Creates a new signature verification task.
+		 *
+		 * @param sig       The signature.
+		 * @param verifiers The JWS verifiers supporting the signature
+		 *                  algorithm, tried in turn until one
+		 *                  succeeds.
+		 * @param completed The queue of completed tasks.
+		 */
+		private VerificationTask(final Signature sig,
+					 final List<JWSVerifier> verifiers,
+					 final BlockingQueue<Future<Boolean>> completed) {
+			
+			super(new Callable<Boolean>() {
+				@Override
+				public Boolean call() throws JOSEException {
+					
+					JOSEException firstException = null;
+					
+					for (JWSVerifier verifier: verifiers) {
+						try {
+							if (sig.verify(verifier)) {
+								return true;
+							}
+						} catch (JOSEException e) {
+							if (firstException == null) {
+								firstException = e;
+							}
+						}
+					}
+					
+					if (firstException != null) {
+						throw firstException;
+					}
+					
+					return false;
+				}
+			});
+			
+			this.completed = completed;
+		}
+		
+		
+		@Override
+		protected void done() {
+			
+			completed.add(this);
+		}
+	}
+	
+	
 	/**
 	 * Returns the current signatures state.
 	 *
@@ -0,0 +1,65 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose;
+
+
+import com.nimbusds.jose.util.Base64URL;
+
+
+/**
+ * JSON Web Signature (JWS) verifier which can verify a signing input
+ * supplied as a slice of a larger byte array, such as the compact
+ * serialisation of the JWS object. Avoids copying the signing input before
+ * it's passed to the underlying {@code Mac} or {@code Signature}.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+public interface JWSSliceVerifier extends JWSVerifier {
+
+
+	/**
+	 * Verifies the specified {@link JWSObject#getSignature signature} of a
+	 * {@link JWSObject JWS object}.
+	 *
+	 * @param header    The JSON Web Signature (JWS) header. Must specify
+	 *                  a supported JWS algorithm and must not be
+	 *                  {@code null}.
+	 * @param buf       The array containing the signing input. Must not
+	 *                  be {@code null} and must not be modified.
+	 * @param offset    The offset of the signing input in the array.
+	 * @param length    The length of the signing input.
+	 * @param signature The signature part of the JWS object. Must not be
+	 *                  {@code null}.
+	 *
+	 * @return {@code true} if the signature was successfully verified,
+	 *         {@code false} if the signature is invalid or if a critical
+	 *         header is neither supported nor marked for deferral to the
+	 *         application.
+	 *
+	 * @throws JOSEException If the JWS algorithm is not supported, or if
+	 *                       signature verification failed for some other
+	 *                       internal reason.
+	 */
+	boolean verify(final JWSHeader header,
+		       final byte[] buf,
+		       final int offset,
+		       final int length,
+		       final Base64URL signature)
+		throws JOSEException;
+}
@@ -0,0 +1,198 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose;
+
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.text.ParseException;
+
+import net.jcip.annotations.ThreadSafe;
+
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jose.util.Base64URLInputStream;
+
+
+/**
+ * Streaming encryption and decryption of JSON Web Encryption (JWE) objects
+ * in compact serialisation, for payloads too large to be held in memory as
+ * a {@link JWEObject}. The clear text is compressed, encrypted and
+ * Base64URL-encoded incrementally (and vice versa), so the memory use
+ * doesn't depend on the payload length.
+ *
+ * <p>Supports the AES/CBC/HMAC-SHA2 and AES/GCM encryption methods, with
+ * the {@link StreamingJWEEncrypter streaming encrypters} and
+ * {@link StreamingJWEDecrypter streaming decrypters} in the
+ * {@link com.nimbusds.jose.crypto} package.
+ *
+ * <p>Example:
+ *
+ * <pre>
+ * StreamingJWE.encrypt(
+ *         new JWEHeader(JWEAlgorithm.RSA_OAEP_256, EncryptionMethod.A256GCM),
+ *         new FileInputStream("document.pdf"),
+ *         new RSAEncrypter(rsaPublicKey),
+ *         new FileOutputStream("document.pdf.jwe"));
+ *
+ * StreamingJWE.decrypt(
+ *         new FileInputStream("document.pdf.jwe"),
+ *         new RSADecrypter(rsaPrivateKey),
+ *         new FileOutputStream("document.pdf"));
+ * </pre>
+ *
+ * <p>On decryption the authentication tag is checked last. The clear text
+ * written to the output stream must be discarded if decryption fails.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+@ThreadSafe
+public final class StreamingJWE {
+
+
+	/**
+	 * The maximum accepted length of the Base64URL-encoded header,
+	 * encrypted key and IV parts.
+	 */
+	public static final int MAX_HEADER_PART_LENGTH = 64 * 1024;
+
+
+	/**
+	 * Encrypts the clear text read from the specified input stream and
+	 * writes the resulting JWE in compact serialisation to the output
+	 * stream.
+	 *
+	 * @param header    The JWE header. Must not be {@code null}.
+	 * @param clearText The clear text. Must not be {@code null}. Isn't
+	 *                  closed.
+	 * @param encrypter The JWE encrypter. Must not be {@code null}.
+	 * @param out       The output stream for the compact JWE. Must not be
+	 *                  {@code null}. Isn't closed.
+	 *
+	 * @return The final JWE header.
+	 *
+	 * @throws JOSEException If the JWE algorithm or method is not
+	 *                       supported or encryption failed.
+	 * @throws IOException   If reading the clear text or writing the JWE
+	 *                       failed.
+	 */
+	public static JWEHeader encrypt(final JWEHeader header,
+					final InputStream clearText,
+					final StreamingJWEEncrypter encrypter,
+					final OutputStream out)
+		throws JOSEException, IOException {
+
+		if (! encrypter.supportedJWEAlgorithms().contains(header.getAlgorithm())) {
+			throw new JOSEException("The " + header.getAlgorithm() +
+				" algorithm is not supported by the JWE encrypter: Supported algorithms: " + encrypter.supportedJWEAlgorithms());
+		}
+
+		if (! encrypter.supportedEncryptionMethods().contains(header.getEncryptionMethod())) {
+			throw new JOSEException("The " + header.getEncryptionMethod() +
+				" encryption method or key size is not supported by the JWE encrypter: Supported methods: " + encrypter.supportedEncryptionMethods());
+		}
+
+		return encrypter.encrypt(header, clearText, out);
+	}
+
+
+	/**
+	 * Decrypts the JWE in compact serialisation read from the specified
+	 * input stream and writes the clear text to the output stream.
+	 *
+	 * @param compactJWE The compact JWE. Must not be {@code null}. Isn't
+	 *                   closed.
+	 * @param decrypter  The JWE decrypter. Must not be {@code null}.
+	 * @param clearText  The output stream for the clear text. Must not be
+	 *                   {@code null}. Isn't closed.
+	 *
+	 * @return The JWE header.
+	 *
+	 * @throws ParseException If the JWE header, encrypted key or IV
+	 *                        couldn't be parsed.
+	 * @throws JOSEException  If decryption failed.
+	 * @throws IOException    If reading the JWE or writing the clear text
+	 *                        failed.
+	 */
+	public static JWEHeader decrypt(final InputStream compactJWE,
+					final StreamingJWEDecrypter decrypter,
+					final OutputStream clearText)
+		throws ParseException, JOSEException, IOException {
+
+		PushbackInputStream in = new PushbackInputStream(new BufferedInputStream(compactJWE), Base64URLInputStream.READ_AHEAD_SIZE);
+
+		Base64URL encodedHeader = readPart(in, 0);
+		if (encodedHeader == null) {
+			throw new ParseException("Missing JWE header", 0);
+		}
+
+		JWEHeader header;
+		try {
+			header = JWEHeader.parse(encodedHeader);
+		} catch (ParseException e) {
+			throw new ParseException("Invalid JWE header: " + e.getMessage(), 0);
+		}
+
+		Base64URL encryptedKey = readPart(in, 1);
+		Base64URL iv = readPart(in, 2);
+
+		if (iv == null) {
+			throw new JOSEException("Missing JWE initialization vector (IV)");
+		}
+
+		decrypter.decrypt(header, encryptedKey, iv, in, clearText);
+
+		return header;
+	}
+
+
+	/**
+	 * Reads a Base64URL-encoded part terminated by a period ('.').
+	 *
+	 * @param in        The input stream.
+	 * @param partIndex The part index, for the error messages.
+	 *
+	 * @return The part, {@code null} if empty.
+	 */
+	private static Base64URL readPart(final InputStream in, final int partIndex)
+		throws ParseException, IOException {
+
+		StringBuilder sb = new StringBuilder();
+
+		int c;
+		while ((c = in.read()) != '.') {
+			if (c == -1) {
+				throw new ParseException("Unexpected number of Base64URL parts, must be five", 0);
+			}
+			if (sb.length() == MAX_HEADER_PART_LENGTH) {
+				throw new ParseException("The JWE part " + (partIndex + 1) + " is too long", 0);
+			}
+			sb.append((char) c);
+		}
+
+		return sb.length() > 0 ? new Base64URL(sb.toString()) : null;
+	}
+
+
+	/**
+	 * Prevents public instantiation.
+	 */
+	private StreamingJWE() { }
+}
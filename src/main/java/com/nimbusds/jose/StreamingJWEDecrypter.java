@@ -0,0 +1,73 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose;
+
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+
+import com.nimbusds.jose.util.Base64URL;
+
+
+/**
+ * JSON Web Encryption (JWE) decrypter which can stream the cipher text, for
+ * large payloads. See {@link StreamingJWE}.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+public interface StreamingJWEDecrypter extends JWEDecrypter {
+
+
+	/**
+	 * Decrypts the cipher text read from the specified input stream and
+	 * writes the clear text to the output stream. The authentication tag
+	 * is checked last, clear text written to the output stream must be
+	 * discarded if this method throws an exception.
+	 *
+	 * @param header           The JSON Web Encryption (JWE) header. Must
+	 *                         specify a supported JWE algorithm and an
+	 *                         AES/CBC/HMAC-SHA2 or AES/GCM method. Must
+	 *                         not be {@code null}.
+	 * @param encryptedKey     The encrypted key, {@code null} if not
+	 *                         required by the JWE algorithm.
+	 * @param iv               The initialisation vector. Must not be
+	 *                         {@code null}.
+	 * @param cipherTextAndTag The Base64URL-encoded cipher text and
+	 *                         authentication tag parts, delimited by a
+	 *                         period ('.'), as positioned by
+	 *                         {@link StreamingJWE#decrypt}. Must not be
+	 *                         {@code null}.
+	 * @param clearText        The output stream for the clear text. Must
+	 *                         not be {@code null}. Isn't closed.
+	 *
+	 * @throws JOSEException If the JWE algorithm or method is not
+	 *                       supported, if a critical header parameter is
+	 *                       not supported or marked for deferral to the
+	 *                       application, or if decryption failed for some
+	 *                       other reason.
+	 * @throws IOException   If reading the cipher text or writing the
+	 *                       clear text failed.
+	 */
+	void decrypt(final JWEHeader header,
+		     final Base64URL encryptedKey,
+		     final Base64URL iv,
+		     final PushbackInputStream cipherTextAndTag,
+		     final OutputStream clearText)
+		throws JOSEException, IOException;
+}
@@ -0,0 +1,58 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+
+/**
+ * JSON Web Encryption (JWE) encrypter which can stream the clear text, for
+ * large payloads. See {@link StreamingJWE}.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+public interface StreamingJWEEncrypter extends JWEEncrypter {
+
+
+	/**
+	 * Encrypts the clear text read from the specified input stream and
+	 * writes the resulting JWE in compact serialisation to the output
+	 * stream. The memory use doesn't depend on the clear text length.
+	 *
+	 * @param header    The JSON Web Encryption (JWE) header. Must specify
+	 *                  a supported JWE algorithm and an AES/CBC/HMAC-SHA2
+	 *                  or AES/GCM method. Must not be {@code null}.
+	 * @param clearText The clear text to encrypt. Must not be
+	 *                  {@code null}. Isn't closed.
+	 * @param out       The output stream for the compact JWE. Must not be
+	 *                  {@code null}. Isn't closed.
+	 *
+	 * @return The final JWE header.
+	 *
+	 * @throws JOSEException If the JWE algorithm or method is not
+	 *                       supported or if encryption failed for some
+	 *                       other internal reason.
+	 * @throws IOException   If reading the clear text or writing the JWE
+	 *                       failed.
+	 */
+	JWEHeader encrypt(final JWEHeader header, final InputStream clearText, final OutputStream out)
+		throws JOSEException, IOException;
+}
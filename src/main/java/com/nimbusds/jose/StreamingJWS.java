@@ -0,0 +1,310 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+import net.jcip.annotations.ThreadSafe;
+
+import com.nimbusds.jose.util.Base64URL;
+
+
+/**
+ * Streaming signing and verification of JSON Web Signature (JWS) objects
+ * with a detached payload, for payloads too large to be held in memory as
+ * a {@link JWSObject}. The payload is read from an input stream, a file or
+ * a byte buffer and fed directly to the underlying {@code Mac} or
+ * {@code Signature}, so the memory use doesn't depend on the payload
+ * length.
+ *
+ * <p>The payload is Base64URL-encoded on the fly for the signing input,
+ * unless the JWS header has the Base64URL encode payload ({@code b64})
+ * parameter set to {@code false} (RFC 7797), in which case the payload
+ * bytes are signed as they are. The resulting compact JWS has an empty
+ * payload part, as specified in RFC 7515, appendix F.
+ *
+ * <p>Supports the HMAC, RSASSA and ECDSA algorithms, with the
+ * {@link StreamingJWSSigner streaming signers} and
+ * {@link StreamingJWSVerifier streaming verifiers} in the
+ * {@link com.nimbusds.jose.crypto} package.
+ *
+ * <p>Example:
+ *
+ * <pre>
+ * JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256)
+ *         .base64URLEncodePayload(false)
+ *         .criticalParams(Collections.singleton(HeaderParameterNames.BASE64_URL_ENCODE_PAYLOAD))
+ *         .build();
+ *
+ * String jws = StreamingJWS.sign(header, Paths.get("artifact.tar.gz"), new RSASSASigner(rsaPrivateKey));
+ *
+ * boolean valid = StreamingJWS.verify(jws, Paths.get("artifact.tar.gz"), new RSASSAVerifier(rsaPublicKey));
+ * </pre>
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+@ThreadSafe
+public final class StreamingJWS {
+
+
+	/**
+	 * Signs the payload read from the specified input stream.
+	 *
+	 * @param header  The JWS header. Must not be {@code null}.
+	 * @param payload The payload. Must not be {@code null}. Isn't
+	 *                closed.
+	 * @param signer  The JWS signer. Must not be {@code null}.
+	 *
+	 * @return The JWS in compact serialisation with a detached payload.
+	 *
+	 * @throws JOSEException If the JWS algorithm is not supported or
+	 *                       signing failed.
+	 * @throws IOException   If reading the payload failed.
+	 */
+	public static String sign(final JWSHeader header,
+				  final InputStream payload,
+				  final StreamingJWSSigner signer)
+		throws JOSEException, IOException {
+
+		if (! signer.supportedJWSAlgorithms().contains(header.getAlgorithm())) {
+			throw new JOSEException("The " + header.getAlgorithm() +
+				" algorithm is not allowed or supported by the JWS signer: Supported algorithms: " + signer.supportedJWSAlgorithms());
+		}
+
+		Base64URL signature = signer.sign(header, payload);
+
+		return header.toBase64URL().toString() + ".." + signature;
+	}
+
+
+	/**
+	 * Signs the payload read from the specified file.
+	 *
+	 * @param header  The JWS header. Must not be {@code null}.
+	 * @param payload The payload file. Must not be {@code null}.
+	 * @param signer  The JWS signer. Must not be {@code null}.
+	 *
+	 * @return The JWS in compact serialisation with a detached payload.
+	 *
+	 * @throws JOSEException If the JWS algorithm is not supported or
+	 *                       signing failed.
+	 * @throws IOException   If reading the payload failed.
+	 */
+	public static String sign(final JWSHeader header,
+				  final Path payload,
+				  final StreamingJWSSigner signer)
+		throws JOSEException, IOException {
+
+		try (InputStream in = Files.newInputStream(payload)) {
+			return sign(header, in, signer);
+		}
+	}
+
+
+	/**
+	 * Signs the remaining bytes of the specified buffer. The position of
+	 * the buffer isn't changed.
+	 *
+	 * @param header  The JWS header. Must not be {@code null}.
+	 * @param payload The payload buffer. Must not be {@code null}.
+	 * @param signer  The JWS signer. Must not be {@code null}.
+	 *
+	 * @return The JWS in compact serialisation with a detached payload.
+	 *
+	 * @throws JOSEException If the JWS algorithm is not supported or
+	 *                       signing failed.
+	 */
+	public static String sign(final JWSHeader header,
+				  final ByteBuffer payload,
+				  final StreamingJWSSigner signer)
+		throws JOSEException {
+
+		try {
+			return sign(header, new ByteBufferInputStream(payload), signer);
+		} catch (IOException e) {
+			// Not thrown by the buffer stream
+			throw new JOSEException(e.getMessage(), e);
+		}
+	}
+
+
+	/**
+	 * Verifies the signature of the specified JWS with a detached
+	 * payload, read from the input stream.
+	 *
+	 * @param jws      The JWS in compact serialisation with a detached
+	 *                 (empty) payload part. Must not be {@code null}.
+	 * @param payload  The detached payload. Must not be {@code null}.
+	 *                 Isn't closed.
+	 * @param verifier The JWS verifier. Must not be {@code null}.
+	 *
+	 * @return {@code true} if the signature was successfully verified,
+	 *         else {@code false}.
+	 *
+	 * @throws ParseException If the JWS couldn't be parsed.
+	 * @throws JOSEException  If the JWS algorithm is not supported or
+	 *                        verification failed for some other internal
+	 *                        reason.
+	 * @throws IOException    If reading the payload failed.
+	 */
+	public static boolean verify(final String jws,
+				     final InputStream payload,
+				     final StreamingJWSVerifier verifier)
+		throws ParseException, JOSEException, IOException {
+
+		Base64URL[] parts = JOSEObject.split(jws);
+
+		if (parts.length != 3) {
+			throw new ParseException("Unexpected number of Base64URL parts, must be three", 0);
+		}
+
+		if (! parts[1].toString().isEmpty()) {
+			throw new ParseException("The payload Base64URL part must be empty", 0);
+		}
+
+		JWSHeader header;
+		try {
+			header = JWSHeader.parse(parts[0]);
+		} catch (ParseException e) {
+			throw new ParseException("Invalid JWS header: " + e.getMessage(), 0);
+		}
+
+		if (parts[2].toString().isEmpty()) {
+			throw new ParseException("Missing JWS signature", 0);
+		}
+
+		return verifier.verify(header, payload, parts[2]);
+	}
+
+
+	/**
+	 * Verifies the signature of the specified JWS with a detached
+	 * payload, read from the file.
+	 *
+	 * @param jws      The JWS in compact serialisation with a detached
+	 *                 (empty) payload part. Must not be {@code null}.
+	 * @param payload  The detached payload file. Must not be
+	 *                 {@code null}.
+	 * @param verifier The JWS verifier. Must not be {@code null}.
+	 *
+	 * @return {@code true} if the signature was successfully verified,
+	 *         else {@code false}.
+	 *
+	 * @throws ParseException If the JWS couldn't be parsed.
+	 * @throws JOSEException  If the JWS algorithm is not supported or
+	 *                        verification failed for some other internal
+	 *                        reason.
+	 * @throws IOException    If reading the payload failed.
+	 */
+	public static boolean verify(final String jws,
+				     final Path payload,
+				     final StreamingJWSVerifier verifier)
+		throws ParseException, JOSEException, IOException {
+
+		try (InputStream in = Files.newInputStream(payload)) {
+			return verify(jws, in, verifier);
+		}
+	}
+
+
+	/**
+	 * Verifies the signature of the specified JWS with a detached
+	 * payload, the remaining bytes of the buffer. The position of the
+	 * buffer isn't changed.
+	 *
+	 * @param jws      The JWS in compact serialisation with a detached
+	 *                 (empty) payload part. Must not be {@code null}.
+	 * @param payload  The detached payload buffer. Must not be
+	 *                 {@code null}.
+	 * @param verifier The JWS verifier. Must not be {@code null}.
+	 *
+	 * @return {@code true} if the signature was successfully verified,
+	 *         else {@code false}.
+	 *
+	 * @throws ParseException If the JWS couldn't be parsed.
+	 * @throws JOSEException  If the JWS algorithm is not supported or
+	 *                        verification failed for some other internal
+	 *                        reason.
+	 */
+	public static boolean verify(final String jws,
+				     final ByteBuffer payload,
+				     final StreamingJWSVerifier verifier)
+		throws ParseException, JOSEException {
+
+		try {
+			return verify(jws, new ByteBufferInputStream(payload), verifier);
+		} catch (IOException e) {
+			// Not thrown by the buffer stream
+			throw new JOSEException(e.getMessage(), e);
+		}
+	}
+
+
+	/**
+	 * Input stream over the remaining bytes of a byte buffer.
+	 */
+	private static final class ByteBufferInputStream extends InputStream {
+
+
+		/**
+		 * Independent view of the buffer, the position of the
+		 * original buffer isn't changed.
+		 */
+		private final ByteBuffer buf;
+
+
+		private ByteBufferInputStream(final ByteBuffer buf) {
+			this.buf = buf.duplicate();
+		}
+
+
+		@Override
+		public int read() {
+			return buf.hasRemaining() ? buf.get() & 0xff : -1;
+		}
+
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) {
+
+			if (len == 0) {
+				return 0;
+			}
+
+			if (! buf.hasRemaining()) {
+				return -1;
+			}
+
+			int n = Math.min(len, buf.remaining());
+			buf.get(b, off, n);
+			return n;
+		}
+	}
+
+
+	/**
+	 * Prevents public instantiation.
+	 */
+	private StreamingJWS() { }
+}
@@ -0,0 +1,61 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.nimbusds.jose.util.Base64URL;
+
+
+/**
+ * JSON Web Signature (JWS) signer which can stream the payload, for large
+ * payloads. See {@link StreamingJWS}.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+public interface StreamingJWSSigner extends JWSSigner {
+
+
+	/**
+	 * Signs the payload read from the specified input stream. The
+	 * signing input is fed to the underlying {@code Mac} or
+	 * {@code Signature} as the payload is read, the memory use doesn't
+	 * depend on the payload length. The payload is Base64URL-encoded
+	 * for the signing input unless the Base64URL encode payload
+	 * ({@code b64}) header parameter is {@code false} (RFC 7797).
+	 *
+	 * @param header  The JSON Web Signature (JWS) header. Must specify a
+	 *                supported JWS algorithm and must not be
+	 *                {@code null}.
+	 * @param payload The payload. Must not be {@code null}. Isn't
+	 *                closed.
+	 *
+	 * @return The resulting signature part (third part) of the JWS
+	 *         object.
+	 *
+	 * @throws JOSEException If the JWS algorithm is not supported, if a
+	 *                       critical header parameter is not supported or
+	 *                       marked for deferral to the application, or if
+	 *                       signing failed for some other internal reason.
+	 * @throws IOException   If reading the payload failed.
+	 */
+	Base64URL sign(final JWSHeader header, final InputStream payload)
+		throws JOSEException, IOException;
+}
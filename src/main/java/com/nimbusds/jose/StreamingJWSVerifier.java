@@ -0,0 +1,64 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.nimbusds.jose.util.Base64URL;
+
+
+/**
+ * JSON Web Signature (JWS) verifier which can stream the payload, for
+ * large payloads. See {@link StreamingJWS}.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+public interface StreamingJWSVerifier extends JWSVerifier {
+
+
+	/**
+	 * Verifies the signature of the payload read from the specified
+	 * input stream. The signing input is fed to the underlying
+	 * {@code Mac} or {@code Signature} as the payload is read, the memory
+	 * use doesn't depend on the payload length. The payload is
+	 * Base64URL-encoded for the signing input unless the Base64URL encode
+	 * payload ({@code b64}) header parameter is {@code false} (RFC 7797).
+	 *
+	 * @param header    The JSON Web Signature (JWS) header. Must specify
+	 *                  a supported JWS algorithm and must not be
+	 *                  {@code null}.
+	 * @param payload   The payload. Must not be {@code null}. Isn't
+	 *                  closed.
+	 * @param signature The signature part of the JWS object. Must not be
+	 *                  {@code null}.
+	 *
+	 * @return {@code true} if the signature was successfully verified,
+	 *         {@code false} if the signature is invalid or if a critical
+	 *         header is neither supported nor marked for deferral to the
+	 *         application.
+	 *
+	 * @throws JOSEException If the JWS algorithm is not supported, or if
+	 *                       signature verification failed for some other
+	 *                       internal reason.
+	 * @throws IOException   If reading the payload failed.
+	 */
+	boolean verify(final JWSHeader header, final InputStream payload, final Base64URL signature)
+		throws JOSEException, IOException;
+}
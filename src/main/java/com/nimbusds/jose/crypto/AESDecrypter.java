@@ -71,7 +71,7 @@ import com.nimbusds.jose.util.Base64URL;
  *
  * @author Melisa Halsband
  * @author Vladimir Dzhuvinov
- * @version 2015-06-29
+ * @version 2022-06-04
  */
 @ThreadSafe
 public class AESDecrypter extends AESCryptoProvider implements JWEDecrypter, CriticalHeaderParamsAware {
@@ -200,7 +200,7 @@ public class AESDecrypter extends AESCryptoProvider implements JWEDecrypter, Cri
 		    alg.equals(JWEAlgorithm.A192KW) ||
 		    alg.equals(JWEAlgorithm.A256KW))   {
 
-			cek = AESKW.unwrapCEK(getKey(), encryptedKey.decode(), getJCAContext().getKeyEncryptionProvider());
+			cek = AESKW.unwrapCEK(getKey(), encryptedKey.decode(), getJCAContext().getKeyEncryptionProvider(), getJCAContext().getEnginePool());
 
 		} else if (alg.equals(JWEAlgorithm.A128GCMKW) ||
 			   alg.equals(JWEAlgorithm.A192GCMKW) ||
@@ -72,10 +72,10 @@ import net.jcip.annotations.ThreadSafe;
  * @author Melisa Halsband
  * @author Vladimir Dzhuvinov
  * @author Dimitar A. Stoikov
- * @version 2017-06-01
+ * @version 2022-06-09
  */
 @ThreadSafe
-public class AESEncrypter extends AESCryptoProvider implements JWEEncrypter {
+public class AESEncrypter extends AESCryptoProvider implements JWEEncrypter, JWEKeyEncrypter {
 
 
 	/**
@@ -139,9 +139,40 @@ public class AESEncrypter extends AESCryptoProvider implements JWEEncrypter {
 	public JWECryptoParts encrypt(final JWEHeader header, final byte[] clearText)
 		throws JOSEException {
 
-		final JWEAlgorithm alg = header.getAlgorithm();
+		final AlgFamily algFamily = resolveAlgFamily(header.getAlgorithm());
+
+		// Generate and encrypt the CEK according to the enc method
+		final EncryptionMethod enc = header.getEncryptionMethod();
+		final SecretKey cek = ContentCryptoProvider.generateCEK(enc, getJCAContext().getSecureRandom());
+
+		final JWEEncryptedKey encryptedKey = encryptKey(header, algFamily, cek);
+
+		return ContentCryptoProvider.encrypt(encryptedKey.getHeader(), clearText, cek, encryptedKey.getEncryptedKey(), getJCAContext());
+	}
+
+
+	@Override
+	public JWEEncryptedKey encryptKey(final JWEHeader header, final SecretKey cek)
+		throws JOSEException {
+
+		return encryptKey(header, resolveAlgFamily(header.getAlgorithm()), cek);
+	}
+
+
+	/**
+	 * Checks the AES key size for the specified JWE algorithm and
+	 * determines the algorithm family.
+	 *
+	 * @param alg The JWE algorithm.
+	 *
+	 * @return The algorithm family.
+	 *
+	 * @throws JOSEException If the JWE algorithm isn't supported or the
+	 *                       key length doesn't match it.
+	 */
+	private AlgFamily resolveAlgFamily(final JWEAlgorithm alg)
+		throws JOSEException {
 
-		// Check the AES key size and determine the algorithm family
 		final AlgFamily algFamily;
 
 		if (alg.equals(JWEAlgorithm.A128KW)) {
@@ -191,17 +222,30 @@ public class AESEncrypter extends AESCryptoProvider implements JWEEncrypter {
 			throw new JOSEException(AlgorithmSupportMessage.unsupportedJWEAlgorithm(alg, SUPPORTED_ALGORITHMS));
 		}
 
+		return algFamily;
+	}
+
+
+	/**
+	 * Encrypts the specified Content Encryption Key (CEK).
+	 *
+	 * @param header    The JWE header.
+	 * @param algFamily The algorithm family.
+	 * @param cek       The CEK.
+	 *
+	 * @return The encrypted CEK with the updated JWE header.
+	 *
+	 * @throws JOSEException If encryption failed.
+	 */
+	private JWEEncryptedKey encryptKey(final JWEHeader header, final AlgFamily algFamily, final SecretKey cek)
+		throws JOSEException {
 
 		final JWEHeader updatedHeader; // We need to work on the header
 		final Base64URL encryptedKey; // The second JWE part
 
-		// Generate and encrypt the CEK according to the enc method
-		final EncryptionMethod enc = header.getEncryptionMethod();
-		final SecretKey cek = ContentCryptoProvider.generateCEK(enc, getJCAContext().getSecureRandom());
-
 		if(AlgFamily.AESKW.equals(algFamily)) {
 
-			encryptedKey = Base64URL.encode(AESKW.wrapCEK(cek, getKey(), getJCAContext().getKeyEncryptionProvider()));
+			encryptedKey = Base64URL.encode(AESKW.wrapCEK(cek, getKey(), getJCAContext().getKeyEncryptionProvider(), getJCAContext().getEnginePool()));
 			updatedHeader = header; // simply copy ref
 
 		} else if(AlgFamily.AESGCMKW.equals(algFamily)) {
@@ -217,9 +261,9 @@ public class AESEncrypter extends AESCryptoProvider implements JWEEncrypter {
 				build();
 		} else {
 			// This should never happen
-			throw new JOSEException("Unexpected JWE algorithm: " + alg);
+			throw new JOSEException("Unexpected JWE algorithm: " + header.getAlgorithm());
 		}
 
-		return ContentCryptoProvider.encrypt(updatedHeader, clearText, cek, encryptedKey, getJCAContext());
+		return new JWEEncryptedKey(updatedHeader, encryptedKey);
 	}
 }
\ No newline at end of file
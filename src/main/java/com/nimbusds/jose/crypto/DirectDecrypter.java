@@ -18,6 +18,9 @@
 package com.nimbusds.jose.crypto;
 
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
 import java.util.Set;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
@@ -68,10 +71,10 @@ import net.jcip.annotations.ThreadSafe;
  * skipped.
  * 
  * @author Vladimir Dzhuvinov
- * @version 2018-07-16
+ * @version 2022-06-09
  */
 @ThreadSafe
-public class DirectDecrypter extends DirectCryptoProvider implements JWEDecrypter, CriticalHeaderParamsAware {
+public class DirectDecrypter extends DirectCryptoProvider implements StreamingJWEDecrypter, CriticalHeaderParamsAware {
 	
 	
 	/**
@@ -245,6 +248,47 @@ public class DirectDecrypter extends DirectCryptoProvider implements JWEDecrypte
 		              final Base64URL authTag) 
 		throws JOSEException {
 
+		checkParts(header, encryptedKey, iv);
+
+		if (authTag == null) {
+			throw new JOSEException("Missing JWE authentication tag");
+		}
+
+		return ContentCryptoProvider.decrypt(header, null, iv, cipherText, authTag, getKey(), getJCAContext());
+	}
+
+
+	@Override
+	public void decrypt(final JWEHeader header,
+			    final Base64URL encryptedKey,
+			    final Base64URL iv,
+			    final PushbackInputStream cipherTextAndTag,
+			    final OutputStream clearText)
+		throws JOSEException, IOException {
+
+		checkParts(header, encryptedKey, iv);
+
+		ContentCryptoProvider.decrypt(header, iv, cipherTextAndTag, getKey(), getJCAContext(), clearText);
+	}
+
+
+	/**
+	 * Validates the JWE algorithm, the required JWE parts and the critical
+	 * header parameters.
+	 *
+	 * @param header       The JWE header.
+	 * @param encryptedKey The encrypted key, {@code null} if not
+	 *                     specified.
+	 * @param iv           The initialisation vector, {@code null} if not
+	 *                     specified.
+	 *
+	 * @throws JOSEException If validation failed.
+	 */
+	private void checkParts(final JWEHeader header,
+				final Base64URL encryptedKey,
+				final Base64URL iv)
+		throws JOSEException {
+
 		// Validate required JWE parts
 		if (! promiscuousMode) {
 			
@@ -263,12 +307,6 @@ public class DirectDecrypter extends DirectCryptoProvider implements JWEDecrypte
 			throw new JOSEException("Unexpected present JWE initialization vector (IV)");
 		}
 
-		if (authTag == null) {
-			throw new JOSEException("Missing JWE authentication tag");
-		}
-
 		critPolicy.ensureHeaderPasses(header);
-
-		return ContentCryptoProvider.decrypt(header, null, iv, cipherText, authTag, getKey(), getJCAContext());
 	}
 }
@@ -18,6 +18,9 @@
 package com.nimbusds.jose.crypto;
 
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 
@@ -63,10 +66,10 @@ import com.nimbusds.jose.util.ByteUtils;
  * </ul>
  *
  * @author Vladimir Dzhuvinov
- * @version 2017-06-01
+ * @version 2022-06-09
  */
 @ThreadSafe
-public class DirectEncrypter extends DirectCryptoProvider implements JWEEncrypter {
+public class DirectEncrypter extends DirectCryptoProvider implements StreamingJWEEncrypter {
 
 
 	/**
@@ -127,6 +130,38 @@ public class DirectEncrypter extends DirectCryptoProvider implements JWEEncrypte
 	public JWECryptoParts encrypt(final JWEHeader header, final byte[] clearText)
 		throws JOSEException {
 
+		checkHeader(header);
+
+		final Base64URL encryptedKey = null; // The second JWE part
+
+		return ContentCryptoProvider.encrypt(header, clearText, getKey(), encryptedKey, getJCAContext());
+	}
+
+
+	@Override
+	public JWEHeader encrypt(final JWEHeader header, final InputStream clearText, final OutputStream out)
+		throws JOSEException, IOException {
+
+		checkHeader(header);
+
+		ContentCryptoProvider.encrypt(header, clearText, getKey(), null, getJCAContext(), out);
+
+		return header;
+	}
+
+
+	/**
+	 * Checks the JWE algorithm and the key length for the encryption
+	 * method.
+	 *
+	 * @param header The JWE header.
+	 *
+	 * @throws JOSEException If the algorithm or the key length isn't
+	 *                       supported.
+	 */
+	private void checkHeader(final JWEHeader header)
+		throws JOSEException {
+
 		JWEAlgorithm alg = header.getAlgorithm();
 
 		if (! alg.equals(JWEAlgorithm.DIR)) {
@@ -139,9 +174,5 @@ public class DirectEncrypter extends DirectCryptoProvider implements JWEEncrypte
 		if (enc.cekBitLength() != ByteUtils.safeBitLength(getKey().getEncoded())) {
 			throw new KeyLengthException(enc.cekBitLength(), enc);
 		}
-
-		final Base64URL encryptedKey = null; // The second JWE part
-
-		return ContentCryptoProvider.encrypt(header, clearText, getKey(), encryptedKey, getJCAContext());
 	}
 }
\ No newline at end of file
@@ -30,6 +30,7 @@ import net.jcip.annotations.ThreadSafe;
 
 import javax.crypto.SecretKey;
 import java.security.PrivateKey;
+import java.security.Provider;
 import java.security.interfaces.ECPrivateKey;
 import java.security.interfaces.ECPublicKey;
 import java.util.Collections;
@@ -92,7 +93,7 @@ import java.util.Set;
  * </ul>
  *
  * @author Alexander Martynov
- * @version 2021-08-03
+ * @version 2022-06-09
  */
 @ThreadSafe
 public class ECDH1PUDecrypter extends ECDH1PUCryptoProvider implements JWEDecrypter, CriticalHeaderParamsAware {
@@ -129,6 +130,12 @@ public class ECDH1PUDecrypter extends ECDH1PUCryptoProvider implements JWEDecryp
     private final CriticalHeaderParamsDeferral critPolicy = new CriticalHeaderParamsDeferral();
 
 
+    /**
+     * The optional cache of the static shared secret (Zs).
+     */
+    private volatile StaticSharedSecretCache staticSharedSecretCache;
+
+
     /**
      * Creates a new Elliptic Curve Diffie-Hellman decrypter.
      *
@@ -216,6 +223,33 @@ public class ECDH1PUDecrypter extends ECDH1PUCryptoProvider implements JWEDecryp
     }
 
 
+    /**
+     * Returns the cache of the static shared secret (Zs).
+     *
+     * @return The static shared secret cache, {@code null} if not
+     *         specified.
+     */
+    public StaticSharedSecretCache getStaticSharedSecretCache() {
+
+        return staticSharedSecretCache;
+    }
+
+
+    /**
+     * Sets a cache of the static shared secret (Zs). The static part of
+     * the key agreement is then derived once for the sender and recipient
+     * keys and reused for subsequent messages.
+     *
+     * @param staticSharedSecretCache The static shared secret cache,
+     *                                {@code null} to derive the static
+     *                                shared secret for each message.
+     */
+    public void setStaticSharedSecretCache(final StaticSharedSecretCache staticSharedSecretCache) {
+
+        this.staticSharedSecretCache = staticSharedSecretCache;
+    }
+
+
     @Override
     public Set<Curve> supportedEllipticCurves() {
 
@@ -256,12 +290,16 @@ public class ECDH1PUDecrypter extends ECDH1PUCryptoProvider implements JWEDecryp
 
         ECPublicKey ephemeralPublicKey = ephemeralKey.toECPublicKey();
 
-        SecretKey Z = ECDH1PU.deriveRecipientZ(
-                privateKey,
-                publicKey,
-                ephemeralPublicKey,
-                getJCAContext().getKeyEncryptionProvider()
-        );
+        final Provider keProvider = getJCAContext().getKeyEncryptionProvider();
+        final StaticSharedSecretCache cache = staticSharedSecretCache;
+
+        final SecretKey Z;
+        if (cache != null) {
+            SecretKey Zs = cache.getStaticSharedSecret(privateKey, publicKey, keProvider);
+            Z = ECDH1PU.deriveRecipientZ(privateKey, ephemeralPublicKey, Zs, keProvider);
+        } else {
+            Z = ECDH1PU.deriveRecipientZ(privateKey, publicKey, ephemeralPublicKey, keProvider);
+        }
 
         return decryptWithZ(header, Z, encryptedKey, iv, cipherText, authTag);
     }
@@ -91,7 +91,7 @@ import java.util.Set;
  * </ul>
  *
  * @author Alexander Martynov
- * @version 2021-08-03
+ * @version 2022-06-09
  */
 @ThreadSafe
 public class ECDH1PUEncrypter extends ECDH1PUCryptoProvider implements JWEEncrypter {
@@ -128,6 +128,18 @@ public class ECDH1PUEncrypter extends ECDH1PUCryptoProvider implements JWEEncryp
      */
     private final SecretKey contentEncryptionKey;
 
+
+    /**
+     * The optional pool of precomputed ephemeral key pairs.
+     */
+    private volatile EphemeralKeyPairPool ephemeralKeyPairPool;
+
+
+    /**
+     * The optional cache of the static shared secret (Zs).
+     */
+    private volatile StaticSharedSecretCache staticSharedSecretCache;
+
     /**
      * Creates a new Elliptic Curve Diffie-Hellman encrypter.
      *
@@ -198,6 +210,33 @@ public class ECDH1PUEncrypter extends ECDH1PUCryptoProvider implements JWEEncryp
     }
 
 
+    /**
+     * Returns the cache of the static shared secret (Zs).
+     *
+     * @return The static shared secret cache, {@code null} if not
+     *         specified.
+     */
+    public StaticSharedSecretCache getStaticSharedSecretCache() {
+
+        return staticSharedSecretCache;
+    }
+
+
+    /**
+     * Sets a cache of the static shared secret (Zs). The static part of
+     * the key agreement is then derived once for the sender and recipient
+     * keys and reused for subsequent messages.
+     *
+     * @param staticSharedSecretCache The static shared secret cache,
+     *                                {@code null} to derive the static
+     *                                shared secret for each message.
+     */
+    public void setStaticSharedSecretCache(final StaticSharedSecretCache staticSharedSecretCache) {
+
+        this.staticSharedSecretCache = staticSharedSecretCache;
+    }
+
+
     @Override
     public Set<Curve> supportedEllipticCurves() {
 
@@ -205,12 +244,44 @@ public class ECDH1PUEncrypter extends ECDH1PUCryptoProvider implements JWEEncryp
     }
 
 
+    /**
+     * Returns the pool of precomputed ephemeral key pairs.
+     *
+     * @return The ephemeral key pair pool, {@code null} if not
+     *         specified.
+     */
+    public EphemeralKeyPairPool getEphemeralKeyPairPool() {
+
+        return ephemeralKeyPairPool;
+    }
+
+
+    /**
+     * Sets a pool of precomputed ephemeral key pairs. The ephemeral key
+     * pair is generated inline if the pool has none available for the
+     * recipient's curve.
+     *
+     * @param ephemeralKeyPairPool The ephemeral key pair pool,
+     *                             {@code null} to always generate the
+     *                             ephemeral key pair inline.
+     */
+    public void setEphemeralKeyPairPool(final EphemeralKeyPairPool ephemeralKeyPairPool) {
+
+        this.ephemeralKeyPairPool = ephemeralKeyPairPool;
+    }
+
+
+
     @Override
     public JWECryptoParts encrypt(final JWEHeader header, final byte[] clearText)
         throws JOSEException {
 
-        // Generate ephemeral EC key pair on the same curve as the consumer's public key
-        KeyPair ephemeralKeyPair = generateEphemeralKeyPair(publicKey.getParams());
+        // Take or generate ephemeral EC key pair on the same curve as the consumer's public key
+        EphemeralKeyPairPool pool = ephemeralKeyPairPool;
+        KeyPair ephemeralKeyPair = pool != null ? pool.pollECKeyPair(getCurve()) : null;
+        if (ephemeralKeyPair == null) {
+            ephemeralKeyPair = generateEphemeralKeyPair(publicKey.getParams());
+        }
         ECPublicKey ephemeralPublicKey = (ECPublicKey)ephemeralKeyPair.getPublic();
         ECPrivateKey ephemeralPrivateKey = (ECPrivateKey)ephemeralKeyPair.getPrivate();
 
@@ -219,12 +290,16 @@ public class ECDH1PUEncrypter extends ECDH1PUCryptoProvider implements JWEEncryp
             ephemeralPublicKey(new ECKey.Builder(getCurve(), ephemeralPublicKey).build()).
             build();
 
-        SecretKey Z = ECDH1PU.deriveSenderZ(
-                privateKey,
-                publicKey,
-                ephemeralPrivateKey,
-                getJCAContext().getKeyEncryptionProvider()
-        );
+        final Provider keProvider = getJCAContext().getKeyEncryptionProvider();
+        final StaticSharedSecretCache cache = staticSharedSecretCache;
+
+        final SecretKey Z;
+        if (cache != null) {
+            SecretKey Zs = cache.getStaticSharedSecret(privateKey, publicKey, keProvider);
+            Z = ECDH1PU.deriveSenderZ(publicKey, ephemeralPrivateKey, Zs, keProvider);
+        } else {
+            Z = ECDH1PU.deriveSenderZ(privateKey, publicKey, ephemeralPrivateKey, keProvider);
+        }
 
         return encryptWithZ(updatedHeader, Z, clearText, contentEncryptionKey);
     }
@@ -89,7 +89,7 @@ import java.util.Set;
  * </ul>
  *
  * @author Alexander Martynov
- * @version 2021-08-03
+ * @version 2022-06-09
  */
 @ThreadSafe
 public class ECDH1PUX25519Decrypter extends ECDH1PUCryptoProvider implements JWEDecrypter, CriticalHeaderParamsAware {
@@ -111,6 +111,12 @@ public class ECDH1PUX25519Decrypter extends ECDH1PUCryptoProvider implements JWE
     private final CriticalHeaderParamsDeferral critPolicy = new CriticalHeaderParamsDeferral();
 
 
+    /**
+     * The optional cache of the static shared secret (Zs).
+     */
+    private volatile StaticSharedSecretCache staticSharedSecretCache;
+
+
     /**
      * Creates a new Curve25519 Elliptic Curve Diffie-Hellman decrypter.
      *
@@ -168,6 +174,33 @@ public class ECDH1PUX25519Decrypter extends ECDH1PUCryptoProvider implements JWE
         return privateKey;
     }
 
+
+    /**
+     * Returns the cache of the static shared secret (Zs).
+     *
+     * @return The static shared secret cache, {@code null} if not
+     *         specified.
+     */
+    public StaticSharedSecretCache getStaticSharedSecretCache() {
+
+        return staticSharedSecretCache;
+    }
+
+
+    /**
+     * Sets a cache of the static shared secret (Zs). The static part of
+     * the key agreement is then derived once for the sender and recipient
+     * keys and reused for subsequent messages.
+     *
+     * @param staticSharedSecretCache The static shared secret cache,
+     *                                {@code null} to derive the static
+     *                                shared secret for each message.
+     */
+    public void setStaticSharedSecretCache(final StaticSharedSecretCache staticSharedSecretCache) {
+
+        this.staticSharedSecretCache = staticSharedSecretCache;
+    }
+
     /**
      * Returns the public key.
      *
@@ -210,11 +243,15 @@ public class ECDH1PUX25519Decrypter extends ECDH1PUCryptoProvider implements JWE
             throw new JOSEException("Missing ephemeral public key \"epk\" JWE header parameter");
         }
 
-        SecretKey Z = ECDH1PU.deriveRecipientZ(
-                privateKey,
-                publicKey,
-                ephemeralPublicKey
-        );
+        final StaticSharedSecretCache cache = staticSharedSecretCache;
+
+        final SecretKey Z;
+        if (cache != null) {
+            SecretKey Zs = cache.getStaticSharedSecret(privateKey, publicKey);
+            Z = ECDH1PU.deriveRecipientZ(privateKey, ephemeralPublicKey, Zs);
+        } else {
+            Z = ECDH1PU.deriveRecipientZ(privateKey, publicKey, ephemeralPublicKey);
+        }
 
         return decryptWithZ(header, Z, encryptedKey, iv, cipherText, authTag);
     }
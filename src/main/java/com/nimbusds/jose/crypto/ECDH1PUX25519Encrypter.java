@@ -90,7 +90,7 @@ import java.util.Set;
  * </ul>
  *
  * @author Alexander Martynov
- * @version 2021-08-03
+ * @version 2022-06-09
  */
 @ThreadSafe
 public class ECDH1PUX25519Encrypter extends ECDH1PUCryptoProvider implements JWEEncrypter {
@@ -112,6 +112,18 @@ public class ECDH1PUX25519Encrypter extends ECDH1PUCryptoProvider implements JWE
      */
     private final SecretKey contentEncryptionKey;
 
+
+    /**
+     * The optional pool of precomputed ephemeral key pairs.
+     */
+    private volatile EphemeralKeyPairPool ephemeralKeyPairPool;
+
+
+    /**
+     * The optional cache of the static shared secret (Zs).
+     */
+    private volatile StaticSharedSecretCache staticSharedSecretCache;
+
     /**
      * Creates a new Curve25519 Elliptic Curve Diffie-Hellman encrypter.
      *
@@ -184,11 +196,69 @@ public class ECDH1PUX25519Encrypter extends ECDH1PUCryptoProvider implements JWE
         return privateKey;
     }
 
+
+    /**
+     * Returns the cache of the static shared secret (Zs).
+     *
+     * @return The static shared secret cache, {@code null} if not
+     *         specified.
+     */
+    public StaticSharedSecretCache getStaticSharedSecretCache() {
+
+        return staticSharedSecretCache;
+    }
+
+
+    /**
+     * Sets a cache of the static shared secret (Zs). The static part of
+     * the key agreement is then derived once for the sender and recipient
+     * keys and reused for subsequent messages.
+     *
+     * @param staticSharedSecretCache The static shared secret cache,
+     *                                {@code null} to derive the static
+     *                                shared secret for each message.
+     */
+    public void setStaticSharedSecretCache(final StaticSharedSecretCache staticSharedSecretCache) {
+
+        this.staticSharedSecretCache = staticSharedSecretCache;
+    }
+
+
+    /**
+     * Returns the pool of precomputed ephemeral key pairs.
+     *
+     * @return The ephemeral key pair pool, {@code null} if not
+     *         specified.
+     */
+    public EphemeralKeyPairPool getEphemeralKeyPairPool() {
+
+        return ephemeralKeyPairPool;
+    }
+
+
+    /**
+     * Sets a pool of precomputed ephemeral key pairs. The ephemeral key
+     * pair is generated inline if the pool has none available for the
+     * X25519 curve.
+     *
+     * @param ephemeralKeyPairPool The ephemeral key pair pool,
+     *                             {@code null} to always generate the
+     *                             ephemeral key pair inline.
+     */
+    public void setEphemeralKeyPairPool(final EphemeralKeyPairPool ephemeralKeyPairPool) {
+
+        this.ephemeralKeyPairPool = ephemeralKeyPairPool;
+    }
+
     @Override
     public JWECryptoParts encrypt(final JWEHeader header, final byte[] clearText)
             throws JOSEException {
 
-        final OctetKeyPair ephemeralPrivateKey = new OctetKeyPairGenerator(getCurve()).generate();
+        EphemeralKeyPairPool pool = ephemeralKeyPairPool;
+        OctetKeyPair ephemeralPrivateKey = pool != null ? pool.pollOctetKeyPair(getCurve()) : null;
+        if (ephemeralPrivateKey == null) {
+            ephemeralPrivateKey = new OctetKeyPairGenerator(getCurve()).generate();
+        }
         final OctetKeyPair ephemeralPublicKey = ephemeralPrivateKey.toPublicJWK();
 
         // Add the ephemeral public EC key to the header
@@ -196,11 +266,15 @@ public class ECDH1PUX25519Encrypter extends ECDH1PUCryptoProvider implements JWE
                 ephemeralPublicKey(ephemeralPublicKey).
                 build();
 
-        SecretKey Z = ECDH1PU.deriveSenderZ(
-                privateKey,
-                publicKey,
-                ephemeralPrivateKey
-        );
+        final StaticSharedSecretCache cache = staticSharedSecretCache;
+
+        final SecretKey Z;
+        if (cache != null) {
+            SecretKey Zs = cache.getStaticSharedSecret(privateKey, publicKey);
+            Z = ECDH1PU.deriveSenderZ(publicKey, ephemeralPrivateKey, Zs);
+        } else {
+            Z = ECDH1PU.deriveSenderZ(privateKey, publicKey, ephemeralPrivateKey);
+        }
 
         return encryptWithZ(updatedHeader, Z, clearText, contentEncryptionKey);
     }
@@ -34,8 +34,10 @@ import javax.crypto.SecretKey;
 
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWECryptoParts;
+import com.nimbusds.jose.JWEEncryptedKey;
 import com.nimbusds.jose.JWEEncrypter;
 import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.JWEKeyEncrypter;
 import com.nimbusds.jose.crypto.impl.ECDH;
 import com.nimbusds.jose.crypto.impl.ECDHCryptoProvider;
 import com.nimbusds.jose.jwk.Curve;
@@ -91,10 +93,10 @@ import net.jcip.annotations.ThreadSafe;
  * @author Tim McLean
  * @author Vladimir Dzhuvinov
  * @author Fernando González Callejas
- * @version 2019-01-24
+ * @version 2022-06-09
  */
 @ThreadSafe
-public class ECDHEncrypter extends ECDHCryptoProvider implements JWEEncrypter {
+public class ECDHEncrypter extends ECDHCryptoProvider implements JWEEncrypter, JWEKeyEncrypter {
 
 
 	/**
@@ -123,6 +125,12 @@ public class ECDHEncrypter extends ECDHCryptoProvider implements JWEEncrypter {
 	 */
 	private final SecretKey contentEncryptionKey;
 
+
+	/**
+	 * The optional pool of precomputed ephemeral key pairs.
+	 */
+	private volatile EphemeralKeyPairPool ephemeralKeyPairPool;
+
 	/**
 	 * Creates a new Elliptic Curve Diffie-Hellman encrypter.
 	 *
@@ -204,12 +212,40 @@ public class ECDHEncrypter extends ECDHCryptoProvider implements JWEEncrypter {
 	}
 
 
+	/**
+	 * Returns the pool of precomputed ephemeral key pairs.
+	 *
+	 * @return The ephemeral key pair pool, {@code null} if not
+	 *         specified.
+	 */
+	public EphemeralKeyPairPool getEphemeralKeyPairPool() {
+
+		return ephemeralKeyPairPool;
+	}
+
+
+	/**
+	 * Sets a pool of precomputed ephemeral key pairs. The ephemeral key
+	 * pair is generated inline if the pool has none available for the
+	 * consumer's curve.
+	 *
+	 * @param ephemeralKeyPairPool The ephemeral key pair pool,
+	 *                             {@code null} to always generate the
+	 *                             ephemeral key pair inline.
+	 */
+	public void setEphemeralKeyPairPool(final EphemeralKeyPairPool ephemeralKeyPairPool) {
+
+		this.ephemeralKeyPairPool = ephemeralKeyPairPool;
+	}
+
+
+
 	@Override
 	public JWECryptoParts encrypt(final JWEHeader header, final byte[] clearText)
 		throws JOSEException {
 
-		// Generate ephemeral EC key pair on the same curve as the consumer's public key
-		KeyPair ephemeralKeyPair = generateEphemeralKeyPair(publicKey.getParams());
+		// Take or generate ephemeral EC key pair on the same curve as the consumer's public key
+		KeyPair ephemeralKeyPair = takeEphemeralKeyPair();
 		ECPublicKey ephemeralPublicKey = (ECPublicKey)ephemeralKeyPair.getPublic();
 		ECPrivateKey ephemeralPrivateKey = (ECPrivateKey)ephemeralKeyPair.getPrivate();
 
@@ -228,6 +264,50 @@ public class ECDHEncrypter extends ECDHCryptoProvider implements JWEEncrypter {
 	}
 
 
+	/**
+	 * Wraps the specified content encryption key (CEK) with a key agreed
+	 * from a new ephemeral EC key pair. Supported for the ECDH-ES key
+	 * agreement with key wrapping algorithms only.
+	 */
+	@Override
+	public JWEEncryptedKey encryptKey(final JWEHeader header, final SecretKey cek)
+		throws JOSEException {
+
+		KeyPair ephemeralKeyPair = takeEphemeralKeyPair();
+
+		JWEHeader updatedHeader = new JWEHeader.Builder(header).
+			ephemeralPublicKey(new ECKey.Builder(getCurve(), (ECPublicKey)ephemeralKeyPair.getPublic()).build()).
+			build();
+
+		SecretKey Z = ECDH.deriveSharedSecret(
+			publicKey,
+			(ECPrivateKey)ephemeralKeyPair.getPrivate(),
+			getJCAContext().getKeyEncryptionProvider());
+
+		return new JWEEncryptedKey(updatedHeader, wrapCEKWithZ(updatedHeader, Z, cek));
+	}
+
+
+	/**
+	 * Takes an ephemeral EC key pair from the pool, if set, or generates
+	 * a new one on the curve of the public key.
+	 *
+	 * @return The EC key pair.
+	 *
+	 * @throws JOSEException If the EC key pair couldn't be generated.
+	 */
+	private KeyPair takeEphemeralKeyPair()
+		throws JOSEException {
+
+		EphemeralKeyPairPool pool = ephemeralKeyPairPool;
+		KeyPair ephemeralKeyPair = pool != null ? pool.pollECKeyPair(getCurve()) : null;
+		if (ephemeralKeyPair == null) {
+			ephemeralKeyPair = generateEphemeralKeyPair(publicKey.getParams());
+		}
+		return ephemeralKeyPair;
+	}
+
+
 	/**
 	 * Generates a new ephemeral EC key pair with the specified curve.
 	 *
@@ -18,6 +18,8 @@
 package com.nimbusds.jose.crypto;
 
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.security.InvalidKeyException;
 import java.security.PrivateKey;
 import java.security.Signature;
@@ -29,10 +31,11 @@ import net.jcip.annotations.ThreadSafe;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.JWSHeader;
-import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.StreamingJWSSigner;
 import com.nimbusds.jose.crypto.impl.AlgorithmSupportMessage;
 import com.nimbusds.jose.crypto.impl.ECDSA;
 import com.nimbusds.jose.crypto.impl.ECDSAProvider;
+import com.nimbusds.jose.crypto.impl.SigningInput;
 import com.nimbusds.jose.jwk.Curve;
 import com.nimbusds.jose.jwk.ECKey;
 import com.nimbusds.jose.util.Base64URL;
@@ -60,10 +63,10 @@ import com.nimbusds.jose.util.Base64URL;
  * 
  * @author Axel Nennker
  * @author Vladimir Dzhuvinov
- * @version 2016-11-30
+ * @version 2022-06-09
  */
 @ThreadSafe
-public class ECDSASigner extends ECDSAProvider implements JWSSigner {
+public class ECDSASigner extends ECDSAProvider implements StreamingJWSSigner {
 	
 	
 	/**
@@ -170,8 +173,8 @@ public class ECDSASigner extends ECDSAProvider implements JWSSigner {
 
 		// DER-encoded signature, according to JCA spec
 		final byte[] jcaSignature;
+		final Signature dsa = ECDSA.getSignerAndVerifier(alg, getJCAContext().getProvider(), getJCAContext().getEnginePool());
 		try {
-			Signature dsa = ECDSA.getSignerAndVerifier(alg, getJCAContext().getProvider());
 			dsa.initSign(privateKey, getJCAContext().getSecureRandom());
 			dsa.update(signingInput);
 			jcaSignature = dsa.sign();
@@ -179,9 +182,60 @@ public class ECDSASigner extends ECDSAProvider implements JWSSigner {
 		} catch (InvalidKeyException | SignatureException e) {
 
 			throw new JOSEException(e.getMessage(), e);
+		} finally {
+			// Reinitialised on next use
+			ECDSA.releaseSignerAndVerifier(alg, getJCAContext().getProvider(), getJCAContext().getEnginePool(), dsa);
 		}
 
-		final int rsByteArrayLength = ECDSA.getSignatureByteArrayLength(header.getAlgorithm());
+		return toJWSSignature(alg, jcaSignature);
+	}
+
+
+	@Override
+	public Base64URL sign(final JWSHeader header, final InputStream payload)
+		throws JOSEException, IOException {
+
+		final JWSAlgorithm alg = header.getAlgorithm();
+
+		if (! supportedJWSAlgorithms().contains(alg)) {
+			throw new JOSEException(AlgorithmSupportMessage.unsupportedJWSAlgorithm(alg, supportedJWSAlgorithms()));
+		}
+
+		// DER-encoded signature, according to JCA spec
+		final byte[] jcaSignature;
+		final Signature dsa = ECDSA.getSignerAndVerifier(alg, getJCAContext().getProvider(), getJCAContext().getEnginePool());
+		try {
+			dsa.initSign(privateKey, getJCAContext().getSecureRandom());
+			SigningInput.update(header, payload, dsa);
+			jcaSignature = dsa.sign();
+
+		} catch (InvalidKeyException | SignatureException e) {
+
+			throw new JOSEException(e.getMessage(), e);
+		} finally {
+			// Reinitialised on next use
+			ECDSA.releaseSignerAndVerifier(alg, getJCAContext().getProvider(), getJCAContext().getEnginePool(), dsa);
+		}
+
+		return toJWSSignature(alg, jcaSignature);
+	}
+
+
+	/**
+	 * Transcodes the specified DER-encoded JCA signature to the JWS
+	 * signature format.
+	 *
+	 * @param alg          The JWS algorithm.
+	 * @param jcaSignature The DER-encoded signature.
+	 *
+	 * @return The JWS signature.
+	 *
+	 * @throws JOSEException If the signature couldn't be transcoded.
+	 */
+	private static Base64URL toJWSSignature(final JWSAlgorithm alg, final byte[] jcaSignature)
+		throws JOSEException {
+
+		final int rsByteArrayLength = ECDSA.getSignatureByteArrayLength(alg);
 		final byte[] jwsSignature = ECDSA.transcodeSignatureToConcat(jcaSignature, rsByteArrayLength);
 		return Base64URL.encode(jwsSignature);
 	}
@@ -18,6 +18,8 @@
 package com.nimbusds.jose.crypto;
 
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.security.InvalidKeyException;
 import java.security.Signature;
 import java.security.SignatureException;
@@ -31,6 +33,7 @@ import com.nimbusds.jose.crypto.impl.AlgorithmSupportMessage;
 import com.nimbusds.jose.crypto.impl.CriticalHeaderParamsDeferral;
 import com.nimbusds.jose.crypto.impl.ECDSA;
 import com.nimbusds.jose.crypto.impl.ECDSAProvider;
+import com.nimbusds.jose.crypto.impl.SigningInput;
 import com.nimbusds.jose.crypto.utils.ECChecks;
 import com.nimbusds.jose.jwk.Curve;
 import com.nimbusds.jose.jwk.ECKey;
@@ -59,10 +62,10 @@ import com.nimbusds.jose.util.Base64URL;
  * 
  * @author Axel Nennker
  * @author Vladimir Dzhuvinov
- * @version 2022-04-22
+ * @version 2022-06-09
  */
 @ThreadSafe
-public class ECDSAVerifier extends ECDSAProvider implements JWSVerifier, CriticalHeaderParamsAware {
+public class ECDSAVerifier extends ECDSAProvider implements JWSSliceVerifier, StreamingJWSVerifier, CriticalHeaderParamsAware {
 
 
 	/**
@@ -166,6 +169,18 @@ public class ECDSAVerifier extends ECDSAProvider implements JWSVerifier, Critica
 		              final Base64URL signature)
 		throws JOSEException {
 
+		return verify(header, signedContent, 0, signedContent.length, signature);
+	}
+
+
+	@Override
+	public boolean verify(final JWSHeader header,
+			      final byte[] buf,
+			      final int offset,
+			      final int length,
+			      final Base64URL signature)
+		throws JOSEException {
+
 		final JWSAlgorithm alg = header.getAlgorithm();
 
 		if (! supportedJWSAlgorithms().contains(alg)) {
@@ -176,34 +191,96 @@ public class ECDSAVerifier extends ECDSAProvider implements JWSVerifier, Critica
 			return false;
 		}
 
-		final byte[] jwsSignature = signature.decode();
-		
-		// Prevent CVE-2022-21449 and similar attacks
-		try {
-			ECDSA.ensureLegalSignature(jwsSignature, alg);
-		} catch (JOSEException e) {
+		final byte[] derSignature = toDERSignature(alg, signature);
+
+		if (derSignature == null) {
 			return false;
 		}
-		
-		final byte[] derSignature;
+
+		Signature sig = ECDSA.getSignerAndVerifier(alg, getJCAContext().getProvider(), getJCAContext().getEnginePool());
+
 		try {
-			derSignature = ECDSA.transcodeSignatureToDER(jwsSignature);
-		} catch (JOSEException e) {
-			// Invalid signature format
+			sig.initVerify(publicKey);
+			sig.update(buf, offset, length);
+			return sig.verify(derSignature);
+
+		} catch (InvalidKeyException e) {
+			throw new JOSEException("Invalid EC public key: " + e.getMessage(), e);
+		} catch (SignatureException e) {
+			return false;
+		} finally {
+			// Reinitialised on next use
+			ECDSA.releaseSignerAndVerifier(alg, getJCAContext().getProvider(), getJCAContext().getEnginePool(), sig);
+		}
+	}
+
+
+	@Override
+	public boolean verify(final JWSHeader header,
+			      final InputStream payload,
+			      final Base64URL signature)
+		throws JOSEException, IOException {
+
+		final JWSAlgorithm alg = header.getAlgorithm();
+
+		if (! supportedJWSAlgorithms().contains(alg)) {
+			throw new JOSEException(AlgorithmSupportMessage.unsupportedJWSAlgorithm(alg, supportedJWSAlgorithms()));
+		}
+
+		if (! critPolicy.headerPasses(header)) {
 			return false;
 		}
 
-		Signature sig = ECDSA.getSignerAndVerifier(alg, getJCAContext().getProvider());
+		final byte[] derSignature = toDERSignature(alg, signature);
+
+		if (derSignature == null) {
+			return false;
+		}
+
+		Signature sig = ECDSA.getSignerAndVerifier(alg, getJCAContext().getProvider(), getJCAContext().getEnginePool());
 
 		try {
 			sig.initVerify(publicKey);
-			sig.update(signedContent);
+			SigningInput.update(header, payload, sig);
 			return sig.verify(derSignature);
 
 		} catch (InvalidKeyException e) {
 			throw new JOSEException("Invalid EC public key: " + e.getMessage(), e);
 		} catch (SignatureException e) {
 			return false;
+		} finally {
+			// Reinitialised on next use
+			ECDSA.releaseSignerAndVerifier(alg, getJCAContext().getProvider(), getJCAContext().getEnginePool(), sig);
+		}
+	}
+
+
+	/**
+	 * Checks the specified JWS signature and transcodes it to the
+	 * DER-encoded JCA format.
+	 *
+	 * @param alg       The JWS algorithm.
+	 * @param signature The JWS signature.
+	 *
+	 * @return The DER-encoded signature, {@code null} if the signature is
+	 *         illegal or has an invalid format.
+	 */
+	private static byte[] toDERSignature(final JWSAlgorithm alg, final Base64URL signature) {
+
+		final byte[] jwsSignature = signature.decode();
+		
+		// Prevent CVE-2022-21449 and similar attacks
+		try {
+			ECDSA.ensureLegalSignature(jwsSignature, alg);
+		} catch (JOSEException e) {
+			return null;
+		}
+		
+		try {
+			return ECDSA.transcodeSignatureToDER(jwsSignature);
+		} catch (JOSEException e) {
+			// Invalid signature format
+			return null;
 		}
 	}
 }
@@ -0,0 +1,459 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.crypto;
+
+
+import java.security.InvalidAlgorithmParameterException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import net.jcip.annotations.ThreadSafe;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.gen.OctetKeyPairGenerator;
+
+
+/**
+ * Pool of precomputed ephemeral key pairs for the ECDH-ES and ECDH-1PU
+ * encrypters. A background daemon thread keeps a bounded queue of fresh
+ * key pairs for each configured curve. Each key pair is removed from the
+ * queue when taken and thus used exactly once, the queue is refilled
+ * asynchronously. When a queue runs empty the encrypters fall back to
+ * generating the ephemeral key pair inline.
+ *
+ * <p>Supports the following curves:
+ *
+ * <ul>
+ *     <li>{@link Curve#P_256}, {@link Curve#P_384}, {@link Curve#P_521}
+ *         for {@link ECDHEncrypter} and {@link ECDH1PUEncrypter}
+ *     <li>{@link Curve#X25519} for {@link X25519Encrypter} and
+ *         {@link ECDH1PUX25519Encrypter}
+ * </ul>
+ *
+ * <p>A pool may be shared by any number of encrypters. It must be
+ * {@link #shutdown() shut down} when no longer needed to stop its
+ * background thread.
+ *
+ * <p>Example:
+ *
+ * <pre>
+ * EphemeralKeyPairPool pool = new EphemeralKeyPairPool(Collections.singleton(Curve.P_256), 256);
+ *
+ * ECDHEncrypter encrypter = new ECDHEncrypter(ecPublicKey);
+ * encrypter.setEphemeralKeyPairPool(pool);
+ * </pre>
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+@ThreadSafe
+public final class EphemeralKeyPairPool {
+
+
+	/**
+	 * The default capacity of the queue for each curve (64).
+	 */
+	public static final int DEFAULT_CAPACITY = 64;
+
+
+	/**
+	 * The supported curves.
+	 */
+	public static final Set<Curve> SUPPORTED_CURVES;
+
+
+	static {
+		Set<Curve> curves = new LinkedHashSet<>();
+		curves.add(Curve.P_256);
+		curves.add(Curve.P_384);
+		curves.add(Curve.P_521);
+		curves.add(Curve.X25519);
+		SUPPORTED_CURVES = Collections.unmodifiableSet(curves);
+	}
+
+
+	/**
+	 * The JCA provider for generating the EC key pairs, {@code null} for
+	 * the default one.
+	 */
+	private final Provider provider;
+
+
+	/**
+	 * The queue capacity for each curve.
+	 */
+	private final int capacity;
+
+
+	/**
+	 * The key pair queues, by curve.
+	 */
+	private final Map<Curve, CurveQueue> queues;
+
+
+	/**
+	 * The background producer.
+	 */
+	private final ExecutorService producer;
+
+
+	/**
+	 * {@code true} if the pool was shut down.
+	 */
+	private volatile boolean stopped;
+
+
+	/**
+	 * Creates a new ephemeral key pair pool with the
+	 * {@link #DEFAULT_CAPACITY default capacity} and starts filling it.
+	 *
+	 * @param curves The curves. Must not be empty.
+	 *
+	 * @throws JOSEException If a curve isn't supported or a key pair
+	 *                       couldn't be generated for it.
+	 */
+	public EphemeralKeyPairPool(final Set<Curve> curves)
+		throws JOSEException {
+
+		this(curves, DEFAULT_CAPACITY, null);
+	}
+
+
+	/**
+	 * Creates a new ephemeral key pair pool and starts filling it.
+	 *
+	 * @param curves   The curves. Must not be empty.
+	 * @param capacity The maximum number of precomputed key pairs for
+	 *                 each curve. Must be positive.
+	 *
+	 * @throws JOSEException If a curve isn't supported or a key pair
+	 *                       couldn't be generated for it.
+	 */
+	public EphemeralKeyPairPool(final Set<Curve> curves, final int capacity)
+		throws JOSEException {
+
+		this(curves, capacity, null);
+	}
+
+
+	/**
+	 * Creates a new ephemeral key pair pool and starts filling it.
+	 *
+	 * @param curves   The curves. Must not be empty.
+	 * @param capacity The maximum number of precomputed key pairs for
+	 *                 each curve. Must be positive.
+	 * @param provider The JCA provider for generating the EC key pairs,
+	 *                 {@code null} for the default one.
+	 *
+	 * @throws JOSEException If a curve isn't supported or a key pair
+	 *                       couldn't be generated for it.
+	 */
+	public EphemeralKeyPairPool(final Set<Curve> curves,
+				    final int capacity,
+				    final Provider provider)
+		throws JOSEException {
+
+		if (curves == null || curves.isEmpty()) {
+			throw new IllegalArgumentException("The curves must not be empty");
+		}
+
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity must be positive");
+		}
+
+		this.capacity = capacity;
+		this.provider = provider;
+
+		Map<Curve, CurveQueue> map = new HashMap<>();
+
+		for (Curve crv: curves) {
+
+			if (! SUPPORTED_CURVES.contains(crv)) {
+				throw new JOSEException("Unsupported ephemeral key pair curve: " + crv);
+			}
+
+			CurveQueue queue = new CurveQueue(crv, capacity);
+
+			// Check generation, the first key pair is kept
+			queue.keyPairs.offer(generate(crv));
+
+			map.put(crv, queue);
+		}
+
+		queues = Collections.unmodifiableMap(map);
+
+		producer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable r) {
+				Thread thread = new Thread(r, "nimbus-ephemeral-key-pair-pool");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		for (CurveQueue queue: queues.values()) {
+			queue.scheduleRefill();
+		}
+	}
+
+
+	/**
+	 * Returns the curves of this pool.
+	 *
+	 * @return The curves.
+	 */
+	public Set<Curve> getCurves() {
+
+		return queues.keySet();
+	}
+
+
+	/**
+	 * Returns the maximum number of precomputed key pairs for each
+	 * curve.
+	 *
+	 * @return The capacity.
+	 */
+	public int getCapacity() {
+
+		return capacity;
+	}
+
+
+	/**
+	 * Returns the number of precomputed key pairs currently available for
+	 * the specified curve.
+	 *
+	 * @param crv The curve. Must not be {@code null}.
+	 *
+	 * @return The number of key pairs, zero if the curve isn't pooled.
+	 */
+	public int size(final Curve crv) {
+
+		CurveQueue queue = queues.get(crv);
+		return queue != null ? queue.keyPairs.size() : 0;
+	}
+
+
+	/**
+	 * Takes a precomputed EC key pair for the specified curve. The key
+	 * pair is removed from the pool and won't be returned again.
+	 *
+	 * @param crv The curve, P-256, P-384 or P-521. Must not be
+	 *            {@code null}.
+	 *
+	 * @return The EC key pair, {@code null} if the curve isn't pooled,
+	 *         none is available or the pool was shut down.
+	 */
+	public KeyPair pollECKeyPair(final Curve crv) {
+
+		Object keyPair = poll(crv);
+		return keyPair instanceof KeyPair ? (KeyPair) keyPair : null;
+	}
+
+
+	/**
+	 * Takes a precomputed Octet key pair for the specified curve. The key
+	 * pair is removed from the pool and won't be returned again.
+	 *
+	 * @param crv The curve, X25519. Must not be {@code null}.
+	 *
+	 * @return The Octet key pair with the private part, {@code null} if
+	 *         the curve isn't pooled, none is available or the pool was
+	 *         shut down.
+	 */
+	public OctetKeyPair pollOctetKeyPair(final Curve crv) {
+
+		Object keyPair = poll(crv);
+		return keyPair instanceof OctetKeyPair ? (OctetKeyPair) keyPair : null;
+	}
+
+
+	/**
+	 * Takes a precomputed key pair for the specified curve and schedules
+	 * a refill of its queue.
+	 *
+	 * @param crv The curve.
+	 *
+	 * @return The key pair, {@code null} if none.
+	 */
+	private Object poll(final Curve crv) {
+
+		if (stopped) {
+			return null;
+		}
+
+		CurveQueue queue = queues.get(crv);
+
+		if (queue == null) {
+			return null;
+		}
+
+		Object keyPair = queue.keyPairs.poll();
+		queue.scheduleRefill();
+		return keyPair;
+	}
+
+
+	/**
+	 * Generates a new key pair for the specified curve.
+	 *
+	 * @param crv The curve.
+	 *
+	 * @return The key pair, a {@link KeyPair} for an EC curve or an
+	 *         {@link OctetKeyPair} for X25519.
+	 *
+	 * @throws JOSEException If the key pair couldn't be generated.
+	 */
+	private Object generate(final Curve crv)
+		throws JOSEException {
+
+		if (Curve.X25519.equals(crv)) {
+			return new OctetKeyPairGenerator(crv).generate();
+		}
+
+		try {
+			KeyPairGenerator generator;
+
+			if (provider != null) {
+				generator = KeyPairGenerator.getInstance("EC", provider);
+			} else {
+				generator = KeyPairGenerator.getInstance("EC");
+			}
+
+			generator.initialize(crv.toECParameterSpec());
+			return generator.generateKeyPair();
+		} catch (NoSuchAlgorithmException | InvalidAlgorithmParameterException e) {
+			throw new JOSEException("Couldn't generate ephemeral EC key pair: " + e.getMessage(), e);
+		}
+	}
+
+
+	/**
+	 * Stops the background thread and discards the precomputed key
+	 * pairs. Encrypters using the pool fall back to inline key pair
+	 * generation.
+	 */
+	public void shutdown() {
+
+		stopped = true;
+		producer.shutdownNow();
+
+		for (CurveQueue queue: queues.values()) {
+			queue.keyPairs.clear();
+		}
+	}
+
+
+	/**
+	 * Returns {@code true} if this pool was shut down.
+	 *
+	 * @return {@code true} if shut down, else {@code false}.
+	 */
+	public boolean isShutdown() {
+
+		return stopped;
+	}
+
+
+	/**
+	 * The bounded key pair queue of a curve, with at most one refill task
+	 * scheduled at a time.
+	 */
+	private final class CurveQueue implements Runnable {
+
+
+		/**
+		 * The curve.
+		 */
+		private final Curve crv;
+
+
+		/**
+		 * The precomputed key pairs.
+		 */
+		private final BlockingQueue<Object> keyPairs;
+
+
+		/**
+		 * {@code true} if a refill is scheduled or running.
+		 */
+		private final AtomicBoolean refilling = new AtomicBoolean();
+
+
+		private CurveQueue(final Curve crv, final int capacity) {
+			this.crv = crv;
+			keyPairs = new ArrayBlockingQueue<>(capacity);
+		}
+
+
+		/**
+		 * Schedules a refill unless the queue is full or a refill is
+		 * already pending.
+		 */
+		private void scheduleRefill() {
+
+			if (stopped || keyPairs.remainingCapacity() == 0) {
+				return;
+			}
+
+			if (! refilling.compareAndSet(false, true)) {
+				return;
+			}
+
+			try {
+				producer.execute(this);
+			} catch (RejectedExecutionException e) {
+				// Shut down
+				refilling.set(false);
+			}
+		}
+
+
+		@Override
+		public void run() {
+
+			try {
+				while (! stopped && keyPairs.remainingCapacity() > 0) {
+					keyPairs.offer(generate(crv));
+				}
+			} catch (JOSEException e) {
+				// Retried on the next poll, the encrypters
+				// generate inline meanwhile
+				refilling.set(false);
+				return;
+			}
+
+			refilling.set(false);
+
+			// Catch polls made after the last check
+			scheduleRefill();
+		}
+	}
+}
@@ -18,6 +18,8 @@
 package com.nimbusds.jose.crypto;
 
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Set;
@@ -25,7 +27,6 @@ import javax.crypto.SecretKey;
 
 import com.nimbusds.jose.*;
 import com.nimbusds.jose.crypto.impl.AlgorithmSupportMessage;
-import com.nimbusds.jose.crypto.impl.HMAC;
 import com.nimbusds.jose.crypto.impl.MACProvider;
 import com.nimbusds.jose.jwk.OctetSequenceKey;
 import com.nimbusds.jose.util.Base64URL;
@@ -54,10 +55,10 @@ import net.jcip.annotations.ThreadSafe;
  * </ul>
  * 
  * @author Vladimir Dzhuvinov
- * @version 2016-07-27
+ * @version 2022-06-09
  */
 @ThreadSafe
-public class MACSigner extends MACProvider implements JWSSigner {
+public class MACSigner extends MACProvider implements StreamingJWSSigner {
 
 
 	/**
@@ -183,14 +184,42 @@ public class MACSigner extends MACProvider implements JWSSigner {
 	public Base64URL sign(final JWSHeader header, final byte[] signingInput)
 		throws JOSEException {
 
-		final int minRequiredLength = getMinRequiredSecretLength(header.getAlgorithm());
+		ensureMinSecretLength(header.getAlgorithm());
+
+		String jcaAlg = getJCAAlgorithmName(header.getAlgorithm());
+		byte[] hmac = computeHMAC(jcaAlg, signingInput);
+		return Base64URL.encode(hmac);
+	}
 
-		if (getSecret().length < ByteUtils.byteLength(minRequiredLength)) {
-			throw new KeyLengthException("The secret length for " + header.getAlgorithm() + " must be at least " + minRequiredLength + " bits");
-		}
+
+	@Override
+	public Base64URL sign(final JWSHeader header, final InputStream payload)
+		throws JOSEException, IOException {
+
+		ensureMinSecretLength(header.getAlgorithm());
 
 		String jcaAlg = getJCAAlgorithmName(header.getAlgorithm());
-		byte[] hmac = HMAC.compute(jcaAlg, getSecret(), signingInput, getJCAContext().getProvider());
+		byte[] hmac = computeHMAC(jcaAlg, header, payload);
 		return Base64URL.encode(hmac);
 	}
+
+
+	/**
+	 * Ensures the secret is long enough for the specified HMAC
+	 * algorithm.
+	 *
+	 * @param alg The JWS algorithm.
+	 *
+	 * @throws JOSEException If the algorithm is not supported or the
+	 *                       secret is too short.
+	 */
+	private void ensureMinSecretLength(final JWSAlgorithm alg)
+		throws JOSEException {
+
+		final int minRequiredLength = getMinRequiredSecretLength(alg);
+
+		if (getSecret().length < ByteUtils.byteLength(minRequiredLength)) {
+			throw new KeyLengthException("The secret length for " + alg + " must be at least " + minRequiredLength + " bits");
+		}
+	}
 }
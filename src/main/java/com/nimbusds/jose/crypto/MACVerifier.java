@@ -18,15 +18,17 @@
 package com.nimbusds.jose.crypto;
 
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Set;
 import javax.crypto.SecretKey;
 
 import com.nimbusds.jose.CriticalHeaderParamsAware;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSHeader;
-import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.JWSSliceVerifier;
+import com.nimbusds.jose.StreamingJWSVerifier;
 import com.nimbusds.jose.crypto.impl.CriticalHeaderParamsDeferral;
-import com.nimbusds.jose.crypto.impl.HMAC;
 import com.nimbusds.jose.crypto.impl.MACProvider;
 import com.nimbusds.jose.crypto.utils.ConstantTimeUtils;
 import com.nimbusds.jose.jwk.OctetSequenceKey;
@@ -54,10 +56,10 @@ import net.jcip.annotations.ThreadSafe;
  * </ul>
  * 
  * @author Vladimir Dzhuvinov
- * @version 2016-06-26
+ * @version 2022-06-09
  */
 @ThreadSafe
-public class MACVerifier extends MACProvider implements JWSVerifier, CriticalHeaderParamsAware {
+public class MACVerifier extends MACProvider implements JWSSliceVerifier, StreamingJWSVerifier, CriticalHeaderParamsAware {
 
 
 	/**
@@ -191,12 +193,40 @@ public class MACVerifier extends MACProvider implements JWSVerifier, CriticalHea
 		              final Base64URL signature)
 		throws JOSEException {
 
+		return verify(header, signedContent, 0, signedContent.length, signature);
+	}
+
+
+	@Override
+	public boolean verify(final JWSHeader header,
+			      final byte[] buf,
+			      final int offset,
+			      final int length,
+			      final Base64URL signature)
+		throws JOSEException {
+
+		if (! critPolicy.headerPasses(header)) {
+			return false;
+		}
+
+		String jcaAlg = getJCAAlgorithmName(header.getAlgorithm());
+		byte[] expectedHMAC = computeHMAC(jcaAlg, buf, offset, length);
+		return ConstantTimeUtils.areEqual(expectedHMAC, signature.decode());
+	}
+
+
+	@Override
+	public boolean verify(final JWSHeader header,
+			      final InputStream payload,
+			      final Base64URL signature)
+		throws JOSEException, IOException {
+
 		if (! critPolicy.headerPasses(header)) {
 			return false;
 		}
 
 		String jcaAlg = getJCAAlgorithmName(header.getAlgorithm());
-		byte[] expectedHMAC = HMAC.compute(jcaAlg, getSecret(), signedContent, getJCAContext().getProvider());
+		byte[] expectedHMAC = computeHMAC(jcaAlg, header, payload);
 		return ConstantTimeUtils.areEqual(expectedHMAC, signature.decode());
 	}
 }
@@ -18,6 +18,9 @@
 package com.nimbusds.jose.crypto;
 
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
 import java.security.PrivateKey;
 import java.util.Set;
 import javax.crypto.SecretKey;
@@ -72,10 +75,10 @@ import com.nimbusds.jose.util.Base64URL;
  * @author David Ortiz
  * @author Vladimir Dzhuvinov
  * @author Dimitar A. Stoikov
- * @version 2021-09-23
+ * @version 2022-06-09
  */
 @ThreadSafe
-public class RSADecrypter extends RSACryptoProvider implements JWEDecrypter, CriticalHeaderParamsAware {
+public class RSADecrypter extends RSACryptoProvider implements StreamingJWEDecrypter, CriticalHeaderParamsAware {
 
 
 	/**
@@ -227,6 +230,49 @@ public class RSADecrypter extends RSACryptoProvider implements JWEDecrypter, Cri
 		              final Base64URL authTag) 
 		throws JOSEException {
 
+		if (authTag == null) {
+			throw new JOSEException("Missing JWE authentication tag");
+		}
+
+		SecretKey cek = decryptCEK(header, encryptedKey, iv);
+
+		return ContentCryptoProvider.decrypt(header, encryptedKey, iv, cipherText, authTag, cek, getJCAContext());
+	}
+	
+	
+	@Override
+	public void decrypt(final JWEHeader header,
+			    final Base64URL encryptedKey,
+			    final Base64URL iv,
+			    final PushbackInputStream cipherTextAndTag,
+			    final OutputStream clearText)
+		throws JOSEException, IOException {
+
+		SecretKey cek = decryptCEK(header, encryptedKey, iv);
+
+		ContentCryptoProvider.decrypt(header, iv, cipherTextAndTag, cek, getJCAContext(), clearText);
+	}
+
+
+	/**
+	 * Validates the required JWE parts and the critical header parameters
+	 * and decrypts the Content Encryption Key (CEK).
+	 *
+	 * @param header       The JWE header.
+	 * @param encryptedKey The encrypted key, {@code null} if not
+	 *                     specified.
+	 * @param iv           The initialisation vector, {@code null} if not
+	 *                     specified.
+	 *
+	 * @return The CEK.
+	 *
+	 * @throws JOSEException If validation or decryption failed.
+	 */
+	private SecretKey decryptCEK(final JWEHeader header,
+				     final Base64URL encryptedKey,
+				     final Base64URL iv)
+		throws JOSEException {
+
 		// Validate required JWE parts
 		if (encryptedKey == null) {
 			throw new JOSEException("Missing JWE encrypted key");
@@ -236,20 +282,16 @@ public class RSADecrypter extends RSACryptoProvider implements JWEDecrypter, Cri
 			throw new JOSEException("Missing JWE initialization vector (IV)");
 		}
 
-		if (authTag == null) {
-			throw new JOSEException("Missing JWE authentication tag");
-		}
-
 		critPolicy.ensureHeaderPasses(header);
 		
 
 		// Derive the content encryption key
 		JWEAlgorithm alg = header.getAlgorithm();
 
-		SecretKey cek;
-
 		if (alg.equals(JWEAlgorithm.RSA1_5)) {
 
+			SecretKey cek;
+
 			int keyLength = header.getEncryptionMethod().cekBitLength();
 
 			// Protect against MMA attack by generating random CEK to be used on decryption failure,
@@ -272,20 +314,20 @@ public class RSADecrypter extends RSACryptoProvider implements JWEDecrypter, Cri
 			}
 			
 			cekDecryptionException = null;
+			
+			return cek;
 		
 		} else if (alg.equals(JWEAlgorithm.RSA_OAEP)) {
-			cek = RSA_OAEP.decryptCEK(privateKey, encryptedKey.decode(), getJCAContext().getKeyEncryptionProvider());
+			return RSA_OAEP.decryptCEK(privateKey, encryptedKey.decode(), getJCAContext().getKeyEncryptionProvider());
 		} else if (alg.equals(JWEAlgorithm.RSA_OAEP_256)) {
-			cek = RSA_OAEP_SHA2.decryptCEK(privateKey, encryptedKey.decode(), 256, getJCAContext().getKeyEncryptionProvider());
+			return RSA_OAEP_SHA2.decryptCEK(privateKey, encryptedKey.decode(), 256, getJCAContext().getKeyEncryptionProvider());
 		} else if (alg.equals(JWEAlgorithm.RSA_OAEP_384)) {
-			cek = RSA_OAEP_SHA2.decryptCEK(privateKey, encryptedKey.decode(), 384, getJCAContext().getKeyEncryptionProvider());
+			return RSA_OAEP_SHA2.decryptCEK(privateKey, encryptedKey.decode(), 384, getJCAContext().getKeyEncryptionProvider());
 		} else if (alg.equals(JWEAlgorithm.RSA_OAEP_512)){
-			cek = RSA_OAEP_SHA2.decryptCEK(privateKey, encryptedKey.decode(), 512, getJCAContext().getKeyEncryptionProvider());
+			return RSA_OAEP_SHA2.decryptCEK(privateKey, encryptedKey.decode(), 512, getJCAContext().getKeyEncryptionProvider());
 		} else {
 			throw new JOSEException(AlgorithmSupportMessage.unsupportedJWEAlgorithm(alg, SUPPORTED_ALGORITHMS));
 		}
-
-		return ContentCryptoProvider.decrypt(header, encryptedKey, iv, cipherText, authTag, cek, getJCAContext());
 	}
 	
 	
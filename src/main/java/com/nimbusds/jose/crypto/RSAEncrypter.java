@@ -18,6 +18,9 @@
 package com.nimbusds.jose.crypto;
 
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.security.interfaces.RSAPublicKey;
 import java.util.Arrays;
 import java.util.Collections;
@@ -32,8 +35,10 @@ import com.nimbusds.jose.EncryptionMethod;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWEAlgorithm;
 import com.nimbusds.jose.JWECryptoParts;
-import com.nimbusds.jose.JWEEncrypter;
+import com.nimbusds.jose.JWEEncryptedKey;
 import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.JWEKeyEncrypter;
+import com.nimbusds.jose.StreamingJWEEncrypter;
 import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jose.util.Base64URL;
 
@@ -79,10 +84,10 @@ import com.nimbusds.jose.util.Base64URL;
  * @author David Ortiz
  * @author Vladimir Dzhuvinov
  * @author Jun Yu
- * @version 2021-09-26
+ * @version 2022-06-09
  */
 @ThreadSafe
-public class RSAEncrypter extends RSACryptoProvider implements JWEEncrypter {
+public class RSAEncrypter extends RSACryptoProvider implements StreamingJWEEncrypter, JWEKeyEncrypter {
 
 
 	/**
@@ -174,35 +179,83 @@ public class RSAEncrypter extends RSACryptoProvider implements JWEEncrypter {
 	public JWECryptoParts encrypt(final JWEHeader header, final byte[] clearText)
 		throws JOSEException {
 
-		final JWEAlgorithm alg = header.getAlgorithm();
-		final EncryptionMethod enc = header.getEncryptionMethod();
+		final SecretKey cek = getCEK(header.getEncryptionMethod());
+		final Base64URL encryptedKey = encryptCEK(header.getAlgorithm(), cek); // The second JWE part
+
+		return ContentCryptoProvider.encrypt(header, clearText, cek, encryptedKey, getJCAContext());
+	}
+
+
+	@Override
+	public JWEHeader encrypt(final JWEHeader header, final InputStream clearText, final OutputStream out)
+		throws JOSEException, IOException {
+
+		final SecretKey cek = getCEK(header.getEncryptionMethod());
+		final Base64URL encryptedKey = encryptCEK(header.getAlgorithm(), cek);
+
+		ContentCryptoProvider.encrypt(header, clearText, cek, encryptedKey, getJCAContext(), out);
+
+		return header;
+	}
+
+
+	@Override
+	public JWEEncryptedKey encryptKey(final JWEHeader header, final SecretKey cek)
+		throws JOSEException {
+
+		return new JWEEncryptedKey(header, encryptCEK(header.getAlgorithm(), cek));
+	}
+
+
+	/**
+	 * Returns the externally supplied Content Encryption Key (CEK) or
+	 * generates a new one.
+	 *
+	 * @param enc The encryption method.
+	 *
+	 * @return The CEK.
+	 *
+	 * @throws JOSEException If the encryption method isn't supported.
+	 */
+	private SecretKey getCEK(final EncryptionMethod enc)
+		throws JOSEException {
 
-		// Generate and encrypt the CEK according to the enc method
-		final SecretKey cek;
 		if (contentEncryptionKey != null) {
 			// Use externally supplied CEK
-			cek = contentEncryptionKey;
-		} else {
-			// Generate and encrypt the CEK according to the enc method
-			cek = ContentCryptoProvider.generateCEK(enc, getJCAContext().getSecureRandom());
+			return contentEncryptionKey;
 		}
 
-		final Base64URL encryptedKey; // The second JWE part
+		// Generate the CEK according to the enc method
+		return ContentCryptoProvider.generateCEK(enc, getJCAContext().getSecureRandom());
+	}
+
+
+	/**
+	 * Encrypts the specified Content Encryption Key (CEK).
+	 *
+	 * @param alg The JWE algorithm.
+	 * @param cek The CEK.
+	 *
+	 * @return The encrypted CEK.
+	 *
+	 * @throws JOSEException If the JWE algorithm isn't supported or
+	 *                       encryption failed.
+	 */
+	private Base64URL encryptCEK(final JWEAlgorithm alg, final SecretKey cek)
+		throws JOSEException {
 
 		if (alg.equals(JWEAlgorithm.RSA1_5)) {
-			encryptedKey = Base64URL.encode(RSA1_5.encryptCEK(publicKey, cek, getJCAContext().getKeyEncryptionProvider()));
+			return Base64URL.encode(RSA1_5.encryptCEK(publicKey, cek, getJCAContext().getKeyEncryptionProvider()));
 		} else if (alg.equals(JWEAlgorithm.RSA_OAEP)) {
-			encryptedKey = Base64URL.encode(RSA_OAEP.encryptCEK(publicKey, cek, getJCAContext().getKeyEncryptionProvider()));
+			return Base64URL.encode(RSA_OAEP.encryptCEK(publicKey, cek, getJCAContext().getKeyEncryptionProvider()));
 		} else if (alg.equals(JWEAlgorithm.RSA_OAEP_256)) {
-			encryptedKey = Base64URL.encode(RSA_OAEP_SHA2.encryptCEK(publicKey, cek, 256, getJCAContext().getKeyEncryptionProvider()));
+			return Base64URL.encode(RSA_OAEP_SHA2.encryptCEK(publicKey, cek, 256, getJCAContext().getKeyEncryptionProvider()));
 		} else if (alg.equals(JWEAlgorithm.RSA_OAEP_384)) {
-			encryptedKey = Base64URL.encode(RSA_OAEP_SHA2.encryptCEK(publicKey, cek, 384, getJCAContext().getKeyEncryptionProvider()));
+			return Base64URL.encode(RSA_OAEP_SHA2.encryptCEK(publicKey, cek, 384, getJCAContext().getKeyEncryptionProvider()));
 		} else if (alg.equals(JWEAlgorithm.RSA_OAEP_512)) {
-			encryptedKey = Base64URL.encode(RSA_OAEP_SHA2.encryptCEK(publicKey, cek, 512, getJCAContext().getKeyEncryptionProvider()));
+			return Base64URL.encode(RSA_OAEP_SHA2.encryptCEK(publicKey, cek, 512, getJCAContext().getKeyEncryptionProvider()));
 		} else {
 			throw new JOSEException(AlgorithmSupportMessage.unsupportedJWEAlgorithm(alg, SUPPORTED_ALGORITHMS));
 		}
-
-		return ContentCryptoProvider.encrypt(header, clearText, cek, encryptedKey, getJCAContext());
 	}
 }
\ No newline at end of file
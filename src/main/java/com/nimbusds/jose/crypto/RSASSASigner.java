@@ -18,6 +18,8 @@
 package com.nimbusds.jose.crypto;
 
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.security.InvalidKeyException;
 import java.security.PrivateKey;
 import java.security.Signature;
@@ -30,9 +32,11 @@ import static com.nimbusds.jose.jwk.gen.RSAKeyGenerator.MIN_KEY_SIZE_BITS;
 import net.jcip.annotations.ThreadSafe;
 
 import com.nimbusds.jose.*;
+import com.nimbusds.jose.crypto.impl.JCAEnginePool;
 import com.nimbusds.jose.crypto.impl.RSAKeyUtils;
 import com.nimbusds.jose.crypto.impl.RSASSA;
 import com.nimbusds.jose.crypto.impl.RSASSAProvider;
+import com.nimbusds.jose.crypto.impl.SigningInput;
 import com.nimbusds.jose.crypto.opts.AllowWeakRSAKey;
 import com.nimbusds.jose.crypto.opts.OptionUtils;
 import com.nimbusds.jose.crypto.opts.UserAuthenticationRequired;
@@ -82,10 +86,10 @@ import com.nimbusds.jose.util.Base64URL;
  * 
  * @author Vladimir Dzhuvinov
  * @author Omer Levi Hevroni
- * @version 2020-12-27
+ * @version 2022-06-09
  */
 @ThreadSafe
-public class RSASSASigner extends RSASSAProvider implements JWSSigner {
+public class RSASSASigner extends RSASSAProvider implements StreamingJWSSigner {
 
 
 	/**
@@ -233,10 +237,11 @@ public class RSASSASigner extends RSASSAProvider implements JWSSigner {
 	public Base64URL sign(final JWSHeader header, final byte[] signingInput)
 		throws JOSEException {
 
-		final Signature signer = getInitiatedSignature(header);
-		
 		if (OptionUtils.optionIsPresent(opts, UserAuthenticationRequired.class)) {
 			
+			// Signature held until completion, not pooled
+			final Signature signer = getInitiatedSignature(header, null);
+			
 			throw new ActionRequiredForJWSCompletionException(
 				"Authenticate user to complete signing",
 				UserAuthenticationRequired.getInstance(),
@@ -249,14 +254,56 @@ public class RSASSASigner extends RSASSAProvider implements JWSSigner {
 			);
 		}
 		
-		return sign(signingInput, signer);
+		final Signature signer = getInitiatedSignature(header, getJCAContext().getEnginePool());
+		try {
+			return sign(signingInput, signer);
+		} finally {
+			// Reinitialised on next use
+			RSASSA.releaseSignerAndVerifier(header.getAlgorithm(), getJCAContext().getProvider(), getJCAContext().getEnginePool(), signer);
+		}
+	}
+	
+	
+	@Override
+	public Base64URL sign(final JWSHeader header, final InputStream payload)
+		throws JOSEException, IOException {
+
+		if (OptionUtils.optionIsPresent(opts, UserAuthenticationRequired.class)) {
+			
+			// Signature held until completion, not pooled, the payload
+			// is read on completion
+			final Signature signer = getInitiatedSignature(header, null);
+			
+			throw new ActionRequiredForJWSCompletionException(
+				"Authenticate user to complete signing",
+				UserAuthenticationRequired.getInstance(),
+				new CompletableJWSObjectSigning() {
+					@Override
+					public Base64URL complete() throws JOSEException {
+						try {
+							return sign(header, payload, signer);
+						} catch (IOException e) {
+							throw new JOSEException("Couldn't read the JWS payload: " + e.getMessage(), e);
+						}
+					}
+				}
+			);
+		}
+		
+		final Signature signer = getInitiatedSignature(header, getJCAContext().getEnginePool());
+		try {
+			return sign(header, payload, signer);
+		} finally {
+			// Reinitialised on next use
+			RSASSA.releaseSignerAndVerifier(header.getAlgorithm(), getJCAContext().getProvider(), getJCAContext().getEnginePool(), signer);
+		}
 	}
 	
 	
-	private Signature getInitiatedSignature(final JWSHeader header)
+	private Signature getInitiatedSignature(final JWSHeader header, final JCAEnginePool pool)
 		throws JOSEException {
 		
-		Signature signer = RSASSA.getSignerAndVerifier(header.getAlgorithm(), getJCAContext().getProvider());
+		Signature signer = RSASSA.getSignerAndVerifier(header.getAlgorithm(), getJCAContext().getProvider(), pool);
 		try {
 			signer.initSign(privateKey);
 		} catch (InvalidKeyException e) {
@@ -277,4 +324,16 @@ public class RSASSASigner extends RSASSAProvider implements JWSSigner {
 			throw new JOSEException("RSA signature exception: " + e.getMessage(), e);
 		}
 	}
+	
+	
+	private Base64URL sign(final JWSHeader header, final InputStream payload, final Signature signer)
+		throws JOSEException, IOException {
+		
+		try {
+			SigningInput.update(header, payload, signer);
+			return Base64URL.encode(signer.sign());
+		} catch (SignatureException e) {
+			throw new JOSEException("RSA signature exception: " + e.getMessage(), e);
+		}
+	}
 }
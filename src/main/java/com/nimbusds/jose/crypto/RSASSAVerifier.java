@@ -18,6 +18,8 @@
 package com.nimbusds.jose.crypto;
 
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.security.InvalidKeyException;
 import java.security.Signature;
 import java.security.SignatureException;
@@ -27,6 +29,7 @@ import java.util.Set;
 import com.nimbusds.jose.crypto.impl.CriticalHeaderParamsDeferral;
 import com.nimbusds.jose.crypto.impl.RSASSA;
 import com.nimbusds.jose.crypto.impl.RSASSAProvider;
+import com.nimbusds.jose.crypto.impl.SigningInput;
 import net.jcip.annotations.ThreadSafe;
 
 import com.nimbusds.jose.*;
@@ -61,10 +64,10 @@ import com.nimbusds.jose.util.Base64URL;
  * BouncyCastle FIPS provider} for the PSxxx family of JWS algorithms.
  * 
  * @author Vladimir Dzhuvinov
- * @version 2015-06-02
+ * @version 2022-06-09
  */
 @ThreadSafe
-public class RSASSAVerifier extends RSASSAProvider implements JWSVerifier, CriticalHeaderParamsAware {
+public class RSASSAVerifier extends RSASSAProvider implements JWSSliceVerifier, StreamingJWSVerifier, CriticalHeaderParamsAware {
 
 
 	/**
@@ -156,11 +159,55 @@ public class RSASSAVerifier extends RSASSAProvider implements JWSVerifier, Criti
 		              final Base64URL signature)
 		throws JOSEException {
 
+		return verify(header, signedContent, 0, signedContent.length, signature);
+	}
+
+
+	@Override
+	public boolean verify(final JWSHeader header,
+			      final byte[] buf,
+			      final int offset,
+			      final int length,
+			      final Base64URL signature)
+		throws JOSEException {
+
+		if (! critPolicy.headerPasses(header)) {
+			return false;
+		}
+
+		final Signature verifier = RSASSA.getSignerAndVerifier(header.getAlgorithm(), getJCAContext().getProvider(), getJCAContext().getEnginePool());
+
+		try {
+			verifier.initVerify(publicKey);
+
+		} catch (InvalidKeyException e) {
+			throw new JOSEException("Invalid public RSA key: " + e.getMessage(), e);
+		}
+
+		try {
+			verifier.update(buf, offset, length);
+			return verifier.verify(signature.decode());
+
+		} catch (SignatureException e) {
+			return false;
+		} finally {
+			// Reinitialised on next use
+			RSASSA.releaseSignerAndVerifier(header.getAlgorithm(), getJCAContext().getProvider(), getJCAContext().getEnginePool(), verifier);
+		}
+	}
+
+
+	@Override
+	public boolean verify(final JWSHeader header,
+			      final InputStream payload,
+			      final Base64URL signature)
+		throws JOSEException, IOException {
+
 		if (! critPolicy.headerPasses(header)) {
 			return false;
 		}
 
-		final Signature verifier = RSASSA.getSignerAndVerifier(header.getAlgorithm(), getJCAContext().getProvider());
+		final Signature verifier = RSASSA.getSignerAndVerifier(header.getAlgorithm(), getJCAContext().getProvider(), getJCAContext().getEnginePool());
 
 		try {
 			verifier.initVerify(publicKey);
@@ -170,11 +217,14 @@ public class RSASSAVerifier extends RSASSAProvider implements JWSVerifier, Criti
 		}
 
 		try {
-			verifier.update(signedContent);
+			SigningInput.update(header, payload, verifier);
 			return verifier.verify(signature.decode());
 
 		} catch (SignatureException e) {
 			return false;
+		} finally {
+			// Reinitialised on next use
+			RSASSA.releaseSignerAndVerifier(header.getAlgorithm(), getJCAContext().getProvider(), getJCAContext().getEnginePool(), verifier);
 		}
 	}
 }
@@ -0,0 +1,354 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.crypto;
+
+
+import java.security.Provider;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.SecretKey;
+
+import net.jcip.annotations.ThreadSafe;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.crypto.impl.ECDH1PU;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.util.Base64URL;
+
+
+/**
+ * Bounded cache of the static shared secrets (Zs) for ECDH-1PU key
+ * agreement. Zs is the result of the ECDH primitive applied to the static
+ * keys of the sender and the recipient and doesn't change between
+ * messages, so only the ephemeral part of the key agreement needs to be
+ * computed for each message between the same two parties. The static
+ * public key is validated once, when Zs is derived.
+ *
+ * <p>The entries are keyed by the RFC 7638 thumbprints of the sender and
+ * recipient keys. A private EC key, for which the public key isn't
+ * available, is identified by the key itself. When the maximum size is
+ * reached the least recently used entry is evicted.
+ *
+ * <p>ECDH-ES uses a fresh ephemeral key for each message and has no static
+ * part that can be cached.
+ *
+ * <p>The cache holds secret key material and should only be shared by
+ * encrypters and decrypters within the same trust boundary. A cache may be
+ * shared by any number of {@link ECDH1PUEncrypter}, {@link ECDH1PUDecrypter},
+ * {@link ECDH1PUX25519Encrypter} and {@link ECDH1PUX25519Decrypter}
+ * instances.
+ *
+ * <p>Example:
+ *
+ * <pre>
+ * StaticSharedSecretCache cache = new StaticSharedSecretCache();
+ *
+ * ECDH1PUDecrypter decrypter = new ECDH1PUDecrypter(recipientPrivateKey, senderPublicKey);
+ * decrypter.setStaticSharedSecretCache(cache);
+ * </pre>
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+@ThreadSafe
+public class StaticSharedSecretCache {
+
+
+	/**
+	 * The default maximum number of cached static shared secrets.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 100;
+
+
+	/**
+	 * The maximum number of cached static shared secrets.
+	 */
+	private final int maxSize;
+
+
+	/**
+	 * The cached static shared secrets, in access order. Guarded by
+	 * itself.
+	 */
+	private final LinkedHashMap<CacheKey, SecretKey> cache;
+
+
+	/**
+	 * The cache hit counter.
+	 */
+	private final AtomicLong hitCount = new AtomicLong();
+
+
+	/**
+	 * The cache miss counter.
+	 */
+	private final AtomicLong missCount = new AtomicLong();
+
+
+	/**
+	 * Creates a new static shared secret cache with a maximum size of
+	 * 100 entries.
+	 */
+	public StaticSharedSecretCache() {
+
+		this(DEFAULT_MAX_SIZE);
+	}
+
+
+	/**
+	 * Creates a new static shared secret cache.
+	 *
+	 * @param maxSize The maximum number of cached static shared secrets.
+	 *                Must be positive.
+	 */
+	public StaticSharedSecretCache(final int maxSize) {
+
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("The maximum cache size must be positive");
+		}
+		this.maxSize = maxSize;
+
+		cache = new LinkedHashMap<CacheKey, SecretKey>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<CacheKey, SecretKey> eldest) {
+				return size() > StaticSharedSecretCache.this.maxSize;
+			}
+		};
+	}
+
+
+	/**
+	 * Returns the maximum number of cached static shared secrets.
+	 *
+	 * @return The maximum cache size.
+	 */
+	public int getMaxSize() {
+
+		return maxSize;
+	}
+
+
+	/**
+	 * Returns the static shared secret (Zs) for the specified EC keys,
+	 * derived and cached if not cached already.
+	 *
+	 * @param privateKey The static EC private key of the sender or
+	 *                   recipient. Must not be {@code null}.
+	 * @param publicKey  The static EC public key of the other party. Must
+	 *                   not be {@code null}.
+	 * @param provider   The specific JCA provider for the ECDH key
+	 *                   agreement, {@code null} to use the default one.
+	 *
+	 * @return The static shared secret.
+	 *
+	 * @throws JOSEException If the public key is invalid or derivation
+	 *                       of the shared secret failed.
+	 */
+	public SecretKey getStaticSharedSecret(final ECPrivateKey privateKey,
+					       final ECPublicKey publicKey,
+					       final Provider provider)
+		throws JOSEException {
+
+		Curve crv = Curve.forECParameterSpec(publicKey.getParams());
+
+		if (crv == null) {
+			throw new JOSEException("Unsupported EC public key curve");
+		}
+
+		CacheKey cacheKey = new CacheKey(privateKey, new ECKey.Builder(crv, publicKey).build().computeThumbprint());
+
+		SecretKey Zs = get(cacheKey);
+
+		if (Zs == null) {
+			Zs = ECDH1PU.deriveStaticZ(privateKey, publicKey, provider);
+			put(cacheKey, Zs);
+		}
+
+		return Zs;
+	}
+
+
+	/**
+	 * Returns the static shared secret (Zs) for the specified OctetKey
+	 * keys, derived and cached if not cached already.
+	 *
+	 * @param privateKey The static OctetKey private key of the sender or
+	 *                   recipient. Must not be {@code null}.
+	 * @param publicKey  The static OctetKey public key of the other
+	 *                   party. Must not be {@code null}.
+	 *
+	 * @return The static shared secret.
+	 *
+	 * @throws JOSEException If the keys are invalid or derivation of the
+	 *                       shared secret failed.
+	 */
+	public SecretKey getStaticSharedSecret(final OctetKeyPair privateKey,
+					       final OctetKeyPair publicKey)
+		throws JOSEException {
+
+		if (! privateKey.isPrivate()) {
+			throw new JOSEException("OKP private key should be a private key");
+		}
+
+		CacheKey cacheKey = new CacheKey(privateKey.computeThumbprint(), publicKey.computeThumbprint());
+
+		SecretKey Zs = get(cacheKey);
+
+		if (Zs == null) {
+			Zs = ECDH1PU.deriveStaticZ(privateKey, publicKey);
+			put(cacheKey, Zs);
+		}
+
+		return Zs;
+	}
+
+
+	/**
+	 * Gets a cached static shared secret.
+	 *
+	 * @param cacheKey The cache key.
+	 *
+	 * @return The static shared secret, {@code null} if not cached.
+	 */
+	private SecretKey get(final CacheKey cacheKey) {
+
+		SecretKey Zs;
+
+		synchronized (cache) {
+			Zs = cache.get(cacheKey);
+		}
+
+		if (Zs != null) {
+			hitCount.incrementAndGet();
+		} else {
+			missCount.incrementAndGet();
+		}
+
+		return Zs;
+	}
+
+
+	/**
+	 * Caches a static shared secret. Derived outside the lock, a
+	 * concurrent miss for the same keys simply produces the same
+	 * secret.
+	 *
+	 * @param cacheKey The cache key.
+	 * @param Zs       The static shared secret.
+	 */
+	private void put(final CacheKey cacheKey, final SecretKey Zs) {
+
+		synchronized (cache) {
+			cache.put(cacheKey, Zs);
+		}
+	}
+
+
+	/**
+	 * Returns the number of currently cached static shared secrets.
+	 *
+	 * @return The cache size.
+	 */
+	public int size() {
+
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+
+	/**
+	 * Removes all cached static shared secrets. The hit and miss
+	 * counters are not reset.
+	 */
+	public void clear() {
+
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+
+	/**
+	 * Returns the number of cache hits since the cache was created.
+	 *
+	 * @return The cache hit count.
+	 */
+	public long getHitCount() {
+
+		return hitCount.get();
+	}
+
+
+	/**
+	 * Returns the number of cache misses since the cache was created.
+	 *
+	 * @return The cache miss count.
+	 */
+	public long getMissCount() {
+
+		return missCount.get();
+	}
+
+
+	/**
+	 * Cache key: the private key or its thumbprint and the public key
+	 * thumbprint.
+	 */
+	private static final class CacheKey {
+
+
+		private final Object privateKeyID;
+
+
+		private final Base64URL publicKeyThumbprint;
+
+
+		private final int hashCode;
+
+
+		private CacheKey(final Object privateKeyID, final Base64URL publicKeyThumbprint) {
+			this.privateKeyID = privateKeyID;
+			this.publicKeyThumbprint = publicKeyThumbprint;
+			hashCode = 31 * privateKeyID.hashCode() + publicKeyThumbprint.hashCode();
+		}
+
+
+		@Override
+		public boolean equals(final Object o) {
+			if (this == o) return true;
+			if (!(o instanceof CacheKey)) return false;
+			CacheKey that = (CacheKey) o;
+			return privateKeyID.equals(that.privateKeyID) &&
+				publicKeyThumbprint.equals(that.publicKeyThumbprint);
+		}
+
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+}
@@ -75,7 +75,7 @@ import net.jcip.annotations.ThreadSafe;
  * </ul>
  *
  * @author Tim McLean
- * @version 2018-07-12
+ * @version 2022-06-09
  */
 @ThreadSafe
 public class X25519Encrypter extends ECDHCryptoProvider implements JWEEncrypter {
@@ -87,6 +87,12 @@ public class X25519Encrypter extends ECDHCryptoProvider implements JWEEncrypter
 	private final OctetKeyPair publicKey;
 
 
+	/**
+	 * The optional pool of precomputed ephemeral key pairs.
+	 */
+	private volatile EphemeralKeyPairPool ephemeralKeyPairPool;
+
+
 	/**
 	 * Creates a new Curve25519 Elliptic Curve Diffie-Hellman encrypter.
 	 *
@@ -129,25 +135,43 @@ public class X25519Encrypter extends ECDHCryptoProvider implements JWEEncrypter
 	}
 
 
+	/**
+	 * Returns the pool of precomputed ephemeral key pairs.
+	 *
+	 * @return The ephemeral key pair pool, {@code null} if not
+	 *         specified.
+	 */
+	public EphemeralKeyPairPool getEphemeralKeyPairPool() {
+
+		return ephemeralKeyPairPool;
+	}
+
+
+	/**
+	 * Sets a pool of precomputed ephemeral key pairs. The ephemeral key
+	 * pair is generated inline if the pool has none available for the
+	 * X25519 curve.
+	 *
+	 * @param ephemeralKeyPairPool The ephemeral key pair pool,
+	 *                             {@code null} to always generate the
+	 *                             ephemeral key pair inline.
+	 */
+	public void setEphemeralKeyPairPool(final EphemeralKeyPairPool ephemeralKeyPairPool) {
+
+		this.ephemeralKeyPairPool = ephemeralKeyPairPool;
+	}
+
+
 	@Override
 	public JWECryptoParts encrypt(final JWEHeader header, final byte[] clearText)
 		throws JOSEException {
 
-		// Generate ephemeral X25519 key pair
-		final byte[] ephemeralPrivateKeyBytes = X25519.generatePrivateKey();
-		final byte[] ephemeralPublicKeyBytes;
-		try {
-			ephemeralPublicKeyBytes = X25519.publicFromPrivate(ephemeralPrivateKeyBytes);
-
-		} catch (InvalidKeyException e) {
-			// Should never happen since we just generated this private key
-			throw new JOSEException(e.getMessage(), e);
+		// Take or generate ephemeral X25519 key pair
+		EphemeralKeyPairPool pool = ephemeralKeyPairPool;
+		OctetKeyPair ephemeralPrivateKey = pool != null ? pool.pollOctetKeyPair(getCurve()) : null;
+		if (ephemeralPrivateKey == null) {
+			ephemeralPrivateKey = generateEphemeralKeyPair();
 		}
-
-		final OctetKeyPair ephemeralPrivateKey =
-			new OctetKeyPair.Builder(getCurve(), Base64URL.encode(ephemeralPublicKeyBytes)).
-			d(Base64URL.encode(ephemeralPrivateKeyBytes)).
-			build();
 		final OctetKeyPair ephemeralPublicKey = ephemeralPrivateKey.toPublicJWK();
 
 		// Add the ephemeral public EC key to the header
@@ -160,4 +184,30 @@ public class X25519Encrypter extends ECDHCryptoProvider implements JWEEncrypter
 
 		return encryptWithZ(updatedHeader, Z, clearText);
 	}
+
+
+	/**
+	 * Generates a new ephemeral X25519 key pair.
+	 *
+	 * @return The X25519 key pair.
+	 *
+	 * @throws JOSEException If the key pair couldn't be generated.
+	 */
+	private OctetKeyPair generateEphemeralKeyPair()
+		throws JOSEException {
+
+		final byte[] ephemeralPrivateKeyBytes = X25519.generatePrivateKey();
+		final byte[] ephemeralPublicKeyBytes;
+		try {
+			ephemeralPublicKeyBytes = X25519.publicFromPrivate(ephemeralPrivateKeyBytes);
+
+		} catch (InvalidKeyException e) {
+			// Should never happen since we just generated this private key
+			throw new JOSEException(e.getMessage(), e);
+		}
+
+		return new OctetKeyPair.Builder(getCurve(), Base64URL.encode(ephemeralPublicKeyBytes)).
+			d(Base64URL.encode(ephemeralPrivateKeyBytes)).
+			build();
+	}
 }
@@ -0,0 +1,412 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.crypto.factories;
+
+
+import java.security.Key;
+import java.security.Provider;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jcip.annotations.ThreadSafe;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.jca.JCAContext;
+import com.nimbusds.jose.proc.JWSVerifierFactory;
+
+
+/**
+ * Caching JSON Web Signature (JWS) verifier factory. Wraps an underlying
+ * factory, by default {@link DefaultJWSVerifierFactory}, and reuses the
+ * created verifiers for subsequent requests with the same JWS algorithm and
+ * key. Intended for the {@link com.nimbusds.jwt.proc.DefaultJWTProcessor}
+ * and the {@link com.nimbusds.jose.proc.DefaultJOSEProcessor} where the same
+ * few keys are used to verify a large number of objects.
+ *
+ * <p>The cache is bounded. When the maximum size is reached the least
+ * recently used verifier is evicted. Verifiers which haven't been used for
+ * longer than the configured maximum idle time are evicted too.
+ *
+ * <p>The verifiers returned by the underlying factory must be thread-safe,
+ * which is the case for all standard verifiers in the
+ * {@link com.nimbusds.jose.crypto} package.
+ *
+ * <p>Example use with a JWT processor:
+ *
+ * <pre>
+ * jwtProcessor.setJWSVerifierFactory(new CachingJWSVerifierFactory());
+ * </pre>
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-02
+ */
+@ThreadSafe
+public class CachingJWSVerifierFactory implements JWSVerifierFactory {
+
+
+	/**
+	 * The default maximum number of cached verifiers.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 100;
+
+
+	/**
+	 * The default maximum idle time of a cached verifier (60 minutes).
+	 */
+	public static final long DEFAULT_MAX_IDLE_TIME_MINUTES = 60;
+
+
+	/**
+	 * The underlying JWS verifier factory.
+	 */
+	private final JWSVerifierFactory factory;
+
+
+	/**
+	 * The maximum number of cached verifiers.
+	 */
+	private final int maxSize;
+
+
+	/**
+	 * The maximum idle time of a cached verifier, in milliseconds,
+	 * negative means no idle time limit.
+	 */
+	private final long maxIdleTimeMs;
+
+
+	/**
+	 * The cached verifiers, in access order. Guarded by itself.
+	 */
+	private final LinkedHashMap<CacheKey, CacheEntry> cache;
+
+
+	/**
+	 * The cache hit counter.
+	 */
+	private final AtomicLong hitCount = new AtomicLong();
+
+
+	/**
+	 * The cache miss counter.
+	 */
+	private final AtomicLong missCount = new AtomicLong();
+
+
+	/**
+	 * Creates a new caching JWS verifier factory wrapping a
+	 * {@link DefaultJWSVerifierFactory}, with a maximum size of 100
+	 * verifiers and a maximum idle time of 60 minutes.
+	 */
+	public CachingJWSVerifierFactory() {
+
+		this(new DefaultJWSVerifierFactory(), DEFAULT_MAX_SIZE, DEFAULT_MAX_IDLE_TIME_MINUTES, TimeUnit.MINUTES);
+	}
+
+
+	/**
+	 * Creates a new caching JWS verifier factory.
+	 *
+	 * @param factory     The underlying JWS verifier factory. Must not be
+	 *                    {@code null}.
+	 * @param maxSize     The maximum number of cached verifiers. Must be
+	 *                    positive.
+	 * @param maxIdleTime The maximum time a cached verifier may remain
+	 *                    unused before it's evicted, negative means no
+	 *                    idle time limit.
+	 * @param timeUnit    The idle time unit, may be {@code null} if no
+	 *                    idle time limit.
+	 */
+	public CachingJWSVerifierFactory(final JWSVerifierFactory factory,
+					 final int maxSize,
+					 final long maxIdleTime,
+					 final TimeUnit timeUnit) {
+
+		this.factory = Objects.requireNonNull(factory);
+
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("The maximum cache size must be positive");
+		}
+		this.maxSize = maxSize;
+
+		if (maxIdleTime > -1 && timeUnit == null) {
+			throw new IllegalArgumentException("A time unit must be specified for a non-negative maximum idle time");
+		}
+		maxIdleTimeMs = maxIdleTime > -1 ? TimeUnit.MILLISECONDS.convert(maxIdleTime, timeUnit) : -1L;
+
+		cache = new LinkedHashMap<CacheKey, CacheEntry>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<CacheKey, CacheEntry> eldest) {
+				return size() > CachingJWSVerifierFactory.this.maxSize;
+			}
+		};
+	}
+
+
+	/**
+	 * Returns the underlying JWS verifier factory.
+	 *
+	 * @return The underlying JWS verifier factory.
+	 */
+	public JWSVerifierFactory getUnderlyingFactory() {
+
+		return factory;
+	}
+
+
+	/**
+	 * Returns the maximum number of cached verifiers.
+	 *
+	 * @return The maximum cache size.
+	 */
+	public int getMaxSize() {
+
+		return maxSize;
+	}
+
+
+	/**
+	 * Returns the maximum idle time of a cached verifier.
+	 *
+	 * @param timeUnit The time unit to use.
+	 *
+	 * @return The maximum idle time, negative means no idle time limit.
+	 */
+	public long getMaxIdleTime(final TimeUnit timeUnit) {
+
+		if (maxIdleTimeMs < 0) {
+			return maxIdleTimeMs;
+		}
+
+		return timeUnit.convert(maxIdleTimeMs, TimeUnit.MILLISECONDS);
+	}
+
+
+	@Override
+	public Set<JWSAlgorithm> supportedJWSAlgorithms() {
+
+		return factory.supportedJWSAlgorithms();
+	}
+
+
+	@Override
+	public JCAContext getJCAContext() {
+
+		return factory.getJCAContext();
+	}
+
+
+	@Override
+	public JWSVerifier createJWSVerifier(final JWSHeader header, final Key key)
+		throws JOSEException {
+
+		final Provider provider = getJCAContext() != null ? getJCAContext().getProvider() : null;
+		final CacheKey cacheKey = new CacheKey(header.getAlgorithm(), key, provider);
+		final long now = System.currentTimeMillis();
+
+		synchronized (cache) {
+			CacheEntry entry = cache.get(cacheKey);
+			if (entry != null) {
+				if (isIdle(entry, now)) {
+					cache.remove(cacheKey);
+				} else {
+					entry.lastAccessTime = now;
+					hitCount.incrementAndGet();
+					return entry.verifier;
+				}
+			}
+		}
+
+		missCount.incrementAndGet();
+
+		// Create outside the lock, a concurrent miss for the same key
+		// will simply produce an equivalent verifier
+		JWSVerifier verifier = factory.createJWSVerifier(header, key);
+
+		if (verifier == null) {
+			return null;
+		}
+
+		synchronized (cache) {
+			evictIdle(now);
+			cache.put(cacheKey, new CacheEntry(verifier, now));
+		}
+
+		return verifier;
+	}
+
+
+	/**
+	 * Returns {@code true} if the specified cache entry has exceeded the
+	 * maximum idle time.
+	 *
+	 * @param entry The cache entry.
+	 * @param now   The current time, in milliseconds since the epoch.
+	 *
+	 * @return {@code true} if idle.
+	 */
+	private boolean isIdle(final CacheEntry entry, final long now) {
+
+		return maxIdleTimeMs > -1 && now - entry.lastAccessTime > maxIdleTimeMs;
+	}
+
+
+	/**
+	 * Evicts the idle entries. Must be called while holding the cache
+	 * lock. The entries are in access order, so the scan stops at the
+	 * first non-idle entry.
+	 *
+	 * @param now The current time, in milliseconds since the epoch.
+	 */
+	private void evictIdle(final long now) {
+
+		if (maxIdleTimeMs < 0) {
+			return;
+		}
+
+		Iterator<CacheEntry> it = cache.values().iterator();
+		while (it.hasNext()) {
+			if (! isIdle(it.next(), now)) {
+				break;
+			}
+			it.remove();
+		}
+	}
+
+
+	/**
+	 * Returns the number of currently cached verifiers.
+	 *
+	 * @return The cache size.
+	 */
+	public int size() {
+
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+
+	/**
+	 * Removes all cached verifiers. The hit and miss counters are not
+	 * reset.
+	 */
+	public void clear() {
+
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+
+	/**
+	 * Returns the number of cache hits since the factory was created.
+	 *
+	 * @return The cache hit count.
+	 */
+	public long getHitCount() {
+
+		return hitCount.get();
+	}
+
+
+	/**
+	 * Returns the number of cache misses since the factory was created.
+	 *
+	 * @return The cache miss count.
+	 */
+	public long getMissCount() {
+
+		return missCount.get();
+	}
+
+
+	/**
+	 * Cache key: JWS algorithm, key and JCA provider.
+	 */
+	private static final class CacheKey {
+
+
+		private final JWSAlgorithm alg;
+
+
+		private final Key key;
+
+
+		private final Provider provider;
+
+
+		private final int hashCode;
+
+
+		private CacheKey(final JWSAlgorithm alg, final Key key, final Provider provider) {
+			this.alg = alg;
+			this.key = key;
+			this.provider = provider;
+			// Providers compared by identity
+			hashCode = 31 * Objects.hash(alg, key) + System.identityHashCode(provider);
+		}
+
+
+		@Override
+		public boolean equals(final Object o) {
+			if (this == o) return true;
+			if (!(o instanceof CacheKey)) return false;
+			CacheKey that = (CacheKey) o;
+			return alg.equals(that.alg) &&
+				key.equals(that.key) &&
+				provider == that.provider;
+		}
+
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+
+	/**
+	 * Cache entry: verifier and last access time.
+	 */
+	private static final class CacheEntry {
+
+
+		private final JWSVerifier verifier;
+
+
+		private long lastAccessTime;
+
+
+		private CacheEntry(final JWSVerifier verifier, final long lastAccessTime) {
+			this.verifier = verifier;
+			this.lastAccessTime = lastAccessTime;
+		}
+	}
+}
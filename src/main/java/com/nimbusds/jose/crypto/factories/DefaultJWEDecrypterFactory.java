@@ -43,7 +43,7 @@ import net.jcip.annotations.ThreadSafe;
  *
  * @author Vladimir Dzhuvinov
  * @author stisve
- * @version 2020-03-03
+ * @version 2022-06-09
  */
 @ThreadSafe
 public class DefaultJWEDecrypterFactory implements JWEDecrypterFactory {
@@ -184,11 +184,16 @@ public class DefaultJWEDecrypterFactory implements JWEDecrypterFactory {
 		}
 
 		// Apply JCA context
-		decrypter.getJCAContext().setSecureRandom(jcaContext.getSecureRandom());
+		if (jcaContext.getSecureRandomSource() != null) {
+			decrypter.getJCAContext().setSecureRandomSource(jcaContext.getSecureRandomSource());
+		} else {
+			decrypter.getJCAContext().setSecureRandom(jcaContext.getSecureRandom());
+		}
 		decrypter.getJCAContext().setProvider(jcaContext.getProvider());
 		decrypter.getJCAContext().setKeyEncryptionProvider(jcaContext.getKeyEncryptionProvider());
 		decrypter.getJCAContext().setMACProvider(jcaContext.getMACProvider());
 		decrypter.getJCAContext().setContentEncryptionProvider(jcaContext.getContentEncryptionProvider());
+		decrypter.getJCAContext().setEnginePool(jcaContext.getEnginePool());
 
 		return decrypter;
 	}
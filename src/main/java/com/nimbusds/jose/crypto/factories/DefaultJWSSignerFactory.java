@@ -99,8 +99,13 @@ public class DefaultJWSSignerFactory implements JWSSignerFactory {
 		}
 
 		// Apply JCA context
-		signer.getJCAContext().setSecureRandom(jcaContext.getSecureRandom());
+		if (jcaContext.getSecureRandomSource() != null) {
+			signer.getJCAContext().setSecureRandomSource(jcaContext.getSecureRandomSource());
+		} else {
+			signer.getJCAContext().setSecureRandom(jcaContext.getSecureRandom());
+		}
 		signer.getJCAContext().setProvider(jcaContext.getProvider());
+		signer.getJCAContext().setEnginePool(jcaContext.getEnginePool());
 
 		return signer;
 	}
@@ -153,8 +158,13 @@ public class DefaultJWSSignerFactory implements JWSSignerFactory {
 		}
 
 		// Apply JCA context
-		signer.getJCAContext().setSecureRandom(jcaContext.getSecureRandom());
+		if (jcaContext.getSecureRandomSource() != null) {
+			signer.getJCAContext().setSecureRandomSource(jcaContext.getSecureRandomSource());
+		} else {
+			signer.getJCAContext().setSecureRandom(jcaContext.getSecureRandom());
+		}
 		signer.getJCAContext().setProvider(jcaContext.getProvider());
+		signer.getJCAContext().setEnginePool(jcaContext.getEnginePool());
 
 		return signer;
 	}
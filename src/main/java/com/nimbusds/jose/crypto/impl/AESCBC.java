@@ -48,7 +48,7 @@ import com.nimbusds.jose.util.StandardCharset;
  *
  * @author Vladimir Dzhuvinov
  * @author Axel Nennker
- * @version 2022-01-24
+ * @version 2022-06-09
  */
 @ThreadSafe
 public class AESCBC {
@@ -89,8 +89,10 @@ public class AESCBC {
 	 *                      default one.
 	 *
 	 * @return The AES/CBC/PKCS5Padding cipher.
+	 *
+	 * @throws JOSEException If the cipher couldn't be created.
 	 */
-	private static Cipher createAESCBCCipher(final SecretKey secretKey,
+	public static Cipher createAESCBCCipher(final SecretKey secretKey,
 		                                 final boolean forEncryption,
 		                                 final byte[] iv,
 		                                 final Provider provider)
@@ -20,6 +20,7 @@ package com.nimbusds.jose.crypto.impl;
 
 import java.security.*;
 import java.security.spec.InvalidParameterSpecException;
+import java.util.Arrays;
 import javax.crypto.*;
 import javax.crypto.spec.GCMParameterSpec;
 
@@ -39,7 +40,7 @@ import net.jcip.annotations.ThreadSafe;
  * @author Vladimir Dzhuvinov
  * @author Axel Nennker
  * @author Dimitar A. Stoikov
- * @version 2018-01-11
+ * @version 2022-06-09
  */
 @ThreadSafe
 public class AESGCM {
@@ -103,6 +104,43 @@ public class AESGCM {
 						      final Provider provider)
 		throws JOSEException {
 
+		return encrypt(secretKey, ivContainer, plainText, authData, provider, null);
+	}
+
+
+	/**
+	 * Encrypts the specified plain text using AES/GCM/NoPadding.
+	 *
+	 * @param secretKey   The AES key. Must not be {@code null}.
+	 * @param plainText   The plain text. Must not be {@code null}.
+	 * @param ivContainer The initialisation vector (IV). Must not be
+	 *                    {@code null}. This is both input and output
+	 *                    parameter. On input, it carries externally
+	 *                    generated IV; on output, it carries the IV the
+	 *                    cipher actually used. JCA/JCE providers may
+	 *                    prefer to use an internally generated IV, e.g. as
+	 *                    described in
+	 *                    <a href="http://nvlpubs.nist.gov/nistpubs/Legacy/SP/nistspecialpublication800-38d.pdf">NIST
+	 *                    Special Publication 800-38D </a>.
+	 * @param authData    The authenticated data. Must not be {@code null}.
+	 * @param provider    The JCA provider, {@code null} to use the
+	 *                    default one.
+	 * @param pool        The JCA engine pool, {@code null} if none. A
+	 *                    pooled cipher rejects the reuse of the last IV
+	 *                    with the same key.
+	 *
+	 * @return The authenticated cipher text.
+	 *
+	 * @throws JOSEException If encryption failed.
+	 */
+	public static AuthenticatedCipherText encrypt(final SecretKey secretKey,
+						      final Container<byte[]> ivContainer,
+						      final byte[] plainText,
+						      final byte[] authData,
+						      final Provider provider,
+						      final JCAEnginePool pool)
+		throws JOSEException {
+
 		// Key alg must be "AES"
 		final SecretKey aesKey = KeyUtils.toAESKey(secretKey);
 		
@@ -111,16 +149,16 @@ public class AESGCM {
 		byte[] iv = ivContainer.get();
 
 		try {
-			if (provider != null) {
-				cipher = Cipher.getInstance("AES/GCM/NoPadding", provider);
-			} else {
-				cipher = Cipher.getInstance("AES/GCM/NoPadding");
-			}
+			cipher = JCAEngines.acquire(pool, JCAEngines.CIPHER, "AES/GCM/NoPadding", provider);
+		} catch (JOSEException e) {
+			throw new JOSEException("Couldn't create AES/GCM/NoPadding cipher: " + e.getMessage(), e.getCause());
+		}
 
+		try {
 			GCMParameterSpec gcmSpec = new GCMParameterSpec(AUTH_TAG_BIT_LENGTH, iv);
 			cipher.init(Cipher.ENCRYPT_MODE, aesKey, gcmSpec);
 
-		} catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException e) {
+		} catch (InvalidKeyException | InvalidAlgorithmParameterException e) {
 
 			throw new JOSEException("Couldn't create AES/GCM/NoPadding cipher: " + e.getMessage(), e);
 
@@ -150,6 +188,8 @@ public class AESGCM {
 		// retrieve the actual IV used by the cipher -- it may be internally-generated.
 		ivContainer.set(actualIVOf(cipher));
 
+		JCAEngines.release(pool, JCAEngines.CIPHER, "AES/GCM/NoPadding", provider, cipher);
+
 		return new AuthenticatedCipherText(cipherText, authTag);
 	}
 
@@ -265,6 +305,36 @@ public class AESGCM {
 		                     final byte[] authTag,
 		                     final Provider provider)
 		throws JOSEException {
+
+		return decrypt(secretKey, iv, cipherText, authData, authTag, provider, null);
+	}
+
+
+	/**
+	 * Decrypts the specified cipher text using AES/GCM/NoPadding.
+	 *
+	 * @param secretKey  The AES key. Must not be {@code null}.
+	 * @param iv         The initialisation vector (IV). Must not be
+	 *                   {@code null}.
+	 * @param cipherText The cipher text. Must not be {@code null}.
+	 * @param authData   The authenticated data. Must not be {@code null}.
+	 * @param authTag    The authentication tag. Must not be {@code null}.
+	 * @param provider   The JCA provider, {@code null} to use the
+	 *                   default one.
+	 * @param pool       The JCA engine pool, {@code null} if none.
+	 *
+	 * @return The decrypted plain text.
+	 *
+	 * @throws JOSEException If decryption failed.
+	 */
+	public static byte[] decrypt(final SecretKey secretKey, 
+		                     final byte[] iv,
+		                     final byte[] cipherText,
+		                     final byte[] authData,
+		                     final byte[] authTag,
+		                     final Provider provider,
+		                     final JCAEnginePool pool)
+		throws JOSEException {
 		
 		// Key alg must be "AES"
 		final SecretKey aesKey = KeyUtils.toAESKey(secretKey);
@@ -272,16 +342,16 @@ public class AESGCM {
 		Cipher cipher;
 
 		try {
-			if (provider != null) {
-				cipher = Cipher.getInstance("AES/GCM/NoPadding", provider);
-			} else {
-				cipher = Cipher.getInstance("AES/GCM/NoPadding");
-			}
+			cipher = JCAEngines.acquire(pool, JCAEngines.CIPHER, "AES/GCM/NoPadding", provider);
+		} catch (JOSEException e) {
+			throw new JOSEException("Couldn't create AES/GCM/NoPadding cipher: " + e.getMessage(), e.getCause());
+		}
 
+		try {
 			GCMParameterSpec gcmSpec = new GCMParameterSpec(AUTH_TAG_BIT_LENGTH, iv);
 			cipher.init(Cipher.DECRYPT_MODE, aesKey, gcmSpec);
 
-		} catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException e) {
+		} catch (InvalidKeyException | InvalidAlgorithmParameterException e) {
 
 			throw new JOSEException("Couldn't create AES/GCM/NoPadding cipher: " + e.getMessage(), e);
 
@@ -293,13 +363,63 @@ public class AESGCM {
 
 		cipher.updateAAD(authData);
 
+		final byte[] plainText;
+
 		try {
-			return cipher.doFinal(ByteUtils.concat(cipherText, authTag));
+			plainText = cipher.doFinal(ByteUtils.concat(cipherText, authTag));
 
 		} catch (IllegalBlockSizeException | BadPaddingException e) {
 
 			throw new JOSEException("AES/GCM/NoPadding decryption failed: " + e.getMessage(), e);
 		}
+
+		JCAEngines.release(pool, JCAEngines.CIPHER, "AES/GCM/NoPadding", provider, cipher);
+
+		return plainText;
+	}
+
+
+	/**
+	 * Creates an AES/GCM/NoPadding cipher for incremental encryption or
+	 * decryption with {@link Cipher#update}, the authenticated data is
+	 * applied. On encryption the cipher is checked to use the specified
+	 * IV, as it must be known before the cipher text is produced.
+	 *
+	 * @param secretKey The AES key. Must not be {@code null}.
+	 * @param mode      {@link Cipher#ENCRYPT_MODE} or
+	 *                  {@link Cipher#DECRYPT_MODE}.
+	 * @param iv        The initialisation vector (IV). Must not be
+	 *                  {@code null}.
+	 * @param authData  The authenticated data. Must not be {@code null}.
+	 * @param provider  The JCA provider, {@code null} to use the default
+	 *                  one.
+	 *
+	 * @return The initialised cipher.
+	 *
+	 * @throws JOSEException If the cipher couldn't be created.
+	 */
+	public static Cipher createCipher(final SecretKey secretKey,
+					  final int mode,
+					  final byte[] iv,
+					  final byte[] authData,
+					  final Provider provider)
+		throws JOSEException {
+
+		Cipher cipher = JCAEngines.acquire(null, JCAEngines.CIPHER, "AES/GCM/NoPadding", provider);
+
+		try {
+			cipher.init(mode, KeyUtils.toAESKey(secretKey), new GCMParameterSpec(AUTH_TAG_BIT_LENGTH, iv));
+		} catch (InvalidKeyException | InvalidAlgorithmParameterException e) {
+			throw new JOSEException("Couldn't create AES/GCM/NoPadding cipher: " + e.getMessage(), e);
+		}
+
+		if (mode == Cipher.ENCRYPT_MODE && ! Arrays.equals(iv, actualIVOf(cipher))) {
+			throw new JOSEException("The AES/GCM/NoPadding cipher didn't accept the IV");
+		}
+
+		cipher.updateAAD(authData);
+
+		return cipher;
 	}
 
 
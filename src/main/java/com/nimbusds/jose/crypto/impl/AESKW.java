@@ -23,7 +23,6 @@ import java.security.NoSuchAlgorithmException;
 import java.security.Provider;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 
 import com.nimbusds.jose.JOSEException;
@@ -39,7 +38,7 @@ import net.jcip.annotations.ThreadSafe;
  *
  * @author Melisa Halsband
  * @author Vladimir Dzhuvinov
- * @version 2018-03-09
+ * @version 2022-06-04
  */
 @ThreadSafe
 public class AESKW {
@@ -64,21 +63,53 @@ public class AESKW {
 				     final Provider provider)
 		throws JOSEException {
 
+		return wrapCEK(cek, kek, provider, null);
+	}
+
+
+	/**
+	 * Wraps the specified Content Encryption Key (CEK), with an optional
+	 * pool for reusing the {@link Cipher} instances.
+	 *
+	 * @param cek      The Content Encryption Key (CEK) to wrap. Must not
+	 *                 be {@code null}.
+	 * @param kek      The AES Key Encryption Key (KEK) (wrapping key).
+	 *                 Must not be {@code null}.
+	 * @param provider The specific JCA provider to use, {@code null}
+	 *                 implies the default system one.
+	 * @param pool     The JCA engine pool, {@code null} if none.
+	 *
+	 * @return The wrapped Content Encryption Key (CEK).
+	 *
+	 * @throws JOSEException If wrapping failed.
+	 */
+	public static byte[] wrapCEK(final SecretKey cek,
+				     final SecretKey kek,
+				     final Provider provider,
+				     final JCAEnginePool pool)
+		throws JOSEException {
+
+		Cipher cipher;
+
 		try {
-			Cipher cipher;
+			cipher = JCAEngines.acquire(pool, JCAEngines.CIPHER, "AESWrap", provider);
+		} catch (JOSEException e) {
+			throw new JOSEException("Couldn't wrap AES key: " + e.getMessage(), e.getCause());
+		}
 
-			if (provider != null) {
-				cipher = Cipher.getInstance("AESWrap", provider);
-			} else {
-				cipher = Cipher.getInstance("AESWrap");
-			}
+		final byte[] encryptedCEK;
 
+		try {
 			cipher.init(Cipher.WRAP_MODE, kek);
-			return cipher.wrap(cek);
+			encryptedCEK = cipher.wrap(cek);
 
-		} catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException | IllegalBlockSizeException e) {
+		} catch (InvalidKeyException | IllegalBlockSizeException e) {
 			throw new JOSEException("Couldn't wrap AES key: " + e.getMessage(), e);
 		}
+
+		JCAEngines.release(pool, JCAEngines.CIPHER, "AESWrap", provider, cipher);
+
+		return encryptedCEK;
 	}
 
 
@@ -101,22 +132,54 @@ public class AESKW {
 					  final Provider provider)
 		throws JOSEException {
 
+		return unwrapCEK(kek, encryptedCEK, provider, null);
+	}
+
+
+	/**
+	 * Unwraps the specified encrypted Content Encryption Key (CEK), with
+	 * an optional pool for reusing the {@link Cipher} instances.
+	 *
+	 * @param kek          The AES Key Encryption Key (KEK) (wrapping key).
+	 *                     Must not be {@code null}.
+	 * @param encryptedCEK The wrapped Content Encryption Key (CEK) with
+	 *                     authentication tag. Must not be {@code null}.
+	 * @param provider     The specific JCA provider to use, {@code null}
+	 *                     implies the default system one.
+	 * @param pool         The JCA engine pool, {@code null} if none.
+	 *
+	 * @return The unwrapped Content Encryption Key (CEK).
+	 *
+	 * @throws JOSEException If unwrapping failed.
+	 */
+	public static SecretKey unwrapCEK(final SecretKey kek,
+					  final byte[] encryptedCEK,
+					  final Provider provider,
+					  final JCAEnginePool pool)
+		throws JOSEException {
+
+		Cipher cipher;
+
 		try {
-			Cipher cipher;
+			cipher = JCAEngines.acquire(pool, JCAEngines.CIPHER, "AESWrap", provider);
+		} catch (JOSEException e) {
+			throw new JOSEException("Couldn't unwrap AES key: " + e.getMessage(), e.getCause());
+		}
 
-			if (provider != null) {
-				cipher = Cipher.getInstance("AESWrap", provider);
-			} else {
-				cipher = Cipher.getInstance("AESWrap");
-			}
+		final SecretKey cek;
 
+		try {
 			cipher.init(Cipher.UNWRAP_MODE, KeyUtils.toAESKey(kek)); // Make sure key alg is "AES"
-			return (SecretKey)cipher.unwrap(encryptedCEK, "AES", Cipher.SECRET_KEY);
+			cek = (SecretKey)cipher.unwrap(encryptedCEK, "AES", Cipher.SECRET_KEY);
 
-		} catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException e) {
+		} catch (NoSuchAlgorithmException | InvalidKeyException e) {
 
 			throw new JOSEException("Couldn't unwrap AES key: " + e.getMessage(), e);
 		}
+
+		JCAEngines.release(pool, JCAEngines.CIPHER, "AESWrap", provider, cipher);
+
+		return cek;
 	}
 
 
@@ -0,0 +1,150 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.crypto.impl;
+
+
+import java.security.Provider;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.jcip.annotations.ThreadSafe;
+
+import com.nimbusds.jose.JOSEException;
+
+
+/**
+ * Pool of Java Cryptography Architecture (JCA) engine instances backed by a
+ * bounded queue per factory, algorithm and JCA provider. Engines are shared
+ * between all threads. Released engines in excess of the maximum idle count
+ * are discarded.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-04
+ */
+@ThreadSafe
+public class BoundedQueueJCAEnginePool implements JCAEnginePool {
+
+
+	/**
+	 * The default maximum number of idle engines per key.
+	 */
+	public static final int DEFAULT_MAX_IDLE = 32;
+
+
+	/**
+	 * The maximum number of idle engines per key.
+	 */
+	private final int maxIdle;
+
+
+	/**
+	 * The idle engine queues.
+	 */
+	private final ConcurrentMap<JCAEngineKey, Queue<Object>> idleEngines = new ConcurrentHashMap<>();
+
+
+	/**
+	 * Creates a new bounded queue JCA engine pool with a maximum of 32
+	 * idle engines per key.
+	 */
+	public BoundedQueueJCAEnginePool() {
+
+		this(DEFAULT_MAX_IDLE);
+	}
+
+
+	/**
+	 * Creates a new bounded queue JCA engine pool.
+	 *
+	 * @param maxIdle The maximum number of idle engines per factory,
+	 *                algorithm and JCA provider. Must be positive.
+	 */
+	public BoundedQueueJCAEnginePool(final int maxIdle) {
+
+		if (maxIdle < 1) {
+			throw new IllegalArgumentException("The maximum idle engine count must be positive");
+		}
+		this.maxIdle = maxIdle;
+	}
+
+
+	/**
+	 * Returns the maximum number of idle engines per factory, algorithm
+	 * and JCA provider.
+	 *
+	 * @return The maximum idle engine count.
+	 */
+	public int getMaxIdle() {
+
+		return maxIdle;
+	}
+
+
+	/**
+	 * Returns the idle engine queue for the specified key, creating it if
+	 * necessary.
+	 *
+	 * @param key The key.
+	 *
+	 * @return The queue.
+	 */
+	private Queue<Object> getQueue(final JCAEngineKey key) {
+
+		Queue<Object> queue = idleEngines.get(key);
+
+		if (queue == null) {
+			Queue<Object> newQueue = new ArrayBlockingQueue<>(maxIdle);
+			queue = idleEngines.putIfAbsent(key, newQueue);
+			if (queue == null) {
+				queue = newQueue;
+			}
+		}
+
+		return queue;
+	}
+
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T acquire(final JCAEngineFactory<T> factory,
+			     final String algorithm,
+			     final Provider provider)
+		throws JOSEException {
+
+		Object engine = getQueue(new JCAEngineKey(factory, algorithm, provider)).poll();
+
+		if (engine != null) {
+			return (T) engine;
+		}
+
+		return factory.create(algorithm, provider);
+	}
+
+
+	@Override
+	public <T> void release(final JCAEngineFactory<T> factory,
+				final String algorithm,
+				final Provider provider,
+				final T engine) {
+
+		// Discarded if the queue is full
+		getQueue(new JCAEngineKey(factory, algorithm, provider)).offer(engine);
+	}
+}
@@ -18,24 +18,36 @@
 package com.nimbusds.jose.crypto.impl;
 
 
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
 import java.security.SecureRandom;
 import java.util.*;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterOutputStream;
+import java.util.zip.ZipException;
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.Mac;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 
 import com.nimbusds.jose.*;
 import com.nimbusds.jose.jca.JWEJCAContext;
-import com.nimbusds.jose.util.Base64URL;
-import com.nimbusds.jose.util.ByteUtils;
-import com.nimbusds.jose.util.Container;
-import com.nimbusds.jose.util.IntegerOverflowException;
+import com.nimbusds.jose.crypto.utils.ConstantTimeUtils;
+import com.nimbusds.jose.util.*;
 
 
 /**
  * JWE content encryption / decryption provider.
  *
  * @author Vladimir Dzhuvinov
- * @version 2017-06-01
+ * @version 2022-06-09
  */
 public class ContentCryptoProvider {
 
@@ -89,6 +101,19 @@ public class ContentCryptoProvider {
 	}
 
 
+	/**
+	 * The buffer size for streaming encryption and decryption.
+	 */
+	private static final int STREAM_BUFFER_SIZE = 8192;
+
+
+	/**
+	 * The maximum accepted length of a Base64URL-encoded authentication
+	 * tag in a streamed JWE.
+	 */
+	private static final int MAX_ENCODED_AUTH_TAG_LENGTH = 128;
+
+
 	/**
 	 * Generates a Content Encryption Key (CEK) for the specified JOSE
 	 * encryption method.
@@ -193,7 +218,8 @@ public class ContentCryptoProvider {
 
 			authCipherText = AESGCM.encrypt(
 				cek, ivContainer, plainText, aad,
-				jcaProvider.getContentEncryptionProvider());
+				jcaProvider.getContentEncryptionProvider(),
+				jcaProvider.getEnginePool());
 
 			iv = ivContainer.get();
 
@@ -292,7 +318,8 @@ public class ContentCryptoProvider {
 				cipherText.decode(),
 				aad,
 				authTag.decode(),
-				jcaProvider.getContentEncryptionProvider());
+				jcaProvider.getContentEncryptionProvider(),
+				jcaProvider.getEnginePool());
 
 		} else if (header.getEncryptionMethod().equals(EncryptionMethod.A128CBC_HS256_DEPRECATED) ||
 			header.getEncryptionMethod().equals(EncryptionMethod.A256CBC_HS512_DEPRECATED)) {
@@ -327,4 +354,598 @@ public class ContentCryptoProvider {
 		// Apply decompression if requested
 		return DeflateHelper.applyDecompression(header, plainText);
 	}
+
+
+	/**
+	 * Encrypts the clear text read from the specified input stream and
+	 * writes the JWE in compact serialisation to the output stream. The
+	 * clear text is optionally compressed, encrypted and Base64URL-encoded
+	 * incrementally, the memory use doesn't depend on the clear text
+	 * length. Supports the AES/CBC/HMAC-SHA2 and AES/GCM encryption
+	 * methods.
+	 *
+	 * @param header       The final JWE header. Must not be {@code null}.
+	 * @param clearText    The clear text to encrypt and optionally
+	 *                     compress. Must not be {@code null}.
+	 * @param cek          The Content Encryption Key (CEK). Must not be
+	 *                     {@code null}.
+	 * @param encryptedKey The encrypted CEK, {@code null} if not required.
+	 * @param jcaProvider  The JWE JCA provider specification. Must not be
+	 *                     {@code null}.
+	 * @param out          The output stream for the compact JWE. Must not
+	 *                     be {@code null}. Isn't closed.
+	 *
+	 * @throws JOSEException If encryption failed or the encryption method
+	 *                       isn't supported for streaming.
+	 * @throws IOException   If reading the clear text or writing the JWE
+	 *                       failed.
+	 */
+	public static void encrypt(final JWEHeader header,
+				   final InputStream clearText,
+				   final SecretKey cek,
+				   final Base64URL encryptedKey,
+				   final JWEJCAContext jcaProvider,
+				   final OutputStream out)
+		throws JOSEException, IOException {
+
+		checkCEKLength(cek, header.getEncryptionMethod());
+		ensureSupportedCompression(header);
+
+		final Base64URL encodedHeader = header.toBase64URL();
+		final byte[] iv = StreamCipher.generateIV(header.getEncryptionMethod(), jcaProvider.getSecureRandom());
+		final StreamCipher cipher = new StreamCipher(header.getEncryptionMethod(), cek, Cipher.ENCRYPT_MODE, iv, AAD.compute(encodedHeader), jcaProvider);
+
+		// [header].[encryptedKey].[iv].
+		writeASCII(out, encodedHeader.toString());
+		out.write('.');
+		if (encryptedKey != null) {
+			writeASCII(out, encryptedKey.toString());
+		}
+		out.write('.');
+		writeASCII(out, Base64URL.encode(iv).toString());
+		out.write('.');
+
+		final Base64URLOutputStream cipherTextOut = new Base64URLOutputStream(out);
+		final OutputStream encryptingOut = new CipherUpdateOutputStream(cipher, cipherTextOut);
+
+		final Deflater deflater = header.getCompressionAlgorithm() != null ? new Deflater(Deflater.DEFLATED, true) : null;
+		try {
+			OutputStream sink = deflater != null ? new DeflaterOutputStream(encryptingOut, deflater, STREAM_BUFFER_SIZE) : encryptingOut;
+
+			byte[] buf = new byte[STREAM_BUFFER_SIZE];
+			int n;
+			while ((n = clearText.read(buf)) != -1) {
+				sink.write(buf, 0, n);
+			}
+
+			if (deflater != null) {
+				((DeflaterOutputStream) sink).finish();
+			}
+		} finally {
+			if (deflater != null) {
+				deflater.end();
+			}
+		}
+
+		byte[] authTag = cipher.finishEncryption(cipherTextOut);
+		cipherTextOut.finish();
+
+		// .[authTag]
+		out.write('.');
+		writeASCII(out, Base64URL.encode(authTag).toString());
+		out.flush();
+	}
+
+
+	/**
+	 * Decrypts the cipher text read from the specified input stream and
+	 * writes the clear text to the output stream. The cipher text is
+	 * Base64URL-decoded, decrypted and optionally decompressed
+	 * incrementally. Supports the AES/CBC/HMAC-SHA2 and AES/GCM
+	 * encryption methods.
+	 *
+	 * <p>The authentication tag follows the cipher text and is checked
+	 * last. Clear text written to the output stream must be discarded if
+	 * this method throws an exception. With AES/CBC/HMAC-SHA2 the cipher
+	 * text isn't decrypted past the last block before the authentication
+	 * tag is checked. With AES/GCM the default JCA provider buffers the
+	 * decrypted clear text until the tag is checked.
+	 *
+	 * <p>Decompression failures, including exceeding the
+	 * {@link DeflateUtils#getMaxDecompressedLength() maximum decompressed
+	 * length}, are not reported before the complete input is read and the
+	 * authentication tag is checked. Modified input therefore fails with
+	 * the same exception as an invalid authentication tag. The
+	 * decompression stops at the first failure.
+	 *
+	 * @param header           The JWE header. Must not be {@code null}.
+	 * @param iv               The initialisation vector (IV). Must not be
+	 *                         {@code null}.
+	 * @param cipherTextAndTag The Base64URL-encoded cipher text and
+	 *                         authentication tag, delimited by a period
+	 *                         ('.'). Must have a push back buffer of at
+	 *                         least
+	 *                         {@link Base64URLInputStream#READ_AHEAD_SIZE}
+	 *                         bytes. Must not be {@code null}.
+	 * @param cek              The Content Encryption Key (CEK). Must not
+	 *                         be {@code null}.
+	 * @param jcaProvider      The JWE JCA provider specification. Must not
+	 *                         be {@code null}.
+	 * @param clearText        The output stream for the clear text. Must
+	 *                         not be {@code null}. Isn't closed.
+	 *
+	 * @throws JOSEException If decryption or decompression failed, or the
+	 *                       encryption method isn't supported for
+	 *                       streaming.
+	 * @throws IOException   If reading the JWE or writing the clear text
+	 *                       failed.
+	 */
+	public static void decrypt(final JWEHeader header,
+				   final Base64URL iv,
+				   final PushbackInputStream cipherTextAndTag,
+				   final SecretKey cek,
+				   final JWEJCAContext jcaProvider,
+				   final OutputStream clearText)
+		throws JOSEException, IOException {
+
+		checkCEKLength(cek, header.getEncryptionMethod());
+		ensureSupportedCompression(header);
+
+		final StreamCipher cipher = new StreamCipher(header.getEncryptionMethod(), cek, Cipher.DECRYPT_MODE, iv.decode(), AAD.compute(header), jcaProvider);
+
+		final Inflater inflater = header.getCompressionAlgorithm() != null ? new Inflater(true) : null;
+		try {
+			OutputStream sink = clearText;
+			DeferredFailureOutputStream inflatingOut = null;
+			if (inflater != null) {
+				// Decompression errors are deferred until the
+				// authentication tag is checked, to prevent a
+				// decompression oracle on unauthenticated input
+				inflatingOut = new DeferredFailureOutputStream(
+					new InflaterOutputStream(
+						new LengthLimitedOutputStream(clearText, DeflateUtils.getMaxDecompressedLength()),
+						inflater,
+						STREAM_BUFFER_SIZE));
+				sink = inflatingOut;
+			}
+
+			Base64URLInputStream cipherText = new Base64URLInputStream(cipherTextAndTag);
+			byte[] buf = new byte[STREAM_BUFFER_SIZE];
+			int n;
+			while ((n = cipherText.read(buf)) != -1) {
+				cipher.update(buf, 0, n, sink);
+			}
+
+			if (! cipherText.isDelimited()) {
+				throw new JOSEException("Missing JWE authentication tag");
+			}
+
+			cipher.finishDecryption(readAuthTag(cipherTextAndTag), sink);
+
+			if (inflatingOut != null) {
+				inflatingOut.finish();
+				if (inflatingOut.getFailure() == null && ! inflater.finished()) {
+					throw new JOSEException("Couldn't decompress plain text: Unexpected end of DEFLATE input");
+				}
+				inflatingOut.rethrowFailure();
+			}
+		} finally {
+			if (inflater != null) {
+				inflater.end();
+			}
+		}
+	}
+
+
+	/**
+	 * Ensures the compression algorithm of the specified JWE header is
+	 * supported.
+	 *
+	 * @param header The JWE header.
+	 *
+	 * @throws JOSEException If the compression algorithm isn't supported.
+	 */
+	private static void ensureSupportedCompression(final JWEHeader header)
+		throws JOSEException {
+
+		CompressionAlgorithm compressionAlg = header.getCompressionAlgorithm();
+
+		if (compressionAlg != null && ! compressionAlg.equals(CompressionAlgorithm.DEF)) {
+			throw new JOSEException("Unsupported compression algorithm: " + compressionAlg);
+		}
+	}
+
+
+	/**
+	 * Reads the Base64URL-encoded authentication tag, the last part of a
+	 * streamed JWE. Trailing whitespace is ignored.
+	 *
+	 * @param in The input stream.
+	 *
+	 * @return The authentication tag.
+	 */
+	private static byte[] readAuthTag(final InputStream in)
+		throws JOSEException, IOException {
+
+		StringBuilder sb = new StringBuilder();
+		int c;
+		while ((c = in.read()) != -1) {
+			if (sb.length() == MAX_ENCODED_AUTH_TAG_LENGTH) {
+				throw new JOSEException("The JWE authentication tag is too long");
+			}
+			sb.append((char) c);
+		}
+
+		String encodedTag = sb.toString().trim();
+
+		if (encodedTag.isEmpty()) {
+			throw new JOSEException("Missing JWE authentication tag");
+		}
+
+		if (encodedTag.indexOf('.') > -1) {
+			throw new JOSEException("Unexpected number of Base64URL parts, must be five");
+		}
+
+		return new Base64URL(encodedTag).decode();
+	}
+
+
+	/**
+	 * Writes the specified ASCII string.
+	 *
+	 * @param out The output stream.
+	 * @param s   The string.
+	 */
+	private static void writeASCII(final OutputStream out, final String s)
+		throws IOException {
+
+		out.write(s.getBytes(StandardCharset.UTF_8));
+	}
+
+
+	/**
+	 * Incremental AES/CBC/HMAC-SHA2 or AES/GCM content cipher.
+	 */
+	private static final class StreamCipher {
+
+
+		/**
+		 * The AES cipher.
+		 */
+		private final Cipher cipher;
+
+
+		/**
+		 * The HMAC for AES/CBC/HMAC-SHA2, {@code null} for AES/GCM.
+		 */
+		private final Mac mac;
+
+
+		/**
+		 * The truncated HMAC length for AES/CBC/HMAC-SHA2.
+		 */
+		private final int macLength;
+
+
+		/**
+		 * The AAD length for AES/CBC/HMAC-SHA2.
+		 */
+		private final byte[] al;
+
+
+		/**
+		 * {@code true} if decrypting, {@code false} if encrypting.
+		 */
+		private final boolean decrypting;
+
+
+		/**
+		 * Generates an IV for the specified encryption method.
+		 *
+		 * @param enc       The encryption method.
+		 * @param randomGen The secure random generator.
+		 *
+		 * @return The IV.
+		 */
+		static byte[] generateIV(final EncryptionMethod enc, final SecureRandom randomGen)
+			throws JOSEException {
+
+			if (isAESCBC(enc)) {
+				return AESCBC.generateIV(randomGen);
+			} else if (isAESGCM(enc)) {
+				return AESGCM.generateIV(randomGen);
+			}
+
+			throw new JOSEException("Streaming isn't supported for the " + enc + " encryption method");
+		}
+
+
+		/**
+		 * Creates a new content cipher.
+		 *
+		 * @param enc         The encryption method.
+		 * @param cek         The CEK.
+		 * @param mode        The cipher mode.
+		 * @param iv          The IV.
+		 * @param aad         The AAD.
+		 * @param jcaProvider The JWE JCA provider specification.
+		 */
+		StreamCipher(final EncryptionMethod enc,
+			     final SecretKey cek,
+			     final int mode,
+			     final byte[] iv,
+			     final byte[] aad,
+			     final JWEJCAContext jcaProvider)
+			throws JOSEException {
+
+			decrypting = mode == Cipher.DECRYPT_MODE;
+
+			if (isAESCBC(enc)) {
+				CompositeKey compositeKey = new CompositeKey(cek);
+				cipher = AESCBC.createAESCBCCipher(compositeKey.getAESKey(), ! decrypting, iv, jcaProvider.getContentEncryptionProvider());
+				mac = HMAC.getInitMac(compositeKey.getMACKey(), jcaProvider.getMACProvider());
+				macLength = compositeKey.getTruncatedMACByteLength();
+				al = AAD.computeLength(aad);
+				mac.update(aad);
+				mac.update(iv);
+			} else if (isAESGCM(enc)) {
+				cipher = AESGCM.createCipher(cek, mode, iv, aad, jcaProvider.getContentEncryptionProvider());
+				mac = null;
+				macLength = 0;
+				al = null;
+			} else {
+				throw new JOSEException("Streaming isn't supported for the " + enc + " encryption method");
+			}
+		}
+
+
+		private static boolean isAESCBC(final EncryptionMethod enc) {
+
+			return EncryptionMethod.A128CBC_HS256.equals(enc) ||
+				EncryptionMethod.A192CBC_HS384.equals(enc) ||
+				EncryptionMethod.A256CBC_HS512.equals(enc);
+		}
+
+
+		private static boolean isAESGCM(final EncryptionMethod enc) {
+
+			return EncryptionMethod.A128GCM.equals(enc) ||
+				EncryptionMethod.A192GCM.equals(enc) ||
+				EncryptionMethod.A256GCM.equals(enc);
+		}
+
+
+		/**
+		 * Encrypts or decrypts the next chunk.
+		 *
+		 * @param in  The input bytes.
+		 * @param off The input offset.
+		 * @param len The input length.
+		 * @param out The output stream.
+		 */
+		void update(final byte[] in, final int off, final int len, final OutputStream out)
+			throws IOException {
+
+			if (mac != null && decrypting) {
+				mac.update(in, off, len);
+			}
+
+			byte[] output = cipher.update(in, off, len);
+
+			if (output != null && output.length > 0) {
+				if (mac != null && ! decrypting) {
+					mac.update(output);
+				}
+				out.write(output);
+			}
+		}
+
+
+		/**
+		 * Completes the encryption.
+		 *
+		 * @param out The output stream for the last cipher text bytes.
+		 *
+		 * @return The authentication tag.
+		 */
+		byte[] finishEncryption(final OutputStream out)
+			throws JOSEException, IOException {
+
+			byte[] last;
+			try {
+				last = cipher.doFinal();
+			} catch (IllegalBlockSizeException | BadPaddingException e) {
+				throw new JOSEException("Couldn't encrypt: " + e.getMessage(), e);
+			}
+
+			if (mac == null) {
+				// AES/GCM: the tag is appended to the cipher text
+				int tagPos = last.length - ByteUtils.byteLength(AESGCM.AUTH_TAG_BIT_LENGTH);
+				out.write(last, 0, tagPos);
+				return Arrays.copyOfRange(last, tagPos, last.length);
+			}
+
+			out.write(last);
+			mac.update(last);
+			mac.update(al);
+			return Arrays.copyOf(mac.doFinal(), macLength);
+		}
+
+
+		/**
+		 * Completes the decryption.
+		 *
+		 * @param authTag The authentication tag.
+		 * @param out     The output stream for the last clear text bytes.
+		 */
+		void finishDecryption(final byte[] authTag, final OutputStream out)
+			throws JOSEException, IOException {
+
+			if (mac != null) {
+				mac.update(al);
+				byte[] expectedAuthTag = Arrays.copyOf(mac.doFinal(), macLength);
+				if (! ConstantTimeUtils.areEqual(expectedAuthTag, authTag)) {
+					throw new JOSEException("MAC check failed");
+				}
+			}
+
+			byte[] last;
+			try {
+				last = mac != null ? cipher.doFinal() : cipher.doFinal(authTag);
+			} catch (IllegalBlockSizeException | BadPaddingException e) {
+				throw new JOSEException((mac != null ? "AES/CBC" : "AES/GCM/NoPadding") + " decryption failed: " + e.getMessage(), e);
+			}
+
+			out.write(last);
+		}
+	}
+
+
+	/**
+	 * Output stream which passes the written bytes through a content
+	 * cipher.
+	 */
+	private static final class CipherUpdateOutputStream extends OutputStream {
+
+
+		private final StreamCipher cipher;
+
+
+		private final OutputStream out;
+
+
+		private CipherUpdateOutputStream(final StreamCipher cipher, final OutputStream out) {
+			this.cipher = cipher;
+			this.out = out;
+		}
+
+
+		@Override
+		public void write(final int b)
+			throws IOException {
+			write(new byte[]{(byte) b}, 0, 1);
+		}
+
+
+		@Override
+		public void write(final byte[] b, final int off, final int len)
+			throws IOException {
+			cipher.update(b, off, len, out);
+		}
+	}
+
+
+	/**
+	 * Output stream which records the first write failure of the
+	 * underlying decompressing stream instead of throwing it and discards
+	 * all further output, so that the complete input can be authenticated
+	 * first.
+	 */
+	private static final class DeferredFailureOutputStream extends FilterOutputStream {
+
+
+		private IOException failure;
+
+
+		private DeferredFailureOutputStream(final InflaterOutputStream out) {
+			super(out);
+		}
+
+
+		@Override
+		public void write(final int b) {
+			write(new byte[]{(byte) b}, 0, 1);
+		}
+
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) {
+			if (failure != null) {
+				return;
+			}
+			try {
+				out.write(b, off, len);
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+
+
+		/**
+		 * Finishes the decompression.
+		 */
+		private void finish() {
+			if (failure != null) {
+				return;
+			}
+			try {
+				((InflaterOutputStream) out).finish();
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+
+
+		/**
+		 * Returns the recorded failure.
+		 *
+		 * @return The failure, {@code null} if none.
+		 */
+		private IOException getFailure() {
+			return failure;
+		}
+
+
+		/**
+		 * Throws the recorded failure, if any. Invalid or oversized
+		 * DEFLATE input is reported as a {@link JOSEException}, other
+		 * failures to write the clear text as they were.
+		 */
+		private void rethrowFailure()
+			throws JOSEException, IOException {
+
+			if (failure instanceof ZipException) {
+				throw new JOSEException("Couldn't decompress plain text: " + failure.getMessage(), failure);
+			} else if (failure != null) {
+				throw failure;
+			}
+		}
+	}
+
+
+	/**
+	 * Output stream which limits the number of written bytes.
+	 */
+	private static final class LengthLimitedOutputStream extends FilterOutputStream {
+
+
+		private final long maxLength;
+
+
+		private long length;
+
+
+		private LengthLimitedOutputStream(final OutputStream out, final long maxLength) {
+			super(out);
+			this.maxLength = maxLength;
+		}
+
+
+		@Override
+		public void write(final int b)
+			throws IOException {
+			write(new byte[]{(byte) b}, 0, 1);
+		}
+
+
+		@Override
+		public void write(final byte[] b, final int off, final int len)
+			throws IOException {
+			length += len;
+			if (length > maxLength) {
+				throw new ZipException("The decompressed length exceeds the maximum of " + maxLength + " bytes");
+			}
+			out.write(b, off, len);
+		}
+	}
 }
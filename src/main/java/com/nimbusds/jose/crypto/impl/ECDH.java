@@ -18,7 +18,6 @@
 package com.nimbusds.jose.crypto.impl;
 
 
-import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
@@ -42,7 +41,7 @@ import com.nimbusds.jose.jwk.OctetKeyPair;
  * Elliptic Curve Diffie-Hellman key agreement functions and utilities.
  *
  * @author Vladimir Dzhuvinov
- * @version 2018-12-12
+ * @version 2022-06-09
  */
 public class ECDH {
 
@@ -269,14 +268,12 @@ public class ECDH {
 			throw new JOSEException("Unsupported JWE ECDH algorithm mode: " + algMode);
 		}
 
+		final ECDHOtherInfo otherInfo = ECDHOtherInfo.getInstance(algID, sharedKeyLength);
+
 		return concatKDF.deriveKey(
 			Z,
 			sharedKeyLength,
-			ConcatKDF.encodeDataWithLength(algID.getBytes(StandardCharsets.US_ASCII)),
-			ConcatKDF.encodeDataWithLength(header.getAgreementPartyUInfo()),
-			ConcatKDF.encodeDataWithLength(header.getAgreementPartyVInfo()),
-			ConcatKDF.encodeIntData(sharedKeyLength),
-			ConcatKDF.encodeNoData());
+			otherInfo.compose(header.getAgreementPartyUInfo(), header.getAgreementPartyVInfo()));
 	}
 
 	
@@ -27,7 +27,6 @@ import com.nimbusds.jose.util.ByteUtils;
 
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
 import java.security.Provider;
 import java.security.interfaces.ECPrivateKey;
 import java.security.interfaces.ECPublicKey;
@@ -42,7 +41,7 @@ import java.util.Objects;
  * Key Authenticated Encryption for JOSE: ECDH-1PU</a>
  *
  * @author Alexander Martynov
- * @version 2021-08-03
+ * @version 2022-06-09
  */
 public class ECDH1PU {
 
@@ -175,14 +174,12 @@ public class ECDH1PU {
             throw new JOSEException("Unsupported JWE ECDH algorithm mode: " + algMode);
         }
 
+        final ECDHOtherInfo otherInfo = ECDHOtherInfo.getInstance(algID, sharedKeyLength);
+
         return concatKDF.deriveKey(
                 Z,
                 sharedKeyLength,
-                ConcatKDF.encodeDataWithLength(algID.getBytes(StandardCharsets.US_ASCII)),
-                ConcatKDF.encodeDataWithLength(header.getAgreementPartyUInfo()),
-                ConcatKDF.encodeDataWithLength(header.getAgreementPartyVInfo()),
-                ConcatKDF.encodeIntData(sharedKeyLength),
-                ConcatKDF.encodeNoData()
+                otherInfo.compose(header.getAgreementPartyUInfo(), header.getAgreementPartyVInfo())
         );
     }
 
@@ -240,15 +237,12 @@ public class ECDH1PU {
             throw new JOSEException("Unsupported JWE ECDH algorithm mode: " + algMode);
         }
 
+        final ECDHOtherInfo otherInfo = ECDHOtherInfo.getInstance(algID, sharedKeyLength);
+
         return concatKDF.deriveKey(
             Z,
             sharedKeyLength,
-            ConcatKDF.encodeDataWithLength(algID.getBytes(StandardCharsets.US_ASCII)),
-            ConcatKDF.encodeDataWithLength(header.getAgreementPartyUInfo()),
-            ConcatKDF.encodeDataWithLength(header.getAgreementPartyVInfo()),
-            ConcatKDF.encodeIntData(sharedKeyLength),
-            ConcatKDF.encodeNoData(),
-            ConcatKDF.encodeDataWithLength(tag)
+            otherInfo.compose(header.getAgreementPartyUInfo(), header.getAgreementPartyVInfo(), tag)
         );
     }
 
@@ -425,6 +419,178 @@ public class ECDH1PU {
         return deriveZ(Ze, Zs);
     }
 
+    /**
+     * Derives the static shared secret (Zs) from applying the ECDH
+     * primitive to a party's static private key and the other party's
+     * static public key. The public key is validated to be on the curve
+     * of the private key. Zs is the same for the sender and the recipient
+     * and doesn't change between messages, it may therefore be cached.
+     *
+     * @param privateKey The static EC private key of the sender or
+     *                   recipient.
+     * @param publicKey  The static EC public key of the other party.
+     * @param provider   The specific JCA provider for the ECDH key
+     *                   agreement, {@code null} to use the default one.
+     *
+     * @return The static shared secret (Zs), with algorithm "AES".
+     *
+     * @throws JOSEException If derivation of the shared secret failed.
+     */
+    public static SecretKey deriveStaticZ(
+            final ECPrivateKey privateKey,
+            final ECPublicKey publicKey,
+            final Provider provider) throws JOSEException {
+
+        validateSameCurve(privateKey, publicKey);
+
+        return ECDH.deriveSharedSecret(
+                publicKey,
+                privateKey,
+                provider
+        );
+    }
+
+    /**
+     * Derives the static shared secret (Zs) from applying the ECDH
+     * primitive to a party's static private key and the other party's
+     * static public key. Zs is the same for the sender and the recipient
+     * and doesn't change between messages, it may therefore be cached.
+     *
+     * @param privateKey The static OctetKey private key of the sender or
+     *                   recipient.
+     * @param publicKey  The static OctetKey public key of the other
+     *                   party.
+     *
+     * @return The static shared secret (Zs), with algorithm "AES".
+     *
+     * @throws JOSEException If derivation of the shared secret failed.
+     */
+    public static SecretKey deriveStaticZ(
+            final OctetKeyPair privateKey,
+            final OctetKeyPair publicKey) throws JOSEException {
+
+        validateSameCurve(privateKey, publicKey);
+
+        return ECDH.deriveSharedSecret(publicKey, privateKey);
+    }
+
+    /**
+     * Derives a shared secret (also called 'Z') for sender from a
+     * previously derived static shared secret (Zs), see
+     * {@link #deriveStaticZ(ECPrivateKey, ECPublicKey, Provider)}.
+     *
+     * @param publicKey The recipient EC public key.
+     * @param epk       The sender EC ephemeral private key.
+     * @param Zs        The static shared secret.
+     * @param provider  The specific JCA provider for the ECDH key
+     *                  agreement, {@code null} to use the default one.
+     *
+     * @return The derived shared secret ('Z'), with algorithm "AES".
+     *
+     * @throws JOSEException If derivation of the shared secret failed.
+     */
+    public static SecretKey deriveSenderZ(
+            final ECPublicKey publicKey,
+            final ECPrivateKey epk,
+            final SecretKey Zs,
+            final Provider provider) throws JOSEException {
+
+        validateSameCurve(epk, publicKey);
+
+        SecretKey Ze = ECDH.deriveSharedSecret(
+                publicKey,
+                epk,
+                provider
+        );
+
+        return deriveZ(Ze, Zs);
+    }
+
+    /**
+     * Derives a shared secret (also called 'Z') for sender from a
+     * previously derived static shared secret (Zs), see
+     * {@link #deriveStaticZ(OctetKeyPair, OctetKeyPair)}.
+     *
+     * @param publicKey The recipient OctetKey public key.
+     * @param epk       The sender OctetKey ephemeral private key.
+     * @param Zs        The static shared secret.
+     *
+     * @return The derived shared secret ('Z'), with algorithm "AES".
+     *
+     * @throws JOSEException If derivation of the shared secret failed.
+     */
+    public static SecretKey deriveSenderZ(
+            final OctetKeyPair publicKey,
+            final OctetKeyPair epk,
+            final SecretKey Zs) throws JOSEException {
+
+        validateSameCurve(epk, publicKey);
+
+        SecretKey Ze = ECDH.deriveSharedSecret(publicKey, epk);
+
+        return deriveZ(Ze, Zs);
+    }
+
+    /**
+     * Derives a shared secret (also called 'Z') for recipient from a
+     * previously derived static shared secret (Zs), see
+     * {@link #deriveStaticZ(ECPrivateKey, ECPublicKey, Provider)}.
+     *
+     * @param privateKey The recipient EC private key.
+     * @param epk        The sender EC ephemeral public key.
+     * @param Zs         The static shared secret.
+     * @param provider   The specific JCA provider for the ECDH key
+     *                   agreement, {@code null} to use the default one.
+     *
+     * @return The derived shared secret ('Z'), with algorithm "AES".
+     *
+     * @throws JOSEException If derivation of the shared secret failed.
+     */
+    public static SecretKey deriveRecipientZ(
+            final ECPrivateKey privateKey,
+            final ECPublicKey epk,
+            final SecretKey Zs,
+            final Provider provider) throws JOSEException {
+
+        validateSameCurve(privateKey, epk);
+
+        SecretKey Ze = ECDH.deriveSharedSecret(
+                epk,
+                privateKey,
+                provider
+        );
+
+        return deriveZ(Ze, Zs);
+    }
+
+    /**
+     * Derives a shared secret (also called 'Z') for recipient from a
+     * previously derived static shared secret (Zs), see
+     * {@link #deriveStaticZ(OctetKeyPair, OctetKeyPair)}.
+     *
+     * @param privateKey The recipient OctetKey private key.
+     * @param epk        The sender OctetKey ephemeral public key.
+     * @param Zs         The static shared secret.
+     *
+     * @return The derived shared secret ('Z'), with algorithm "AES".
+     *
+     * @throws JOSEException If derivation of the shared secret failed.
+     */
+    public static SecretKey deriveRecipientZ(
+            final OctetKeyPair privateKey,
+            final OctetKeyPair epk,
+            final SecretKey Zs) throws JOSEException {
+
+        validateSameCurve(privateKey, epk);
+
+        SecretKey Ze = ECDH.deriveSharedSecret(
+                epk,
+                privateKey
+        );
+
+        return deriveZ(Ze, Zs);
+    }
+
     /**
      * Ensures the private key and public key are from the same curve.
      *
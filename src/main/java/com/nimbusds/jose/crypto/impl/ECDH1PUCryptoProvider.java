@@ -76,7 +76,7 @@ import com.nimbusds.jose.util.Base64URL;
  * </ul>
  *
  * @author Alexander Martynov
- * @version 2021-08-03
+ * @version 2022-06-04
  */
 public abstract class ECDH1PUCryptoProvider extends BaseJWEProvider {
 	
@@ -218,7 +218,7 @@ public abstract class ECDH1PUCryptoProvider extends BaseJWEProvider {
 			JWECryptoParts encrypted = ContentCryptoProvider.encrypt(header, clearText, cek, null, getJCAContext());
 			
 			SecretKey sharedKey = ECDH1PU.deriveSharedKey(header, Z, encrypted.getAuthenticationTag(), getConcatKDF());
-			encryptedKey = Base64URL.encode(AESKW.wrapCEK(cek, sharedKey, getJCAContext().getKeyEncryptionProvider()));
+			encryptedKey = Base64URL.encode(AESKW.wrapCEK(cek, sharedKey, getJCAContext().getKeyEncryptionProvider(), getJCAContext().getEnginePool()));
 			
 			return new JWECryptoParts(
 				header,
@@ -260,7 +260,7 @@ public abstract class ECDH1PUCryptoProvider extends BaseJWEProvider {
 			}
 			
 			SecretKey sharedKey = ECDH1PU.deriveSharedKey(header, Z, authTag, getConcatKDF());
-			cek = AESKW.unwrapCEK(sharedKey, encryptedKey.decode(), getJCAContext().getKeyEncryptionProvider());
+			cek = AESKW.unwrapCEK(sharedKey, encryptedKey.decode(), getJCAContext().getKeyEncryptionProvider(), getJCAContext().getEnginePool());
 		} else {
 			throw new JOSEException("Unexpected JWE ECDH algorithm mode: " + algMode);
 		}
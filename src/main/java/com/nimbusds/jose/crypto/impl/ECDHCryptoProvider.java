@@ -67,7 +67,7 @@ import com.nimbusds.jose.util.Base64URL;
  * @author Tim McLean
  * @author Vladimir Dzhuvinov
  * @author Fernando González Callejas
- * @version 2019-01-24
+ * @version 2022-06-09
  */
 public abstract class ECDHCryptoProvider extends BaseJWEProvider {
 
@@ -203,7 +203,7 @@ public abstract class ECDHCryptoProvider extends BaseJWEProvider {
 			} else { // Generate the CEK according to the enc method
 				cek = ContentCryptoProvider.generateCEK(enc, getJCAContext().getSecureRandom());
 			}
-			encryptedKey = Base64URL.encode(AESKW.wrapCEK(cek, sharedKey, getJCAContext().getKeyEncryptionProvider()));
+			encryptedKey = Base64URL.encode(AESKW.wrapCEK(cek, sharedKey, getJCAContext().getKeyEncryptionProvider(), getJCAContext().getEnginePool()));
 		} else {
 			throw new JOSEException("Unexpected JWE ECDH algorithm mode: " + algMode);
 		}
@@ -212,6 +212,30 @@ public abstract class ECDHCryptoProvider extends BaseJWEProvider {
 	}
 
 
+	/**
+	 * Wraps the specified content encryption key (CEK) with the key
+	 * derived from the specified shared secret ("Z"). For the ECDH-ES key
+	 * agreement with key wrapping algorithms only.
+	 */
+	protected Base64URL wrapCEKWithZ(final JWEHeader header,
+					 final SecretKey Z,
+					 final SecretKey contentEncryptionKey)
+		throws JOSEException {
+
+		final ECDH.AlgorithmMode algMode = ECDH.resolveAlgorithmMode(header.getAlgorithm());
+
+		if (! algMode.equals(ECDH.AlgorithmMode.KW)) {
+			throw new JOSEException("The " + header.getAlgorithm() + " algorithm doesn't wrap a content encryption key (CEK)");
+		}
+
+		// Derive shared key via concat KDF
+		getConcatKDF().getJCAContext().setProvider(getJCAContext().getMACProvider()); // update before concat
+		SecretKey sharedKey = ECDH.deriveSharedKey(header, Z, getConcatKDF());
+
+		return Base64URL.encode(AESKW.wrapCEK(contentEncryptionKey, sharedKey, getJCAContext().getKeyEncryptionProvider(), getJCAContext().getEnginePool()));
+	}
+
+
 	/**
 	 * Decrypts the encrypted JWE parts using the specified shared secret
 	 * ("Z").
@@ -239,7 +263,7 @@ public abstract class ECDHCryptoProvider extends BaseJWEProvider {
 			if (encryptedKey == null) {
 				throw new JOSEException("Missing JWE encrypted key");
 			}
-			cek = AESKW.unwrapCEK(sharedKey, encryptedKey.decode(), getJCAContext().getKeyEncryptionProvider());
+			cek = AESKW.unwrapCEK(sharedKey, encryptedKey.decode(), getJCAContext().getKeyEncryptionProvider(), getJCAContext().getEnginePool());
 		} else {
 			throw new JOSEException("Unexpected JWE ECDH algorithm mode: " + algMode);
 		}
@@ -0,0 +1,223 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.crypto.impl;
+
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.jcip.annotations.Immutable;
+
+import com.nimbusds.jose.util.Base64URL;
+
+
+/**
+ * The Concat KDF {@code OtherInfo} for ECDH-ES and ECDH-1PU key agreement,
+ * with the fixed fields precomputed. The {@code AlgorithmID} and
+ * {@code SuppPubInfo} (key data length) fields depend only on the JWE
+ * algorithm and encryption method, they are encoded once and the instance
+ * is shared. Only the {@code PartyUInfo}, {@code PartyVInfo} and the
+ * optional ECDH-1PU tag are encoded per message, directly into the
+ * composed {@code OtherInfo}.
+ *
+ * <p>See RFC 7518, section 4.6.2.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+@Immutable
+public final class ECDHOtherInfo {
+
+
+	/**
+	 * The shared instances, keyed by algorithm ID. The algorithm ID is
+	 * the name of a supported JWE algorithm (key wrapping mode) or of an
+	 * encryption method with a known CEK length (direct mode), the map
+	 * is therefore bounded.
+	 */
+	private static final ConcurrentMap<String, ECDHOtherInfo> INSTANCES = new ConcurrentHashMap<>();
+
+
+	/**
+	 * The shared key length, in bits.
+	 */
+	private final int keyLength;
+
+
+	/**
+	 * The encoded {@code AlgorithmID} field.
+	 */
+	private final byte[] algID;
+
+
+	/**
+	 * The encoded {@code SuppPubInfo} field, followed by the empty
+	 * {@code SuppPrivInfo} field.
+	 */
+	private final byte[] suppPubInfo;
+
+
+	/**
+	 * Returns the {@code OtherInfo} for the specified algorithm ID and
+	 * shared key length.
+	 *
+	 * @param algID     The algorithm ID, the JWE algorithm name in key
+	 *                  wrapping mode or the encryption method name in
+	 *                  direct mode. Must not be {@code null}.
+	 * @param keyLength The shared key length, in bits.
+	 *
+	 * @return The {@code OtherInfo}.
+	 */
+	public static ECDHOtherInfo getInstance(final String algID, final int keyLength) {
+
+		ECDHOtherInfo otherInfo = INSTANCES.get(algID);
+
+		if (otherInfo == null || otherInfo.keyLength != keyLength) {
+			otherInfo = new ECDHOtherInfo(algID, keyLength);
+			INSTANCES.putIfAbsent(algID, otherInfo);
+		}
+
+		return otherInfo;
+	}
+
+
+	/**
+	 * Creates a new {@code OtherInfo}.
+	 *
+	 * @param algID     The algorithm ID.
+	 * @param keyLength The shared key length, in bits.
+	 */
+	private ECDHOtherInfo(final String algID, final int keyLength) {
+
+		this.keyLength = keyLength;
+		this.algID = ConcatKDF.encodeDataWithLength(algID.getBytes(StandardCharsets.US_ASCII));
+		suppPubInfo = ConcatKDF.encodeIntData(keyLength); // SuppPrivInfo has no data
+	}
+
+
+	/**
+	 * Returns the shared key length.
+	 *
+	 * @return The shared key length, in bits.
+	 */
+	public int getKeyLength() {
+
+		return keyLength;
+	}
+
+
+	/**
+	 * Composes the {@code OtherInfo} for the specified agreement
+	 * parties.
+	 *
+	 * @param partyUInfo The agreement PartyUInfo, {@code null} if not
+	 *                   specified.
+	 * @param partyVInfo The agreement PartyVInfo, {@code null} if not
+	 *                   specified.
+	 *
+	 * @return The {@code OtherInfo}.
+	 */
+	public byte[] compose(final Base64URL partyUInfo, final Base64URL partyVInfo) {
+
+		return compose(partyUInfo, partyVInfo, null, false);
+	}
+
+
+	/**
+	 * Composes the {@code OtherInfo} for the specified agreement parties
+	 * and ECDH-1PU tag.
+	 *
+	 * @param partyUInfo The agreement PartyUInfo, {@code null} if not
+	 *                   specified.
+	 * @param partyVInfo The agreement PartyVInfo, {@code null} if not
+	 *                   specified.
+	 * @param tag        The authentication tag. Must not be
+	 *                   {@code null}.
+	 *
+	 * @return The {@code OtherInfo}.
+	 */
+	public byte[] compose(final Base64URL partyUInfo, final Base64URL partyVInfo, final Base64URL tag) {
+
+		return compose(partyUInfo, partyVInfo, tag, true);
+	}
+
+
+	/**
+	 * Composes the {@code OtherInfo}.
+	 *
+	 * @param partyUInfo The agreement PartyUInfo, {@code null} if not
+	 *                   specified.
+	 * @param partyVInfo The agreement PartyVInfo, {@code null} if not
+	 *                   specified.
+	 * @param tag        The authentication tag, {@code null} if none.
+	 * @param withTag    {@code true} to append the tag field.
+	 *
+	 * @return The {@code OtherInfo}.
+	 */
+	private byte[] compose(final Base64URL partyUInfo,
+			       final Base64URL partyVInfo,
+			       final Base64URL tag,
+			       final boolean withTag) {
+
+		final byte[] apu = partyUInfo != null ? partyUInfo.decode() : new byte[0];
+		final byte[] apv = partyVInfo != null ? partyVInfo.decode() : new byte[0];
+		final byte[] tagBytes = withTag && tag != null ? tag.decode() : new byte[0];
+
+		int length = algID.length + 4 + apu.length + 4 + apv.length + suppPubInfo.length;
+		if (withTag) {
+			length += 4 + tagBytes.length;
+		}
+
+		final byte[] otherInfo = new byte[length];
+
+		int pos = 0;
+		System.arraycopy(algID, 0, otherInfo, pos, algID.length);
+		pos += algID.length;
+		pos = putDataWithLength(apu, otherInfo, pos);
+		pos = putDataWithLength(apv, otherInfo, pos);
+		System.arraycopy(suppPubInfo, 0, otherInfo, pos, suppPubInfo.length);
+		pos += suppPubInfo.length;
+		if (withTag) {
+			putDataWithLength(tagBytes, otherInfo, pos);
+		}
+
+		return otherInfo;
+	}
+
+
+	/**
+	 * Puts the specified data prefixed with its 32-bit big-endian length.
+	 *
+	 * @param data The data.
+	 * @param out  The output array.
+	 * @param pos  The position in the output array.
+	 *
+	 * @return The position after the data.
+	 */
+	private static int putDataWithLength(final byte[] data, final byte[] out, final int pos) {
+
+		final int length = data.length;
+		out[pos] = (byte) (length >>> 24);
+		out[pos + 1] = (byte) (length >>> 16);
+		out[pos + 2] = (byte) (length >>> 8);
+		out[pos + 3] = (byte) length;
+		System.arraycopy(data, 0, out, pos + 4, length);
+		return pos + 4 + length;
+	}
+}
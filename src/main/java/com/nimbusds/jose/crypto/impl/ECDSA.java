@@ -19,7 +19,6 @@ package com.nimbusds.jose.crypto.impl;
 
 
 import java.math.BigInteger;
-import java.security.NoSuchAlgorithmException;
 import java.security.Provider;
 import java.security.Signature;
 import java.security.interfaces.ECKey;
@@ -38,7 +37,7 @@ import com.nimbusds.jose.util.ByteUtils;
  *
  * @author Vladimir Dzhuvinov
  * @author Aleksei Doroganov
- * @version 2022-04-22
+ * @version 2022-06-04
  */
 public class ECDSA {
 
@@ -106,32 +105,90 @@ public class ECDSA {
 						     final Provider jcaProvider)
 		throws JOSEException {
 
-		String jcaAlg;
+		return getSignerAndVerifier(alg, jcaProvider, null);
+	}
+
+
+	/**
+	 * Creates a new JCA signer / verifier for ECDSA, acquired from the
+	 * specified pool. Must be {@link #releaseSignerAndVerifier released}
+	 * after use.
+	 *
+	 * @param alg         The ECDSA JWS algorithm. Must not be
+	 *                    {@code null}.
+	 * @param jcaProvider The JCA provider, {@code null} if not specified.
+	 * @param pool        The JCA engine pool, {@code null} if none.
+	 *
+	 * @return The JCA signer / verifier instance.
+	 *
+	 * @throws JOSEException If a JCA signer / verifier couldn't be
+	 *                       created.
+	 */
+	public static Signature getSignerAndVerifier(final JWSAlgorithm alg,
+						     final Provider jcaProvider,
+						     final JCAEnginePool pool)
+		throws JOSEException {
+
+		final String jcaAlg = getJCAAlgorithmName(alg);
+
+		try {
+			return JCAEngines.acquire(pool, JCAEngines.SIGNATURE, jcaAlg, jcaProvider);
+		} catch (JOSEException e) {
+			throw new JOSEException("Unsupported ECDSA algorithm: " + e.getMessage(), e.getCause());
+		}
+	}
+
+
+	/**
+	 * Releases a JCA signer / verifier acquired with
+	 * {@link #getSignerAndVerifier(JWSAlgorithm, Provider, JCAEnginePool)}
+	 * back to the pool.
+	 *
+	 * @param alg         The ECDSA JWS algorithm. Must not be
+	 *                    {@code null}.
+	 * @param jcaProvider The JCA provider, {@code null} if not specified.
+	 * @param pool        The JCA engine pool, {@code null} if none.
+	 * @param signature   The JCA signer / verifier instance.
+	 *
+	 * @throws JOSEException If the ECDSA algorithm is not supported.
+	 */
+	public static void releaseSignerAndVerifier(final JWSAlgorithm alg,
+						    final Provider jcaProvider,
+						    final JCAEnginePool pool,
+						    final Signature signature)
+		throws JOSEException {
+
+		JCAEngines.release(pool, JCAEngines.SIGNATURE, getJCAAlgorithmName(alg), jcaProvider, signature);
+	}
+
+
+	/**
+	 * Returns the JCA algorithm name for the specified ECDSA JWS
+	 * algorithm.
+	 *
+	 * @param alg The ECDSA JWS algorithm. Must not be {@code null}.
+	 *
+	 * @return The JCA algorithm name.
+	 *
+	 * @throws JOSEException If the ECDSA algorithm is not supported.
+	 */
+	private static String getJCAAlgorithmName(final JWSAlgorithm alg)
+		throws JOSEException {
 
 		if (alg.equals(JWSAlgorithm.ES256)) {
-			jcaAlg = "SHA256withECDSA";
+			return "SHA256withECDSA";
 		} else if (alg.equals(JWSAlgorithm.ES256K)) {
-			jcaAlg = "SHA256withECDSA";
+			return "SHA256withECDSA";
 		} else if (alg.equals(JWSAlgorithm.ES384)) {
-			jcaAlg = "SHA384withECDSA";
+			return "SHA384withECDSA";
 		} else if (alg.equals(JWSAlgorithm.ES512)) {
-			jcaAlg = "SHA512withECDSA";
+			return "SHA512withECDSA";
 		} else {
 			throw new JOSEException(
 				AlgorithmSupportMessage.unsupportedJWSAlgorithm(
 					alg,
 					ECDSAProvider.SUPPORTED_ALGORITHMS));
 		}
-
-		try {
-			if (jcaProvider != null) {
-				return Signature.getInstance(jcaAlg, jcaProvider);
-			} else {
-				return Signature.getInstance(jcaAlg);
-			}
-		} catch (NoSuchAlgorithmException e) {
-			throw new JOSEException("Unsupported ECDSA algorithm: " + e.getMessage(), e);
-		}
 	}
 
 
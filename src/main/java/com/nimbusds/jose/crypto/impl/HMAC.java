@@ -35,7 +35,7 @@ import net.jcip.annotations.ThreadSafe;
  *
  * @author Axel Nennker
  * @author Vladimir Dzhuvinov
- * @version 2015-04-23
+ * @version 2022-06-09
  */
 @ThreadSafe
 public class HMAC {
@@ -115,8 +115,118 @@ public class HMAC {
 				     final Provider provider)
 		throws JOSEException {
 
-		Mac mac = getInitMac(secretKey, provider);
-		mac.update(message);
-		return mac.doFinal();
+		return compute(secretKey, message, provider, null);
+	}
+
+
+	/**
+	 * Computes a Hash-based Message Authentication Code (HMAC) for the
+	 * specified secret and message, with an optional pool for reusing
+	 * the {@link Mac} instances.
+	 *
+	 * @param alg      The Java Cryptography Architecture (JCA) HMAC
+	 *                 algorithm name. Must not be {@code null}.
+	 * @param secret   The secret. Must not be {@code null}.
+	 * @param message  The message. Must not be {@code null}.
+	 * @param provider The JCA provider, or {@code null} to use the default
+	 *                 one.
+	 * @param pool     The JCA engine pool, {@code null} if none.
+	 *
+	 * @return The computed HMAC.
+	 *
+	 * @throws JOSEException If the algorithm is not supported or the
+	 *                       MAC secret key is invalid.
+	 */
+	public static byte[] compute(final String alg,
+				     final byte[] secret,
+				     final byte[] message,
+				     final Provider provider,
+				     final JCAEnginePool pool)
+		throws JOSEException {
+
+		return compute(new SecretKeySpec(secret, alg), message, provider, pool);
+	}
+
+
+	/**
+	 * Computes a Hash-based Message Authentication Code (HMAC) for the
+	 * specified secret key and message, with an optional pool for reusing
+	 * the {@link Mac} instances.
+	 *
+	 * @param secretKey The secret key, with the appropriate HMAC
+	 *                  algorithm. Must not be {@code null}.
+	 * @param message   The message. Must not be {@code null}.
+	 * @param provider  The JCA provider, or {@code null} to use the
+	 *                  default one.
+	 * @param pool      The JCA engine pool, {@code null} if none.
+	 *
+	 * @return The computed HMAC.
+	 *
+	 * @throws JOSEException If the algorithm is not supported or the MAC
+	 *                       secret key is invalid.
+	 */
+	public static byte[] compute(final SecretKey secretKey,
+				     final byte[] message,
+				     final Provider provider,
+				     final JCAEnginePool pool)
+		throws JOSEException {
+
+		return compute(secretKey, message, 0, message.length, provider, pool);
+	}
+
+
+	/**
+	 * Computes a Hash-based Message Authentication Code (HMAC) for the
+	 * specified secret key and message slice, with an optional pool for
+	 * reusing the {@link Mac} instances.
+	 *
+	 * @param secretKey The secret key, with the appropriate HMAC
+	 *                  algorithm. Must not be {@code null}.
+	 * @param buf       The array containing the message. Must not be
+	 *                  {@code null}.
+	 * @param offset    The offset of the message in the array.
+	 * @param length    The length of the message.
+	 * @param provider  The JCA provider, or {@code null} to use the
+	 *                  default one.
+	 * @param pool      The JCA engine pool, {@code null} if none.
+	 *
+	 * @return The computed HMAC.
+	 *
+	 * @throws JOSEException If the algorithm is not supported or the MAC
+	 *                       secret key is invalid.
+	 */
+	public static byte[] compute(final SecretKey secretKey,
+				     final byte[] buf,
+				     final int offset,
+				     final int length,
+				     final Provider provider,
+				     final JCAEnginePool pool)
+		throws JOSEException {
+
+		if (pool == null) {
+			Mac mac = getInitMac(secretKey, provider);
+			mac.update(buf, offset, length);
+			return mac.doFinal();
+		}
+
+		final String alg = secretKey.getAlgorithm();
+
+		Mac mac;
+		try {
+			mac = pool.acquire(JCAEngines.MAC, alg, provider);
+		} catch (JOSEException e) {
+			throw new JOSEException("Unsupported HMAC algorithm: " + e.getMessage(), e.getCause());
+		}
+
+		try {
+			mac.init(secretKey);
+		} catch (InvalidKeyException e) {
+			throw new JOSEException("Invalid HMAC key: " + e.getMessage(), e);
+		}
+
+		mac.update(buf, offset, length);
+		byte[] hmac = mac.doFinal();
+		pool.release(JCAEngines.MAC, alg, provider, mac);
+		return hmac;
 	}
 }
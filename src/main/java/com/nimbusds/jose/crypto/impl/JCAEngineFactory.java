@@ -0,0 +1,54 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.crypto.impl;
+
+
+import java.security.Provider;
+
+import com.nimbusds.jose.JOSEException;
+
+
+/**
+ * Factory of Java Cryptography Architecture (JCA) engine instances, such as
+ * {@link javax.crypto.Mac}, {@link java.security.Signature} and
+ * {@link javax.crypto.Cipher}, for use with a {@link JCAEnginePool}.
+ *
+ * <p>Implementations must be stateless and are used as part of the pool
+ * key, so they should be singletons.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-04
+ */
+public interface JCAEngineFactory<T> {
+
+
+	/**
+	 * Creates a new uninitialised JCA engine instance.
+	 *
+	 * @param algorithm The algorithm name. Must not be {@code null}.
+	 * @param provider  The JCA provider, {@code null} to use the default
+	 *                  system one.
+	 *
+	 * @return The JCA engine instance.
+	 *
+	 * @throws JOSEException If the algorithm isn't supported, the cause
+	 *                       is set to the underlying JCA exception.
+	 */
+	T create(final String algorithm, final Provider provider)
+		throws JOSEException;
+}
@@ -0,0 +1,98 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.crypto.impl;
+
+
+import java.security.Provider;
+
+import net.jcip.annotations.Immutable;
+
+
+/**
+ * Key of a pooled Java Cryptography Architecture (JCA) engine: factory,
+ * algorithm name and JCA provider. The factory and provider are compared by
+ * identity.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-04
+ */
+@Immutable
+final class JCAEngineKey {
+
+
+	/**
+	 * The engine factory.
+	 */
+	private final JCAEngineFactory<?> factory;
+
+
+	/**
+	 * The algorithm name.
+	 */
+	private final String algorithm;
+
+
+	/**
+	 * The JCA provider, {@code null} if the default system one.
+	 */
+	private final Provider provider;
+
+
+	/**
+	 * The precomputed hash code.
+	 */
+	private final int hashCode;
+
+
+	/**
+	 * Creates a new JCA engine key.
+	 *
+	 * @param factory   The engine factory. Must not be {@code null}.
+	 * @param algorithm The algorithm name. Must not be {@code null}.
+	 * @param provider  The JCA provider, {@code null} if the default
+	 *                  system one.
+	 */
+	JCAEngineKey(final JCAEngineFactory<?> factory,
+		     final String algorithm,
+		     final Provider provider) {
+
+		this.factory = factory;
+		this.algorithm = algorithm;
+		this.provider = provider;
+		hashCode = 31 * (31 * System.identityHashCode(factory) + algorithm.hashCode()) + System.identityHashCode(provider);
+	}
+
+
+	@Override
+	public boolean equals(final Object o) {
+
+		if (this == o) return true;
+		if (!(o instanceof JCAEngineKey)) return false;
+		JCAEngineKey that = (JCAEngineKey) o;
+		return factory == that.factory &&
+			algorithm.equals(that.algorithm) &&
+			provider == that.provider;
+	}
+
+
+	@Override
+	public int hashCode() {
+
+		return hashCode;
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.crypto.impl;
+
+
+import java.security.Provider;
+
+import com.nimbusds.jose.JOSEException;
+
+
+/**
+ * Pool of reusable Java Cryptography Architecture (JCA) engine instances,
+ * such as {@link javax.crypto.Mac}, {@link java.security.Signature} and
+ * {@link javax.crypto.Cipher}. Pooling saves the JCA provider lookup and
+ * engine construction on every cryptographic operation.
+ *
+ * <p>Engines are keyed by {@link JCAEngineFactory factory}, algorithm name
+ * and JCA provider. An acquired engine is owned exclusively by the caller
+ * until it's released. Callers must (re)initialise an acquired engine with
+ * the intended key and parameters before use, which resets any state left
+ * over from a previous use. Engines which failed with an exception may still
+ * be released, but callers may choose to discard them instead.
+ *
+ * <p>Pools are configured with
+ * {@link com.nimbusds.jose.jca.JCAContext#setEnginePool}. Available
+ * implementations:
+ *
+ * <ul>
+ *     <li>{@link ThreadLocalJCAEnginePool}
+ *     <li>{@link BoundedQueueJCAEnginePool}
+ *     <li>{@link StripedJCAEnginePool}
+ * </ul>
+ *
+ * <p>Implementations must be thread-safe.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-04
+ */
+public interface JCAEnginePool {
+
+
+	/**
+	 * Acquires a JCA engine instance from the pool. If none is available
+	 * a new one is created with the specified factory.
+	 *
+	 * @param factory   The JCA engine factory. Must not be {@code null}.
+	 * @param algorithm The algorithm name. Must not be {@code null}.
+	 * @param provider  The JCA provider, {@code null} to use the default
+	 *                  system one.
+	 *
+	 * @return The JCA engine instance, to be initialised before use.
+	 *
+	 * @throws JOSEException If a new engine instance couldn't be
+	 *                       created.
+	 */
+	<T> T acquire(final JCAEngineFactory<T> factory,
+		      final String algorithm,
+		      final Provider provider)
+		throws JOSEException;
+
+
+	/**
+	 * Returns a previously acquired JCA engine instance to the pool. The
+	 * caller must not use the engine after that.
+	 *
+	 * @param factory   The JCA engine factory the engine was acquired
+	 *                  with. Must not be {@code null}.
+	 * @param algorithm The algorithm name the engine was acquired with.
+	 *                  Must not be {@code null}.
+	 * @param provider  The JCA provider the engine was acquired with,
+	 *                  {@code null} if the default system one.
+	 * @param engine    The JCA engine instance. Must not be
+	 *                  {@code null}.
+	 */
+	<T> void release(final JCAEngineFactory<T> factory,
+			 final String algorithm,
+			 final Provider provider,
+			 final T engine);
+}
@@ -0,0 +1,159 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.crypto.impl;
+
+
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.Signature;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.NoSuchPaddingException;
+
+import net.jcip.annotations.ThreadSafe;
+
+import com.nimbusds.jose.JOSEException;
+
+
+/**
+ * Standard Java Cryptography Architecture (JCA) engine factories and static
+ * helpers for acquiring and releasing engines with an optional
+ * {@link JCAEnginePool}.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-04
+ */
+@ThreadSafe
+public final class JCAEngines {
+
+
+	/**
+	 * {@link Mac} factory.
+	 */
+	public static final JCAEngineFactory<Mac> MAC = new JCAEngineFactory<Mac>() {
+
+		@Override
+		public Mac create(final String algorithm, final Provider provider)
+			throws JOSEException {
+
+			try {
+				return provider != null ? Mac.getInstance(algorithm, provider) : Mac.getInstance(algorithm);
+			} catch (NoSuchAlgorithmException e) {
+				throw new JOSEException(e.getMessage(), e);
+			}
+		}
+	};
+
+
+	/**
+	 * {@link Signature} factory.
+	 */
+	public static final JCAEngineFactory<Signature> SIGNATURE = new JCAEngineFactory<Signature>() {
+
+		@Override
+		public Signature create(final String algorithm, final Provider provider)
+			throws JOSEException {
+
+			try {
+				return provider != null ? Signature.getInstance(algorithm, provider) : Signature.getInstance(algorithm);
+			} catch (NoSuchAlgorithmException e) {
+				throw new JOSEException(e.getMessage(), e);
+			}
+		}
+	};
+
+
+	/**
+	 * {@link Cipher} factory.
+	 */
+	public static final JCAEngineFactory<Cipher> CIPHER = new JCAEngineFactory<Cipher>() {
+
+		@Override
+		public Cipher create(final String algorithm, final Provider provider)
+			throws JOSEException {
+
+			try {
+				return CipherHelper.getInstance(algorithm, provider);
+			} catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+				throw new JOSEException(e.getMessage(), e);
+			}
+		}
+	};
+
+
+	/**
+	 * Acquires a JCA engine instance from the specified pool, or creates
+	 * a new one if no pool is specified.
+	 *
+	 * @param pool      The JCA engine pool, {@code null} if none.
+	 * @param factory   The JCA engine factory. Must not be {@code null}.
+	 * @param algorithm The algorithm name. Must not be {@code null}.
+	 * @param provider  The JCA provider, {@code null} to use the default
+	 *                  system one.
+	 *
+	 * @return The JCA engine instance, to be initialised before use.
+	 *
+	 * @throws JOSEException If a new engine instance couldn't be
+	 *                       created.
+	 */
+	public static <T> T acquire(final JCAEnginePool pool,
+				    final JCAEngineFactory<T> factory,
+				    final String algorithm,
+				    final Provider provider)
+		throws JOSEException {
+
+		if (pool == null) {
+			return factory.create(algorithm, provider);
+		}
+
+		return pool.acquire(factory, algorithm, provider);
+	}
+
+
+	/**
+	 * Releases a JCA engine instance to the specified pool. Has no effect
+	 * if no pool is specified.
+	 *
+	 * @param pool      The JCA engine pool, {@code null} if none.
+	 * @param factory   The JCA engine factory the engine was acquired
+	 *                  with. Must not be {@code null}.
+	 * @param algorithm The algorithm name the engine was acquired with.
+	 *                  Must not be {@code null}.
+	 * @param provider  The JCA provider the engine was acquired with,
+	 *                  {@code null} if the default system one.
+	 * @param engine    The JCA engine instance, {@code null} if none.
+	 */
+	public static <T> void release(final JCAEnginePool pool,
+				       final JCAEngineFactory<T> factory,
+				       final String algorithm,
+				       final Provider provider,
+				       final T engine) {
+
+		if (pool == null || engine == null) {
+			return;
+		}
+
+		pool.release(factory, algorithm, provider, engine);
+	}
+
+
+	/**
+	 * Prevents public instantiation.
+	 */
+	private JCAEngines() { }
+}
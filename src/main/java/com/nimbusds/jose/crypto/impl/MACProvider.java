@@ -18,14 +18,22 @@
 package com.nimbusds.jose.crypto.impl;
 
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.InvalidKeyException;
+import java.security.Provider;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.crypto.Mac;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
 import com.nimbusds.jose.KeyLengthException;
 import com.nimbusds.jose.util.StandardCharset;
 
@@ -41,9 +49,14 @@ import com.nimbusds.jose.util.StandardCharset;
  *     <li>{@link com.nimbusds.jose.JWSAlgorithm#HS384}
  *     <li>{@link com.nimbusds.jose.JWSAlgorithm#HS512}
  * </ul>
+ *
+ * <p>The HMAC key schedule is computed once per algorithm and JCA provider
+ * into a keyed {@link Mac} template, which is then cloned for each
+ * operation. Falls back to a fresh {@link Mac} initialisation if the
+ * provider doesn't support cloning.
  * 
  * @author Vladimir Dzhuvinov
- * @version 2016-07-27
+ * @version 2022-06-09
  */
 public abstract class MACProvider extends BaseJWSProvider {
 
@@ -97,6 +110,12 @@ public abstract class MACProvider extends BaseJWSProvider {
 	private final byte[] secret;
 
 
+	/**
+	 * The keyed MAC templates, by JCA algorithm name.
+	 */
+	private final ConcurrentMap<String, KeyedMAC> keyedMACs = new ConcurrentHashMap<>();
+
+
 	/**
 	 * Creates a new Message Authentication (MAC) provider.
 	 *
@@ -153,4 +172,197 @@ public abstract class MACProvider extends BaseJWSProvider {
 
 		return new String(secret, StandardCharset.UTF_8);
 	}
+
+
+	/**
+	 * Computes the HMAC for the specified message with the secret. Uses a
+	 * keyed {@link Mac} template when the JCA provider supports cloning.
+	 *
+	 * @param jcaAlg  The JCA HMAC algorithm name. Must not be
+	 *                {@code null}.
+	 * @param message The message. Must not be {@code null}.
+	 *
+	 * @return The HMAC.
+	 *
+	 * @throws JOSEException If the algorithm is not supported or the MAC
+	 *                       secret key is invalid.
+	 */
+	protected byte[] computeHMAC(final String jcaAlg, final byte[] message)
+		throws JOSEException {
+
+		return computeHMAC(jcaAlg, message, 0, message.length);
+	}
+
+
+	/**
+	 * Computes the HMAC for the specified message slice with the secret.
+	 * Uses a keyed {@link Mac} template when the JCA provider supports
+	 * cloning.
+	 *
+	 * @param jcaAlg The JCA HMAC algorithm name. Must not be
+	 *               {@code null}.
+	 * @param buf    The array containing the message. Must not be
+	 *               {@code null}.
+	 * @param offset The offset of the message in the array.
+	 * @param length The length of the message.
+	 *
+	 * @return The HMAC.
+	 *
+	 * @throws JOSEException If the algorithm is not supported or the MAC
+	 *                       secret key is invalid.
+	 */
+	protected byte[] computeHMAC(final String jcaAlg, final byte[] buf, final int offset, final int length)
+		throws JOSEException {
+
+		final Provider provider = getJCAContext().getProvider();
+
+		KeyedMAC keyedMAC = getKeyedMAC(jcaAlg, provider);
+
+		if (keyedMAC.template == null) {
+			// Cloning not supported by the provider
+			return HMAC.compute(new SecretKeySpec(secret, jcaAlg), buf, offset, length, provider, getJCAContext().getEnginePool());
+		}
+
+		final Mac mac;
+		try {
+			mac = (Mac) keyedMAC.template.clone();
+		} catch (CloneNotSupportedException e) {
+			// Should not happen, checked at template creation
+			return HMAC.compute(new SecretKeySpec(secret, jcaAlg), buf, offset, length, provider, getJCAContext().getEnginePool());
+		}
+
+		mac.update(buf, offset, length);
+		return mac.doFinal();
+	}
+
+
+	/**
+	 * Computes the HMAC for the signing input of the specified JWS header
+	 * and the payload read from the input stream, without holding the
+	 * payload in memory. Uses a keyed {@link Mac} template when the JCA
+	 * provider supports cloning.
+	 *
+	 * @param jcaAlg  The JCA HMAC algorithm name. Must not be
+	 *                {@code null}.
+	 * @param header  The JWS header. Must not be {@code null}.
+	 * @param payload The payload. Must not be {@code null}. Isn't
+	 *                closed.
+	 *
+	 * @return The HMAC.
+	 *
+	 * @throws JOSEException If the algorithm is not supported or the MAC
+	 *                       secret key is invalid.
+	 * @throws IOException   If reading the payload failed.
+	 */
+	protected byte[] computeHMAC(final String jcaAlg, final JWSHeader header, final InputStream payload)
+		throws JOSEException, IOException {
+
+		final Provider provider = getJCAContext().getProvider();
+
+		KeyedMAC keyedMAC = getKeyedMAC(jcaAlg, provider);
+
+		Mac mac = null;
+
+		if (keyedMAC.template != null) {
+			try {
+				mac = (Mac) keyedMAC.template.clone();
+			} catch (CloneNotSupportedException e) {
+				// Should not happen, checked at template creation
+			}
+		}
+
+		if (mac == null) {
+			// Cloning not supported by the provider
+			mac = HMAC.getInitMac(new SecretKeySpec(secret, jcaAlg), provider);
+		}
+
+		SigningInput.update(header, payload, mac);
+		return mac.doFinal();
+	}
+
+
+	/**
+	 * Returns the keyed MAC template for the specified algorithm and JCA
+	 * provider, creating it if necessary.
+	 *
+	 * @param jcaAlg   The JCA HMAC algorithm name.
+	 * @param provider The JCA provider, {@code null} if not specified.
+	 *
+	 * @return The keyed MAC template holder.
+	 */
+	private KeyedMAC getKeyedMAC(final String jcaAlg, final Provider provider)
+		throws JOSEException {
+
+		KeyedMAC keyedMAC = keyedMACs.get(jcaAlg);
+
+		if (keyedMAC == null || keyedMAC.provider != provider) {
+			// Concurrent creation is harmless, the last one wins
+			keyedMAC = new KeyedMAC(provider, createKeyedMAC(jcaAlg, provider));
+			keyedMACs.put(jcaAlg, keyedMAC);
+		}
+
+		return keyedMAC;
+	}
+
+
+	/**
+	 * Creates a keyed MAC template for the specified algorithm and JCA
+	 * provider.
+	 *
+	 * @param jcaAlg   The JCA HMAC algorithm name. Must not be
+	 *                 {@code null}.
+	 * @param provider The JCA provider, {@code null} for the default
+	 *                 system one.
+	 *
+	 * @return The keyed MAC template, {@code null} if the provider
+	 *         doesn't support cloning.
+	 *
+	 * @throws JOSEException If the algorithm is not supported or the MAC
+	 *                       secret key is invalid.
+	 */
+	private Mac createKeyedMAC(final String jcaAlg, final Provider provider)
+		throws JOSEException {
+
+		final Mac mac;
+		try {
+			mac = JCAEngines.MAC.create(jcaAlg, provider);
+		} catch (JOSEException e) {
+			throw new JOSEException("Unsupported HMAC algorithm: " + e.getMessage(), e.getCause());
+		}
+
+		try {
+			mac.init(new SecretKeySpec(secret, jcaAlg));
+		} catch (InvalidKeyException e) {
+			throw new JOSEException("Invalid HMAC key: " + e.getMessage(), e);
+		}
+
+		try {
+			// Check cloning is supported
+			mac.clone();
+		} catch (CloneNotSupportedException e) {
+			return null;
+		}
+
+		return mac;
+	}
+
+
+	/**
+	 * Keyed MAC template with the JCA provider it was created with. The
+	 * template is never updated, only cloned.
+	 */
+	private static final class KeyedMAC {
+
+
+		private final Provider provider;
+
+
+		private final Mac template;
+
+
+		private KeyedMAC(final Provider provider, final Mac template) {
+			this.provider = provider;
+			this.template = template;
+		}
+	}
 }
@@ -33,11 +33,28 @@ import com.nimbusds.jose.JWSAlgorithm;
  * RSA-SSA functions and utilities.
  *
  * @author Vladimir Dzhuvinov
- * @version 2021-08-01
+ * @version 2022-06-04
  */
 public class RSASSA {
 
 
+	/**
+	 * Factory of RSASSA signers and verifiers for use with a
+	 * {@link JCAEnginePool}. The algorithm name is the JWS algorithm
+	 * name, so that RSASSA-PSS instances with different parameters are
+	 * pooled separately.
+	 */
+	private static final JCAEngineFactory<Signature> ENGINE_FACTORY = new JCAEngineFactory<Signature>() {
+
+		@Override
+		public Signature create(final String algorithm, final Provider provider)
+			throws JOSEException {
+
+			return getSignerAndVerifier(JWSAlgorithm.parse(algorithm), provider);
+		}
+	};
+
+
 	/**
 	 * Returns a signer and verifier for the specified RSASSA-based JSON
 	 * Web Algorithm (JWA).
@@ -105,6 +122,53 @@ public class RSASSA {
 		throw new JOSEException(AlgorithmSupportMessage.unsupportedJWSAlgorithm(alg, RSASSAProvider.SUPPORTED_ALGORITHMS));
 	}
 
+	/**
+	 * Returns a signer and verifier for the specified RSASSA-based JSON
+	 * Web Algorithm (JWA), acquired from the specified pool. Must be
+	 * {@link #releaseSignerAndVerifier released} after use.
+	 *
+	 * @param alg      The JSON Web Algorithm (JWA). Must be supported and
+	 *                 not {@code null}.
+	 * @param provider The JCA provider, {@code null} if not specified.
+	 * @param pool     The JCA engine pool, {@code null} if none.
+	 *
+	 * @return A signer and verifier instance.
+	 *
+	 * @throws JOSEException If the algorithm is not supported.
+	 */
+	public static Signature getSignerAndVerifier(final JWSAlgorithm alg,
+						     final Provider provider,
+						     final JCAEnginePool pool)
+		throws JOSEException {
+
+		if (pool == null) {
+			return getSignerAndVerifier(alg, provider);
+		}
+
+		return pool.acquire(ENGINE_FACTORY, alg.getName(), provider);
+	}
+
+
+	/**
+	 * Releases a signer and verifier acquired with
+	 * {@link #getSignerAndVerifier(JWSAlgorithm, Provider, JCAEnginePool)}
+	 * back to the pool.
+	 *
+	 * @param alg       The JSON Web Algorithm (JWA). Must not be
+	 *                  {@code null}.
+	 * @param provider  The JCA provider, {@code null} if not specified.
+	 * @param pool      The JCA engine pool, {@code null} if none.
+	 * @param signature The signer and verifier instance.
+	 */
+	public static void releaseSignerAndVerifier(final JWSAlgorithm alg,
+						    final Provider provider,
+						    final JCAEnginePool pool,
+						    final Signature signature) {
+
+		JCAEngines.release(pool, ENGINE_FACTORY, alg.getName(), provider, signature);
+	}
+
+
 	private static Signature getSignerAndVerifier(final String jcaAlg, final Provider provider)
 			throws JOSEException {
 		return getSignerAndVerifier(jcaAlg, provider, null);
@@ -0,0 +1,182 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.crypto.impl;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.Signature;
+import java.security.SignatureException;
+import javax.crypto.Mac;
+
+import net.jcip.annotations.ThreadSafe;
+
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.util.Base64URLOutputStream;
+import com.nimbusds.jose.util.StandardCharset;
+
+
+/**
+ * Streaming JWS signing input, for payloads too large to be held in
+ * memory. The signing input, {@code ASCII(BASE64URL(header)) || '.' ||
+ * payload}, is fed directly to a {@code Mac} or {@code Signature} update.
+ * The payload is Base64URL-encoded on the fly unless the JWS header has
+ * the Base64URL encode payload ({@code b64}) parameter set to
+ * {@code false} (RFC 7797), in which case the payload bytes are passed
+ * through unchanged.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+@ThreadSafe
+public class SigningInput {
+
+
+	/**
+	 * The buffer size for reading the payload.
+	 */
+	private static final int BUFFER_SIZE = 8192;
+
+
+	/**
+	 * Updates the specified MAC with the signing input for the JWS header
+	 * and the payload read from the input stream.
+	 *
+	 * @param header  The JWS header. Must not be {@code null}.
+	 * @param payload The payload. Must not be {@code null}. Isn't
+	 *                closed.
+	 * @param mac     The initialised MAC. Must not be {@code null}.
+	 *
+	 * @throws IOException If reading the payload failed.
+	 */
+	public static void update(final JWSHeader header,
+				  final InputStream payload,
+				  final Mac mac)
+		throws IOException {
+
+		write(header, payload, new OutputStream() {
+			@Override
+			public void write(final int b) {
+				mac.update((byte) b);
+			}
+
+			@Override
+			public void write(final byte[] b, final int off, final int len) {
+				mac.update(b, off, len);
+			}
+		});
+	}
+
+
+	/**
+	 * Updates the specified signature with the signing input for the JWS
+	 * header and the payload read from the input stream.
+	 *
+	 * @param header    The JWS header. Must not be {@code null}.
+	 * @param payload   The payload. Must not be {@code null}. Isn't
+	 *                  closed.
+	 * @param signature The initialised signature. Must not be
+	 *                  {@code null}.
+	 *
+	 * @throws SignatureException If the signature isn't initialised.
+	 * @throws IOException        If reading the payload failed.
+	 */
+	public static void update(final JWSHeader header,
+				  final InputStream payload,
+				  final Signature signature)
+		throws SignatureException, IOException {
+
+		try {
+			write(header, payload, new OutputStream() {
+				@Override
+				public void write(final int b)
+					throws IOException {
+					try {
+						signature.update((byte) b);
+					} catch (SignatureException e) {
+						throw new SignatureUpdateException(e);
+					}
+				}
+
+				@Override
+				public void write(final byte[] b, final int off, final int len)
+					throws IOException {
+					try {
+						signature.update(b, off, len);
+					} catch (SignatureException e) {
+						throw new SignatureUpdateException(e);
+					}
+				}
+			});
+		} catch (SignatureUpdateException e) {
+			throw (SignatureException) e.getCause();
+		}
+	}
+
+
+	/**
+	 * Writes the signing input for the specified JWS header and payload.
+	 *
+	 * @param header  The JWS header.
+	 * @param payload The payload.
+	 * @param out     The output stream for the signing input.
+	 */
+	private static void write(final JWSHeader header,
+				  final InputStream payload,
+				  final OutputStream out)
+		throws IOException {
+
+		out.write(header.toBase64URL().toString().getBytes(StandardCharset.UTF_8));
+		out.write('.');
+
+		Base64URLOutputStream encodingOut = header.isBase64URLEncodePayload() ? new Base64URLOutputStream(out) : null;
+		OutputStream sink = encodingOut != null ? encodingOut : out;
+
+		byte[] buf = new byte[BUFFER_SIZE];
+		int n;
+		while ((n = payload.read(buf)) != -1) {
+			sink.write(buf, 0, n);
+		}
+
+		if (encodingOut != null) {
+			encodingOut.finish();
+		}
+	}
+
+
+	/**
+	 * Carries a signature exception through the output stream adapter.
+	 */
+	private static final class SignatureUpdateException extends IOException {
+
+
+		private static final long serialVersionUID = 1L;
+
+
+		private SignatureUpdateException(final SignatureException cause) {
+			super(cause);
+		}
+	}
+
+
+	/**
+	 * Prevents public instantiation.
+	 */
+	private SigningInput() { }
+}
@@ -0,0 +1,120 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.crypto.impl;
+
+
+import java.security.Provider;
+
+import net.jcip.annotations.ThreadSafe;
+
+import com.nimbusds.jose.JOSEException;
+
+
+/**
+ * Striped pool of Java Cryptography Architecture (JCA) engine instances.
+ * Consists of a number of {@link BoundedQueueJCAEnginePool bounded queue
+ * pools}, with each thread mapped to a stripe by its ID, to reduce
+ * contention between threads.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-04
+ */
+@ThreadSafe
+public class StripedJCAEnginePool implements JCAEnginePool {
+
+
+	/**
+	 * The stripes.
+	 */
+	private final BoundedQueueJCAEnginePool[] stripes;
+
+
+	/**
+	 * Creates a new striped JCA engine pool with a stripe count equal to
+	 * the number of available processors and a maximum of 4 idle engines
+	 * per key and stripe.
+	 */
+	public StripedJCAEnginePool() {
+
+		this(Runtime.getRuntime().availableProcessors(), 4);
+	}
+
+
+	/**
+	 * Creates a new striped JCA engine pool.
+	 *
+	 * @param stripeCount The number of stripes. Must be positive.
+	 * @param maxIdle     The maximum number of idle engines per factory,
+	 *                    algorithm, JCA provider and stripe. Must be
+	 *                    positive.
+	 */
+	public StripedJCAEnginePool(final int stripeCount, final int maxIdle) {
+
+		if (stripeCount < 1) {
+			throw new IllegalArgumentException("The stripe count must be positive");
+		}
+
+		stripes = new BoundedQueueJCAEnginePool[stripeCount];
+
+		for (int i=0; i < stripeCount; i++) {
+			stripes[i] = new BoundedQueueJCAEnginePool(maxIdle);
+		}
+	}
+
+
+	/**
+	 * Returns the number of stripes.
+	 *
+	 * @return The stripe count.
+	 */
+	public int getStripeCount() {
+
+		return stripes.length;
+	}
+
+
+	/**
+	 * Returns the stripe for the current thread.
+	 *
+	 * @return The stripe.
+	 */
+	private BoundedQueueJCAEnginePool currentStripe() {
+
+		return stripes[(int) (Thread.currentThread().getId() % stripes.length)];
+	}
+
+
+	@Override
+	public <T> T acquire(final JCAEngineFactory<T> factory,
+			     final String algorithm,
+			     final Provider provider)
+		throws JOSEException {
+
+		return currentStripe().acquire(factory, algorithm, provider);
+	}
+
+
+	@Override
+	public <T> void release(final JCAEngineFactory<T> factory,
+				final String algorithm,
+				final Provider provider,
+				final T engine) {
+
+		currentStripe().release(factory, algorithm, provider, engine);
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.crypto.impl;
+
+
+import java.security.Provider;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.jcip.annotations.ThreadSafe;
+
+import com.nimbusds.jose.JOSEException;
+
+
+/**
+ * Thread-local pool of Java Cryptography Architecture (JCA) engine
+ * instances. Each thread keeps at most one idle engine per factory,
+ * algorithm and JCA provider. Acquiring and releasing requires no
+ * synchronisation.
+ *
+ * <p>Suitable for a fixed set of long-lived threads. The idle engines are
+ * retained for the lifetime of each thread.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-04
+ */
+@ThreadSafe
+public class ThreadLocalJCAEnginePool implements JCAEnginePool {
+
+
+	/**
+	 * The idle engines of each thread.
+	 */
+	private final ThreadLocal<Map<JCAEngineKey, Object>> idleEngines = new ThreadLocal<Map<JCAEngineKey, Object>>() {
+
+		@Override
+		protected Map<JCAEngineKey, Object> initialValue() {
+			return new HashMap<>();
+		}
+	};
+
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T acquire(final JCAEngineFactory<T> factory,
+			     final String algorithm,
+			     final Provider provider)
+		throws JOSEException {
+
+		// Remove, in case the same thread acquires a second engine
+		// before releasing the first
+		Object engine = idleEngines.get().remove(new JCAEngineKey(factory, algorithm, provider));
+
+		if (engine != null) {
+			return (T) engine;
+		}
+
+		return factory.create(algorithm, provider);
+	}
+
+
+	@Override
+	public <T> void release(final JCAEngineFactory<T> factory,
+				final String algorithm,
+				final Provider provider,
+				final T engine) {
+
+		idleEngines.get().put(new JCAEngineKey(factory, algorithm, provider), engine);
+	}
+}
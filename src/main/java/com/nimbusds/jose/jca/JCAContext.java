@@ -21,14 +21,19 @@ package com.nimbusds.jose.jca;
 import java.security.Provider;
 import java.security.SecureRandom;
 
+import com.nimbusds.jose.crypto.impl.JCAEnginePool;
+
 
 /**
  * Java Cryptography Architecture (JCA) context, consisting of a JCA
  * {@link java.security.Provider provider} and
- * {@link java.security.SecureRandom secure random generator}.
+ * {@link java.security.SecureRandom secure random generator}, with an
+ * optional {@link JCAEnginePool pool} for reusing JCA engine instances and
+ * an optional {@link SecureRandomSource source} of secure random
+ * generators.
  *
  * @author Vladimir Dzhuvinov
- * @version 2015-06-08
+ * @version 2022-06-09
  */
 public class JCAContext {
 
@@ -45,6 +50,18 @@ public class JCAContext {
 	private SecureRandom randomGen;
 
 
+	/**
+	 * The source of secure random generators, {@code null} if none.
+	 */
+	private SecureRandomSource randomSource;
+
+
+	/**
+	 * The JCA engine pool, {@code null} if none.
+	 */
+	private JCAEnginePool enginePool;
+
+
 	/**
 	 * Creates a new default JCA context.
 	 */
@@ -101,11 +118,20 @@ public class JCAContext {
 	 * random generator.
 	 *
 	 * @return The specific secure random generator (if available), else
-	 *         the default system one.
+	 *         one from the secure random source (if set), else a new
+	 *         default system one.
 	 */
 	public SecureRandom getSecureRandom() {
 
-		return randomGen != null ? randomGen : new SecureRandom();
+		if (randomGen != null) {
+			return randomGen;
+		}
+
+		if (randomSource != null) {
+			return randomSource.getSecureRandom();
+		}
+
+		return new SecureRandom();
 	}
 
 
@@ -120,4 +146,61 @@ public class JCAContext {
 
 		this.randomGen = randomGen;
 	}
+
+
+	/**
+	 * Gets the source of secure random generators, used when no specific
+	 * secure random generator is set.
+	 *
+	 * @return The secure random source, {@code null} if none (a new
+	 *         default system secure random generator is created for each
+	 *         operation).
+	 */
+	public SecureRandomSource getSecureRandomSource() {
+
+		return randomSource;
+	}
+
+
+	/**
+	 * Sets a source of secure random generators, used when no specific
+	 * secure random generator is set. Avoids seeding a new generator for
+	 * each operation without sharing a single generator between threads.
+	 *
+	 * @param randomSource The secure random source, {@code null} to
+	 *                     create a new default system secure random
+	 *                     generator for each operation.
+	 */
+	public void setSecureRandomSource(final SecureRandomSource randomSource) {
+
+		this.randomSource = randomSource;
+	}
+
+
+	/**
+	 * Gets the pool for reusing JCA engine instances, such as
+	 * {@link javax.crypto.Mac}, {@link java.security.Signature} and
+	 * {@link javax.crypto.Cipher}, between operations.
+	 *
+	 * @return The JCA engine pool, {@code null} if none (new engine
+	 *         instances are created for each operation).
+	 */
+	public JCAEnginePool getEnginePool() {
+
+		return enginePool;
+	}
+
+
+	/**
+	 * Sets a pool for reusing JCA engine instances, such as
+	 * {@link javax.crypto.Mac}, {@link java.security.Signature} and
+	 * {@link javax.crypto.Cipher}, between operations.
+	 *
+	 * @param enginePool The JCA engine pool, {@code null} to create new
+	 *                   engine instances for each operation.
+	 */
+	public void setEnginePool(final JCAEnginePool enginePool) {
+
+		this.enginePool = enginePool;
+	}
 }
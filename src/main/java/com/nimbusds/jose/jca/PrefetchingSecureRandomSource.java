@@ -0,0 +1,256 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2016, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.jca;
+
+
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.SecureRandom;
+import java.security.SecureRandomSpi;
+import java.util.Arrays;
+
+import net.jcip.annotations.ThreadSafe;
+
+
+/**
+ * Prefetching source of secure random generators. Each thread gets its own
+ * generator which fetches random bytes from an underlying secure random
+ * generator in blocks and serves short requests, such as initialisation
+ * vectors (IV), Content Encryption Keys (CEK) and salts, from the
+ * pre-filled block. This amortises the per-call cost of the underlying
+ * generator. Served bytes are wiped from the block.
+ *
+ * <p>Requests at least as long as the block are passed to the underlying
+ * generator directly. Setting a seed discards the remaining prefetched
+ * bytes.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+@ThreadSafe
+public class PrefetchingSecureRandomSource implements SecureRandomSource {
+
+
+	/**
+	 * The default block size, in bytes.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+
+	/**
+	 * The block size, in bytes.
+	 */
+	private final int blockSize;
+
+
+	/**
+	 * The underlying secure random algorithm, {@code null} for the
+	 * default system one.
+	 */
+	private final String algorithm;
+
+
+	/**
+	 * The JCA provider, {@code null} for the default one.
+	 */
+	private final Provider provider;
+
+
+	/**
+	 * The generators of each thread.
+	 */
+	private final ThreadLocal<SecureRandom> generators = new ThreadLocal<SecureRandom>() {
+
+		@Override
+		protected SecureRandom initialValue() {
+			return createPrefetching(SecureRandomInstances.createChecked(algorithm, provider));
+		}
+	};
+
+
+	/**
+	 * Creates a new prefetching source over default system secure random
+	 * generators, with a block size of {@link #DEFAULT_BLOCK_SIZE} bytes.
+	 */
+	public PrefetchingSecureRandomSource() {
+
+		this(DEFAULT_BLOCK_SIZE);
+	}
+
+
+	/**
+	 * Creates a new prefetching source over default system secure random
+	 * generators.
+	 *
+	 * @param blockSize The block size, in bytes. Must be positive.
+	 */
+	public PrefetchingSecureRandomSource(final int blockSize) {
+
+		if (blockSize < 1) {
+			throw new IllegalArgumentException("The block size must be positive");
+		}
+
+		this.blockSize = blockSize;
+		algorithm = null;
+		provider = null;
+	}
+
+
+	/**
+	 * Creates a new prefetching source.
+	 *
+	 * @param blockSize The block size, in bytes. Must be positive.
+	 * @param algorithm The underlying secure random algorithm, e.g.
+	 *                  {@code DRBG}. Must not be {@code null}.
+	 * @param provider  The JCA provider, {@code null} for the default
+	 *                  one.
+	 *
+	 * @throws NoSuchAlgorithmException If the algorithm isn't supported.
+	 */
+	public PrefetchingSecureRandomSource(final int blockSize, final String algorithm, final Provider provider)
+		throws NoSuchAlgorithmException {
+
+		if (blockSize < 1) {
+			throw new IllegalArgumentException("The block size must be positive");
+		}
+
+		if (algorithm == null) {
+			throw new IllegalArgumentException("The secure random algorithm must not be null");
+		}
+
+		this.blockSize = blockSize;
+		this.algorithm = algorithm;
+		this.provider = provider;
+
+		// Check algorithm support, becomes the generator of the
+		// current thread
+		generators.set(createPrefetching(SecureRandomInstances.create(algorithm, provider)));
+	}
+
+
+	/**
+	 * Returns the block size.
+	 *
+	 * @return The block size, in bytes.
+	 */
+	public int getBlockSize() {
+
+		return blockSize;
+	}
+
+
+	@Override
+	public SecureRandom getSecureRandom() {
+
+		return generators.get();
+	}
+
+
+	/**
+	 * Creates a prefetching generator over the specified one.
+	 *
+	 * @param underlying The underlying secure random generator.
+	 *
+	 * @return The prefetching generator.
+	 */
+	private SecureRandom createPrefetching(final SecureRandom underlying) {
+
+		return new SecureRandom(new PrefetchingSpi(underlying, blockSize), underlying.getProvider()) {
+
+			private static final long serialVersionUID = 1L;
+		};
+	}
+
+
+	/**
+	 * Prefetching secure random SPI.
+	 */
+	private static final class PrefetchingSpi extends SecureRandomSpi {
+
+
+		private static final long serialVersionUID = 1L;
+
+
+		/**
+		 * The underlying generator.
+		 */
+		private final SecureRandom underlying;
+
+
+		/**
+		 * The prefetched block.
+		 */
+		private final byte[] block;
+
+
+		/**
+		 * The position of the next unused byte in the block.
+		 */
+		private int pos;
+
+
+		private PrefetchingSpi(final SecureRandom underlying, final int blockSize) {
+			this.underlying = underlying;
+			block = new byte[blockSize];
+			pos = blockSize; // fetched on first use
+		}
+
+
+		@Override
+		protected void engineSetSeed(final byte[] seed) {
+
+			underlying.setSeed(seed);
+
+			// Discard the prefetched bytes
+			Arrays.fill(block, pos, block.length, (byte) 0);
+			pos = block.length;
+		}
+
+
+		@Override
+		protected void engineNextBytes(final byte[] bytes) {
+
+			if (bytes.length >= block.length) {
+				underlying.nextBytes(bytes);
+				return;
+			}
+
+			int off = 0;
+
+			while (off < bytes.length) {
+
+				if (pos == block.length) {
+					underlying.nextBytes(block);
+					pos = 0;
+				}
+
+				int n = Math.min(bytes.length - off, block.length - pos);
+				System.arraycopy(block, pos, bytes, off, n);
+				Arrays.fill(block, pos, pos + n, (byte) 0);
+				pos += n;
+				off += n;
+			}
+		}
+
+
+		@Override
+		protected byte[] engineGenerateSeed(final int numBytes) {
+
+			return underlying.generateSeed(numBytes);
+		}
+	}
+}
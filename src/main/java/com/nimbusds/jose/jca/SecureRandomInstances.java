@@ -0,0 +1,84 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2016, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.jca;
+
+
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.SecureRandom;
+
+
+/**
+ * Creates secure random generators for the {@link SecureRandomSource}
+ * implementations.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+final class SecureRandomInstances {
+
+
+	/**
+	 * Creates a new secure random generator.
+	 *
+	 * @param algorithm The secure random algorithm, {@code null} for the
+	 *                  default system one.
+	 * @param provider  The JCA provider, {@code null} for the default
+	 *                  one. Ignored if no algorithm is specified.
+	 *
+	 * @return The secure random generator.
+	 *
+	 * @throws NoSuchAlgorithmException If the algorithm isn't supported.
+	 */
+	static SecureRandom create(final String algorithm, final Provider provider)
+		throws NoSuchAlgorithmException {
+
+		if (algorithm == null) {
+			return new SecureRandom();
+		}
+
+		return provider != null ? SecureRandom.getInstance(algorithm, provider) : SecureRandom.getInstance(algorithm);
+	}
+
+
+	/**
+	 * Creates a new secure random generator, for an algorithm checked
+	 * previously with {@link #create(String, Provider)}.
+	 *
+	 * @param algorithm The secure random algorithm, {@code null} for the
+	 *                  default system one.
+	 * @param provider  The JCA provider, {@code null} for the default
+	 *                  one.
+	 *
+	 * @return The secure random generator.
+	 */
+	static SecureRandom createChecked(final String algorithm, final Provider provider) {
+
+		try {
+			return create(algorithm, provider);
+		} catch (NoSuchAlgorithmException e) {
+			// Checked at construction of the source
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+	}
+
+
+	/**
+	 * Prevents public instantiation.
+	 */
+	private SecureRandomInstances() { }
+}
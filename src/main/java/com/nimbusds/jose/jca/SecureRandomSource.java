@@ -0,0 +1,55 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2016, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.jca;
+
+
+import java.security.SecureRandom;
+
+
+/**
+ * Source of {@link SecureRandom secure random generators} for a
+ * {@link JCAContext}. Intended to avoid both the cost of seeding a new
+ * generator for each initialisation vector (IV), Content Encryption Key
+ * (CEK) or salt and the contention on a single generator shared between
+ * threads.
+ *
+ * <p>Sources are configured with {@link JCAContext#setSecureRandomSource}.
+ * Available implementations:
+ *
+ * <ul>
+ *     <li>{@link ThreadLocalSecureRandomSource}
+ *     <li>{@link StripedSecureRandomSource}
+ *     <li>{@link PrefetchingSecureRandomSource}
+ * </ul>
+ *
+ * <p>Implementations must be thread-safe.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+public interface SecureRandomSource {
+
+
+	/**
+	 * Returns a secure random generator for use by the current thread.
+	 * The generator must not be retained beyond the current operation,
+	 * it may be bound to the calling thread.
+	 *
+	 * @return The secure random generator.
+	 */
+	SecureRandom getSecureRandom();
+}
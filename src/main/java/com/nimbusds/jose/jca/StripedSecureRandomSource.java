@@ -0,0 +1,123 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2016, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.jca;
+
+
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.SecureRandom;
+
+import net.jcip.annotations.ThreadSafe;
+
+
+/**
+ * Striped source of secure random generators. Consists of a fixed number
+ * of generators, with each thread mapped to a stripe by its ID, to reduce
+ * contention between threads. Unlike {@link ThreadLocalSecureRandomSource}
+ * the number of generators doesn't grow with the number of threads.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+@ThreadSafe
+public class StripedSecureRandomSource implements SecureRandomSource {
+
+
+	/**
+	 * The stripes.
+	 */
+	private final SecureRandom[] stripes;
+
+
+	/**
+	 * Creates a new striped source of default system secure random
+	 * generators, with a stripe count equal to the number of available
+	 * processors.
+	 */
+	public StripedSecureRandomSource() {
+
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+
+	/**
+	 * Creates a new striped source of default system secure random
+	 * generators.
+	 *
+	 * @param stripeCount The number of stripes. Must be positive.
+	 */
+	public StripedSecureRandomSource(final int stripeCount) {
+
+		if (stripeCount < 1) {
+			throw new IllegalArgumentException("The stripe count must be positive");
+		}
+
+		stripes = new SecureRandom[stripeCount];
+
+		for (int i=0; i < stripeCount; i++) {
+			stripes[i] = new SecureRandom();
+		}
+	}
+
+
+	/**
+	 * Creates a new striped source of secure random generators.
+	 *
+	 * @param stripeCount The number of stripes. Must be positive.
+	 * @param algorithm   The secure random algorithm, e.g. {@code DRBG}.
+	 *                    Must not be {@code null}.
+	 * @param provider    The JCA provider, {@code null} for the default
+	 *                    one.
+	 *
+	 * @throws NoSuchAlgorithmException If the algorithm isn't supported.
+	 */
+	public StripedSecureRandomSource(final int stripeCount, final String algorithm, final Provider provider)
+		throws NoSuchAlgorithmException {
+
+		if (stripeCount < 1) {
+			throw new IllegalArgumentException("The stripe count must be positive");
+		}
+
+		if (algorithm == null) {
+			throw new IllegalArgumentException("The secure random algorithm must not be null");
+		}
+
+		stripes = new SecureRandom[stripeCount];
+
+		for (int i=0; i < stripeCount; i++) {
+			stripes[i] = SecureRandomInstances.create(algorithm, provider);
+		}
+	}
+
+
+	/**
+	 * Returns the number of stripes.
+	 *
+	 * @return The stripe count.
+	 */
+	public int getStripeCount() {
+
+		return stripes.length;
+	}
+
+
+	@Override
+	public SecureRandom getSecureRandom() {
+
+		return stripes[(int) (Thread.currentThread().getId() % stripes.length)];
+	}
+}
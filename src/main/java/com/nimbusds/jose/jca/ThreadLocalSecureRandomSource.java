@@ -0,0 +1,111 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2016, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.jca;
+
+
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.SecureRandom;
+
+import net.jcip.annotations.ThreadSafe;
+
+
+/**
+ * Thread-local source of secure random generators. Each thread gets its
+ * own generator, seeded on first use and retained for the lifetime of the
+ * thread. Obtaining random bytes requires no synchronisation between
+ * threads.
+ *
+ * <p>Suitable for a fixed set of long-lived threads. With Java 9+ the
+ * {@code DRBG} algorithm can be specified for a NIST SP 800-90A
+ * deterministic random bit generator per thread.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+@ThreadSafe
+public class ThreadLocalSecureRandomSource implements SecureRandomSource {
+
+
+	/**
+	 * The secure random algorithm, {@code null} for the default system
+	 * one.
+	 */
+	private final String algorithm;
+
+
+	/**
+	 * The JCA provider, {@code null} for the default one.
+	 */
+	private final Provider provider;
+
+
+	/**
+	 * The generators of each thread.
+	 */
+	private final ThreadLocal<SecureRandom> generators = new ThreadLocal<SecureRandom>() {
+
+		@Override
+		protected SecureRandom initialValue() {
+			return SecureRandomInstances.createChecked(algorithm, provider);
+		}
+	};
+
+
+	/**
+	 * Creates a new thread-local source of default system secure random
+	 * generators.
+	 */
+	public ThreadLocalSecureRandomSource() {
+
+		algorithm = null;
+		provider = null;
+	}
+
+
+	/**
+	 * Creates a new thread-local source of secure random generators.
+	 *
+	 * @param algorithm The secure random algorithm, e.g. {@code DRBG}.
+	 *                  Must not be {@code null}.
+	 * @param provider  The JCA provider, {@code null} for the default
+	 *                  one.
+	 *
+	 * @throws NoSuchAlgorithmException If the algorithm isn't supported.
+	 */
+	public ThreadLocalSecureRandomSource(final String algorithm, final Provider provider)
+		throws NoSuchAlgorithmException {
+
+		if (algorithm == null) {
+			throw new IllegalArgumentException("The secure random algorithm must not be null");
+		}
+
+		this.algorithm = algorithm;
+		this.provider = provider;
+
+		// Check algorithm support, becomes the generator of the
+		// current thread
+		generators.set(SecureRandomInstances.create(algorithm, provider));
+	}
+
+
+	@Override
+	public SecureRandom getSecureRandom() {
+
+		return generators.get();
+	}
+}
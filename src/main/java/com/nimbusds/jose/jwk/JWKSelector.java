@@ -26,8 +26,14 @@ import net.jcip.annotations.Immutable;
 /**
  * Selects (filters) one or more JSON Web Keys (JWKs) from a JWK set.
  *
+ * <p>The key ID, type, algorithm, use and X.509 certificate SHA-256
+ * thumbprint criteria of the matcher are looked up in an index of the JWK
+ * set, so that only the keys passing them are tested with the full
+ * {@link JWKMatcher#matches matcher}. This keeps selection from large JWK
+ * sets fast.
+ *
  * @author Vladimir Dzhuvinov
- * @version 2015-04-15
+ * @version 2022-06-05
  */
 @Immutable
 public final class JWKSelector {
@@ -77,18 +83,9 @@ public final class JWKSelector {
 	 */
 	public List<JWK> select(final JWKSet jwkSet) {
 
-		List<JWK> selectedKeys = new LinkedList<>();
-
 		if (jwkSet == null)
-			return selectedKeys;
-
-		for (JWK key: jwkSet.getKeys()) {
-
-			if (matcher.matches(key)) {
-				selectedKeys.add(key);
-			}
-		}
+			return new LinkedList<>();
 
-		return selectedKeys;
+		return jwkSet.getIndex().select(matcher);
 	}
 }
@@ -70,7 +70,7 @@ import com.nimbusds.jose.util.*;
  *
  * @author Vladimir Dzhuvinov
  * @author Vedran Pavic
- * @version 2021-02-01
+ * @version 2022-06-05
  */
 @Immutable
 public class JWKSet implements Serializable {
@@ -98,6 +98,12 @@ public class JWKSet implements Serializable {
 	private final Map<String,Object> customMembers;
 
 
+	/**
+	 * The key index, lazily created.
+	 */
+	private transient volatile JWKSetIndex index;
+
+
 	/**
 	 * Creates a new empty JSON Web Key (JWK) set.
 	 */
@@ -147,7 +153,7 @@ public class JWKSet implements Serializable {
 			throw new IllegalArgumentException("The JWK list must not be null");
 		}
 
-		this.keys = Collections.unmodifiableList(keys);
+		this.keys = Collections.unmodifiableList(new ArrayList<>(keys));
 
 		this.customMembers = Collections.unmodifiableMap(customMembers);
 	}
@@ -178,15 +184,27 @@ public class JWKSet implements Serializable {
 	 */
 	public JWK getKeyByKeyId(String kid) {
 		
-		for (JWK key : getKeys()) {
-	        
-	        	if (key.getKeyID() != null && key.getKeyID().equals(kid)) {
-	        		return key;
-	        	}
-        	}
+		return getIndex().getKeyByKeyId(kid);
+	}
+	
+	
+	/**
+	 * Returns the index of the keys in this JWK set, creating it on the
+	 * first call.
+	 *
+	 * @return The key index.
+	 */
+	JWKSetIndex getIndex() {
+		
+		JWKSetIndex idx = index;
+		
+		if (idx == null) {
+			// Concurrent calls may create equivalent indices
+			idx = new JWKSetIndex(getKeys());
+			index = idx;
+		}
 		
-		// no key found
-		return null;
+		return idx;
 	}
 	
 	
@@ -0,0 +1,246 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.jwk;
+
+
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.*;
+
+import net.jcip.annotations.Immutable;
+
+import com.nimbusds.jose.Algorithm;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jose.util.X509CertUtils;
+
+
+/**
+ * Index of the keys in a JSON Web Key (JWK) set by key ID (kid), key type
+ * (kty), algorithm (alg), use and X.509 certificate SHA-256 thumbprint
+ * (x5t#S256). Each index entry is a bit set of the key positions in the JWK
+ * set. Enables the {@link JWKSelector} to narrow down the candidate keys
+ * before applying the full {@link JWKMatcher} predicate.
+ *
+ * <p>The X.509 certificate thumbprint index covers both the thumbprint
+ * specified in the "x5t#S256" parameter and the thumbprint computed from the
+ * first certificate in the "x5c" parameter, consistent with
+ * {@link JWKMatcher#matches}.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-05
+ */
+@Immutable
+final class JWKSetIndex {
+
+
+	/**
+	 * Number of candidate keys below which narrowing stops and the
+	 * candidates are tested with the matcher directly.
+	 */
+	static final int SCAN_THRESHOLD = 8;
+
+
+	/**
+	 * The indexed keys.
+	 */
+	private final List<JWK> keys;
+
+
+	/**
+	 * The key positions by key ID, {@code null} key for keys without an
+	 * ID.
+	 */
+	private final Map<String, BitSet> byKeyID = new HashMap<>();
+
+
+	/**
+	 * The key positions by key type.
+	 */
+	private final Map<KeyType, BitSet> byKeyType = new HashMap<>();
+
+
+	/**
+	 * The key positions by algorithm, {@code null} key for keys without
+	 * an algorithm.
+	 */
+	private final Map<Algorithm, BitSet> byAlgorithm = new HashMap<>();
+
+
+	/**
+	 * The key positions by use, {@code null} key for keys without a use.
+	 */
+	private final Map<KeyUse, BitSet> byKeyUse = new HashMap<>();
+
+
+	/**
+	 * The key positions by X.509 certificate SHA-256 thumbprint,
+	 * {@code null} key for keys without a "x5t#S256" parameter.
+	 */
+	private final Map<Base64URL, BitSet> byX5tS256 = new HashMap<>();
+
+
+	/**
+	 * Creates a new index for the specified keys.
+	 *
+	 * @param keys The keys. Must not be {@code null}.
+	 */
+	JWKSetIndex(final List<JWK> keys) {
+
+		this.keys = keys;
+
+		for (int i=0; i < keys.size(); i++) {
+
+			JWK key = keys.get(i);
+
+			add(byKeyID, key.getKeyID(), i);
+			add(byKeyType, key.getKeyType(), i);
+			add(byAlgorithm, key.getAlgorithm(), i);
+			add(byKeyUse, key.getKeyUse(), i);
+			add(byX5tS256, key.getX509CertSHA256Thumbprint(), i);
+
+			if (key.getX509CertChain() != null && ! key.getX509CertChain().isEmpty()) {
+				try {
+					X509Certificate cert = X509CertUtils.parseWithException(key.getX509CertChain().get(0).decode());
+					add(byX5tS256, X509CertUtils.computeSHA256Thumbprint(cert), i);
+				} catch (CertificateException e) {
+					// Ignore
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Adds a key position to the specified index map.
+	 */
+	private static <K> void add(final Map<K, BitSet> map, final K value, final int pos) {
+
+		BitSet bitSet = map.get(value);
+		if (bitSet == null) {
+			bitSet = new BitSet();
+			map.put(value, bitSet);
+		}
+		bitSet.set(pos);
+	}
+
+
+	/**
+	 * Narrows down the candidate keys by intersecting the specified
+	 * candidates with the union of the index entries for the specified
+	 * values.
+	 *
+	 * @param candidates The current candidates, {@code null} if none
+	 *                   were determined yet.
+	 * @param map        The index map.
+	 * @param values     The values to match, {@code null} if not
+	 *                   constrained.
+	 *
+	 * @return The new candidates, {@code null} if none were determined
+	 *         yet.
+	 */
+	private static <K> BitSet narrow(final BitSet candidates, final Map<K, BitSet> map, final Set<? extends K> values) {
+
+		if (values == null) {
+			return candidates;
+		}
+
+		BitSet union = new BitSet();
+		for (K value: values) {
+			BitSet bitSet = map.get(value);
+			if (bitSet != null) {
+				union.or(bitSet);
+			}
+		}
+
+		if (candidates != null) {
+			union.and(candidates);
+		}
+
+		return union;
+	}
+
+
+	/**
+	 * Returns the keys matching the specified JWK matcher, in the order
+	 * of their position in the JWK set.
+	 *
+	 * @param matcher The JWK matcher. Must not be {@code null}.
+	 *
+	 * @return The matching keys, empty list if none.
+	 */
+	List<JWK> select(final JWKMatcher matcher) {
+
+		BitSet candidates = null;
+
+		if (keys.size() > SCAN_THRESHOLD) {
+			// Most selective criteria first
+			candidates = narrow(candidates, byKeyID, matcher.getKeyIDs());
+			if (candidates == null || candidates.cardinality() > SCAN_THRESHOLD) {
+				candidates = narrow(candidates, byX5tS256, matcher.getX509CertSHA256Thumbprints());
+			}
+			if (candidates == null || candidates.cardinality() > SCAN_THRESHOLD) {
+				candidates = narrow(candidates, byAlgorithm, matcher.getAlgorithms());
+			}
+			if (candidates == null || candidates.cardinality() > SCAN_THRESHOLD) {
+				candidates = narrow(candidates, byKeyType, matcher.getKeyTypes());
+			}
+			if (candidates == null || candidates.cardinality() > SCAN_THRESHOLD) {
+				candidates = narrow(candidates, byKeyUse, matcher.getKeyUses());
+			}
+		}
+
+		List<JWK> selectedKeys = new LinkedList<>();
+
+		if (candidates == null) {
+			// Small set or no indexed criteria, scan all keys
+			for (JWK key: keys) {
+				if (matcher.matches(key)) {
+					selectedKeys.add(key);
+				}
+			}
+			return selectedKeys;
+		}
+
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+			JWK key = keys.get(i);
+			if (matcher.matches(key)) {
+				selectedKeys.add(key);
+			}
+		}
+
+		return selectedKeys;
+	}
+
+
+	/**
+	 * Returns the first key with the specified ID.
+	 *
+	 * @param kid The key ID.
+	 *
+	 * @return The key, {@code null} if not found.
+	 */
+	JWK getKeyByKeyId(final String kid) {
+
+		if (kid == null) {
+			return null;
+		}
+
+		BitSet bitSet = byKeyID.get(kid);
+		return bitSet != null ? keys.get(bitSet.nextSetBit(0)) : null;
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.jwk.source;
+
+
+import java.util.List;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.proc.SecurityContext;
+
+
+/**
+ * Asynchronous JSON Web Key (JWK) source, the non-blocking counterpart of
+ * {@link JWKSource}. The matching JWKs are delivered to a callback, so that
+ * callers on event loop threads are never blocked by JWK set retrieval.
+ * Implementations must be thread-safe.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+public interface AsyncJWKSource <C extends SecurityContext> {
+
+
+	/**
+	 * Callback for the retrieved JWKs.
+	 */
+	interface Callback {
+
+
+		/**
+		 * Called with the matching JWKs.
+		 *
+		 * @param jwks The matching JWKs, empty list if no matches
+		 *             were found.
+		 */
+		void onSuccess(final List<JWK> jwks);
+
+
+		/**
+		 * Called if key sourcing failed.
+		 *
+		 * @param e The exception.
+		 */
+		void onFailure(final KeySourceException e);
+	}
+
+
+	/**
+	 * Retrieves the JWKs matching the specified selector. Must return
+	 * without blocking, the callback may be invoked from the calling or
+	 * another thread.
+	 *
+	 * @param jwkSelector A JWK selector. Must not be {@code null}.
+	 * @param context     Optional context, {@code null} if not required.
+	 * @param callback    The callback. Must not be {@code null}.
+	 */
+	void get(final JWKSelector jwkSelector, final C context, final Callback callback);
+}
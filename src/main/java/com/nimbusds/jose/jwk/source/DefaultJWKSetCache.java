@@ -31,7 +31,7 @@ import com.nimbusds.jose.jwk.JWKSet;
  *
  * @author Vladimir Dzhuvinov
  * @author Sarvesh Sharma
- * @version 2021-01-08
+ * @version 2022-06-08
  */
 @ThreadSafe
 public class DefaultJWKSetCache implements JWKSetCache {
@@ -73,6 +73,13 @@ public class DefaultJWKSetCache implements JWKSetCache {
 	 * The cached JWK set, {@code null} if none.
 	 */
 	private volatile JWKSetWithTimestamp jwkSetWithTimestamp;
+
+
+	/**
+	 * The lifespan of the cached JWK set, in milliseconds, if different
+	 * from the configured one, else {@code null}.
+	 */
+	private volatile Long putLifespan;
 	
 	
 	/**
@@ -111,7 +118,38 @@ public class DefaultJWKSetCache implements JWKSetCache {
 	
 	@Override
 	public void put(final JWKSet jwkSet) {
-		
+
+		put(jwkSet, null);
+	}
+
+
+	/**
+	 * Puts the specified JWK set into the cache with a lifespan different
+	 * from the configured one, for instance determined by the
+	 * {@code Cache-Control: max-age} of the HTTP response. The refresh
+	 * time is capped at the lifespan.
+	 *
+	 * @param jwkSet   The JWK set to cache. Must not be {@code null}.
+	 * @param lifespan The lifespan of the cached JWK set before it
+	 *                 expires. Must not be negative.
+	 * @param timeUnit The lifespan time unit. Must not be {@code null}.
+	 */
+	public void put(final JWKSet jwkSet, final long lifespan, final TimeUnit timeUnit) {
+
+		if (jwkSet == null) {
+			throw new IllegalArgumentException("The JWK set must not be null");
+		}
+
+		if (lifespan < 0) {
+			throw new IllegalArgumentException("The lifespan must not be negative");
+		}
+
+		put(jwkSet, TimeUnit.MILLISECONDS.convert(lifespan, timeUnit));
+	}
+
+
+	private synchronized void put(final JWKSet jwkSet, final Long lifespanMs) {
+
 		final JWKSetWithTimestamp updatedJWKSetWithTs;
 		if (jwkSet != null) {
 			updatedJWKSetWithTs = new JWKSetWithTimestamp(jwkSet);
@@ -119,11 +157,14 @@ public class DefaultJWKSetCache implements JWKSetCache {
 			// clear cache
 			updatedJWKSetWithTs = null;
 		}
-		
+
+		// Volatile write order: the lifespan goes first, so a reader
+		// never sees a new JWK set with an old lifespan
+		putLifespan = lifespanMs;
 		jwkSetWithTimestamp = updatedJWKSetWithTs;
 	}
-	
-	
+
+
 	@Override
 	public JWKSet get() {
 		
@@ -138,12 +179,23 @@ public class DefaultJWKSetCache implements JWKSetCache {
 	@Override
 	public boolean requiresRefresh() {
 
-		return jwkSetWithTimestamp != null &&
-			refreshTime > -1 &&
-			new Date().getTime() > jwkSetWithTimestamp.getDate().getTime() + TimeUnit.MILLISECONDS.convert(refreshTime, timeUnit);
+		JWKSetWithTimestamp cached = jwkSetWithTimestamp;
+
+		if (cached == null) {
+			return false;
+		}
+
+		long refreshMs = refreshTime > -1 ? TimeUnit.MILLISECONDS.convert(refreshTime, timeUnit) : -1L;
+
+		Long lifespanMs = putLifespan;
+		if (lifespanMs != null && (refreshMs < 0 || lifespanMs < refreshMs)) {
+			refreshMs = lifespanMs;
+		}
+
+		return refreshMs > -1 && new Date().getTime() > cached.getDate().getTime() + refreshMs;
 	}
 
-	
+
 	/**
 	 * Returns the cache put timestamp.
 	 *
@@ -161,13 +213,22 @@ public class DefaultJWKSetCache implements JWKSetCache {
 	 * @return {@code true} if expired.
 	 */
 	public boolean isExpired() {
-	
-		return jwkSetWithTimestamp != null &&
-			lifespan > -1 &&
-			new Date().getTime() > jwkSetWithTimestamp.getDate().getTime() + TimeUnit.MILLISECONDS.convert(lifespan, timeUnit);
+
+		JWKSetWithTimestamp cached = jwkSetWithTimestamp;
+
+		if (cached == null) {
+			return false;
+		}
+
+		Long lifespanMs = putLifespan;
+		if (lifespanMs == null) {
+			lifespanMs = lifespan > -1 ? TimeUnit.MILLISECONDS.convert(lifespan, timeUnit) : -1L;
+		}
+
+		return lifespanMs > -1 && new Date().getTime() > cached.getDate().getTime() + lifespanMs;
 	}
-	
-	
+
+
 	/**
 	 * Returns the configured lifespan of the cached JWK.
 	 *
@@ -0,0 +1,158 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.jwk.source;
+
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import net.jcip.annotations.ThreadSafe;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.proc.SecurityContext;
+
+
+/**
+ * Asynchronous JWK source which runs a blocking {@link JWKSource} on an
+ * executor. Lookups which don't require I/O are answered in the calling
+ * thread: those against an {@link ImmutableJWKSet} and those against a
+ * {@link RemoteJWKSet} which can be {@link RemoteJWKSet#getIfCached served
+ * from its cache}. All other lookups, including the JWK set retrievals of a
+ * remote JWK set, are run on the executor.
+ *
+ * <p>Example:
+ *
+ * <pre>
+ * AsyncJWKSource&lt;SecurityContext&gt; jwkSource = new ExecutorJWKSource&lt;&gt;(
+ * 	new RemoteJWKSet&lt;&gt;(new URL("https://c2id.com/jwks.json")),
+ * 	ioExecutor);
+ * </pre>
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+@ThreadSafe
+public class ExecutorJWKSource<C extends SecurityContext> implements AsyncJWKSource<C> {
+
+
+	/**
+	 * The underlying JWK source.
+	 */
+	private final JWKSource<C> jwkSource;
+
+
+	/**
+	 * The executor for the blocking lookups.
+	 */
+	private final Executor executor;
+
+
+	/**
+	 * Creates a new executor JWK source.
+	 *
+	 * @param jwkSource The underlying JWK source. Must not be
+	 *                  {@code null}.
+	 * @param executor  The executor for the lookups which may block.
+	 *                  Must not be {@code null}.
+	 */
+	public ExecutorJWKSource(final JWKSource<C> jwkSource, final Executor executor) {
+
+		this.jwkSource = Objects.requireNonNull(jwkSource);
+		this.executor = Objects.requireNonNull(executor);
+	}
+
+
+	/**
+	 * Returns the underlying JWK source.
+	 *
+	 * @return The underlying JWK source.
+	 */
+	public JWKSource<C> getJWKSource() {
+
+		return jwkSource;
+	}
+
+
+	/**
+	 * Returns the executor for the lookups which may block.
+	 *
+	 * @return The executor.
+	 */
+	public Executor getExecutor() {
+
+		return executor;
+	}
+
+
+	@Override
+	public void get(final JWKSelector jwkSelector, final C context, final Callback callback) {
+
+		if (jwkSource instanceof ImmutableJWKSet) {
+			// In memory
+			run(jwkSelector, context, callback);
+			return;
+		}
+
+		if (jwkSource instanceof RemoteJWKSet) {
+			List<JWK> matches = ((RemoteJWKSet<C>)jwkSource).getIfCached(jwkSelector);
+			if (matches != null) {
+				callback.onSuccess(matches);
+				return;
+			}
+		}
+
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					ExecutorJWKSource.this.run(jwkSelector, context, callback);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			callback.onFailure(new KeySourceException("JWK source lookup rejected by the executor", e));
+		}
+	}
+
+
+	/**
+	 * Runs the lookup against the underlying JWK source and passes the
+	 * outcome to the callback.
+	 *
+	 * @param jwkSelector The JWK selector.
+	 * @param context     Optional context, {@code null} if not required.
+	 * @param callback    The callback.
+	 */
+	private void run(final JWKSelector jwkSelector, final C context, final Callback callback) {
+
+		final List<JWK> matches;
+		try {
+			matches = jwkSource.get(jwkSelector, context);
+		} catch (KeySourceException e) {
+			callback.onFailure(e);
+			return;
+		} catch (RuntimeException e) {
+			// Don't leave the callback hanging
+			callback.onFailure(new KeySourceException(e.getMessage(), e));
+			return;
+		}
+		callback.onSuccess(matches);
+	}
+}
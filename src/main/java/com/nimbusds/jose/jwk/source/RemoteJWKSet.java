@@ -20,9 +20,10 @@ package com.nimbusds.jose.jwk.source;
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.Collections;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import net.jcip.annotations.ThreadSafe;
 
@@ -69,9 +70,45 @@ import com.nimbusds.jose.util.ResourceRetriever;
  * unavailable (HTTP 404) or times out. The failover JWK source can be another
  * URL or some other object.
  *
+ * <p>An optional scheduled executor enables the refresh-ahead mode. In this
+ * mode the JWK set is retrieved on the first request, after that it's
+ * refreshed in the background when the {@link DefaultJWKSetCache#getRefreshTime
+ * refresh time} of the cache is reached. Requests are served from the most
+ * recently retrieved JWK set without locking, so their latency doesn't depend
+ * on the JWK set URL. If a background refresh fails the last JWK set keeps
+ * being served, also past the cache lifespan, and the refresh is retried
+ * with an exponentially increasing delay, capped at the refresh time.
+ *
+ * <p>Refreshes triggered by a key ID (kid) which isn't in the JWK set can
+ * be protected against floods of tokens with unknown key IDs:
+ *
+ * <ul>
+ *     <li>Concurrent refreshes are coalesced into a single HTTP request, the
+ *         requests waiting for it share its result.
+ *     <li>Optionally, the refreshes are rate limited to one per
+ *         {@link #setUnknownKeyIDRefreshInterval interval}. Key IDs still
+ *         missing after a refresh are remembered for the same interval,
+ *         requests for them are answered with no matches straight away. A
+ *         key that is rotated in during the interval is therefore found
+ *         only after it has passed. Not enabled by default, the
+ *         {@link #DEFAULT_UNKNOWN_KEY_ID_REFRESH_INTERVAL default interval}
+ *         can be set with the
+ *         {@code com.nimbusds.jose.jwk.source.RemoteJWKSet.defaultUnknownKeyIDRefreshInterval}
+ *         Java system property.
+ * </ul>
+ *
+ * <p>The default HTTP resource retriever makes conditional requests with
+ * the {@code ETag} and {@code Last-Modified} validators of the previous
+ * response. When the JWK set URL responds with HTTP 304 (Not Modified) the
+ * previously parsed JWK set is kept, together with the Java keys converted
+ * from it, for instance by the
+ * {@link com.nimbusds.jose.proc.JWSVerificationKeySelector}. The lifespan
+ * of the cached JWK set can be determined by the {@code Cache-Control:
+ * max-age} of the response, see {@link #setHonoursCacheControl}.
+ *
  * @author Vladimir Dzhuvinov
  * @author Andreas Huber
- * @version 2022-01-30
+ * @version 2022-06-09
  */
 @ThreadSafe
 public class RemoteJWKSet<C extends SecurityContext> implements JWKSource<C> {
@@ -96,6 +133,34 @@ public class RemoteJWKSet<C extends SecurityContext> implements JWKSource<C> {
 	 * Set to 50 KBytes.
 	 */
 	public static final int DEFAULT_HTTP_SIZE_LIMIT = 50 * 1024;
+
+
+	/**
+	 * The initial retry delay after a failed background JWK set refresh
+	 * in refresh-ahead mode, in milliseconds. Set to 1 second.
+	 */
+	public static final long INITIAL_REFRESH_RETRY_DELAY = 1000L;
+
+
+	/**
+	 * The default minimum interval between JWK set refreshes triggered by
+	 * an unknown key ID, in milliseconds. Set to zero, not limited.
+	 */
+	public static final int DEFAULT_UNKNOWN_KEY_ID_REFRESH_INTERVAL = 0;
+
+
+	/**
+	 * The maximum number of remembered missing key IDs.
+	 */
+	public static final int MAX_MISSING_KEY_IDS = 1000;
+
+
+	/**
+	 * The minimum lifespan of a cached JWK set when the
+	 * {@code Cache-Control: max-age} of the HTTP response is honoured, in
+	 * milliseconds. Set to 1 minute.
+	 */
+	public static final long MIN_CACHE_CONTROL_LIFESPAN = 60_000L;
 	
 	
 	/**
@@ -140,6 +205,20 @@ public class RemoteJWKSet<C extends SecurityContext> implements JWKSource<C> {
 	}
 	
 	
+	/**
+	 * Resolves the default minimum interval between JWK set refreshes
+	 * triggered by an unknown key ID, in milliseconds.
+	 *
+	 * @return The {@link #DEFAULT_UNKNOWN_KEY_ID_REFRESH_INTERVAL static
+	 *         constant}, overridden by setting the
+	 *         {@code com.nimbusds.jose.jwk.source.RemoteJWKSet.defaultUnknownKeyIDRefreshInterval}
+	 *         Java system property.
+	 */
+	public static int resolveDefaultUnknownKeyIDRefreshInterval() {
+		return resolveDefault(RemoteJWKSet.class.getName() + ".defaultUnknownKeyIDRefreshInterval", DEFAULT_UNKNOWN_KEY_ID_REFRESH_INTERVAL);
+	}
+	
+	
 	private static int resolveDefault(final String sysPropertyName, final int defaultValue) {
 		
 		String value = System.getProperty(sysPropertyName);
@@ -181,6 +260,155 @@ public class RemoteJWKSet<C extends SecurityContext> implements JWKSource<C> {
 	private final ResourceRetriever jwkSetRetriever;
 
 
+	/**
+	 * The scheduler for the background JWK set refresh, {@code null} if
+	 * the refresh-ahead mode isn't enabled.
+	 */
+	private final ScheduledExecutorService refreshScheduler;
+
+
+	/**
+	 * The most recently retrieved JWK set, served in refresh-ahead mode.
+	 */
+	private volatile JWKSet latestJWKSet;
+
+
+	/**
+	 * Lock for the background refresh state.
+	 */
+	private final Object refreshLock = new Object();
+
+
+	/**
+	 * The scheduled background refresh, {@code null} if none. Guarded by
+	 * {@link #refreshLock}.
+	 */
+	private ScheduledFuture<?> scheduledRefresh;
+
+
+	/**
+	 * The number of consecutive failed background refreshes. Guarded by
+	 * {@link #refreshLock}.
+	 */
+	private int refreshFailures;
+
+
+	/**
+	 * {@code true} if the background refresh was stopped. Guarded by
+	 * {@link #refreshLock}.
+	 */
+	private boolean closed;
+
+
+	/**
+	 * The minimum interval between JWK set refreshes triggered by an
+	 * unknown key ID, in milliseconds, zero if not limited.
+	 */
+	private volatile long unknownKeyIDRefreshInterval = resolveDefaultUnknownKeyIDRefreshInterval();
+
+
+	/**
+	 * The in-flight JWK set refresh triggered by an unknown key ID,
+	 * {@code null} if none.
+	 */
+	private final AtomicReference<FutureTask<JWKSet>> unknownKeyIDRefresh = new AtomicReference<>();
+
+
+	/**
+	 * The start time of the last JWK set refresh triggered by an unknown
+	 * key ID, in milliseconds since the epoch.
+	 */
+	private volatile long lastUnknownKeyIDRefreshTime = -1L;
+
+
+	/**
+	 * The missing key IDs with the time they were found missing, in
+	 * milliseconds since the epoch. Guarded by itself.
+	 */
+	private final Map<String, Long> missingKeyIDs = new LinkedHashMap<String, Long>() {
+		
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<String, Long> eldest) {
+			return size() > MAX_MISSING_KEY_IDS;
+		}
+	};
+
+
+	/**
+	 * The number of JWK set refreshes triggered by an unknown key ID.
+	 */
+	private final AtomicLong unknownKeyIDRefreshCount = new AtomicLong();
+
+
+	/**
+	 * The number of requests which joined an in-flight refresh.
+	 */
+	private final AtomicLong coalescedRefreshCount = new AtomicLong();
+
+
+	/**
+	 * The number of refreshes skipped due to the rate limit.
+	 */
+	private final AtomicLong rateLimitedRefreshCount = new AtomicLong();
+
+
+	/**
+	 * The number of requests answered from the missing key IDs.
+	 */
+	private final AtomicLong missingKeyIDHitCount = new AtomicLong();
+
+
+	/**
+	 * The last retrieved and parsed JWK set, kept when the JWK set URL
+	 * responds with HTTP 304 (Not Modified).
+	 */
+	private volatile JWKSet lastRetrievedJWKSet;
+
+
+	/**
+	 * If {@code true} the lifespan of the cached JWK set is determined by
+	 * the {@code Cache-Control: max-age} of the HTTP response.
+	 */
+	private volatile boolean honourCacheControl;
+
+
+	/**
+	 * The lifespan of the cached JWK set derived from the
+	 * {@code Cache-Control: max-age}, in milliseconds, negative if none.
+	 */
+	private volatile long cacheControlLifespan = -1L;
+
+
+	/**
+	 * The number of JWK set retrievals which found the JWK set not
+	 * modified.
+	 */
+	private final AtomicLong notModifiedCount = new AtomicLong();
+
+
+	/**
+	 * The background refresh task.
+	 */
+	private final Runnable refreshTask = new Runnable() {
+		@Override
+		public void run() {
+			try {
+				synchronized (RemoteJWKSet.this) {
+					updateJWKSetFromURL(); // schedules the next refresh
+				}
+			} catch (Exception e) {
+				// Keep serving the last JWK set and retry
+				synchronized (refreshLock) {
+					refreshFailures++;
+					scheduleRefresh(computeRetryDelay(refreshFailures, getRefreshInterval()));
+				}
+			}
+		}
+	};
+
+
 	/**
 	 * Creates a new remote JWK set using the
 	 * {@link DefaultResourceRetriever default HTTP resource retriever}
@@ -267,6 +495,36 @@ public class RemoteJWKSet<C extends SecurityContext> implements JWKSource<C> {
 			    final ResourceRetriever resourceRetriever,
 			    final JWKSetCache jwkSetCache) {
 		
+		this(jwkSetURL, failoverJWKSource, resourceRetriever, jwkSetCache, null);
+	}
+
+
+	/**
+	 * Creates a new remote JWK set.
+	 *
+	 * @param jwkSetURL         The JWK set URL. Must not be {@code null}.
+	 * @param failoverJWKSource Optional failover JWK source in case
+	 *                          retrieval from the JWK set URL fails,
+	 *                          {@code null} if no failover is specified.
+	 * @param resourceRetriever The HTTP resource retriever to use,
+	 *                          {@code null} to use the
+	 *                          {@link DefaultResourceRetriever default
+	 *                          one} with the default HTTP timeouts and
+	 *                          entity size limit.
+	 * @param jwkSetCache       The JWK set cache to use, {@code null} to
+	 *                          use the {@link DefaultJWKSetCache default
+	 *                          one}.
+	 * @param refreshScheduler  The scheduled executor for refreshing the
+	 *                          JWK set in the background, {@code null} to
+	 *                          refresh on the requesting thread. The
+	 *                          executor is not shut down by this class.
+	 */
+	public RemoteJWKSet(final URL jwkSetURL,
+			    final JWKSource<C> failoverJWKSource,
+			    final ResourceRetriever resourceRetriever,
+			    final JWKSetCache jwkSetCache,
+			    final ScheduledExecutorService refreshScheduler) {
+		
 		if (jwkSetURL == null) {
 			throw new IllegalArgumentException("The JWK set URL must not be null");
 		}
@@ -277,10 +535,12 @@ public class RemoteJWKSet<C extends SecurityContext> implements JWKSource<C> {
 		if (resourceRetriever != null) {
 			jwkSetRetriever = resourceRetriever;
 		} else {
-			jwkSetRetriever = new DefaultResourceRetriever(
+			DefaultResourceRetriever defaultRetriever = new DefaultResourceRetriever(
 				resolveDefaultHTTPConnectTimeout(),
 				resolveDefaultHTTPReadTimeout(),
 				resolveDefaultHTTPSizeLimit());
+			defaultRetriever.setUsesConditionalRequests(true);
+			jwkSetRetriever = defaultRetriever;
 		}
 		
 		if (jwkSetCache != null) {
@@ -288,6 +548,8 @@ public class RemoteJWKSet<C extends SecurityContext> implements JWKSource<C> {
 		} else {
 			this.jwkSetCache = new DefaultJWKSetCache();
 		}
+		
+		this.refreshScheduler = refreshScheduler;
 	}
 
 
@@ -306,17 +568,426 @@ public class RemoteJWKSet<C extends SecurityContext> implements JWKSource<C> {
 		} catch (IOException e) {
 			throw new RemoteKeySourceException("Couldn't retrieve remote JWK set: " + e.getMessage(), e);
 		}
-		JWKSet jwkSet;
-		try {
-			jwkSet = JWKSet.parse(res.getContent());
-		} catch (java.text.ParseException e) {
-			throw new RemoteKeySourceException("Couldn't parse remote JWK set: " + e.getMessage(), e);
+		JWKSet jwkSet = lastRetrievedJWKSet;
+		if (res.isNotModified() && jwkSet != null) {
+			// Keep the parsed JWK set, and with it any keys converted
+			// from it
+			notModifiedCount.incrementAndGet();
+		} else {
+			try {
+				jwkSet = JWKSet.parse(res.getContent());
+			} catch (java.text.ParseException e) {
+				throw new RemoteKeySourceException("Couldn't parse remote JWK set: " + e.getMessage(), e);
+			}
+			lastRetrievedJWKSet = jwkSet;
 		}
-		jwkSetCache.put(jwkSet);
+		
+		if (honourCacheControl && res.getMaxAge() > -1 && jwkSetCache instanceof DefaultJWKSetCache) {
+			long lifespan = Math.max(res.getMaxAge() * 1000L, MIN_CACHE_CONTROL_LIFESPAN);
+			cacheControlLifespan = lifespan;
+			((DefaultJWKSetCache) jwkSetCache).put(jwkSet, lifespan, TimeUnit.MILLISECONDS);
+		} else {
+			cacheControlLifespan = -1L;
+			jwkSetCache.put(jwkSet);
+		}
+		
+		if (refreshScheduler != null) {
+			synchronized (refreshLock) {
+				if (! closed) {
+					latestJWKSet = jwkSet;
+					refreshFailures = 0;
+					scheduleRefresh(getRefreshInterval());
+				}
+			}
+		}
+		
 		return jwkSet;
 	}
 
 
+	/**
+	 * Returns the interval between background JWK set refreshes in
+	 * refresh-ahead mode, in milliseconds. Determined by the refresh time,
+	 * else the lifespan, of a {@link DefaultJWKSetCache}, with
+	 * {@link DefaultJWKSetCache#DEFAULT_REFRESH_TIME_MINUTES} as
+	 * fallback. Capped at the lifespan derived from the
+	 * {@code Cache-Control: max-age} if honoured.
+	 *
+	 * @return The refresh interval, in milliseconds.
+	 */
+	private long getRefreshInterval() {
+		
+		long interval = getConfiguredRefreshInterval();
+		long maxAgeLifespan = cacheControlLifespan;
+		return maxAgeLifespan > -1 ? Math.min(interval, maxAgeLifespan) : interval;
+	}
+	
+	
+	private long getConfiguredRefreshInterval() {
+		
+		if (jwkSetCache instanceof DefaultJWKSetCache) {
+			DefaultJWKSetCache cache = (DefaultJWKSetCache) jwkSetCache;
+			if (cache.getRefreshTime(TimeUnit.MILLISECONDS) > -1) {
+				return cache.getRefreshTime(TimeUnit.MILLISECONDS);
+			}
+			if (cache.getLifespan(TimeUnit.MILLISECONDS) > -1) {
+				return cache.getLifespan(TimeUnit.MILLISECONDS);
+			}
+		}
+		
+		return TimeUnit.MILLISECONDS.convert(DefaultJWKSetCache.DEFAULT_REFRESH_TIME_MINUTES, TimeUnit.MINUTES);
+	}
+
+
+	/**
+	 * Computes the delay before retrying a failed background refresh.
+	 *
+	 * @param failures The number of consecutive failures, one or more.
+	 * @param maxDelay The maximum delay, in milliseconds.
+	 *
+	 * @return The retry delay, in milliseconds.
+	 */
+	static long computeRetryDelay(final int failures, final long maxDelay) {
+		
+		long delay = INITIAL_REFRESH_RETRY_DELAY << Math.min(failures - 1, 30);
+		return Math.max(0L, Math.min(delay, maxDelay));
+	}
+
+
+	/**
+	 * (Re)schedules the background refresh. Must be called while holding
+	 * the {@link #refreshLock}.
+	 *
+	 * @param delay The delay, in milliseconds.
+	 */
+	private void scheduleRefresh(final long delay) {
+		
+		if (closed) {
+			return;
+		}
+		
+		if (scheduledRefresh != null) {
+			scheduledRefresh.cancel(false);
+		}
+		
+		scheduledRefresh = refreshScheduler.schedule(refreshTask, delay, TimeUnit.MILLISECONDS);
+	}
+
+
+	/**
+	 * Stops the background JWK set refresh in refresh-ahead mode. The
+	 * scheduled executor is not shut down. Subsequent requests are served
+	 * from the cache, refreshing the JWK set on the requesting thread.
+	 */
+	public void close() {
+		
+		synchronized (refreshLock) {
+			closed = true;
+			latestJWKSet = null;
+			if (scheduledRefresh != null) {
+				scheduledRefresh.cancel(false);
+				scheduledRefresh = null;
+			}
+		}
+	}
+
+
+	/**
+	 * Returns {@code true} if the lifespan of the cached JWK set is
+	 * determined by the {@code Cache-Control: max-age} of the HTTP
+	 * response, when present. Applies to a {@link DefaultJWKSetCache}.
+	 *
+	 * @return {@code true} if the {@code Cache-Control: max-age} is
+	 *         honoured.
+	 */
+	public boolean honoursCacheControl() {
+		
+		return honourCacheControl;
+	}
+	
+	
+	/**
+	 * Controls the determination of the lifespan of the cached JWK set by
+	 * the {@code Cache-Control: max-age} of the HTTP response, when
+	 * present. The refresh time is capped at this lifespan. The lifespan
+	 * is at least {@link #MIN_CACHE_CONTROL_LIFESPAN}. Applies to a
+	 * {@link DefaultJWKSetCache}, the default is {@code false}.
+	 *
+	 * @param honourCacheControl If {@code true} the
+	 *                           {@code Cache-Control: max-age} is
+	 *                           honoured.
+	 */
+	public void setHonoursCacheControl(final boolean honourCacheControl) {
+		
+		this.honourCacheControl = honourCacheControl;
+	}
+	
+	
+	/**
+	 * Returns the number of JWK set retrievals which found the JWK set
+	 * not modified (HTTP 304), in which case the previously parsed JWK set
+	 * was kept.
+	 *
+	 * @return The not modified count.
+	 */
+	public long getNotModifiedCount() {
+		
+		return notModifiedCount.get();
+	}
+	
+	
+	/**
+	 * Returns the minimum interval between JWK set refreshes triggered by
+	 * an unknown key ID. Missing key IDs are remembered for the same
+	 * interval.
+	 *
+	 * @param timeUnit The time unit to use.
+	 *
+	 * @return The interval, zero if not limited.
+	 */
+	public long getUnknownKeyIDRefreshInterval(final TimeUnit timeUnit) {
+		
+		return timeUnit.convert(unknownKeyIDRefreshInterval, TimeUnit.MILLISECONDS);
+	}
+	
+	
+	/**
+	 * Sets the minimum interval between JWK set refreshes triggered by an
+	 * unknown key ID. Missing key IDs are remembered for the same
+	 * interval.
+	 *
+	 * @param interval The interval, zero to disable the rate limit and
+	 *                 the remembering of missing key IDs. Must not be
+	 *                 negative.
+	 * @param timeUnit The time unit. Must not be {@code null}.
+	 */
+	public void setUnknownKeyIDRefreshInterval(final long interval, final TimeUnit timeUnit) {
+		
+		if (interval < 0) {
+			throw new IllegalArgumentException("The unknown key ID refresh interval must not be negative");
+		}
+		
+		unknownKeyIDRefreshInterval = TimeUnit.MILLISECONDS.convert(interval, timeUnit);
+		
+		synchronized (missingKeyIDs) {
+			missingKeyIDs.clear();
+		}
+	}
+	
+	
+	/**
+	 * Returns the number of JWK set refreshes triggered by an unknown key
+	 * ID.
+	 *
+	 * @return The refresh count.
+	 */
+	public long getUnknownKeyIDRefreshCount() {
+		
+		return unknownKeyIDRefreshCount.get();
+	}
+	
+	
+	/**
+	 * Returns the number of requests with an unknown key ID which joined
+	 * an in-flight JWK set refresh instead of making their own.
+	 *
+	 * @return The coalesced refresh count.
+	 */
+	public long getCoalescedRefreshCount() {
+		
+		return coalescedRefreshCount.get();
+	}
+	
+	
+	/**
+	 * Returns the number of requests with an unknown key ID which didn't
+	 * refresh the JWK set because of the rate limit.
+	 *
+	 * @return The rate limited refresh count.
+	 */
+	public long getRateLimitedRefreshCount() {
+		
+		return rateLimitedRefreshCount.get();
+	}
+	
+	
+	/**
+	 * Returns the number of requests with an unknown key ID which were
+	 * answered from the recently missing key IDs.
+	 *
+	 * @return The missing key ID hit count.
+	 */
+	public long getMissingKeyIDHitCount() {
+		
+		return missingKeyIDHitCount.get();
+	}
+	
+	
+	/**
+	 * Returns {@code true} if the specified key ID was recently found
+	 * missing from the JWK set.
+	 *
+	 * @param kid The key ID.
+	 * @param now The current time, in milliseconds since the epoch.
+	 *
+	 * @return {@code true} if recently missing.
+	 */
+	private boolean isMissingKeyID(final String kid, final long now) {
+		
+		synchronized (missingKeyIDs) {
+			Long since = missingKeyIDs.get(kid);
+			if (since == null) {
+				return false;
+			}
+			if (now - since >= unknownKeyIDRefreshInterval) {
+				missingKeyIDs.remove(kid);
+				return false;
+			}
+			return true;
+		}
+	}
+	
+	
+	/**
+	 * Remembers the specified key ID as missing from the JWK set.
+	 *
+	 * @param kid The key ID.
+	 * @param now The current time, in milliseconds since the epoch.
+	 */
+	private void putMissingKeyID(final String kid, final long now) {
+		
+		if (unknownKeyIDRefreshInterval <= 0) {
+			return;
+		}
+		
+		synchronized (missingKeyIDs) {
+			missingKeyIDs.put(kid, now);
+		}
+	}
+	
+	
+	/**
+	 * Refreshes the JWK set because of an unknown key ID. Concurrent
+	 * calls are coalesced into a single retrieval and the retrievals are
+	 * rate limited.
+	 *
+	 * @param seenJWKSet The JWK set in which the key ID wasn't found.
+	 *
+	 * @return The refreshed JWK set, the current JWK set if it was
+	 *         already refreshed or the refresh was rate limited.
+	 *
+	 * @throws RemoteKeySourceException If JWK retrieval failed.
+	 */
+	private JWKSet refreshForUnknownKeyID(final JWKSet seenJWKSet)
+		throws RemoteKeySourceException {
+		
+		JWKSet current = getCurrentJWKSet();
+		if (current != seenJWKSet) {
+			// Refreshed in the meantime
+			return current;
+		}
+		
+		FutureTask<JWKSet> task = unknownKeyIDRefresh.get();
+		
+		if (task != null) {
+			coalescedRefreshCount.incrementAndGet();
+		} else {
+			final long now = System.currentTimeMillis();
+			
+			if (lastUnknownKeyIDRefreshTime > -1 && now - lastUnknownKeyIDRefreshTime < unknownKeyIDRefreshInterval) {
+				rateLimitedRefreshCount.incrementAndGet();
+				return current;
+			}
+			
+			FutureTask<JWKSet> newTask = new FutureTask<>(new Callable<JWKSet>() {
+				@Override
+				public JWKSet call() throws RemoteKeySourceException {
+					// Serialised with the expiry and refresh-ahead
+					// retrievals, which update the same cache and
+					// conditional request validators
+					synchronized (RemoteJWKSet.this) {
+						JWKSet latest = getCurrentJWKSet();
+						if (latest != seenJWKSet) {
+							// Refreshed while waiting for the lock
+							return latest;
+						}
+						return updateJWKSetFromURL();
+					}
+				}
+			});
+			
+			if (unknownKeyIDRefresh.compareAndSet(null, newTask)) {
+				lastUnknownKeyIDRefreshTime = now;
+				unknownKeyIDRefreshCount.incrementAndGet();
+				try {
+					newTask.run();
+				} finally {
+					unknownKeyIDRefresh.compareAndSet(newTask, null);
+				}
+				task = newTask;
+			} else {
+				task = unknownKeyIDRefresh.get();
+				if (task == null) {
+					// Completed in the meantime
+					return getCurrentJWKSet();
+				}
+				coalescedRefreshCount.incrementAndGet();
+			}
+		}
+		
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RemoteKeySourceException("Interrupted while waiting for the remote JWK set: " + e.getMessage(), e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RemoteKeySourceException) {
+				throw (RemoteKeySourceException) e.getCause();
+			}
+			throw new RemoteKeySourceException("Couldn't retrieve remote JWK set: " + e.getCause().getMessage(), e.getCause());
+		}
+	}
+
+
+	/**
+	 * Returns {@code true} if the refresh-ahead mode is enabled, but the
+	 * JWK set wasn't retrieved yet.
+	 *
+	 * @return {@code true} if the first retrieval is pending.
+	 */
+	private boolean isRefreshAheadPending() {
+		
+		return refreshScheduler != null && latestJWKSet == null && isRefreshAhead();
+	}
+
+
+	/**
+	 * Returns the current JWK set, the latest retrieved in refresh-ahead
+	 * mode, else the cached.
+	 *
+	 * @return The current JWK set, {@code null} if none.
+	 */
+	private JWKSet getCurrentJWKSet() {
+		
+		JWKSet jwkSet = latestJWKSet;
+		return jwkSet != null ? jwkSet : jwkSetCache.get();
+	}
+	
+	
+	/**
+	 * Returns {@code true} if the refresh-ahead mode is enabled.
+	 *
+	 * @return {@code true} if the JWK set is refreshed in the
+	 *         background.
+	 */
+	public boolean isRefreshAhead() {
+		
+		synchronized (refreshLock) {
+			return refreshScheduler != null && ! closed;
+		}
+	}
+
+
 	/**
 	 * Returns the JWK set URL.
 	 *
@@ -372,6 +1043,33 @@ public class RemoteJWKSet<C extends SecurityContext> implements JWKSource<C> {
 	}
 
 
+	/**
+	 * Returns the JWKs matching the specified selector if they can be
+	 * served from memory, without retrieving the JWK set from its URL.
+	 * Intended for non-blocking callers, such as the
+	 * {@link ExecutorJWKSource}.
+	 *
+	 * @param jwkSelector A JWK selector. Must not be {@code null}.
+	 *
+	 * @return The matching JWKs, {@code null} if there are no matches or
+	 *         the JWK set isn't cached or requires a refresh.
+	 */
+	public List<JWK> getIfCached(final JWKSelector jwkSelector) {
+
+		JWKSet jwkSet = latestJWKSet;
+
+		if (jwkSet == null) {
+			jwkSet = jwkSetCache.get();
+			if (jwkSet == null || jwkSetCache.requiresRefresh() || isRefreshAheadPending()) {
+				return null;
+			}
+		}
+
+		List<JWK> matches = jwkSelector.select(jwkSet);
+		return matches.isEmpty() ? null : matches;
+	}
+
+
 	/**
 	 * Returns the first specified key ID (kid) for a JWK matcher.
 	 *
@@ -422,34 +1120,40 @@ public class RemoteJWKSet<C extends SecurityContext> implements JWKSource<C> {
 	public List<JWK> get(final JWKSelector jwkSelector, final C context)
 		throws RemoteKeySourceException {
 
-		// Check the cache first
-		JWKSet jwkSet = jwkSetCache.get();
+		// In refresh-ahead mode serve the latest JWK set, refreshed in
+		// the background, else check the cache
+		JWKSet jwkSet = latestJWKSet;
 		
-		if (jwkSetCache.requiresRefresh() || jwkSet == null) {
-			// JWK set update required
-			try {
-				// Prevent multiple cache updates in case of concurrent requests
-				// (with double-checked locking, i.e. locking on update required only)
-				synchronized (this) {
-					jwkSet = jwkSetCache.get();
-					if (jwkSetCache.requiresRefresh() || jwkSet == null) {
-						// Retrieve JWK set from URL
-						jwkSet = updateJWKSetFromURL();
+		if (jwkSet == null) {
+			// Check the cache
+			jwkSet = jwkSetCache.get();
+			
+			if (jwkSetCache.requiresRefresh() || jwkSet == null || isRefreshAheadPending()) {
+				// JWK set update required
+				try {
+					// Prevent multiple cache updates in case of concurrent requests
+					// (with double-checked locking, i.e. locking on update required only)
+					synchronized (this) {
+						jwkSet = jwkSetCache.get();
+						if (jwkSetCache.requiresRefresh() || jwkSet == null || isRefreshAheadPending()) {
+							// Retrieve JWK set from URL
+							jwkSet = updateJWKSetFromURL();
+						}
 					}
+				} catch (Exception e) {
+					
+					List<JWK> failoverMatches = failover(e, jwkSelector, context);
+					if (failoverMatches != null) {
+						return failoverMatches; // Failover success
+					}
+					
+					if (jwkSet == null) {
+						// Rethrow the received exception if expired
+						throw e;
+					}
+					
+					// Continue with cached version
 				}
-			} catch (Exception e) {
-				
-				List<JWK> failoverMatches = failover(e, jwkSelector, context);
-				if (failoverMatches != null) {
-					return failoverMatches; // Failover success
-				}
-				
-				if (jwkSet == null) {
-					// Rethrow the received exception if expired
-					throw e;
-				}
-				
-				// Continue with cached version
 			}
 		}
 
@@ -476,19 +1180,16 @@ public class RemoteJWKSet<C extends SecurityContext> implements JWKSource<C> {
 			return Collections.emptyList();
 		}
 		
+		final long now = System.currentTimeMillis();
+		
+		if (isMissingKeyID(soughtKeyID, now)) {
+			// Recently missing, don't refresh
+			missingKeyIDHitCount.incrementAndGet();
+			return Collections.emptyList();
+		}
+		
 		try {
-			// If the jwkSet in the cache is not the same instance that was
-			// in the cache at the beginning of this method, then we know
-			// the cache was updated
-			synchronized (this) {
-				if (jwkSet == jwkSetCache.get()) {
-					// Make new HTTP GET to the JWK set URL
-					jwkSet = updateJWKSetFromURL();
-				} else {
-					// Cache was updated recently, the cached value is up-to-date
-					jwkSet = jwkSetCache.get();
-				}
-			}
+			jwkSet = refreshForUnknownKeyID(jwkSet);
 		} catch (KeySourceException e) {
 			
 			List<JWK> failoverMatches = failover(e, jwkSelector, context);
@@ -504,6 +1205,10 @@ public class RemoteJWKSet<C extends SecurityContext> implements JWKSource<C> {
 			// Retrieval has failed
 			return Collections.emptyList();
 		}
+		
+		if (jwkSet.getKeyByKeyId(soughtKeyID) == null) {
+			putMissingKeyID(soughtKeyID, now);
+		}
 
 		// Repeat select, return final result (success or no matches)
 		return jwkSelector.select(jwkSet);
@@ -20,10 +20,7 @@ package com.nimbusds.jose.proc;
 
 import java.security.Key;
 import java.security.PublicKey;
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 import javax.crypto.SecretKey;
 
 import net.jcip.annotations.ThreadSafe;
@@ -42,9 +39,17 @@ import com.nimbusds.jose.jwk.source.JWKSource;
  * Key selector for verifying JWS objects, where the key candidates are
  * retrieved from a {@link JWKSource JSON Web Key (JWK) source}.
  *
+ * <p>The Java keys converted from the selected JWKs are cached, so that the
+ * relatively expensive conversion, which for EC keys includes a point on
+ * curve check, happens once per JWK rather than once per JWS object. The
+ * JWKs are weakly referenced, so the cached keys are released when the JWK
+ * source discards the JWKs, e.g. when a {@link
+ * com.nimbusds.jose.jwk.source.RemoteJWKSet} swaps in a new JWK set after a
+ * key rotation.
+ *
  * @author Vladimir Dzhuvinov
  * @author Marco Vermeulen
- * @version 2020-06-02
+ * @version 2022-06-04
  */
 @ThreadSafe
 public class JWSVerificationKeySelector<C extends SecurityContext> extends AbstractJWKSelectorWithSource<C> implements JWSKeySelector<C> {
@@ -60,6 +65,13 @@ public class JWSVerificationKeySelector<C extends SecurityContext> extends Abstr
 	 */
 	private final boolean singleJwsAlgConstructorWasCalled;
 
+
+	/**
+	 * The converted public and secret keys, by JWK. Weakly keyed so the
+	 * entries expire together with the JWKs.
+	 */
+	private final Map<JWK, List<Key>> convertedKeys = Collections.synchronizedMap(new WeakHashMap<JWK, List<Key>>());
+
 	/**
 	 * Creates a new JWS verification key selector.
 	 *
@@ -158,12 +170,42 @@ public class JWSVerificationKeySelector<C extends SecurityContext> extends Abstr
 
 		List<Key> sanitizedKeyList = new LinkedList<>();
 
-		for (Key key: KeyConverter.toJavaKeys(jwkMatches)) {
+		for (JWK jwk: jwkMatches) {
+			sanitizedKeyList.addAll(getVerificationKeys(jwk));
+		}
+
+		return sanitizedKeyList;
+	}
+
+
+	/**
+	 * Returns the public or secret Java keys for the specified JWK,
+	 * converting the JWK on the first call and returning the cached keys
+	 * on subsequent calls.
+	 *
+	 * @param jwk The JWK. Must not be {@code null}.
+	 *
+	 * @return The public or secret keys, empty list if the JWK couldn't be
+	 *         converted.
+	 */
+	private List<Key> getVerificationKeys(final JWK jwk) {
+
+		List<Key> keys = convertedKeys.get(jwk);
+
+		if (keys != null) {
+			return keys;
+		}
+
+		keys = new ArrayList<>(1);
+
+		for (Key key: KeyConverter.toJavaKeys(Collections.singletonList(jwk))) {
 			if (key instanceof PublicKey || key instanceof SecretKey) {
-				sanitizedKeyList.add(key);
+				keys.add(key);
 			} // skip asymmetric private keys
 		}
 
-		return sanitizedKeyList;
+		keys = Collections.unmodifiableList(keys);
+		convertedKeys.put(jwk, keys);
+		return keys;
 	}
 }
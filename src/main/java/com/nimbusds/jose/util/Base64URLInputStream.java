@@ -0,0 +1,231 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.util;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+
+
+/**
+ * Input stream which decodes a Base64URL-encoded part of a JOSE compact
+ * serialisation on the fly. The decoding stops at the end of the underlying
+ * stream or at the next period ('.') delimiter, which is consumed. The bytes
+ * read ahead of the delimiter are pushed back, the underlying stream is thus
+ * positioned at the start of the next part when this stream returns -1.
+ *
+ * <p>The underlying stream must have a push back buffer of at least
+ * {@link #READ_AHEAD_SIZE} bytes. Padding, line breaks and other characters
+ * outside the Base64URL alphabet are rejected.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+public class Base64URLInputStream extends InputStream {
+
+
+	/**
+	 * The maximum number of characters read ahead from the underlying
+	 * stream.
+	 */
+	public static final int READ_AHEAD_SIZE = 4096;
+
+
+	/**
+	 * The underlying stream.
+	 */
+	private final PushbackInputStream in;
+
+
+	/**
+	 * The encoded characters read ahead.
+	 */
+	private final byte[] chars = new byte[READ_AHEAD_SIZE];
+
+
+	/**
+	 * The decoded bytes.
+	 */
+	private final byte[] decoded = new byte[READ_AHEAD_SIZE / 4 * 3 + 2];
+
+
+	/**
+	 * The position and the length of the decoded bytes.
+	 */
+	private int decodedPos, decodedLen;
+
+
+	/**
+	 * The pending decoded bits, up to three characters.
+	 */
+	private int pending;
+
+
+	/**
+	 * The number of pending characters.
+	 */
+	private int pendingCount;
+
+
+	/**
+	 * {@code true} if the end of the part was reached.
+	 */
+	private boolean endOfPart;
+
+
+	/**
+	 * {@code true} if the part ended with a period delimiter.
+	 */
+	private boolean delimited;
+
+
+	/**
+	 * Creates a new Base64URL-decoding input stream.
+	 *
+	 * @param in The underlying stream. Must have a push back buffer of at
+	 *           least {@link #READ_AHEAD_SIZE} bytes. Must not be
+	 *           {@code null}.
+	 */
+	public Base64URLInputStream(final PushbackInputStream in) {
+
+		this.in = in;
+	}
+
+
+	/**
+	 * Returns {@code true} if the decoded part ended with a period
+	 * delimiter, {@code false} if it ended with the underlying stream.
+	 * Valid once this stream returned -1.
+	 *
+	 * @return {@code true} if a delimiter followed the part.
+	 */
+	public boolean isDelimited() {
+
+		return delimited;
+	}
+
+
+	@Override
+	public int read()
+		throws IOException {
+
+		if (decodedPos == decodedLen && ! fill()) {
+			return -1;
+		}
+
+		return decoded[decodedPos++] & 0xff;
+	}
+
+
+	@Override
+	public int read(final byte[] b, final int off, final int len)
+		throws IOException {
+
+		if (len == 0) {
+			return 0;
+		}
+
+		if (decodedPos == decodedLen && ! fill()) {
+			return -1;
+		}
+
+		int n = Math.min(len, decodedLen - decodedPos);
+		System.arraycopy(decoded, decodedPos, b, off, n);
+		decodedPos += n;
+		return n;
+	}
+
+
+	/**
+	 * Decodes the next characters.
+	 *
+	 * @return {@code true} if bytes were decoded, {@code false} at the end
+	 *         of the part.
+	 */
+	private boolean fill()
+		throws IOException {
+
+		decodedPos = 0;
+		decodedLen = 0;
+
+		while (decodedLen == 0) {
+
+			if (endOfPart) {
+				return false;
+			}
+
+			int n = in.read(chars, 0, chars.length);
+
+			if (n < 0) {
+				finishPart();
+				continue;
+			}
+
+			for (int i=0; i < n; i++) {
+
+				byte c = chars[i];
+
+				if (c == '.') {
+					in.unread(chars, i + 1, n - i - 1);
+					delimited = true;
+					finishPart();
+					break;
+				}
+
+				int digit = Base64Codec.decodeDigit(c);
+
+				if (digit < 0 || c == '+' || c == '/') {
+					throw new IOException("Invalid Base64URL character");
+				}
+
+				pending = pending << 6 | digit;
+
+				if (++pendingCount == 4) {
+					decoded[decodedLen++] = (byte) (pending >> 16);
+					decoded[decodedLen++] = (byte) (pending >> 8);
+					decoded[decodedLen++] = (byte) pending;
+					pending = 0;
+					pendingCount = 0;
+				}
+			}
+		}
+
+		return true;
+	}
+
+
+	/**
+	 * Decodes the pending characters at the end of the part.
+	 */
+	private void finishPart()
+		throws IOException {
+
+		endOfPart = true;
+
+		if (pendingCount == 1) {
+			throw new IOException("Truncated Base64URL");
+		} else if (pendingCount == 2) {
+			decoded[decodedLen++] = (byte) (pending >> 4);
+		} else if (pendingCount == 3) {
+			decoded[decodedLen++] = (byte) (pending >> 10);
+			decoded[decodedLen++] = (byte) (pending >> 2);
+		}
+
+		pendingCount = 0;
+	}
+}
@@ -0,0 +1,211 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.util;
+
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+
+/**
+ * Output stream which Base64URL-encodes the written bytes on the fly, without
+ * padding, as used in JOSE compact serialisations. Call {@link #finish()} to
+ * write out the final characters without closing the underlying stream.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+public class Base64URLOutputStream extends FilterOutputStream {
+
+
+	/**
+	 * The encoded characters, buffered in complete quads.
+	 */
+	private final byte[] buf = new byte[4096];
+
+
+	/**
+	 * The number of buffered encoded characters.
+	 */
+	private int bufLen;
+
+
+	/**
+	 * The pending input bits, up to two bytes.
+	 */
+	private int pending;
+
+
+	/**
+	 * The number of pending input bytes.
+	 */
+	private int pendingCount;
+
+
+	/**
+	 * {@code true} if the stream is finished.
+	 */
+	private boolean finished;
+
+
+	/**
+	 * Creates a new Base64URL-encoding output stream.
+	 *
+	 * @param out The underlying output stream for the encoded characters.
+	 *            Must not be {@code null}.
+	 */
+	public Base64URLOutputStream(final OutputStream out) {
+
+		super(out);
+	}
+
+
+	@Override
+	public void write(final int b)
+		throws IOException {
+
+		ensureNotFinished();
+
+		pending = pending << 8 | (b & 0xff);
+
+		if (++pendingCount == 3) {
+			encodeQuad(pending);
+			pending = 0;
+			pendingCount = 0;
+		}
+	}
+
+
+	@Override
+	public void write(final byte[] b, final int off, final int len)
+		throws IOException {
+
+		ensureNotFinished();
+
+		int pos = off;
+		final int end = off + len;
+
+		// Complete a pending triple
+		while (pendingCount != 0 && pos < end) {
+			write(b[pos++]);
+		}
+
+		// Whole triples
+		while (end - pos >= 3) {
+			encodeQuad((b[pos] & 0xff) << 16 | (b[pos + 1] & 0xff) << 8 | (b[pos + 2] & 0xff));
+			pos += 3;
+		}
+
+		while (pos < end) {
+			write(b[pos++]);
+		}
+	}
+
+
+	/**
+	 * Encodes the specified 24 bits into four characters.
+	 *
+	 * @param bits The bits to encode.
+	 */
+	private void encodeQuad(final int bits)
+		throws IOException {
+
+		if (bufLen == buf.length) {
+			out.write(buf, 0, bufLen);
+			bufLen = 0;
+		}
+
+		buf[bufLen++] = Base64Codec.encodeDigitBase64URL((bits >>> 18) & 0x3f);
+		buf[bufLen++] = Base64Codec.encodeDigitBase64URL((bits >>> 12) & 0x3f);
+		buf[bufLen++] = Base64Codec.encodeDigitBase64URL((bits >>> 6) & 0x3f);
+		buf[bufLen++] = Base64Codec.encodeDigitBase64URL(bits & 0x3f);
+	}
+
+
+	/**
+	 * Ensures the stream isn't finished.
+	 */
+	private void ensureNotFinished()
+		throws IOException {
+
+		if (finished) {
+			throw new IOException("The Base64URL output stream is finished");
+		}
+	}
+
+
+	/**
+	 * Writes out the buffered and the final characters, without closing
+	 * the underlying stream. No more bytes can be written after that.
+	 *
+	 * @throws IOException If an I/O exception occurred.
+	 */
+	public void finish()
+		throws IOException {
+
+		if (finished) {
+			return;
+		}
+
+		finished = true;
+
+		if (pendingCount == 1) {
+			out.write(buf, 0, bufLen);
+			out.write(Base64Codec.encodeDigitBase64URL((pending >>> 2) & 0x3f));
+			out.write(Base64Codec.encodeDigitBase64URL((pending << 4) & 0x3f));
+		} else if (pendingCount == 2) {
+			out.write(buf, 0, bufLen);
+			out.write(Base64Codec.encodeDigitBase64URL((pending >>> 10) & 0x3f));
+			out.write(Base64Codec.encodeDigitBase64URL((pending >>> 4) & 0x3f));
+			out.write(Base64Codec.encodeDigitBase64URL((pending << 2) & 0x3f));
+		} else {
+			out.write(buf, 0, bufLen);
+		}
+
+		bufLen = 0;
+		out.flush();
+	}
+
+
+	/**
+	 * Flushes the encoded complete quads. Pending bytes which don't form
+	 * a complete quad yet are written out on {@link #finish()}.
+	 *
+	 * @throws IOException If an I/O exception occurred.
+	 */
+	@Override
+	public void flush()
+		throws IOException {
+
+		out.write(buf, 0, bufLen);
+		bufLen = 0;
+		out.flush();
+	}
+
+
+	@Override
+	public void close()
+		throws IOException {
+
+		try {
+			finish();
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -26,6 +26,7 @@ import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLSocketFactory;
 
@@ -35,12 +36,24 @@ import net.jcip.annotations.ThreadSafe;
 /**
  * The default retriever of resources specified by URL. Provides setting of a
  * HTTP proxy, HTTP connect and read timeouts as well as a size limit of the
- * retrieved entity. Caching header directives are not honoured.
+ * retrieved entity.
+ *
+ * <p>Conditional requests can be enabled with
+ * {@link #setUsesConditionalRequests}. The retriever then remembers the
+ * {@code ETag} and {@code Last-Modified} validators and the content of the
+ * last retrieved resource for each URL, and sends them back in the
+ * {@code If-None-Match} and {@code If-Modified-Since} request headers. An
+ * HTTP 304 (Not Modified) response returns the remembered content, with
+ * {@link Resource#isNotModified()} set to {@code true}.
+ *
+ * <p>The {@code ETag}, {@code Last-Modified} and {@code Cache-Control:
+ * max-age} response headers are made available in the returned
+ * {@link Resource}, other caching header directives are not honoured.
  *
  * @author Vladimir Dzhuvinov
  * @author Artun Subasi
  * @author Imre Paladji
- * @version 2020-12-14
+ * @version 2022-06-08
  */
 @ThreadSafe
 public class DefaultResourceRetriever extends AbstractRestrictedResourceRetriever implements RestrictedResourceRetriever {
@@ -67,6 +80,18 @@ public class DefaultResourceRetriever extends AbstractRestrictedResourceRetrieve
 	private Proxy proxy;
 
 
+	/**
+	 * If {@code true} conditional requests are made.
+	 */
+	private volatile boolean conditionalRequests;
+
+
+	/**
+	 * The last retrieved resources with validators, by URL.
+	 */
+	private final Map<String, Resource> validatedResources = new ConcurrentHashMap<>();
+
+
 	/**
 	 * Creates a new resource retriever. The HTTP timeouts and entity size
 	 * limit are set to zero (infinite).
@@ -230,10 +255,45 @@ public class DefaultResourceRetriever extends AbstractRestrictedResourceRetrieve
 	}
 
 
+	/**
+	 * Returns {@code true} if conditional requests are made, using the
+	 * {@code ETag} and {@code Last-Modified} validators of the last
+	 * retrieved resource.
+	 *
+	 * @return {@code true} if conditional requests are made.
+	 */
+	public boolean usesConditionalRequests() {
+
+		return conditionalRequests;
+	}
+
+
+	/**
+	 * Controls the making of conditional requests, using the {@code ETag}
+	 * and {@code Last-Modified} validators of the last retrieved
+	 * resource. Disabling conditional requests discards the remembered
+	 * resources.
+	 *
+	 * @param conditionalRequests If {@code true} conditional requests are
+	 *                            made.
+	 */
+	public void setUsesConditionalRequests(final boolean conditionalRequests) {
+
+		this.conditionalRequests = conditionalRequests;
+
+		if (! conditionalRequests) {
+			validatedResources.clear();
+		}
+	}
+
+
 	@Override
 	public Resource retrieveResource(final URL url)
 		throws IOException {
 
+		final String urlString = url.toString();
+		final Resource validatedResource = conditionalRequests ? validatedResources.get(urlString) : null;
+
 		HttpURLConnection con = null;
 		try {
 			con = openConnection(url);
@@ -253,6 +313,26 @@ public class DefaultResourceRetriever extends AbstractRestrictedResourceRetrieve
 				}
 			}
 
+			if (validatedResource != null) {
+				if (validatedResource.getETag() != null) {
+					con.setRequestProperty("If-None-Match", validatedResource.getETag());
+				}
+				if (validatedResource.getLastModified() != null) {
+					con.setRequestProperty("If-Modified-Since", validatedResource.getLastModified());
+				}
+				
+				if (con.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+					long maxAge = parseMaxAge(con.getHeaderField("Cache-Control"));
+					return new Resource(
+						validatedResource.getContent(),
+						validatedResource.getContentType(),
+						validatedResource.getETag(),
+						validatedResource.getLastModified(),
+						maxAge > -1 ? maxAge : validatedResource.getMaxAge(),
+						true);
+				}
+			}
+
 			final String content;
 			try (InputStream inputStream = getInputStream(con, getSizeLimit())) {
 				content = IOUtils.readInputStreamToString(inputStream, StandardCharset.UTF_8);
@@ -267,7 +347,23 @@ public class DefaultResourceRetriever extends AbstractRestrictedResourceRetrieve
 				throw new IOException("HTTP " + statusCode + ": " + statusMessage);
 			}
 
-			return new Resource(content, con.getContentType());
+			final Resource resource = new Resource(
+				content,
+				con.getContentType(),
+				con.getHeaderField("ETag"),
+				con.getHeaderField("Last-Modified"),
+				parseMaxAge(con.getHeaderField("Cache-Control")),
+				false);
+
+			if (conditionalRequests) {
+				if (resource.getETag() != null || resource.getLastModified() != null) {
+					validatedResources.put(urlString, resource);
+				} else {
+					validatedResources.remove(urlString);
+				}
+			}
+
+			return resource;
 
 		} catch (ClassCastException e) {
 			throw new IOException("Couldn't open HTTP(S) connection: " + e.getMessage(), e);
@@ -306,4 +402,37 @@ public class DefaultResourceRetriever extends AbstractRestrictedResourceRetrieve
 
 		return sizeLimit > 0 ? new BoundedInputStream(inputStream, getSizeLimit()) : inputStream;
 	}
+
+
+	/**
+	 * Parses the max-age directive of a {@code Cache-Control} header.
+	 *
+	 * @param cacheControl The {@code Cache-Control} header value,
+	 *                     {@code null} if not specified.
+	 *
+	 * @return The max-age, in seconds, negative if not specified or
+	 *         invalid.
+	 */
+	static long parseMaxAge(final String cacheControl) {
+
+		if (cacheControl == null) {
+			return -1L;
+		}
+
+		for (String directive: cacheControl.split(",")) {
+
+			String[] parts = directive.trim().split("=", 2);
+
+			if (parts.length == 2 && "max-age".equalsIgnoreCase(parts[0].trim())) {
+				try {
+					long maxAge = Long.parseLong(parts[1].trim().replace("\"", ""));
+					return maxAge >= 0 ? maxAge : -1L;
+				} catch (NumberFormatException e) {
+					return -1L;
+				}
+			}
+		}
+
+		return -1L;
+	}
 }
@@ -1,7 +1,7 @@
 /*
  * nimbus-jose-jwt
  *
- * Copyright 2012-2016, Connect2id Ltd.
+ * Copyright 2012-2022, Connect2id Ltd.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
  * this file except in compliance with the License. You may obtain a copy of the
@@ -14,24 +14,31 @@
  * CONDITIONS OF ANY KIND, either express or implied. See the License for the
  * specific language governing permissions and limitations under the License.
  */
-
 package com.nimbusds.jose.util;
 
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.InflaterInputStream;
 import java.util.zip.Inflater;
 
 
 /**
  * Deflate (RFC 1951) utilities.
  *
+ * <p>The {@link Deflater} and {@link Inflater} instances are reset and reused
+ * across calls, up to a bounded number kept in a pool, to avoid allocating
+ * the native zlib state for each compressed JWE.
+ *
+ * <p>The decompressed length is limited to
+ * {@link #DEFAULT_MAX_DECOMPRESSED_LENGTH 10 MiB} by default, to protect
+ * against decompression bombs. The limit is enforced while inflating.
+ *
  * @author Vladimir Dzhuvinov
- * @version 2013-04-16
+ * @version 2022-06-09
  */
 public class DeflateUtils {
 
@@ -44,6 +51,63 @@ public class DeflateUtils {
 	private static final boolean NOWRAP = true;
 
 
+	/**
+	 * The default maximum decompressed length, in bytes (10 MiB).
+	 */
+	public static final int DEFAULT_MAX_DECOMPRESSED_LENGTH = 10 * 1024 * 1024;
+
+
+	/**
+	 * The maximum number of pooled deflaters and inflaters, each.
+	 */
+	private static final int POOL_SIZE = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+
+	/**
+	 * The pooled deflaters.
+	 */
+	private static final BlockingQueue<Deflater> DEFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+
+
+	/**
+	 * The pooled inflaters.
+	 */
+	private static final BlockingQueue<Inflater> INFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+
+
+	/**
+	 * The maximum decompressed length, in bytes.
+	 */
+	private static volatile int maxDecompressedLength = DEFAULT_MAX_DECOMPRESSED_LENGTH;
+
+
+	/**
+	 * Returns the maximum decompressed length for
+	 * {@link #decompress(byte[])}.
+	 *
+	 * @return The maximum decompressed length, in bytes.
+	 */
+	public static int getMaxDecompressedLength() {
+		return maxDecompressedLength;
+	}
+
+
+	/**
+	 * Sets the maximum decompressed length for
+	 * {@link #decompress(byte[])}, applies to the decryption of all
+	 * compressed JWEs.
+	 *
+	 * @param maxLength The maximum decompressed length, in bytes. Must
+	 *                  be positive.
+	 */
+	public static void setMaxDecompressedLength(final int maxLength) {
+		if (maxLength < 1) {
+			throw new IllegalArgumentException("The maximum decompressed length must be positive");
+		}
+		maxDecompressedLength = maxLength;
+	}
+
+
 	/**
 	 * Compresses the specified byte array according to the DEFLATE 
 	 * specification (RFC 1951).
@@ -57,68 +121,194 @@ public class DeflateUtils {
 	public static byte[] compress(final byte[] bytes)
 		throws IOException {
 
-		ByteArrayOutputStream out = new ByteArrayOutputStream();
-
+		Deflater deflater = DEFLATERS.poll();
+		if (deflater == null) {
+			deflater = new Deflater(Deflater.DEFLATED, NOWRAP);
+		}
 
-		Deflater deflater = null;
-		DeflaterOutputStream def = null;
+		boolean reusable = false;
 		try {
-			deflater = new Deflater(Deflater.DEFLATED, NOWRAP);
-			def = new DeflaterOutputStream(out, deflater);
-			def.write(bytes);
-		} finally {
-			if(def != null) {
-				def.close();
-			}
-			if(deflater != null) {
-				deflater.end();
+			deflater.setInput(bytes);
+			deflater.finish();
+
+			// The zlib deflateBound for raw deflate, a single pass
+			// is thus sufficient
+			byte[] out = new byte[bytes.length + (bytes.length >> 12) + (bytes.length >> 14) + (bytes.length >> 25) + 13];
+			int len = 0;
+
+			while (! deflater.finished()) {
+				if (len == out.length) {
+					out = Arrays.copyOf(out, grow(len, Integer.MAX_VALUE));
+				}
+				len += deflater.deflate(out, len, out.length - len);
 			}
-		}
 
-		return out.toByteArray();
+			reusable = true;
+			return len == out.length ? out : Arrays.copyOf(out, len);
+
+		} finally {
+			release(deflater, reusable);
+		}
 	}
 
 
 	/**
 	 * Decompresses the specified byte array according to the DEFLATE
-	 * specification (RFC 1951).
+	 * specification (RFC 1951). The decompressed length is limited to
+	 * {@link #getMaxDecompressedLength()}.
 	 *
 	 * @param bytes The byte array to decompress. Must not be {@code null}.
 	 *
 	 * @return The decompressed bytes.
 	 *
-	 * @throws IOException If decompression failed.
+	 * @throws IOException If decompression failed or the decompressed
+	 *                     length exceeds the limit.
 	 */
 	public static byte[] decompress(final byte[] bytes)
-			throws IOException {
+		throws IOException {
 
-		Inflater inflater = null;
-		InflaterInputStream inf = null;
-		try {
+		return decompress(bytes, maxDecompressedLength);
+	}
+
+
+	/**
+	 * Decompresses the specified byte array according to the DEFLATE
+	 * specification (RFC 1951).
+	 *
+	 * @param bytes     The byte array to decompress. Must not be
+	 *                  {@code null}.
+	 * @param maxLength The maximum decompressed length, in bytes. Must be
+	 *                  positive.
+	 *
+	 * @return The decompressed bytes.
+	 *
+	 * @throws IOException If decompression failed or the decompressed
+	 *                     length exceeds the limit.
+	 */
+	public static byte[] decompress(final byte[] bytes, final int maxLength)
+		throws IOException {
+
+		if (maxLength < 1) {
+			throw new IllegalArgumentException("The maximum decompressed length must be positive");
+		}
+
+		Inflater inflater = INFLATERS.poll();
+		if (inflater == null) {
 			inflater = new Inflater(NOWRAP);
-			inf = new InflaterInputStream(new ByteArrayInputStream(bytes), inflater);
+		}
 
-			ByteArrayOutputStream out = new ByteArrayOutputStream();
+		boolean reusable = false;
+		try {
+			inflater.setInput(bytes);
 
-			// Transfer bytes from the compressed array to the output
-			byte[] buf = new byte[1024];
+			// Typical text compresses 3 to 5 times
+			byte[] out = new byte[(int) Math.min(maxLength, Math.max(64L, 4L * bytes.length))];
+			int len = 0;
 
-			int len;
+			while (! inflater.finished()) {
 
-			while ((len = inf.read(buf)) > 0) {
+				if (len == out.length) {
+					if (len == maxLength) {
+						// Any further output exceeds the limit
+						if (inflater.inflate(new byte[1]) > 0) {
+							throw new IOException("The decompressed length exceeds the maximum of " + maxLength + " bytes");
+						}
+						checkProgress(inflater);
+						continue;
+					}
+					out = Arrays.copyOf(out, grow(len, maxLength));
+				}
 
-				out.write(buf, 0, len);
+				int n = inflater.inflate(out, len, out.length - len);
+				if (n == 0) {
+					checkProgress(inflater);
+				}
+				len += n;
 			}
 
-			return out.toByteArray();
+			reusable = true;
+			return len == out.length ? out : Arrays.copyOf(out, len);
+
+		} catch (DataFormatException e) {
+			throw new IOException(e.getMessage(), e);
 		} finally {
-			if(inf != null) {
-				inf.close();
+			release(inflater, reusable);
+		}
+	}
+
+
+	/**
+	 * Checks an inflater which produced no output can make progress.
+	 *
+	 * @param inflater The inflater.
+	 *
+	 * @throws IOException If the input is truncated or requires a preset
+	 *                     dictionary.
+	 */
+	private static void checkProgress(final Inflater inflater)
+		throws IOException {
+
+		if (inflater.finished()) {
+			return;
+		}
+		if (inflater.needsDictionary()) {
+			throw new IOException("Unsupported preset dictionary");
+		}
+		if (inflater.needsInput()) {
+			throw new IOException("Unexpected end of DEFLATE input");
+		}
+	}
+
+
+	/**
+	 * Computes the new size of a growing buffer.
+	 *
+	 * @param length    The current length.
+	 * @param maxLength The maximum length.
+	 *
+	 * @return The new length.
+	 */
+	private static int grow(final int length, final int maxLength) {
+
+		return (int) Math.min(maxLength, Math.max(64L, 2L * length));
+	}
+
+
+	/**
+	 * Returns the specified deflater to the pool, or releases its native
+	 * resources if not reusable or the pool is full.
+	 *
+	 * @param deflater The deflater.
+	 * @param reusable {@code true} if the deflater completed normally.
+	 */
+	private static void release(final Deflater deflater, final boolean reusable) {
+
+		if (reusable) {
+			deflater.reset();
+			if (DEFLATERS.offer(deflater)) {
+				return;
 			}
-			if(inflater != null) {
-				inflater.end();
+		}
+		deflater.end();
+	}
+
+
+	/**
+	 * Returns the specified inflater to the pool, or releases its native
+	 * resources if not reusable or the pool is full.
+	 *
+	 * @param inflater The inflater.
+	 * @param reusable {@code true} if the inflater completed normally.
+	 */
+	private static void release(final Inflater inflater, final boolean reusable) {
+
+		if (reusable) {
+			inflater.reset();
+			if (INFLATERS.offer(inflater)) {
+				return;
 			}
 		}
+		inflater.end();
 	}
 
 
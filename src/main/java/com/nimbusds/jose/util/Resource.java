@@ -22,7 +22,10 @@ import net.jcip.annotations.Immutable;
 
 
 /**
- * Resource with optional associated content type.
+ * Resource with optional associated content type and HTTP caching metadata.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-08
  */
 @Immutable
 public class Resource {
@@ -40,6 +43,30 @@ public class Resource {
 	private final String contentType;
 
 
+	/**
+	 * The entity tag, {@code null} if not specified.
+	 */
+	private final String eTag;
+
+
+	/**
+	 * The last modification date, {@code null} if not specified.
+	 */
+	private final String lastModified;
+
+
+	/**
+	 * The maximum age, in seconds, negative if not specified.
+	 */
+	private final long maxAge;
+
+
+	/**
+	 * {@code true} if the resource was found not modified.
+	 */
+	private final boolean notModified;
+
+
 	/**
 	 * Creates a new resource with optional associated content type.
 	 *
@@ -50,12 +77,45 @@ public class Resource {
 	 */
 	public Resource(final String content, final String contentType) {
 
+		this(content, contentType, null, null, -1L, false);
+	}
+
+
+	/**
+	 * Creates a new resource with optional associated content type and
+	 * HTTP caching metadata.
+	 *
+	 * @param content      The resource content, empty string if none.
+	 *                     Must not be {@code null}.
+	 * @param contentType  The resource content type, {@code null} if not
+	 *                     specified.
+	 * @param eTag         The entity tag (ETag), {@code null} if not
+	 *                     specified.
+	 * @param lastModified The last modification date (Last-Modified), as
+	 *                     received, {@code null} if not specified.
+	 * @param maxAge       The maximum age (Cache-Control: max-age), in
+	 *                     seconds, negative if not specified.
+	 * @param notModified  {@code true} if the resource was found not
+	 *                     modified since the previous retrieval, in which
+	 *                     case the content is that of the previous
+	 *                     retrieval.
+	 */
+	public Resource(final String content,
+			final String contentType,
+			final String eTag,
+			final String lastModified,
+			final long maxAge,
+			final boolean notModified) {
+
 		if (content == null) {
 			throw new IllegalArgumentException("The resource content must not be null");
 		}
-
 		this.content = content;
 		this.contentType = contentType;
+		this.eTag = eTag;
+		this.lastModified = lastModified;
+		this.maxAge = maxAge;
+		this.notModified = notModified;
 	}
 
 
@@ -79,4 +139,51 @@ public class Resource {
 
 		return contentType;
 	}
+
+
+	/**
+	 * Gets the entity tag (ETag) of this resource.
+	 *
+	 * @return The entity tag, {@code null} if not specified.
+	 */
+	public String getETag() {
+
+		return eTag;
+	}
+
+
+	/**
+	 * Gets the last modification date (Last-Modified) of this resource,
+	 * as received.
+	 *
+	 * @return The last modification date, {@code null} if not specified.
+	 */
+	public String getLastModified() {
+
+		return lastModified;
+	}
+
+
+	/**
+	 * Gets the maximum age (Cache-Control: max-age) of this resource.
+	 *
+	 * @return The maximum age, in seconds, negative if not specified.
+	 */
+	public long getMaxAge() {
+
+		return maxAge;
+	}
+
+
+	/**
+	 * Returns {@code true} if this resource was found not modified since
+	 * the previous retrieval (HTTP 304), in which case the content is
+	 * that of the previous retrieval.
+	 *
+	 * @return {@code true} if not modified.
+	 */
+	public boolean isNotModified() {
+
+		return notModified;
+	}
 }
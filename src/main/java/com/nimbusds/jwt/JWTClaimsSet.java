@@ -18,6 +18,8 @@
 package com.nimbusds.jwt;
 
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -73,7 +75,7 @@ import com.nimbusds.jose.util.JSONObjectUtils;
  *
  * @author Vladimir Dzhuvinov
  * @author Justin Richer
- * @version 2021-02-22
+ * @version 2022-06-09
  */
 @Immutable
 public final class JWTClaimsSet implements Serializable {
@@ -82,6 +84,13 @@ public final class JWTClaimsSet implements Serializable {
 	private static final long serialVersionUID = 1L;
 
 
+	/**
+	 * Value returned by the epoch second getters for a time claim that
+	 * isn't specified ({@link Long#MIN_VALUE}).
+	 */
+	public static final long UNSPECIFIED_TIME = Long.MIN_VALUE;
+
+
 	/**
 	 * The registered claim names.
 	 */
@@ -146,7 +155,7 @@ public final class JWTClaimsSet implements Serializable {
 		 */
 		public Builder(final JWTClaimsSet jwtClaimsSet) {
 
-			claims.putAll(jwtClaimsSet.claims);
+			claims.putAll(jwtClaimsSet.getClaimsMap());
 		}
 
 
@@ -318,9 +327,16 @@ public final class JWTClaimsSet implements Serializable {
 
 
 	/**
-	 * The claims map.
+	 * The claims map, {@code null} if not materialised yet from the
+	 * parsed claims.
 	 */
-	private final Map<String,Object> claims = new LinkedHashMap<>();
+	private volatile Map<String,Object> claims;
+
+
+	/**
+	 * The claims output by the streaming parser, {@code null} if none.
+	 */
+	private final transient ParsedClaims parsedClaims;
 
 
 	/**
@@ -330,7 +346,37 @@ public final class JWTClaimsSet implements Serializable {
 	 */
 	private JWTClaimsSet(final Map<String,Object> claims) {
 		
-		this.claims.putAll(claims);
+		this.claims = new LinkedHashMap<>(claims);
+		parsedClaims = null;
+	}
+
+
+	/**
+	 * Creates a new JWT claims set from the output of the streaming
+	 * parser. The claims map is materialised on demand.
+	 *
+	 * @param parsedClaims The parsed claims. Must not be {@code null}.
+	 */
+	private JWTClaimsSet(final ParsedClaims parsedClaims) {
+
+		this.parsedClaims = parsedClaims;
+	}
+
+
+	/**
+	 * Returns the claims map, materialising it from the parsed claims if
+	 * necessary.
+	 *
+	 * @return The claims map.
+	 */
+	private Map<String,Object> getClaimsMap() {
+
+		Map<String,Object> map = claims;
+		if (map == null) {
+			map = parsedClaims.toMap();
+			claims = map;
+		}
+		return map;
 	}
 
 
@@ -444,6 +490,80 @@ public final class JWTClaimsSet implements Serializable {
 	}
 
 
+	/**
+	 * Gets the expiration time ({@code exp}) claim as a Unix epoch time.
+	 * Unlike {@link #getExpirationTime()} no {@link Date} is created for
+	 * a parsed claims set.
+	 *
+	 * @return The expiration time, in seconds since the Unix epoch,
+	 *         {@link #UNSPECIFIED_TIME} if not specified.
+	 */
+	public long getExpirationTimeEpochSecond() {
+
+		Map<String,Object> map = claims;
+		if (map == null) {
+			return parsedClaims.hasExp ? parsedClaims.exp : UNSPECIFIED_TIME;
+		}
+		return toEpochSecond(map.get(JWTClaimNames.EXPIRATION_TIME));
+	}
+
+
+	/**
+	 * Gets the not-before ({@code nbf}) claim as a Unix epoch time.
+	 * Unlike {@link #getNotBeforeTime()} no {@link Date} is created for a
+	 * parsed claims set.
+	 *
+	 * @return The not-before time, in seconds since the Unix epoch,
+	 *         {@link #UNSPECIFIED_TIME} if not specified.
+	 */
+	public long getNotBeforeTimeEpochSecond() {
+
+		Map<String,Object> map = claims;
+		if (map == null) {
+			return parsedClaims.hasNbf ? parsedClaims.nbf : UNSPECIFIED_TIME;
+		}
+		return toEpochSecond(map.get(JWTClaimNames.NOT_BEFORE));
+	}
+
+
+	/**
+	 * Gets the issued-at ({@code iat}) claim as a Unix epoch time. Unlike
+	 * {@link #getIssueTime()} no {@link Date} is created for a parsed
+	 * claims set.
+	 *
+	 * @return The issued-at time, in seconds since the Unix epoch,
+	 *         {@link #UNSPECIFIED_TIME} if not specified.
+	 */
+	public long getIssueTimeEpochSecond() {
+
+		Map<String,Object> map = claims;
+		if (map == null) {
+			return parsedClaims.hasIat ? parsedClaims.iat : UNSPECIFIED_TIME;
+		}
+		return toEpochSecond(map.get(JWTClaimNames.ISSUED_AT));
+	}
+
+
+	/**
+	 * Converts the specified date claim value to a Unix epoch time.
+	 *
+	 * @param value The claim value, {@code null} if not specified.
+	 *
+	 * @return The time, in seconds since the Unix epoch,
+	 *         {@link #UNSPECIFIED_TIME} if not specified or not a date.
+	 */
+	private static long toEpochSecond(final Object value) {
+
+		if (value instanceof Date) {
+			return DateUtils.toSecondsSinceEpoch((Date)value);
+		} else if (value instanceof Number) {
+			return ((Number)value).longValue();
+		} else {
+			return UNSPECIFIED_TIME;
+		}
+	}
+
+
 	/**
 	 * Gets the JWT ID ({@code jti}) claim.
 	 *
@@ -459,6 +579,26 @@ public final class JWTClaimsSet implements Serializable {
 	}
 
 
+	/**
+	 * Returns {@code true} if the specified claim (registered or custom)
+	 * is present, including with a {@code null} value. Equivalent to
+	 * {@code getClaims().containsKey(name)}, without materialising the
+	 * claims map of a parsed claims set.
+	 *
+	 * @param name The name of the claim. Must not be {@code null}.
+	 *
+	 * @return {@code true} if the claim is present, else {@code false}.
+	 */
+	public boolean containsClaim(final String name) {
+
+		Map<String,Object> map = claims;
+		if (map == null) {
+			return parsedClaims.contains(name);
+		}
+		return map.containsKey(name);
+	}
+
+
 	/**
 	 * Gets the specified claim (registered or custom).
 	 *
@@ -468,7 +608,11 @@ public final class JWTClaimsSet implements Serializable {
 	 */
 	public Object getClaim(final String name) {
 
-		return claims.get(name);
+		Map<String,Object> map = claims;
+		if (map == null) {
+			return parsedClaims.getValue(name);
+		}
+		return map.get(name);
 	}
 
 
@@ -791,7 +935,7 @@ public final class JWTClaimsSet implements Serializable {
 	 */
 	public Map<String,Object> getClaims() {
 
-		return Collections.unmodifiableMap(claims);
+		return Collections.unmodifiableMap(getClaimsMap());
 	}
 	
 	
@@ -833,7 +977,7 @@ public final class JWTClaimsSet implements Serializable {
 		
 		Map<String, Object> o = JSONObjectUtils.newJSONObject();
 		
-		for (Map.Entry<String,Object> claim: claims.entrySet()) {
+		for (Map.Entry<String,Object> claim: getClaimsMap().entrySet()) {
 			
 			if (claim.getValue() instanceof Date) {
 				
@@ -988,21 +1132,83 @@ public final class JWTClaimsSet implements Serializable {
 	public static JWTClaimsSet parse(final String s)
 		throws ParseException {
 
+		ParsedClaims parsedClaims = JWTClaimsSetParser.parse(s);
+
+		if (parsedClaims != null) {
+			return new JWTClaimsSet(parsedClaims);
+		}
+
+		// Invalid JSON or claims, or input not handled by the
+		// streaming parser
 		return parse(JSONObjectUtils.parse(s));
 	}
 
 	
+	/**
+	 * Parses a JSON Web Token (JWT) claims set from the specified JOSE
+	 * object payload. Payloads which aren't already a JSON object are
+	 * parsed with the streaming parser.
+	 *
+	 * @param payload              The payload. Must not be {@code null}.
+	 * @param notJSONObjectMessage The exception message if the payload
+	 *                             is not a JSON object.
+	 *
+	 * @return The JWT claims set.
+	 *
+	 * @throws ParseException If the payload is not a JSON object or
+	 *                        doesn't represent a valid JWT claims set.
+	 */
+	static JWTClaimsSet parse(final Payload payload, final String notJSONObjectMessage)
+		throws ParseException {
+
+		if (payload.getOrigin() != Payload.Origin.JSON) {
+
+			String s = payload.toString();
+
+			if (s != null) {
+				ParsedClaims parsedClaims = JWTClaimsSetParser.parse(s);
+				if (parsedClaims != null) {
+					return new JWTClaimsSet(parsedClaims);
+				}
+			}
+		}
+
+		Map<String, Object> json = payload.toJSONObject();
+
+		if (json == null) {
+			throw new ParseException(notJSONObjectMessage, 0);
+		}
+
+		return parse(json);
+	}
+
+	
+	/**
+	 * Materialises the claims map before serialisation.
+	 *
+	 * @param out The object output stream.
+	 *
+	 * @throws IOException On a stream exception.
+	 */
+	private void writeObject(final ObjectOutputStream out)
+		throws IOException {
+
+		getClaimsMap();
+		out.defaultWriteObject();
+	}
+
+	
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
 		if (!(o instanceof JWTClaimsSet)) return false;
 		JWTClaimsSet that = (JWTClaimsSet) o;
-		return Objects.equals(claims, that.claims);
+		return Objects.equals(getClaimsMap(), that.getClaimsMap());
 	}
 
 	
 	@Override
 	public int hashCode() {
-		return Objects.hash(claims);
+		return Objects.hash(getClaimsMap());
 	}
 }
@@ -0,0 +1,737 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jwt;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.minidev.json.parser.JSONParser;
+
+
+/**
+ * Single-pass parser of JSON Web Token (JWT) claims sets. Writes the
+ * registered claims straight into typed fields and records the offsets of
+ * the custom claim values for their lazy materialisation, without creating
+ * an intermediate JSON object map.
+ *
+ * <p>Accepts strict JSON only. Returns {@code null} for any input that
+ * isn't handled here, such as invalid JSON, registered claims of an
+ * unexpected type, non-integer dates or deeply nested values, so that the
+ * caller can fall back to the JSON object map parsing and its error
+ * reporting.
+ *
+ * <p>Instances are not thread-safe, use one per parsed string.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+final class JWTClaimsSetParser {
+
+
+	/**
+	 * The maximum accepted nesting depth of custom claim values.
+	 */
+	static final int MAX_NESTING_DEPTH = 32;
+
+
+	/**
+	 * Marks the end of the input.
+	 */
+	private static final int EOF = -1;
+
+
+	/**
+	 * The maximum number of digits of a date claim, to prevent overflow.
+	 */
+	private static final int MAX_DATE_DIGITS = 18;
+
+
+	/**
+	 * The registered claim names.
+	 */
+	private static final String[] REGISTERED_NAMES = {
+		JWTClaimNames.ISSUER,
+		JWTClaimNames.SUBJECT,
+		JWTClaimNames.AUDIENCE,
+		JWTClaimNames.EXPIRATION_TIME,
+		JWTClaimNames.NOT_BEFORE,
+		JWTClaimNames.ISSUED_AT,
+		JWTClaimNames.JWT_ID
+	};
+
+
+	/**
+	 * The parsed string.
+	 */
+	private final String s;
+
+
+	/**
+	 * The current position.
+	 */
+	private int pos;
+
+
+	private String[] names = new String[16];
+
+
+	private int[] starts = new int[16];
+
+
+	private int[] ends = new int[16];
+
+
+	private int count;
+
+
+	private String iss, sub, jti;
+
+
+	private List<String> aud;
+
+
+	private long exp, nbf, iat;
+
+
+	private boolean hasExp, hasNbf, hasIat;
+
+
+	/**
+	 * Creates a new parser.
+	 *
+	 * @param s The JSON object string to parse.
+	 */
+	private JWTClaimsSetParser(final String s) {
+		this.s = s;
+	}
+
+
+	/**
+	 * Parses the specified JSON object string.
+	 *
+	 * @param s The JSON object string to parse. Must not be {@code null}.
+	 *
+	 * @return The parsed claims, {@code null} if the string isn't handled
+	 *         by this parser.
+	 */
+	static ParsedClaims parse(final String s) {
+
+		return new JWTClaimsSetParser(s).parseObject();
+	}
+
+
+	private int peek() {
+
+		return pos < s.length() ? s.charAt(pos) : EOF;
+	}
+
+
+	private void skipWhitespace() {
+
+		while (pos < s.length()) {
+			char c = s.charAt(pos);
+			if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+				return;
+			}
+			pos++;
+		}
+	}
+
+
+	private boolean consume(final char c) {
+
+		if (peek() != c) {
+			return false;
+		}
+		pos++;
+		return true;
+	}
+
+
+	private ParsedClaims parseObject() {
+
+		skipWhitespace();
+
+		if (! consume('{')) {
+			return null;
+		}
+
+		skipWhitespace();
+
+		if (! consume('}')) {
+			while (true) {
+				skipWhitespace();
+				if (! parseMember()) {
+					return null;
+				}
+				skipWhitespace();
+				if (consume(',')) {
+					continue;
+				}
+				if (consume('}')) {
+					break;
+				}
+				return null;
+			}
+		}
+
+		skipWhitespace();
+
+		if (pos != s.length()) {
+			return null;
+		}
+
+		return new ParsedClaims(s, names, starts, ends, count,
+			iss, sub, jti, aud,
+			exp, hasExp, nbf, hasNbf, iat, hasIat);
+	}
+
+
+	private boolean parseMember() {
+
+		if (peek() != '"') {
+			return false;
+		}
+
+		final int keyStart = pos + 1;
+		if (! skipString()) {
+			return false;
+		}
+		final int keyEnd = pos - 1;
+
+		skipWhitespace();
+		if (! consume(':')) {
+			return false;
+		}
+		skipWhitespace();
+
+		final String registeredName = registeredName(keyStart, keyEnd);
+
+		if (registeredName == null) {
+			final String name = decodeString(s, keyStart, keyEnd);
+			if (JWTClaimsSet.getRegisteredNames().contains(name)) {
+				// Escaped registered name
+				return false;
+			}
+			final int valueStart = pos;
+			if (! skipValue(0)) {
+				return false;
+			}
+			record(name, valueStart, pos);
+			return true;
+		}
+
+		switch (registeredName) {
+			case JWTClaimNames.ISSUER:
+			case JWTClaimNames.SUBJECT:
+			case JWTClaimNames.JWT_ID:
+				String value = null;
+				if (! consumeLiteral("null")) {
+					value = parseString();
+					if (value == null) {
+						return false;
+					}
+				}
+				if (JWTClaimNames.ISSUER.equals(registeredName)) {
+					iss = value;
+				} else if (JWTClaimNames.SUBJECT.equals(registeredName)) {
+					sub = value;
+				} else {
+					jti = value;
+				}
+				break;
+			case JWTClaimNames.AUDIENCE:
+				if (! parseAudience()) {
+					return false;
+				}
+				break;
+			default:
+				long seconds = parseSeconds();
+				if (seconds == Long.MIN_VALUE) {
+					return false;
+				}
+				if (JWTClaimNames.EXPIRATION_TIME.equals(registeredName)) {
+					exp = seconds;
+					hasExp = true;
+				} else if (JWTClaimNames.NOT_BEFORE.equals(registeredName)) {
+					nbf = seconds;
+					hasNbf = true;
+				} else {
+					iat = seconds;
+					hasIat = true;
+				}
+				break;
+		}
+
+		record(registeredName, ParsedClaims.REGISTERED, ParsedClaims.REGISTERED);
+		return true;
+	}
+
+
+	/**
+	 * Returns the registered claim name for the specified key, without
+	 * creating a string.
+	 *
+	 * @param start The key start, inclusive.
+	 * @param end   The key end, exclusive.
+	 *
+	 * @return The registered claim name, {@code null} if not registered.
+	 */
+	private String registeredName(final int start, final int end) {
+
+		if (end - start != 3) {
+			return null;
+		}
+
+		for (String name: REGISTERED_NAMES) {
+
+			if (s.regionMatches(start, name, 0, 3)) {
+				return name;
+			}
+		}
+
+		return null;
+	}
+
+
+	/**
+	 * Records a claim, the last occurrence of a duplicate name wins.
+	 */
+	private void record(final String name, final int start, final int end) {
+
+		for (int i=0; i < count; i++) {
+			if (names[i].equals(name)) {
+				starts[i] = start;
+				ends[i] = end;
+				return;
+			}
+		}
+
+		if (count == names.length) {
+			names = Arrays.copyOf(names, count * 2);
+			starts = Arrays.copyOf(starts, count * 2);
+			ends = Arrays.copyOf(ends, count * 2);
+		}
+
+		names[count] = name;
+		starts[count] = start;
+		ends[count] = end;
+		count++;
+	}
+
+
+	private boolean parseAudience() {
+
+		if (consumeLiteral("null")) {
+			aud = null;
+			return true;
+		}
+
+		if (peek() == '"') {
+			String value = parseString();
+			if (value == null) {
+				return false;
+			}
+			List<String> list = new ArrayList<>(1);
+			list.add(value);
+			aud = list;
+			return true;
+		}
+
+		if (! consume('[')) {
+			return false;
+		}
+
+		List<String> list = new ArrayList<>();
+		skipWhitespace();
+
+		if (! consume(']')) {
+			while (true) {
+				skipWhitespace();
+				String value = parseString();
+				if (value == null) {
+					return false;
+				}
+				list.add(value);
+				skipWhitespace();
+				if (consume(',')) {
+					continue;
+				}
+				if (consume(']')) {
+					break;
+				}
+				return false;
+			}
+		}
+
+		aud = list;
+		return true;
+	}
+
+
+	/**
+	 * Parses an integer number of seconds.
+	 *
+	 * @return The seconds, {@link Long#MIN_VALUE} if not an integer
+	 *         within range.
+	 */
+	private long parseSeconds() {
+
+		final int start = pos;
+		consume('-');
+		skipDigits();
+
+		final int next = peek();
+		if (next == '.' || next == 'e' || next == 'E') {
+			// Fraction or exponent
+			return Long.MIN_VALUE;
+		}
+
+		return parseInteger(s, start, pos);
+	}
+
+
+	/**
+	 * Parses an integer with up to {@link #MAX_DATE_DIGITS} digits
+	 * spanning the specified range.
+	 *
+	 * @param s     The parsed string.
+	 * @param start The start, inclusive.
+	 * @param end   The end, exclusive.
+	 *
+	 * @return The integer, {@link Long#MIN_VALUE} if the range isn't a
+	 *         valid integer within the limit.
+	 */
+	private static long parseInteger(final String s, final int start, final int end) {
+
+		int i = start;
+		final boolean negative = i < end && s.charAt(i) == '-';
+		if (negative) {
+			i++;
+		}
+
+		final int digits = end - i;
+
+		if (digits == 0 || digits > MAX_DATE_DIGITS) {
+			return Long.MIN_VALUE;
+		}
+
+		if (digits > 1 && s.charAt(i) == '0') {
+			// Leading zero
+			return Long.MIN_VALUE;
+		}
+
+		long value = 0;
+		for (; i < end; i++) {
+			char c = s.charAt(i);
+			if (c < '0' || c > '9') {
+				return Long.MIN_VALUE;
+			}
+			value = value * 10 + (c - '0');
+		}
+
+		return negative ? -value : value;
+	}
+
+
+	private boolean consumeLiteral(final String literal) {
+
+		if (! s.startsWith(literal, pos)) {
+			return false;
+		}
+		pos += literal.length();
+		return true;
+	}
+
+
+	/**
+	 * Parses a string value.
+	 *
+	 * @return The string, {@code null} if invalid.
+	 */
+	private String parseString() {
+
+		if (peek() != '"') {
+			return null;
+		}
+
+		final int start = pos + 1;
+		if (! skipString()) {
+			return null;
+		}
+		return decodeString(s, start, pos - 1);
+	}
+
+
+	/**
+	 * Skips a validated string, the position must be at the opening
+	 * quote. Control characters must be escaped.
+	 *
+	 * @return {@code true} if valid.
+	 */
+	private boolean skipString() {
+
+		pos++; // opening quote
+
+		while (pos < s.length()) {
+
+			char c = s.charAt(pos++);
+
+			if (c == '"') {
+				return true;
+			}
+
+			if (c < 0x20) {
+				return false;
+			}
+
+			if (c == '\\') {
+				if (pos == s.length()) {
+					return false;
+				}
+				switch (s.charAt(pos++)) {
+					case '"': case '\\': case '/':
+					case 'b': case 'f': case 'n': case 'r': case 't':
+						break;
+					case 'u':
+						if (pos + 4 > s.length()) {
+							return false;
+						}
+						for (int i=0; i < 4; i++) {
+							if (! isHexDigit(s.charAt(pos++))) {
+								return false;
+							}
+						}
+						break;
+					default:
+						return false;
+				}
+			}
+		}
+
+		return false;
+	}
+
+
+	/**
+	 * Materialises a validated custom claim value. Strings, literals and
+	 * integers within the long range are decoded here, other values are
+	 * passed to the JSON parser. The value types are the same as for a
+	 * JSON object map.
+	 *
+	 * @param s     The parsed string.
+	 * @param start The value start, inclusive.
+	 * @param end   The value end, exclusive.
+	 *
+	 * @return The value, may be {@code null}.
+	 */
+	static Object parseValue(final String s, final int start, final int end) {
+
+		final char first = s.charAt(start);
+
+		if (first == '"') {
+			return decodeString(s, start + 1, end - 1);
+		}
+
+		if (s.startsWith("true", start)) {
+			return Boolean.TRUE;
+		}
+
+		if (s.startsWith("false", start)) {
+			return Boolean.FALSE;
+		}
+
+		if (s.startsWith("null", start)) {
+			return null;
+		}
+
+		if (first != '{' && first != '[') {
+			long value = parseInteger(s, start, end);
+			if (value != Long.MIN_VALUE) {
+				return value;
+			}
+		}
+
+		try {
+			return new JSONParser(JSONParser.USE_HI_PRECISION_FLOAT | JSONParser.ACCEPT_TAILLING_SPACE)
+				.parse(s.substring(start, end));
+		} catch (net.minidev.json.parser.ParseException e) {
+			// Should never happen, the value was validated
+			throw new IllegalStateException("Invalid JSON: " + e.getMessage(), e);
+		}
+	}
+
+
+	private static boolean isHexDigit(final char c) {
+
+		return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+	}
+
+
+	/**
+	 * Decodes the validated string content between the specified
+	 * offsets.
+	 *
+	 * @param s     The parsed string.
+	 * @param start The start, inclusive.
+	 * @param end   The end, exclusive.
+	 *
+	 * @return The decoded string.
+	 */
+	private static String decodeString(final String s, final int start, final int end) {
+
+		final int firstEscape = s.indexOf('\\', start);
+
+		if (firstEscape < 0 || firstEscape >= end) {
+			return s.substring(start, end);
+		}
+
+		StringBuilder sb = new StringBuilder(end - start);
+		sb.append(s, start, firstEscape);
+
+		int i = firstEscape;
+		while (i < end) {
+			char c = s.charAt(i++);
+			if (c != '\\') {
+				sb.append(c);
+				continue;
+			}
+			c = s.charAt(i++);
+			switch (c) {
+				case 'b': sb.append('\b'); break;
+				case 'f': sb.append('\f'); break;
+				case 'n': sb.append('\n'); break;
+				case 'r': sb.append('\r'); break;
+				case 't': sb.append('\t'); break;
+				case 'u':
+					sb.append((char) Integer.parseInt(s.substring(i, i + 4), 16));
+					i += 4;
+					break;
+				default:
+					sb.append(c); // quote, backslash or slash
+			}
+		}
+
+		return sb.toString();
+	}
+
+
+	/**
+	 * Skips a validated JSON value.
+	 *
+	 * @param depth The current nesting depth.
+	 *
+	 * @return {@code true} if valid.
+	 */
+	private boolean skipValue(final int depth) {
+
+		switch (peek()) {
+			case '"':
+				return skipString();
+			case '{':
+				return skipContainer(depth, '}', true);
+			case '[':
+				return skipContainer(depth, ']', false);
+			case 't':
+				return consumeLiteral("true");
+			case 'f':
+				return consumeLiteral("false");
+			case 'n':
+				return consumeLiteral("null");
+			default:
+				return skipNumber();
+		}
+	}
+
+
+	private boolean skipContainer(final int depth, final char close, final boolean object) {
+
+		if (depth == MAX_NESTING_DEPTH) {
+			return false;
+		}
+
+		pos++; // opening bracket
+		skipWhitespace();
+
+		if (consume(close)) {
+			return true;
+		}
+
+		while (true) {
+			skipWhitespace();
+			if (object) {
+				if (peek() != '"' || ! skipString()) {
+					return false;
+				}
+				skipWhitespace();
+				if (! consume(':')) {
+					return false;
+				}
+				skipWhitespace();
+			}
+			if (! skipValue(depth + 1)) {
+				return false;
+			}
+			skipWhitespace();
+			if (consume(',')) {
+				continue;
+			}
+			return consume(close);
+		}
+	}
+
+
+	private boolean skipNumber() {
+
+		consume('-');
+
+		int digits = skipDigits();
+		if (digits == 0) {
+			return false;
+		}
+		if (digits > 1 && s.charAt(pos - digits) == '0') {
+			// Leading zero
+			return false;
+		}
+
+		if (consume('.') && skipDigits() == 0) {
+			return false;
+		}
+
+		if (consume('e') || consume('E')) {
+			if (! consume('+')) {
+				consume('-');
+			}
+			return skipDigits() > 0;
+		}
+
+		return true;
+	}
+
+
+	private int skipDigits() {
+
+		final int start = pos;
+		while (pos < s.length() && s.charAt(pos) >= '0' && s.charAt(pos) <= '9') {
+			pos++;
+		}
+		return pos - start;
+	}
+}
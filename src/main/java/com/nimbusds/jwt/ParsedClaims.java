@@ -0,0 +1,275 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jwt;
+
+
+import java.util.*;
+
+import net.jcip.annotations.ThreadSafe;
+
+import com.nimbusds.jwt.util.DateUtils;
+
+
+/**
+ * JSON Web Token (JWT) claims set output by the {@link JWTClaimsSetParser}.
+ * The registered claims are kept in typed fields, the date claims as
+ * primitive seconds since the Unix epoch. The custom claims are kept as
+ * offsets into the parsed JSON string and are materialised on first access.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+@ThreadSafe
+final class ParsedClaims {
+
+
+	/**
+	 * Indicates a registered claim in the {@link #starts} array.
+	 */
+	static final int REGISTERED = -1;
+
+
+	/**
+	 * Marks a materialised JSON null custom claim value.
+	 */
+	private static final Object NULL_VALUE = new Object();
+
+
+	/**
+	 * The parsed JSON object string.
+	 */
+	private final String json;
+
+
+	/**
+	 * The claim names, in order of first appearance.
+	 */
+	private final String[] names;
+
+
+	/**
+	 * The start offsets of the custom claim values,
+	 * {@link #REGISTERED} for the registered claims.
+	 */
+	private final int[] starts;
+
+
+	/**
+	 * The end offsets of the custom claim values.
+	 */
+	private final int[] ends;
+
+
+	/**
+	 * The number of claims.
+	 */
+	private final int count;
+
+
+	/**
+	 * The issuer, subject and JWT ID claims, {@code null} if not
+	 * specified or specified as JSON null.
+	 */
+	final String iss, sub, jti;
+
+
+	/**
+	 * The audience claim, {@code null} if not specified or specified as
+	 * JSON null.
+	 */
+	final List<String> aud;
+
+
+	/**
+	 * The expiration time, not-before and issued-at claims, in seconds
+	 * since the Unix epoch, valid only if present.
+	 */
+	final long exp, nbf, iat;
+
+
+	/**
+	 * Presence flags of the expiration time, not-before and issued-at
+	 * claims.
+	 */
+	final boolean hasExp, hasNbf, hasIat;
+
+
+	/**
+	 * The materialised custom claim values, guarded by this object.
+	 */
+	private Object[] values;
+
+
+	/**
+	 * Creates a new parsed claims set.
+	 */
+	ParsedClaims(final String json,
+		     final String[] names,
+		     final int[] starts,
+		     final int[] ends,
+		     final int count,
+		     final String iss,
+		     final String sub,
+		     final String jti,
+		     final List<String> aud,
+		     final long exp, final boolean hasExp,
+		     final long nbf, final boolean hasNbf,
+		     final long iat, final boolean hasIat) {
+
+		this.json = json;
+		this.names = names;
+		this.starts = starts;
+		this.ends = ends;
+		this.count = count;
+		this.iss = iss;
+		this.sub = sub;
+		this.jti = jti;
+		this.aud = aud;
+		this.exp = exp;
+		this.hasExp = hasExp;
+		this.nbf = nbf;
+		this.hasNbf = hasNbf;
+		this.iat = iat;
+		this.hasIat = hasIat;
+	}
+
+
+	/**
+	 * Returns the index of the specified claim.
+	 *
+	 * @param name The claim name.
+	 *
+	 * @return The index, -1 if not found.
+	 */
+	private int indexOf(final String name) {
+
+		for (int i=0; i < count; i++) {
+			if (names[i].equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Returns {@code true} if the specified claim is present.
+	 *
+	 * @param name The claim name. Must not be {@code null}.
+	 *
+	 * @return {@code true} if present, else {@code false}.
+	 */
+	boolean contains(final String name) {
+
+		return indexOf(name) >= 0;
+	}
+
+
+	/**
+	 * Returns the value of the specified claim, with the same types as
+	 * for a claims set parsed from a JSON object map.
+	 *
+	 * @param name The claim name. Must not be {@code null}.
+	 *
+	 * @return The claim value, {@code null} if not specified.
+	 */
+	Object getValue(final String name) {
+
+		final int index = indexOf(name);
+
+		if (index < 0) {
+			return null;
+		}
+
+		return getValue(index);
+	}
+
+
+	/**
+	 * Returns the value of the claim at the specified index.
+	 *
+	 * @param index The claim index.
+	 *
+	 * @return The claim value, may be {@code null}.
+	 */
+	private Object getValue(final int index) {
+
+		if (starts[index] != REGISTERED) {
+			return getCustomValue(index);
+		}
+
+		switch (names[index]) {
+			case JWTClaimNames.ISSUER:
+				return iss;
+			case JWTClaimNames.SUBJECT:
+				return sub;
+			case JWTClaimNames.JWT_ID:
+				return jti;
+			case JWTClaimNames.AUDIENCE:
+				return aud;
+			case JWTClaimNames.EXPIRATION_TIME:
+				return DateUtils.fromSecondsSinceEpoch(exp);
+			case JWTClaimNames.NOT_BEFORE:
+				return DateUtils.fromSecondsSinceEpoch(nbf);
+			case JWTClaimNames.ISSUED_AT:
+				return DateUtils.fromSecondsSinceEpoch(iat);
+			default:
+				return null; // Should never happen
+		}
+	}
+
+
+	/**
+	 * Returns the value of the custom claim at the specified index,
+	 * parsing it on first access.
+	 *
+	 * @param index The claim index.
+	 *
+	 * @return The claim value, may be {@code null}.
+	 */
+	private synchronized Object getCustomValue(final int index) {
+
+		if (values == null) {
+			values = new Object[count];
+		} else if (values[index] != null) {
+			return values[index] == NULL_VALUE ? null : values[index];
+		}
+
+		final Object value = JWTClaimsSetParser.parseValue(json, starts[index], ends[index]);
+
+		values[index] = value != null ? value : NULL_VALUE;
+		return value;
+	}
+
+
+	/**
+	 * Materialises the claims into a map. The iteration order matches
+	 * the order of a claims set parsed from a JSON object map.
+	 *
+	 * @return The claims map.
+	 */
+	Map<String,Object> toMap() {
+
+		// The JSON object map iterates in hash order
+		Map<String,Object> jsonObject = new HashMap<>();
+		for (int i=0; i < count; i++) {
+			jsonObject.put(names[i], getValue(i));
+		}
+		return new LinkedHashMap<>(jsonObject);
+	}
+}
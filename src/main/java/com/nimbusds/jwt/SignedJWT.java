@@ -19,11 +19,10 @@ package com.nimbusds.jwt;
 
 
 import java.text.ParseException;
-import java.util.Map;
 
 import net.jcip.annotations.ThreadSafe;
 
-import com.nimbusds.jose.JOSEObject;
+import com.nimbusds.jose.CompactParts;
 import com.nimbusds.jose.JWSHeader;
 import com.nimbusds.jose.JWSObject;
 import com.nimbusds.jose.Payload;
@@ -34,7 +33,7 @@ import com.nimbusds.jose.util.Base64URL;
  * Signed JSON Web Token (JWT).
  *
  * @author Vladimir Dzhuvinov
- * @version 2021-02-22
+ * @version 2022-06-09
  */
 @ThreadSafe
 public class SignedJWT extends JWSObject implements JWT {
@@ -84,6 +83,22 @@ public class SignedJWT extends JWSObject implements JWT {
 	}
 
 
+	/**
+	 * Creates a new signed JSON Web Token (JWT) from the specified
+	 * compact parts. The state will be
+	 * {@link com.nimbusds.jose.JWSObject.State#SIGNED signed}.
+	 *
+	 * @param parts The compact parts. Must not be {@code null}.
+	 *
+	 * @throws ParseException If parsing of the parts failed.
+	 */
+	private SignedJWT(final CompactParts parts)
+		throws ParseException {
+
+		super(parts);
+	}
+
+
 	@Override
 	public JWTClaimsSet getJWTClaimsSet()
 		throws ParseException {
@@ -92,13 +107,7 @@ public class SignedJWT extends JWSObject implements JWT {
 			return claimsSet;
 		}
 
-		Map<String, Object> json = getPayload().toJSONObject();
-
-		if (json == null) {
-			throw new ParseException("Payload of JWS object is not a valid JSON object", 0);
-		}
-
-		claimsSet = JWTClaimsSet.parse(json);
+		claimsSet = JWTClaimsSet.parse(getPayload(), "Payload of JWS object is not a valid JSON object");
 		return claimsSet;
 	}
 	
@@ -127,12 +136,6 @@ public class SignedJWT extends JWSObject implements JWT {
 	public static SignedJWT parse(final String s)
 		throws ParseException {
 
-		Base64URL[] parts = JOSEObject.split(s);
-
-		if (parts.length != 3) {
-			throw new ParseException("Unexpected number of Base64URL parts, must be three", 0);
-		}
-
-		return new SignedJWT(parts[0], parts[1], parts[2]);
+		return new SignedJWT(CompactParts.parse(s));
 	}
 }
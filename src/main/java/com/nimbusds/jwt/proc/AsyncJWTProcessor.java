@@ -0,0 +1,436 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jwt.proc;
+
+
+import java.security.Key;
+import java.security.PublicKey;
+import java.text.ParseException;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import javax.crypto.SecretKey;
+
+import net.jcip.annotations.ThreadSafe;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.KeyConverter;
+import com.nimbusds.jose.jwk.source.AsyncJWKSource;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.*;
+
+
+/**
+ * Asynchronous processor of {@link SignedJWT signed} and
+ * {@link EncryptedJWT encrypted} JSON Web Tokens (JWTs), for callers such as
+ * event loop threads which must not block.
+ *
+ * <p>For a signed JWT the processing goes in two steps:
+ *
+ * <ol>
+ *     <li>The JWS header "alg" and "typ" are checked in the calling thread,
+ *     then the verification key candidates are selected by the "alg" and
+ *     "kid", in the manner of the
+ *     {@link com.nimbusds.jose.proc.JWSVerificationKeySelector}, from an
+ *     {@link AsyncJWKSource}, such as an
+ *     {@link com.nimbusds.jose.jwk.source.ExecutorJWKSource} which answers
+ *     from memory when possible and runs JWK set retrievals on an I/O
+ *     executor.</li>
+ *
+ *     <li>The conversion of the selected JWKs to Java keys and the
+ *     signature and claims verification are run on the verification
+ *     executor, so that CPU-heavy operations, such as RSA signature
+ *     verification, don't occupy the calling thread. The converted keys
+ *     are cached per JWK.</li>
+ * </ol>
+ *
+ * <p>Encrypted JWTs are processed entirely on the verification executor with
+ * the JWE key selector of the underlying processor, which may block. Plain
+ * (unsecured) JWTs are rejected as by the underlying processor.
+ *
+ * <p>The JWS and JWE header type verifiers, the JWS verifier and JWE
+ * decrypter factories and the JWT claims set verifier are those of the
+ * underlying {@link DefaultJWTProcessor}. Its JWS key selector is used for
+ * nested signed JWTs only, a {@link JWTClaimsSetAwareJWSKeySelector} isn't
+ * supported.
+ *
+ * <p>The outcome is delivered to a {@link Callback}, invoked once, from the
+ * verification executor, the JWK source or, for immediate rejections, the
+ * calling thread.
+ *
+ * <p>Example:
+ *
+ * <pre>
+ * AsyncJWTProcessor&lt;SecurityContext&gt; processor = new AsyncJWTProcessor&lt;&gt;(
+ * 	Collections.singleton(JWSAlgorithm.RS256),
+ * 	new ExecutorJWKSource&lt;&gt;(new RemoteJWKSet&lt;&gt;(jwkSetURL), ioExecutor),
+ * 	cpuExecutor,
+ * 	new DefaultJWTProcessor&lt;&gt;());
+ *
+ * processor.process(jwtString, null, new AsyncJWTProcessor.Callback() {
+ * 	public void onSuccess(JWTClaimsSet claimsSet) { ... }
+ * 	public void onFailure(Exception e) { ... }
+ * });
+ * </pre>
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+@ThreadSafe
+public class AsyncJWTProcessor<C extends SecurityContext> {
+
+
+	/**
+	 * Callback for the JWT processing outcome.
+	 */
+	public interface Callback {
+
+
+		/**
+		 * Called when the JWT is accepted.
+		 *
+		 * @param claimsSet The JWT claims set.
+		 */
+		void onSuccess(final JWTClaimsSet claimsSet);
+
+
+		/**
+		 * Called when the JWT couldn't be parsed or was rejected.
+		 *
+		 * @param e The exception, typically a {@link ParseException},
+		 *          {@link com.nimbusds.jose.proc.BadJOSEException} or
+		 *          {@link JOSEException}.
+		 */
+		void onFailure(final Exception e);
+	}
+
+
+	/**
+	 * The accepted JWS algorithms.
+	 */
+	private final Set<JWSAlgorithm> jwsAlgs;
+
+
+	/**
+	 * The asynchronous JWK source.
+	 */
+	private final AsyncJWKSource<C> jwkSource;
+
+
+	/**
+	 * The executor for the signature and claims verification.
+	 */
+	private final Executor verificationExecutor;
+
+
+	/**
+	 * The underlying processor.
+	 */
+	private final DefaultJWTProcessor<C> processor;
+
+
+	/**
+	 * The converted public and secret keys, by JWK. Weakly keyed so the
+	 * entries expire together with the JWKs.
+	 */
+	private final Map<JWK, List<Key>> convertedKeys = Collections.synchronizedMap(new WeakHashMap<JWK, List<Key>>());
+
+
+	/**
+	 * Creates a new asynchronous JWT processor.
+	 *
+	 * @param jwsAlgs              The accepted JWS algorithms. Must not
+	 *                             be empty or {@code null}.
+	 * @param jwkSource            The asynchronous JWK source for the
+	 *                             signature verification keys. Must not
+	 *                             be {@code null}.
+	 * @param verificationExecutor The executor for the signature and
+	 *                             claims verification. Must not be
+	 *                             {@code null}.
+	 * @param processor            The underlying processor. Must not be
+	 *                             {@code null}.
+	 */
+	public AsyncJWTProcessor(final Set<JWSAlgorithm> jwsAlgs,
+				 final AsyncJWKSource<C> jwkSource,
+				 final Executor verificationExecutor,
+				 final DefaultJWTProcessor<C> processor) {
+
+		if (jwsAlgs == null || jwsAlgs.isEmpty()) {
+			throw new IllegalArgumentException("The JWS algorithms must not be null or empty");
+		}
+		this.jwsAlgs = Collections.unmodifiableSet(new HashSet<>(jwsAlgs));
+		this.jwkSource = Objects.requireNonNull(jwkSource);
+		this.verificationExecutor = Objects.requireNonNull(verificationExecutor);
+		this.processor = Objects.requireNonNull(processor);
+	}
+
+
+	/**
+	 * Returns the accepted JWS algorithms.
+	 *
+	 * @return The accepted JWS algorithms.
+	 */
+	public Set<JWSAlgorithm> getExpectedJWSAlgorithms() {
+
+		return jwsAlgs;
+	}
+
+
+	/**
+	 * Returns the asynchronous JWK source.
+	 *
+	 * @return The JWK source.
+	 */
+	public AsyncJWKSource<C> getJWKSource() {
+
+		return jwkSource;
+	}
+
+
+	/**
+	 * Returns the executor for the signature and claims verification.
+	 *
+	 * @return The verification executor.
+	 */
+	public Executor getVerificationExecutor() {
+
+		return verificationExecutor;
+	}
+
+
+	/**
+	 * Returns the underlying processor.
+	 *
+	 * @return The underlying processor.
+	 */
+	public DefaultJWTProcessor<C> getProcessor() {
+
+		return processor;
+	}
+
+
+	/**
+	 * Parses and processes the specified JWT. Returns without blocking.
+	 *
+	 * @param jwtString The JWT, compact-encoded to a URL-safe string. Must
+	 *                  not be {@code null}.
+	 * @param context   Optional context, {@code null} if not required.
+	 * @param callback  The callback for the outcome. Must not be
+	 *                  {@code null}.
+	 */
+	public void process(final String jwtString, final C context, final Callback callback) {
+
+		final JWT jwt;
+		try {
+			jwt = JWTParser.parse(jwtString);
+		} catch (ParseException e) {
+			callback.onFailure(e);
+			return;
+		}
+
+		process(jwt, context, callback);
+	}
+
+
+	/**
+	 * Processes the specified JWT. Returns without blocking.
+	 *
+	 * @param jwt      The JWT. Must not be {@code null}.
+	 * @param context  Optional context, {@code null} if not required.
+	 * @param callback The callback for the outcome. Must not be
+	 *                 {@code null}.
+	 */
+	public void process(final JWT jwt, final C context, final Callback callback) {
+
+		if (jwt instanceof SignedJWT) {
+			process((SignedJWT)jwt, context, callback);
+			return;
+		}
+
+		if (jwt instanceof EncryptedJWT) {
+			verifyOnExecutor(new Task() {
+				@Override
+				public JWTClaimsSet run() throws Exception {
+					return processor.process((EncryptedJWT)jwt, context);
+				}
+			}, callback);
+			return;
+		}
+
+		final JWTClaimsSet claimsSet;
+		try {
+			claimsSet = processor.process(jwt, context);
+		} catch (Exception e) {
+			callback.onFailure(e);
+			return;
+		}
+		callback.onSuccess(claimsSet);
+	}
+
+
+	/**
+	 * Processes the specified signed JWT. Returns without blocking.
+	 *
+	 * @param signedJWT The signed JWT. Must not be {@code null}.
+	 * @param context   Optional context, {@code null} if not required.
+	 * @param callback  The callback for the outcome. Must not be
+	 *                  {@code null}.
+	 */
+	public void process(final SignedJWT signedJWT, final C context, final Callback callback) {
+
+		if (! jwsAlgs.contains(signedJWT.getHeader().getAlgorithm())) {
+			// Unexpected JWS alg, reject in the calling thread
+			final JWTClaimsSet claimsSet;
+			try {
+				claimsSet = processor.process(signedJWT, Collections.<Key>emptyList(), context);
+			} catch (Exception e) {
+				callback.onFailure(e);
+				return;
+			}
+			callback.onSuccess(claimsSet);
+			return;
+		}
+
+		try {
+			// Reject before a possible JWK set retrieval
+			processor.verifyJWSType(signedJWT.getHeader(), context);
+		} catch (BadJOSEException e) {
+			callback.onFailure(e);
+			return;
+		}
+
+		JWKSelector jwkSelector = new JWKSelector(JWKMatcher.forJWSHeader(signedJWT.getHeader()));
+
+		jwkSource.get(jwkSelector, context, new AsyncJWKSource.Callback() {
+
+			@Override
+			public void onSuccess(final List<JWK> jwks) {
+
+				verifyOnExecutor(new Task() {
+					@Override
+					public JWTClaimsSet run() throws Exception {
+						return processor.process(signedJWT, toVerificationKeys(jwks), context);
+					}
+				}, callback);
+			}
+
+			@Override
+			public void onFailure(final KeySourceException e) {
+
+				callback.onFailure(e);
+			}
+		});
+	}
+
+
+	/**
+	 * Converts the specified JWKs to signature verification keys,
+	 * skipping asymmetric private keys.
+	 *
+	 * @param jwks The JWKs, {@code null} if none.
+	 *
+	 * @return The keys.
+	 */
+	private List<Key> toVerificationKeys(final List<JWK> jwks) {
+
+		if (jwks == null || jwks.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		List<Key> keys = new ArrayList<>(jwks.size());
+		for (JWK jwk: jwks) {
+			keys.addAll(getVerificationKeys(jwk));
+		}
+		return keys;
+	}
+
+
+	/**
+	 * Returns the public or secret Java keys for the specified JWK,
+	 * converting the JWK on the first call and returning the cached keys
+	 * on subsequent calls.
+	 *
+	 * @param jwk The JWK. Must not be {@code null}.
+	 *
+	 * @return The public or secret keys, empty list if the JWK couldn't be
+	 *         converted.
+	 */
+	private List<Key> getVerificationKeys(final JWK jwk) {
+
+		List<Key> keys = convertedKeys.get(jwk);
+
+		if (keys != null) {
+			return keys;
+		}
+
+		keys = new ArrayList<>(1);
+
+		for (Key key: KeyConverter.toJavaKeys(Collections.singletonList(jwk))) {
+			if (key instanceof PublicKey || key instanceof SecretKey) {
+				keys.add(key);
+			} // skip asymmetric private keys
+		}
+
+		keys = Collections.unmodifiableList(keys);
+		convertedKeys.put(jwk, keys);
+		return keys;
+	}
+
+
+	/**
+	 * Processing task.
+	 */
+	private interface Task {
+
+		JWTClaimsSet run() throws Exception;
+	}
+
+
+	/**
+	 * Runs the specified task on the verification executor and passes
+	 * the outcome to the callback.
+	 *
+	 * @param task     The task.
+	 * @param callback The callback.
+	 */
+	private void verifyOnExecutor(final Task task, final Callback callback) {
+
+		try {
+			verificationExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					final JWTClaimsSet claimsSet;
+					try {
+						claimsSet = task.run();
+					} catch (Exception e) {
+						callback.onFailure(e);
+						return;
+					}
+					callback.onSuccess(claimsSet);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			callback.onFailure(new JOSEException("JWT verification rejected by the executor", e));
+		}
+	}
+}
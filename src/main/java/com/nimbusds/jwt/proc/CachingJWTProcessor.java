@@ -0,0 +1,534 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jwt.proc;
+
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jcip.annotations.ThreadSafe;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.RemoteJWKSet;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.JWSKeySelector;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.StandardCharset;
+import com.nimbusds.jwt.*;
+
+
+/**
+ * JWT processor which caches the claims sets of successfully processed JWTs,
+ * for applications where the same token is presented many times, such as
+ * bearer access tokens. Wraps an underlying
+ * {@link ConfigurableJWTProcessor}, typically a {@link DefaultJWTProcessor}.
+ *
+ * <p>Only the {@link #process(String, SecurityContext)} method is cached. The
+ * cache key is the SHA-256 digest of the compact JWT string, a repeated token
+ * is thus served without the Base64URL decoding, JSON parsing, key selection
+ * and signature verification. The configured
+ * {@link JWTClaimsSetVerifier JWT claims verifier} is run on every cache hit,
+ * so that time dependent checks, such as expiration, remain accurate.
+ *
+ * <p>The cache is bounded. When the maximum size is reached the least
+ * recently used entry is evicted. An entry lives no longer than the
+ * configured maximum time-to-live and the expiration time (exp) of the JWT.
+ *
+ * <p>When the underlying processor has a {@link JWSVerificationKeySelector}
+ * with a {@link RemoteJWKSet} the cache is cleared as soon as the keys in
+ * the remote JWK set change. The cache can also be cleared explicitly with
+ * {@link #clear()}, e.g. when the keys of another source are
+ * rotated.
+ *
+ * <p>Use this processor only if the JWT processing outcome depends on the
+ * token alone. Key selection or claims checks which depend on the
+ * {@link SecurityContext context} aren't compatible with caching.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+@ThreadSafe
+public class CachingJWTProcessor<C extends SecurityContext> implements JWTProcessor<C> {
+
+
+	/**
+	 * The default maximum number of cached claims sets.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 10_000;
+
+
+	/**
+	 * The default maximum time-to-live of a cache entry (5 minutes).
+	 */
+	public static final long DEFAULT_MAX_TIME_TO_LIVE_SECONDS = 300;
+
+
+	/**
+	 * The SHA-256 digests, per thread.
+	 */
+	private static final ThreadLocal<MessageDigest> SHA_256 = new ThreadLocal<MessageDigest>() {
+		@Override
+		protected MessageDigest initialValue() {
+			try {
+				return MessageDigest.getInstance("SHA-256");
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e.getMessage(), e);
+			}
+		}
+	};
+
+
+	/**
+	 * The underlying JWT processor.
+	 */
+	private final ConfigurableJWTProcessor<C> processor;
+
+
+	/**
+	 * The maximum number of cached claims sets.
+	 */
+	private final int maxSize;
+
+
+	/**
+	 * The maximum time-to-live of a cache entry, in milliseconds.
+	 */
+	private final long maxTimeToLiveMs;
+
+
+	/**
+	 * The cached claims sets, in access order. Guarded by itself.
+	 */
+	private final LinkedHashMap<CacheKey, CacheEntry> cache;
+
+
+	/**
+	 * The last seen JWK set of the remote JWK source, {@code null} if
+	 * none. Guarded by the cache.
+	 */
+	private JWKSet lastJWKSet;
+
+
+	/**
+	 * Incremented each time the cache is cleared, to prevent caching of
+	 * claims sets verified with outdated keys. Guarded by the cache.
+	 */
+	private long generation;
+
+
+	/**
+	 * The cache hit counter.
+	 */
+	private final AtomicLong hitCount = new AtomicLong();
+
+
+	/**
+	 * The cache miss counter.
+	 */
+	private final AtomicLong missCount = new AtomicLong();
+
+
+	/**
+	 * Creates a new caching JWT processor with a maximum size of 10000
+	 * claims sets and a maximum time-to-live of 5 minutes.
+	 *
+	 * @param processor The underlying JWT processor. Must not be
+	 *                  {@code null}.
+	 */
+	public CachingJWTProcessor(final ConfigurableJWTProcessor<C> processor) {
+
+		this(processor, DEFAULT_MAX_SIZE, DEFAULT_MAX_TIME_TO_LIVE_SECONDS, TimeUnit.SECONDS);
+	}
+
+
+	/**
+	 * Creates a new caching JWT processor.
+	 *
+	 * @param processor     The underlying JWT processor. Must not be
+	 *                      {@code null}.
+	 * @param maxSize       The maximum number of cached claims sets.
+	 *                      Must be positive.
+	 * @param maxTimeToLive The maximum time-to-live of a cache entry.
+	 *                      Must be positive.
+	 * @param timeUnit      The time-to-live unit. Must not be
+	 *                      {@code null}.
+	 */
+	public CachingJWTProcessor(final ConfigurableJWTProcessor<C> processor,
+				   final int maxSize,
+				   final long maxTimeToLive,
+				   final TimeUnit timeUnit) {
+
+		this.processor = Objects.requireNonNull(processor);
+
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("The maximum cache size must be positive");
+		}
+		this.maxSize = maxSize;
+
+		if (maxTimeToLive < 1) {
+			throw new IllegalArgumentException("The maximum time-to-live must be positive");
+		}
+		maxTimeToLiveMs = TimeUnit.MILLISECONDS.convert(maxTimeToLive, timeUnit);
+
+		cache = new LinkedHashMap<CacheKey, CacheEntry>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<CacheKey, CacheEntry> eldest) {
+				return size() > CachingJWTProcessor.this.maxSize;
+			}
+		};
+	}
+
+
+	/**
+	 * Returns the underlying JWT processor.
+	 *
+	 * @return The underlying JWT processor.
+	 */
+	public ConfigurableJWTProcessor<C> getProcessor() {
+
+		return processor;
+	}
+
+
+	/**
+	 * Returns the maximum number of cached claims sets.
+	 *
+	 * @return The maximum cache size.
+	 */
+	public int getMaxSize() {
+
+		return maxSize;
+	}
+
+
+	/**
+	 * Returns the maximum time-to-live of a cache entry.
+	 *
+	 * @param timeUnit The time unit to use.
+	 *
+	 * @return The maximum time-to-live.
+	 */
+	public long getMaxTimeToLive(final TimeUnit timeUnit) {
+
+		return timeUnit.convert(maxTimeToLiveMs, TimeUnit.MILLISECONDS);
+	}
+
+
+	@Override
+	public JWTClaimsSet process(final String jwtString, final C context)
+		throws ParseException, BadJOSEException, JOSEException {
+
+		final CacheKey cacheKey = new CacheKey(digest(jwtString));
+		final long now = System.currentTimeMillis();
+		final RemoteJWKSet<C> remoteJWKSet = getRemoteJWKSet();
+
+		CacheEntry entry;
+		long startGeneration;
+		synchronized (cache) {
+			checkJWKSet(remoteJWKSet);
+			startGeneration = generation;
+			entry = cache.get(cacheKey);
+			if (entry != null && now >= entry.expiresAt) {
+				cache.remove(cacheKey);
+				entry = null;
+			}
+		}
+
+		if (entry != null) {
+			hitCount.incrementAndGet();
+			try {
+				verifyClaims(entry.claimsSet, context);
+			} catch (BadJWTException e) {
+				invalidate(cacheKey);
+				throw e;
+			}
+			return entry.claimsSet;
+		}
+
+		missCount.incrementAndGet();
+
+		JWTClaimsSet claimsSet = processor.process(jwtString, context);
+
+		final long expiresAt = computeExpiresAt(claimsSet, now);
+
+		if (expiresAt > now) {
+			synchronized (cache) {
+				checkJWKSet(remoteJWKSet);
+				if (generation == startGeneration) {
+					cache.put(cacheKey, new CacheEntry(claimsSet, expiresAt));
+				}
+			}
+		}
+
+		return claimsSet;
+	}
+
+
+	@Override
+	public JWTClaimsSet process(final JWT jwt, final C context)
+		throws BadJOSEException, JOSEException {
+
+		return processor.process(jwt, context);
+	}
+
+
+	@Override
+	public JWTClaimsSet process(final PlainJWT plainJWT, final C context)
+		throws BadJOSEException, JOSEException {
+
+		return processor.process(plainJWT, context);
+	}
+
+
+	@Override
+	public JWTClaimsSet process(final SignedJWT signedJWT, final C context)
+		throws BadJOSEException, JOSEException {
+
+		return processor.process(signedJWT, context);
+	}
+
+
+	@Override
+	public JWTClaimsSet process(final EncryptedJWT encryptedJWT, final C context)
+		throws BadJOSEException, JOSEException {
+
+		return processor.process(encryptedJWT, context);
+	}
+
+
+	/**
+	 * Runs the JWT claims verifier of the underlying processor, if any.
+	 *
+	 * @param claimsSet The claims set.
+	 * @param context   Optional context, {@code null} if not required.
+	 *
+	 * @throws BadJWTException If the claims set is rejected.
+	 */
+	private void verifyClaims(final JWTClaimsSet claimsSet, final C context)
+		throws BadJWTException {
+
+		JWTClaimsSetVerifier<C> claimsVerifier = processor.getJWTClaimsSetVerifier();
+		if (claimsVerifier != null) {
+			claimsVerifier.verify(claimsSet, context);
+		}
+	}
+
+
+	/**
+	 * Computes the expiration time of a cache entry.
+	 *
+	 * @param claimsSet The claims set.
+	 * @param now       The current time, in milliseconds since the epoch.
+	 *
+	 * @return The expiration time, in milliseconds since the epoch.
+	 */
+	private long computeExpiresAt(final JWTClaimsSet claimsSet, final long now) {
+
+		long expiresAt = now + maxTimeToLiveMs;
+
+		long exp = claimsSet.getExpirationTimeEpochSecond();
+		if (exp != JWTClaimsSet.UNSPECIFIED_TIME && exp < Long.MAX_VALUE / 1000L) {
+			expiresAt = Math.min(expiresAt, exp * 1000L);
+		}
+
+		return expiresAt;
+	}
+
+
+	/**
+	 * Returns the remote JWK set of the underlying processor, if any.
+	 *
+	 * @return The remote JWK set, {@code null} if none.
+	 */
+	private RemoteJWKSet<C> getRemoteJWKSet() {
+
+		JWSKeySelector<C> keySelector = processor.getJWSKeySelector();
+		if (keySelector instanceof JWSVerificationKeySelector &&
+		    ((JWSVerificationKeySelector<C>)keySelector).getJWKSource() instanceof RemoteJWKSet) {
+			return (RemoteJWKSet<C>)((JWSVerificationKeySelector<C>)keySelector).getJWKSource();
+		}
+		return null;
+	}
+
+
+	/**
+	 * Clears the cache if the keys of the remote JWK set changed since the
+	 * last check. Must be called while holding the cache lock.
+	 *
+	 * @param remoteJWKSet The remote JWK set, {@code null} if none.
+	 */
+	private void checkJWKSet(final RemoteJWKSet<C> remoteJWKSet) {
+
+		if (remoteJWKSet == null) {
+			return;
+		}
+
+		JWKSet jwkSet = remoteJWKSet.getCachedJWKSet();
+
+		if (jwkSet == null || jwkSet == lastJWKSet) {
+			return;
+		}
+
+		if (lastJWKSet != null && ! jwkSet.getKeys().equals(lastJWKSet.getKeys())) {
+			cache.clear();
+			generation++;
+		}
+		lastJWKSet = jwkSet;
+	}
+
+
+	/**
+	 * Removes the specified cache entry.
+	 *
+	 * @param cacheKey The cache key.
+	 */
+	private void invalidate(final CacheKey cacheKey) {
+
+		synchronized (cache) {
+			cache.remove(cacheKey);
+		}
+	}
+
+
+	/**
+	 * Removes all cached claims sets. The hit and miss counters are not
+	 * reset.
+	 */
+	public void clear() {
+
+		synchronized (cache) {
+			cache.clear();
+			generation++;
+		}
+	}
+
+
+	/**
+	 * Returns the number of currently cached claims sets, including
+	 * expired entries not evicted yet.
+	 *
+	 * @return The cache size.
+	 */
+	public int size() {
+
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+
+	/**
+	 * Returns the number of cache hits since the processor was created.
+	 *
+	 * @return The cache hit count.
+	 */
+	public long getHitCount() {
+
+		return hitCount.get();
+	}
+
+
+	/**
+	 * Returns the number of cache misses since the processor was created.
+	 *
+	 * @return The cache miss count.
+	 */
+	public long getMissCount() {
+
+		return missCount.get();
+	}
+
+
+	/**
+	 * Computes the SHA-256 digest of the specified compact JWT string.
+	 *
+	 * @param jwtString The JWT string.
+	 *
+	 * @return The digest.
+	 */
+	private static byte[] digest(final String jwtString) {
+
+		MessageDigest md = SHA_256.get();
+		md.reset();
+		return md.digest(jwtString.getBytes(StandardCharset.UTF_8));
+	}
+
+
+	/**
+	 * Cache key: SHA-256 digest of the compact JWT string.
+	 */
+	private static final class CacheKey {
+
+
+		private final byte[] digest;
+
+
+		private final int hashCode;
+
+
+		private CacheKey(final byte[] digest) {
+			this.digest = digest;
+			// The digest is uniformly distributed
+			hashCode = (digest[0] & 0xff) << 24 | (digest[1] & 0xff) << 16 | (digest[2] & 0xff) << 8 | (digest[3] & 0xff);
+		}
+
+
+		@Override
+		public boolean equals(final Object o) {
+			if (this == o) return true;
+			if (!(o instanceof CacheKey)) return false;
+			return Arrays.equals(digest, ((CacheKey) o).digest);
+		}
+
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+
+	/**
+	 * Cache entry: claims set and expiration time.
+	 */
+	private static final class CacheEntry {
+
+
+		private final JWTClaimsSet claimsSet;
+
+
+		private final long expiresAt;
+
+
+		private CacheEntry(final JWTClaimsSet claimsSet, final long expiresAt) {
+			this.claimsSet = claimsSet;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -26,6 +26,7 @@ import net.jcip.annotations.ThreadSafe;
 import com.nimbusds.jose.proc.SecurityContext;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.util.DateUtils;
+import com.nimbusds.jwt.util.EpochClock;
 
 
 /**
@@ -72,9 +73,19 @@ import com.nimbusds.jwt.util.DateUtils;
  * verifier.verify(jwtClaimsSet, null);
  * </pre>
  *
- * <p>The {@link #currentTime()} method can be overridden to use an alternative
- * time provider for the "exp" (expiration time) and "nbf" (not-before time)
- * verification, or to disable "exp" and "nbf" verification entirely.
+ * <p>The current time for the "exp" (expiration time) and "nbf" (not-before
+ * time) verification is obtained from {@link #currentTimeMillis()}, which
+ * reads a {@link #setClock pluggable clock}, by default the system clock. The
+ * time window check doesn't allocate any objects, with the
+ * {@link com.nimbusds.jwt.util.CoarseEpochClock} it also saves the system call
+ * for each verification. The {@link #currentTimeMillis()} method can be
+ * overridden to use an alternative time provider, or to disable "exp" and
+ * "nbf" verification entirely.
+ *
+ * <p>The audience, required, prohibited and exact match claims are compiled
+ * into flat arrays at construction time. A successful verification allocates
+ * no objects of its own; the collections for the error details are created
+ * only when a check fails.
  *
  * <p>This class may be extended to perform additional checks.
  *
@@ -82,7 +93,7 @@ import com.nimbusds.jwt.util.DateUtils;
  *
  * @author Vladimir Dzhuvinov
  * @author Eugene Kuleshov
- * @version 2021-09-28
+ * @version 2022-06-09
  */
 @ThreadSafe
 public class DefaultJWTClaimsVerifier <C extends SecurityContext> implements JWTClaimsSetVerifier<C>, ClockSkewAware {
@@ -98,6 +109,12 @@ public class DefaultJWTClaimsVerifier <C extends SecurityContext> implements JWT
 	 * The maximum acceptable clock skew, in seconds.
 	 */
 	private int maxClockSkew = DEFAULT_MAX_CLOCK_SKEW_SECONDS;
+
+
+	/**
+	 * The clock for the time window check.
+	 */
+	private volatile EpochClock clock = EpochClock.SYSTEM;
 	
 	
 	/**
@@ -124,6 +141,37 @@ public class DefaultJWTClaimsVerifier <C extends SecurityContext> implements JWT
 	 * none.
 	 */
 	private final Set<String> prohibitedClaims;
+
+
+	/**
+	 * {@code true} if JWTs with no audience are accepted.
+	 */
+	private final boolean noAudienceAccepted;
+
+
+	/**
+	 * The compiled names of the required claims.
+	 */
+	private final String[] requiredClaimNames;
+
+
+	/**
+	 * The compiled names of the prohibited claims.
+	 */
+	private final String[] prohibitedClaimNames;
+
+
+	/**
+	 * The compiled names of the claims that must match exactly.
+	 */
+	private final String[] exactMatchNames;
+
+
+	/**
+	 * The compiled values of the claims that must match exactly, in the
+	 * order of {@link #exactMatchNames}.
+	 */
+	private final Object[] exactMatchValues;
 	
 	
 	/**
@@ -221,6 +269,17 @@ public class DefaultJWTClaimsVerifier <C extends SecurityContext> implements JWT
 		this.requiredClaims = Collections.unmodifiableSet(requiredClaimsCopy);
 		
 		this.prohibitedClaims = prohibitedClaims != null ? Collections.unmodifiableSet(prohibitedClaims) : Collections.<String>emptySet();
+		
+		// Compile the verification plan
+		noAudienceAccepted = acceptedAudienceValues != null && acceptedAudienceValues.contains(null);
+		requiredClaimNames = this.requiredClaims.toArray(new String[0]);
+		prohibitedClaimNames = this.prohibitedClaims.toArray(new String[0]);
+		Map<String,Object> exactMatchMap = this.exactMatchClaims.getClaims();
+		exactMatchNames = exactMatchMap.keySet().toArray(new String[0]);
+		exactMatchValues = new Object[exactMatchNames.length];
+		for (int i=0; i < exactMatchNames.length; i++) {
+			exactMatchValues[i] = exactMatchMap.get(exactMatchNames[i]);
+		}
 	}
 	
 	
@@ -279,6 +338,29 @@ public class DefaultJWTClaimsVerifier <C extends SecurityContext> implements JWT
 	public void setMaxClockSkew(final int maxClockSkewSeconds) {
 		maxClockSkew = maxClockSkewSeconds;
 	}
+
+
+	/**
+	 * Gets the clock for the "exp" (expiration time) and "nbf"
+	 * (not-before time) verification.
+	 *
+	 * @return The clock.
+	 */
+	public EpochClock getClock() {
+		return clock;
+	}
+
+
+	/**
+	 * Sets the clock for the "exp" (expiration time) and "nbf"
+	 * (not-before time) verification. Has no effect if
+	 * {@link #currentTimeMillis()} is overridden.
+	 *
+	 * @param clock The clock. Must not be {@code null}.
+	 */
+	public void setClock(final EpochClock clock) {
+		this.clock = Objects.requireNonNull(clock);
+	}
 	
 	
 	@Override
@@ -287,84 +369,159 @@ public class DefaultJWTClaimsVerifier <C extends SecurityContext> implements JWT
 		
 		// Check audience
 		if (acceptedAudienceValues != null) {
-			List<String> audList = claimsSet.getAudience();
-			if (audList != null && ! audList.isEmpty()) {
-				boolean audMatch = false;
-				for (String aud : audList) {
-					if (acceptedAudienceValues.contains(aud)) {
-						audMatch = true;
-						break;
-					}
+			Object audValue = claimsSet.getClaim(JWTClaimNames.AUDIENCE);
+			if (audValue instanceof String || isNonEmptyStringList(audValue)) {
+				if (! isAudienceAccepted(audValue)) {
+					throw new BadJWTException("JWT audience rejected: " + claimsSet.getAudience());
 				}
-				if (! audMatch) {
-					throw new BadJWTException("JWT audience rejected: " + audList);
-				}
-			} else if (! acceptedAudienceValues.contains(null)) {
+			} else if (! noAudienceAccepted) {
 				throw new BadJWTException("JWT missing required audience");
 			}
 		}
 		
 		// Check if all required claims are present
-		if (! claimsSet.getClaims().keySet().containsAll(requiredClaims)) {
-			SortedSet<String> missingClaims = new TreeSet<>(requiredClaims);
-			missingClaims.removeAll(claimsSet.getClaims().keySet());
-			throw new BadJWTException("JWT missing required claims: " + missingClaims);
+		for (String name: requiredClaimNames) {
+			if (! claimsSet.containsClaim(name)) {
+				SortedSet<String> missingClaims = new TreeSet<>();
+				for (String required: requiredClaimNames) {
+					if (! claimsSet.containsClaim(required)) {
+						missingClaims.add(required);
+					}
+				}
+				throw new BadJWTException("JWT missing required claims: " + missingClaims);
+			}
 		}
 		
 		// Check if prohibited claims are present
-		SortedSet<String> presentProhibitedClaims = new TreeSet<>();
-		for (String prohibited: prohibitedClaims) {
-			if (claimsSet.getClaims().containsKey(prohibited)) {
-				presentProhibitedClaims.add(prohibited);
+		for (String name: prohibitedClaimNames) {
+			if (claimsSet.containsClaim(name)) {
+				SortedSet<String> presentProhibitedClaims = new TreeSet<>();
+				for (String prohibited: prohibitedClaimNames) {
+					if (claimsSet.containsClaim(prohibited)) {
+						presentProhibitedClaims.add(prohibited);
+					}
+				}
+				throw new BadJWTException("JWT has prohibited claims: " + presentProhibitedClaims);
 			}
 		}
-		if (! presentProhibitedClaims.isEmpty()) {
-			throw new BadJWTException("JWT has prohibited claims: " + presentProhibitedClaims);
-		}
 		
 		// Check exact matches
-		for (String exactMatch: exactMatchClaims.getClaims().keySet()) {
-			Object actualClaim = claimsSet.getClaim(exactMatch);
-			Object expectedClaim = exactMatchClaims.getClaim(exactMatch);
+		for (int i=0; i < exactMatchNames.length; i++) {
+			Object actualClaim = claimsSet.getClaim(exactMatchNames[i]);
+			Object expectedClaim = exactMatchValues[i];
 			if (! actualClaim.equals(expectedClaim)) {
-				throw new BadJWTException("JWT " + exactMatch + " claim has value " + actualClaim + ", must be " + expectedClaim);
+				throw new BadJWTException("JWT " + exactMatchNames[i] + " claim has value " + actualClaim + ", must be " + expectedClaim);
 			}
 		}
 		
 		// Check time window
-		final Date now = currentTime();
+		final long now = currentTimeMillis();
+		if (now == JWTClaimsSet.UNSPECIFIED_TIME) {
+			return; // exp and nbf verification disabled
+		}
 
-		if (now != null) {
-			final Date exp = claimsSet.getExpirationTime();
-			if (exp != null) {
+		final long exp = claimsSet.getExpirationTimeEpochSecond();
+		if (exp != JWTClaimsSet.UNSPECIFIED_TIME) {
 
-				if (! DateUtils.isAfter(exp, now, maxClockSkew)) {
-					throw new BadJWTException("Expired JWT");
-				}
+			if (! DateUtils.isAfter(exp * 1000L, now, maxClockSkew)) {
+				throw new BadJWTException("Expired JWT");
 			}
+		}
 
-			final Date nbf = claimsSet.getNotBeforeTime();
-			if (nbf != null) {
+		final long nbf = claimsSet.getNotBeforeTimeEpochSecond();
+		if (nbf != JWTClaimsSet.UNSPECIFIED_TIME) {
 
-				if (! DateUtils.isBefore(nbf, now, maxClockSkew)) {
-					throw new BadJWTException("JWT before use time");
-				}
+			if (! DateUtils.isBefore(nbf * 1000L, now, maxClockSkew)) {
+				throw new BadJWTException("JWT before use time");
 			}
 		}
 	}
 
 	
+	/**
+	 * Returns {@code true} if the specified audience claim value is a
+	 * non-empty list of strings, as accepted by
+	 * {@link JWTClaimsSet#getAudience()}.
+	 *
+	 * @param audValue The audience claim value, {@code null} if not
+	 *                 specified.
+	 *
+	 * @return {@code true} if a non-empty list of strings.
+	 */
+	private static boolean isNonEmptyStringList(final Object audValue) {
+
+		if (! (audValue instanceof List) || ((List<?>)audValue).isEmpty()) {
+			return false;
+		}
+		List<?> list = (List<?>)audValue;
+		for (int i=0; i < list.size(); i++) {
+			Object item = list.get(i);
+			if (item != null && ! (item instanceof String)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Returns {@code true} if the specified audience claim value matches
+	 * an accepted audience value.
+	 *
+	 * @param audValue The audience claim value, a string or a non-empty
+	 *                 list of strings.
+	 *
+	 * @return {@code true} if accepted.
+	 */
+	private boolean isAudienceAccepted(final Object audValue) {
+
+		if (audValue instanceof String) {
+			return acceptedAudienceValues.contains(audValue);
+		}
+		List<?> list = (List<?>)audValue;
+		for (int i=0; i < list.size(); i++) {
+			if (acceptedAudienceValues.contains(list.get(i))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
 	/**
 	 * Returns the current time for the purpose of "exp" (expiration time)
 	 * and "nbf" (not-before time) claim verification. This method can be
 	 * overridden to inject an alternative time provider (e.g. for testing
-	 * purposes) or to disable "exp" and "nbf" verification.
+	 * purposes) or to disable "exp" and "nbf" verification. The default
+	 * implementation reads the {@link #getClock() clock}.
 	 *
-	 * @return The current time or {@code null} to disable "exp" and "nbf"
-	 *         claim verification entirely.
+	 * @return The current time in milliseconds since the Unix epoch, or
+	 *         {@link JWTClaimsSet#UNSPECIFIED_TIME} to disable "exp" and
+	 *         "nbf" claim verification entirely.
 	 */
+	protected long currentTimeMillis() {
+
+		return clock.currentTimeMillis();
+	}
+
+
+	/**
+	 * Returns the current time for the purpose of "exp" (expiration time)
+	 * and "nbf" (not-before time) claim verification, as returned by
+	 * {@link #currentTimeMillis()}.
+	 *
+	 * @deprecated The time window check calls
+	 * {@link #currentTimeMillis()} only, overriding this method has no
+	 * effect on the verification. Override {@link #currentTimeMillis()}
+	 * instead.
+	 *
+	 * @return The current time or {@code null} if "exp" and "nbf" claim
+	 *         verification is disabled.
+	 */
+	@Deprecated
 	protected Date currentTime() {
 		
-		return new Date();
+		final long now = currentTimeMillis();
+		return now != JWTClaimsSet.UNSPECIFIED_TIME ? new Date(now) : null;
 	}
 }
@@ -20,13 +20,17 @@ package com.nimbusds.jwt.proc;
 
 import java.security.Key;
 import java.text.ParseException;
-import java.util.List;
-import java.util.ListIterator;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.nimbusds.jose.*;
 import com.nimbusds.jose.crypto.factories.DefaultJWEDecrypterFactory;
 import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
 import com.nimbusds.jose.proc.*;
+import com.nimbusds.jose.util.Base64URL;
 import com.nimbusds.jwt.*;
 
 
@@ -75,6 +79,11 @@ import com.nimbusds.jwt.*;
  * unsecured (plain) JWTs. Override the {@link #process(PlainJWT, SecurityContext)}
  * if you need to handle plain JWTs.
  *
+ * <p>The signature of a signed JWT is verified before its claims are
+ * parsed, so that forged tokens are rejected at the cost of the signature
+ * check alone. When a {@link JWTClaimsSetAwareJWSKeySelector} is configured
+ * the claims must be parsed first, to select the key candidates.
+ *
  * <p>A {@link DefaultJWTClaimsVerifier default JWT claims verifier} is
  * provided, to perform a minimal check of the claims after a successful JWS
  * verification / JWE decryption. It checks the token expiration (exp) and
@@ -82,11 +91,17 @@ import com.nimbusds.jwt.*;
  * verifier may be extended to perform additional checks, such as issuer and
  * subject acceptance.
  *
+ * <p>Bursts of JWTs can be processed with {@link #processAll}. The signed
+ * JWTs in the batch are grouped by JWS header, the key candidates and the JWS
+ * verifiers are resolved once per group, and the processing is spread across
+ * an optional {@link Executor}. Each JWT gets its own result, a rejected JWT
+ * doesn't fail the batch.
+ *
  * <p>To process generic JOSE objects (with arbitrary payloads) use the
  * {@link com.nimbusds.jose.proc.DefaultJOSEProcessor} class.
  *
  * @author Vladimir Dzhuvinov
- * @version 2021-06-05
+ * @version 2022-06-09
  */
 public class DefaultJWTProcessor<C extends SecurityContext> implements ConfigurableJWTProcessor<C> {
 
@@ -138,6 +153,14 @@ public class DefaultJWTProcessor<C extends SecurityContext> implements Configura
 	 * The claims verifier.
 	 */
 	private JWTClaimsSetVerifier<C> claimsVerifier = new DefaultJWTClaimsVerifier<>(null, null);
+
+
+	/**
+	 * The signed JWT from a batch which is being processed by the
+	 * current thread, with the resolved verification group for its JWS
+	 * header, {@code null} if none.
+	 */
+	private final ThreadLocal<BatchItem> batchItem = new ThreadLocal<>();
 	
 	
 	@Override
@@ -334,11 +357,7 @@ public class DefaultJWTProcessor<C extends SecurityContext> implements Configura
 	public JWTClaimsSet process(final SignedJWT signedJWT, final C context)
 		throws BadJOSEException, JOSEException {
 		
-		if (jwsTypeVerifier == null) {
-			throw new BadJOSEException("Signed JWT rejected: No JWS header typ (type) verifier is configured");
-		}
-		
-		jwsTypeVerifier.verify(signedJWT.getHeader().getType(), context);
+		verifyJWSType(signedJWT.getHeader(), context);
 
 		if (getJWSKeySelector() == null && getJWTClaimsSetAwareJWSKeySelector() == null) {
 			// JWS key selector may have been deliberately omitted
@@ -349,10 +368,102 @@ public class DefaultJWTProcessor<C extends SecurityContext> implements Configura
 			throw new JOSEException("No JWS verifier is configured");
 		}
 		
-		JWTClaimsSet claimsSet = extractJWTClaimsSet(signedJWT);
+		// Signed JWT from a batch, the JWS header was already
+		// checked and the JWS verifiers resolved
+		VerificationGroup group = takeVerificationGroup(signedJWT);
+
+		if (group != null) {
+			return process(signedJWT, group, context);
+		}
+
+		// Without a claims set aware key selector the signature is
+		// verified first, so that forged tokens are rejected without
+		// parsing the claims
+		JWTClaimsSet claimsSet = null;
+
+		if (getJWTClaimsSetAwareJWSKeySelector() != null) {
+			claimsSet = extractJWTClaimsSet(signedJWT);
+		}
 
 		List<? extends Key> keyCandidates = selectKeys(signedJWT.getHeader(), claimsSet, context);
 
+		return verify(signedJWT, claimsSet, keyCandidates, context);
+	}
+
+
+	/**
+	 * Verifies the type of the specified JWS header with the configured
+	 * JWS type verifier.
+	 *
+	 * @param header  The JWS header. Not {@code null}.
+	 * @param context Optional context, {@code null} if not required.
+	 *
+	 * @throws BadJOSEException If no JWS type verifier is configured or
+	 *                          the type is rejected.
+	 */
+	void verifyJWSType(final JWSHeader header, final C context)
+		throws BadJOSEException {
+
+		if (jwsTypeVerifier == null) {
+			throw new BadJOSEException("Signed JWT rejected: No JWS header typ (type) verifier is configured");
+		}
+
+		jwsTypeVerifier.verify(header.getType(), context);
+	}
+
+
+	/**
+	 * Processes the specified signed JWT with key candidates that were
+	 * already selected, e.g. asynchronously by the
+	 * {@link AsyncJWTProcessor}. Performs the same checks as
+	 * {@link #process(SignedJWT, SecurityContext)} except the key
+	 * selection.
+	 *
+	 * @param signedJWT     The signed JWT. Not {@code null}.
+	 * @param keyCandidates The key candidates, empty list or {@code null}
+	 *                      if none.
+	 * @param context       Optional context, {@code null} if not
+	 *                      required.
+	 *
+	 * @return The JWT claims set on success.
+	 *
+	 * @throws BadJOSEException If the signed JWT is rejected.
+	 * @throws JOSEException    If an internal processing exception is
+	 *                          encountered.
+	 */
+	JWTClaimsSet process(final SignedJWT signedJWT, final List<? extends Key> keyCandidates, final C context)
+		throws BadJOSEException, JOSEException {
+
+		verifyJWSType(signedJWT.getHeader(), context);
+
+		if (getJWSVerifierFactory() == null) {
+			throw new JOSEException("No JWS verifier is configured");
+		}
+
+		return verify(signedJWT, null, keyCandidates, context);
+	}
+
+
+	/**
+	 * Verifies the signature of the specified signed JWT with the key
+	 * candidates and on success verifies the claims.
+	 *
+	 * @param signedJWT     The signed JWT.
+	 * @param claimsSet     The already parsed claims set, {@code null}
+	 *                      if not parsed yet.
+	 * @param keyCandidates The key candidates, empty list or {@code null}
+	 *                      if none.
+	 * @param context       Optional context, {@code null} if not
+	 *                      required.
+	 *
+	 * @return The JWT claims set on success.
+	 */
+	private JWTClaimsSet verify(final SignedJWT signedJWT,
+				    final JWTClaimsSet claimsSet,
+				    final List<? extends Key> keyCandidates,
+				    final C context)
+		throws BadJOSEException, JOSEException {
+
 		if (keyCandidates == null || keyCandidates.isEmpty()) {
 			throw new BadJOSEException("Signed JWT rejected: Another algorithm expected, or no matching key(s) found");
 		}
@@ -370,7 +481,7 @@ public class DefaultJWTProcessor<C extends SecurityContext> implements Configura
 			final boolean validSignature = signedJWT.verify(verifier);
 
 			if (validSignature) {
-				return verifyClaims(claimsSet, context);
+				return verifyClaims(claimsSet != null ? claimsSet : extractJWTClaimsSet(signedJWT), context);
 			}
 
 			if (! it.hasNext()) {
@@ -451,4 +562,387 @@ public class DefaultJWTProcessor<C extends SecurityContext> implements Configura
 
 		throw new BadJOSEException("Encrypted JWT rejected: No matching decrypter(s) found");
 	}
+
+
+	/**
+	 * Parses and processes the specified batch of JWTs in the calling
+	 * thread. See {@link #processAll(List, SecurityContext, Executor)}.
+	 *
+	 * @param jwtStrings The JWTs, compact-encoded to URL-safe strings.
+	 *                   Must not be {@code null}.
+	 * @param context    Optional context, {@code null} if not required.
+	 *
+	 * @return The processing results, in the order of the JWTs.
+	 */
+	public List<JWTProcessingResult> processAll(final List<String> jwtStrings, final C context) {
+
+		return processAll(jwtStrings, context, null);
+	}
+
+
+	/**
+	 * Parses and processes the specified batch of JWTs. The signed JWTs
+	 * are grouped by JWS header, for each group the header type is
+	 * checked, and the key candidates and JWS verifiers are resolved only
+	 * once. Each signed JWT is then passed to
+	 * {@link #process(SignedJWT, SecurityContext)}, so that subclasses
+	 * overriding it apply to the batch as well. Signed JWTs when a
+	 * {@link JWTClaimsSetAwareJWSKeySelector} is configured, encrypted and
+	 * plain JWTs are processed individually, as with
+	 * {@link #process(String, SecurityContext)}.
+	 *
+	 * <p>The JWTs are processed by the calling thread together with tasks
+	 * submitted to the specified executor, up to the number of available
+	 * processors. The method returns when all JWTs are processed. Tasks
+	 * rejected by the executor are not retried, their share of the work is
+	 * taken up by the calling thread.
+	 *
+	 * @param jwtStrings The JWTs, compact-encoded to URL-safe strings.
+	 *                   Must not be {@code null}.
+	 * @param context    Optional context, {@code null} if not required.
+	 * @param executor   The executor, {@code null} to process the JWTs
+	 *                   in the calling thread only.
+	 *
+	 * @return The processing results, in the order of the JWTs. A JWT
+	 *         which couldn't be parsed or was rejected gets a result with
+	 *         the exception that {@link #process(String, SecurityContext)}
+	 *         would have thrown. Exceptions from the key and header type
+	 *         resolution are shared by all JWTs in the group.
+	 */
+	public List<JWTProcessingResult> processAll(final List<String> jwtStrings,
+						    final C context,
+						    final Executor executor) {
+
+		final String[] strings = jwtStrings.toArray(new String[0]);
+		final int n = strings.length;
+		final VerificationGroup[] groups = groupSignedJWTs(strings, context);
+		final JWTProcessingResult[] results = new JWTProcessingResult[n];
+
+		final AtomicInteger next = new AtomicInteger();
+		final Runnable worker = new Runnable() {
+			@Override
+			public void run() {
+				for (int i = next.getAndIncrement(); i < n; i = next.getAndIncrement()) {
+					results[i] = processBatchItem(strings[i], groups[i], context);
+				}
+			}
+		};
+
+		final int helpers = executor != null ? Math.min(n - 1, Runtime.getRuntime().availableProcessors()) : 0;
+		final CountDownLatch helpersDone = new CountDownLatch(Math.max(helpers, 0));
+
+		for (int h=0; h < helpers; h++) {
+			try {
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							worker.run();
+						} finally {
+							helpersDone.countDown();
+						}
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				helpersDone.countDown();
+			}
+		}
+
+		worker.run();
+
+		boolean interrupted = false;
+		while (true) {
+			try {
+				helpersDone.await();
+				break;
+			} catch (InterruptedException e) {
+				// Finish the batch, restore the flag on return
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		return Collections.unmodifiableList(Arrays.asList(results));
+	}
+
+
+	/**
+	 * Groups the signed JWTs in the specified batch by their encoded JWS
+	 * header and resolves the verification group for each distinct
+	 * header.
+	 *
+	 * @param strings The JWTs, compact-encoded.
+	 * @param context Optional context, {@code null} if not required.
+	 *
+	 * @return The verification groups, {@code null} elements for the
+	 *         JWTs to be processed individually.
+	 */
+	private VerificationGroup[] groupSignedJWTs(final String[] strings, final C context) {
+
+		final VerificationGroup[] groups = new VerificationGroup[strings.length];
+
+		if (getJWTClaimsSetAwareJWSKeySelector() != null) {
+			return groups;
+		}
+
+		Map<String,VerificationGroup> groupMap = new HashMap<>();
+
+		for (int i=0; i < strings.length; i++) {
+
+			final String s = strings[i] != null ? strings[i].trim() : null;
+			final int dot = s != null ? s.indexOf('.') : -1;
+			if (dot < 1) {
+				continue; // Let the parser report the error
+			}
+
+			final String encodedHeader = s.substring(0, dot);
+
+			if (groupMap.containsKey(encodedHeader)) {
+				groups[i] = groupMap.get(encodedHeader);
+				continue;
+			}
+
+			VerificationGroup group = null;
+			try {
+				Header header = Header.parse(new Base64URL(encodedHeader));
+				if (header instanceof JWSHeader) {
+					group = resolveVerificationGroup((JWSHeader)header, context);
+				}
+			} catch (ParseException e) {
+				// Let the parser report the error
+			}
+			groupMap.put(encodedHeader, group);
+			groups[i] = group;
+		}
+
+		return groups;
+	}
+
+
+	/**
+	 * Performs the checks of {@link #process(SignedJWT, SecurityContext)}
+	 * which depend on the JWS header and the context only, and resolves
+	 * the JWS verifiers for the key candidates.
+	 *
+	 * @param header  The JWS header.
+	 * @param context Optional context, {@code null} if not required.
+	 *
+	 * @return The verification group.
+	 */
+	private VerificationGroup resolveVerificationGroup(final JWSHeader header, final C context) {
+
+		try {
+			verifyJWSType(header, context);
+
+			if (getJWSKeySelector() == null) {
+				// JWS key selector may have been deliberately omitted
+				throw new BadJOSEException("Signed JWT rejected: No JWS key selector is configured");
+			}
+
+			if (getJWSVerifierFactory() == null) {
+				throw new JOSEException("No JWS verifier is configured");
+			}
+
+			List<? extends Key> keyCandidates = getJWSKeySelector().selectJWSKeys(header, context);
+
+			if (keyCandidates == null || keyCandidates.isEmpty()) {
+				throw new BadJOSEException("Signed JWT rejected: Another algorithm expected, or no matching key(s) found");
+			}
+
+			final JWSVerifier[] verifiers = new JWSVerifier[keyCandidates.size()];
+			final JOSEException[] verifierExceptions = new JOSEException[verifiers.length];
+
+			for (int i=0; i < verifiers.length; i++) {
+				try {
+					verifiers[i] = getJWSVerifierFactory().createJWSVerifier(header, keyCandidates.get(i));
+				} catch (JOSEException e) {
+					// Thrown when the JWT verification reaches this key
+					verifierExceptions[i] = e;
+				}
+			}
+
+			return new VerificationGroup(verifiers, verifierExceptions, null);
+
+		} catch (BadJOSEException | JOSEException | RuntimeException e) {
+			return new VerificationGroup(null, null, e);
+		}
+	}
+
+
+	/**
+	 * Processes a JWT from a batch.
+	 *
+	 * @param jwtString The JWT, compact-encoded.
+	 * @param group     The verification group, {@code null} to process
+	 *                  the JWT individually.
+	 * @param context   Optional context, {@code null} if not required.
+	 *
+	 * @return The processing result.
+	 */
+	private JWTProcessingResult processBatchItem(final String jwtString,
+						     final VerificationGroup group,
+						     final C context) {
+
+		try {
+			if (group == null) {
+				return new JWTProcessingResult(process(jwtString, context));
+			}
+
+			SignedJWT signedJWT = SignedJWT.parse(jwtString);
+			batchItem.set(new BatchItem(signedJWT, group));
+			try {
+				return new JWTProcessingResult(process(signedJWT, context));
+			} finally {
+				batchItem.remove();
+			}
+		} catch (Exception e) {
+			return new JWTProcessingResult(e);
+		}
+	}
+
+
+	/**
+	 * Processes the specified signed JWT with the resolved verification
+	 * group. Equivalent to {@link #process(SignedJWT, SecurityContext)}.
+	 *
+	 * @param signedJWT The signed JWT.
+	 * @param group     The verification group for the JWS header.
+	 * @param context   Optional context, {@code null} if not required.
+	 *
+	 * @return The JWT claims set on success.
+	 *
+	 * @throws BadJOSEException If the signed JWT is rejected.
+	 * @throws JOSEException    If an internal processing exception is
+	 *                          encountered.
+	 */
+	private JWTClaimsSet process(final SignedJWT signedJWT,
+				     final VerificationGroup group,
+				     final C context)
+		throws BadJOSEException, JOSEException {
+
+		if (group.exception instanceof BadJOSEException) {
+			throw (BadJOSEException)group.exception;
+		}
+
+		if (group.exception instanceof JOSEException) {
+			throw (JOSEException)group.exception;
+		}
+
+		if (group.exception != null) {
+			throw (RuntimeException)group.exception;
+		}
+
+		final JWSVerifier[] verifiers = group.verifiers;
+
+		for (int i=0; i < verifiers.length; i++) {
+
+			if (group.verifierExceptions[i] != null) {
+				throw group.verifierExceptions[i];
+			}
+
+			if (verifiers[i] == null) {
+				continue;
+			}
+
+			if (signedJWT.verify(verifiers[i])) {
+				return verifyClaims(extractJWTClaimsSet(signedJWT), context);
+			}
+
+			if (i == verifiers.length - 1) {
+				// No more keys to try out
+				throw new BadJWSException("Signed JWT rejected: Invalid signature");
+			}
+		}
+
+		throw new BadJOSEException("JWS object rejected: No matching verifier(s) found");
+	}
+
+
+	/**
+	 * Returns the verification group if the specified signed JWT is the
+	 * batch item being processed by the current thread. The group is
+	 * handed out once, a subclass passing another or the same signed JWT
+	 * again gets it processed individually.
+	 *
+	 * @param signedJWT The signed JWT.
+	 *
+	 * @return The verification group, {@code null} if none.
+	 */
+	private VerificationGroup takeVerificationGroup(final SignedJWT signedJWT) {
+
+		BatchItem item = batchItem.get();
+
+		if (item == null || item.signedJWT != signedJWT) {
+			return null;
+		}
+
+		batchItem.remove();
+		return item.group;
+	}
+
+
+	/**
+	 * A signed JWT from a batch with the resolved verification group for
+	 * its JWS header.
+	 */
+	private static final class BatchItem {
+
+
+		/**
+		 * The signed JWT.
+		 */
+		private final SignedJWT signedJWT;
+
+
+		/**
+		 * The verification group.
+		 */
+		private final VerificationGroup group;
+
+
+		private BatchItem(final SignedJWT signedJWT, final VerificationGroup group) {
+			this.signedJWT = signedJWT;
+			this.group = group;
+		}
+	}
+
+
+	/**
+	 * The resolved JWS verifiers for the signed JWTs in a batch with the
+	 * same JWS header.
+	 */
+	private static final class VerificationGroup {
+
+
+		/**
+		 * The JWS verifiers in the order of the key candidates,
+		 * {@code null} elements if not supported.
+		 */
+		private final JWSVerifier[] verifiers;
+
+
+		/**
+		 * The verifier creation exceptions in the order of the key
+		 * candidates, {@code null} elements if none.
+		 */
+		private final JOSEException[] verifierExceptions;
+
+
+		/**
+		 * The exception which rejects all JWTs in the group,
+		 * {@code null} if none.
+		 */
+		private final Exception exception;
+
+
+		private VerificationGroup(final JWSVerifier[] verifiers,
+					  final JOSEException[] verifierExceptions,
+					  final Exception exception) {
+			this.verifiers = verifiers;
+			this.verifierExceptions = verifierExceptions;
+			this.exception = exception;
+		}
+	}
 }
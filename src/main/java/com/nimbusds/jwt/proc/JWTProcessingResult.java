@@ -0,0 +1,111 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jwt.proc;
+
+
+import java.util.Objects;
+
+import net.jcip.annotations.Immutable;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+
+
+/**
+ * The result of processing a JWT in a batch: the JWT claims set on success,
+ * else the exception which caused the JWT to be rejected.
+ *
+ * @see DefaultJWTProcessor#processAll
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+@Immutable
+public final class JWTProcessingResult {
+
+
+	/**
+	 * The JWT claims set, {@code null} if the JWT was rejected.
+	 */
+	private final JWTClaimsSet claimsSet;
+
+
+	/**
+	 * The exception, {@code null} if the JWT was accepted.
+	 */
+	private final Exception exception;
+
+
+	/**
+	 * Creates a new result for an accepted JWT.
+	 *
+	 * @param claimsSet The JWT claims set. Must not be {@code null}.
+	 */
+	public JWTProcessingResult(final JWTClaimsSet claimsSet) {
+
+		this.claimsSet = Objects.requireNonNull(claimsSet);
+		this.exception = null;
+	}
+
+
+	/**
+	 * Creates a new result for a rejected JWT.
+	 *
+	 * @param exception The exception, typically a
+	 *                  {@link java.text.ParseException},
+	 *                  {@link com.nimbusds.jose.proc.BadJOSEException}
+	 *                  or {@link com.nimbusds.jose.JOSEException}. Must
+	 *                  not be {@code null}.
+	 */
+	public JWTProcessingResult(final Exception exception) {
+
+		this.claimsSet = null;
+		this.exception = Objects.requireNonNull(exception);
+	}
+
+
+	/**
+	 * Returns {@code true} if the JWT was accepted.
+	 *
+	 * @return {@code true} if accepted, {@code false} if rejected.
+	 */
+	public boolean isSuccess() {
+
+		return claimsSet != null;
+	}
+
+
+	/**
+	 * Returns the JWT claims set of an accepted JWT.
+	 *
+	 * @return The JWT claims set, {@code null} if the JWT was rejected.
+	 */
+	public JWTClaimsSet getJWTClaimsSet() {
+
+		return claimsSet;
+	}
+
+
+	/**
+	 * Returns the exception which caused the JWT to be rejected.
+	 *
+	 * @return The exception, {@code null} if the JWT was accepted.
+	 */
+	public Exception getException() {
+
+		return exception;
+	}
+}
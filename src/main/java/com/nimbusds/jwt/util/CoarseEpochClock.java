@@ -0,0 +1,222 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jwt.util;
+
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import net.jcip.annotations.ThreadSafe;
+
+
+/**
+ * Coarse clock which caches the current time and refreshes it from a
+ * background daemon thread at a fixed tick period, by default once per
+ * millisecond. Querying the clock is a single volatile read. The cached time
+ * never goes backwards, a step back of the system clock is absorbed until the
+ * system time catches up again.
+ *
+ * <p>Use the shared {@link #getInstance() instance} where possible, it runs
+ * for the lifetime of the JVM and can't be shut down. Clocks created with the
+ * constructor must be {@link #shutdown() shut down} when no longer needed to
+ * stop their background thread.
+ *
+ * <p>Example use with a JWT claims verifier:
+ *
+ * <pre>
+ * claimsVerifier.setClock(CoarseEpochClock.getInstance());
+ * </pre>
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+@ThreadSafe
+public final class CoarseEpochClock implements EpochClock {
+
+
+	/**
+	 * The default tick period, in milliseconds (1).
+	 */
+	public static final long DEFAULT_TICK_MILLIS = 1L;
+
+
+	/**
+	 * Lazy holder of the shared instance.
+	 */
+	private static class SharedInstanceHolder {
+
+		private static final CoarseEpochClock INSTANCE = new CoarseEpochClock(DEFAULT_TICK_MILLIS, true);
+	}
+
+
+	/**
+	 * The tick period, in milliseconds.
+	 */
+	private final long tickMillis;
+
+
+	/**
+	 * {@code true} for the shared instance.
+	 */
+	private final boolean shared;
+
+
+	/**
+	 * The scheduler of the clock updates.
+	 */
+	private final ScheduledExecutorService scheduler;
+
+
+	/**
+	 * The cached current time, in milliseconds since the Unix epoch.
+	 */
+	private volatile long now;
+
+
+	/**
+	 * {@code true} if the clock was shut down.
+	 */
+	private volatile boolean stopped;
+
+
+	/**
+	 * Returns the shared coarse clock with the default tick period. The
+	 * background thread is started on first use.
+	 *
+	 * @return The shared coarse clock.
+	 */
+	public static CoarseEpochClock getInstance() {
+
+		return SharedInstanceHolder.INSTANCE;
+	}
+
+
+	/**
+	 * Creates a new coarse clock and starts its background thread.
+	 *
+	 * @param tickMillis The tick period, in milliseconds. Must be
+	 *                   positive.
+	 */
+	public CoarseEpochClock(final long tickMillis) {
+
+		this(tickMillis, false);
+	}
+
+
+	/**
+	 * Creates a new coarse clock and starts its background thread.
+	 *
+	 * @param tickMillis The tick period, in milliseconds. Must be
+	 *                   positive.
+	 * @param shared     {@code true} for the shared instance.
+	 */
+	private CoarseEpochClock(final long tickMillis, final boolean shared) {
+
+		if (tickMillis < 1) {
+			throw new IllegalArgumentException("The tick period must be positive");
+		}
+		this.tickMillis = tickMillis;
+		this.shared = shared;
+
+		now = System.currentTimeMillis();
+
+		scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable r) {
+				Thread thread = new Thread(r, "nimbus-coarse-epoch-clock");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		scheduler.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				tick();
+			}
+		}, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+	}
+
+
+	/**
+	 * Updates the cached time. Called from the single scheduler thread
+	 * only.
+	 */
+	private void tick() {
+
+		final long t = System.currentTimeMillis();
+		if (t > now) {
+			now = t;
+		}
+	}
+
+
+	/**
+	 * Returns the tick period.
+	 *
+	 * @return The tick period, in milliseconds.
+	 */
+	public long getTickMillis() {
+
+		return tickMillis;
+	}
+
+
+	/**
+	 * Returns the cached current time. After the clock is shut down the
+	 * time is read directly from {@link System#currentTimeMillis()}.
+	 *
+	 * @return The current time, in milliseconds since the Unix epoch.
+	 */
+	@Override
+	public long currentTimeMillis() {
+
+		if (stopped) {
+			return System.currentTimeMillis();
+		}
+		return now;
+	}
+
+
+	/**
+	 * Stops the background thread of this clock. The clock remains
+	 * usable and falls back to {@link System#currentTimeMillis()}. Has no
+	 * effect on the {@link #getInstance() shared instance}.
+	 */
+	public void shutdown() {
+
+		if (shared) {
+			return;
+		}
+
+		stopped = true;
+		scheduler.shutdownNow();
+	}
+
+
+	/**
+	 * Returns {@code true} if this clock was shut down.
+	 *
+	 * @return {@code true} if shut down, else {@code false}.
+	 */
+	public boolean isShutdown() {
+
+		return stopped;
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jwt.util;
+
+
+/**
+ * Source of the current time for JWT time window checks, in milliseconds
+ * since the Unix epoch. Implementations must be thread-safe and must not
+ * allocate objects when queried.
+ *
+ * @author Vladimir Dzhuvinov
+ * @version 2022-06-09
+ */
+public interface EpochClock {
+
+
+	/**
+	 * Clock backed by {@link System#currentTimeMillis()}.
+	 */
+	EpochClock SYSTEM = new EpochClock() {
+		@Override
+		public long currentTimeMillis() {
+			return System.currentTimeMillis();
+		}
+	};
+
+
+	/**
+	 * Returns the current time.
+	 *
+	 * @return The current time, in milliseconds since the Unix epoch.
+	 */
+	long currentTimeMillis();
+}
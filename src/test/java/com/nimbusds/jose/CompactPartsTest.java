@@ -0,0 +1,160 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose;
+
+
+import java.text.ParseException;
+
+import junit.framework.TestCase;
+
+import com.nimbusds.jose.util.Base64URL;
+
+
+/**
+ * Tests the offset-based compact parts.
+ */
+public class CompactPartsTest extends TestCase {
+
+
+	public void testThreeParts()
+		throws ParseException {
+
+		CompactParts parts = CompactParts.parse("abc.defg.hi");
+
+		assertEquals(3, parts.size());
+
+		assertEquals(0, parts.getOffset(0));
+		assertEquals(3, parts.getLength(0));
+		assertEquals(4, parts.getOffset(1));
+		assertEquals(4, parts.getLength(1));
+		assertEquals(9, parts.getOffset(2));
+		assertEquals(2, parts.getLength(2));
+
+		assertEquals(new Base64URL("abc"), parts.getPart(0));
+		assertEquals(new Base64URL("defg"), parts.getPart(1));
+		assertEquals(new Base64URL("hi"), parts.getPart(2));
+
+		assertEquals("abc.defg".length(), parts.getSigningInputLength());
+	}
+
+
+	public void testFiveParts()
+		throws ParseException {
+
+		CompactParts parts = CompactParts.parse("abc.def.ghi.jkl.mno");
+
+		assertEquals(5, parts.size());
+
+		String[] expected = {"abc", "def", "ghi", "jkl", "mno"};
+		for (int i=0; i < 5; i++) {
+			assertEquals(expected[i], parts.getPart(i).toString());
+			assertEquals(i * 4, parts.getOffset(i));
+			assertEquals(3, parts.getLength(i));
+		}
+	}
+
+
+	public void testEmptyParts()
+		throws ParseException {
+
+		CompactParts parts = CompactParts.parse("abc..");
+		assertEquals(3, parts.size());
+		assertEquals("", parts.getPart(1).toString());
+		assertEquals(0, parts.getLength(1));
+		assertEquals("", parts.getPart(2).toString());
+		assertEquals(0, parts.getLength(2));
+
+		parts = CompactParts.parse("....");
+		assertEquals(5, parts.size());
+		for (int i=0; i < 5; i++) {
+			assertEquals("", parts.getPart(i).toString());
+		}
+	}
+
+
+	public void testTrim()
+		throws ParseException {
+
+		CompactParts parts = CompactParts.parse(" \nabc.def.ghi\r\n ");
+		assertEquals("abc", parts.getPart(0).toString());
+		assertEquals("ghi", parts.getPart(2).toString());
+		assertEquals(7, parts.getSigningInputLength());
+	}
+
+
+	public void testSameAsSplit()
+		throws ParseException {
+
+		String[] inputs = {"abc.def.ghi", "abc.def.", "abc..ghi", "abc.def.ghi.jkl.mno", "...."};
+
+		for (String s: inputs) {
+			Base64URL[] expected = JOSEObject.split(s);
+			CompactParts parts = CompactParts.parse(s);
+			assertEquals(expected.length, parts.size());
+			for (int i=0; i < expected.length; i++) {
+				assertEquals(expected[i], parts.getPart(i));
+			}
+		}
+	}
+
+
+	public void testParseExceptions() {
+
+		String[] inputs = {"abc", "abc.def", "abc.def.ghi.jkl", "abc.def.ghi.jkl.mno.pqr"};
+
+		for (String s: inputs) {
+
+			String expectedMessage;
+			try {
+				JOSEObject.split(s);
+				fail();
+				return;
+			} catch (ParseException e) {
+				expectedMessage = e.getMessage();
+			}
+
+			try {
+				CompactParts.parse(s);
+				fail();
+			} catch (ParseException e) {
+				assertEquals(expectedMessage, e.getMessage());
+			}
+		}
+	}
+
+
+	public void testIllegalIndex()
+		throws ParseException {
+
+		CompactParts parts = CompactParts.parse("abc.def.ghi");
+
+		try {
+			parts.getOffset(3);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			assertEquals("Invalid part index: 3", e.getMessage());
+		}
+
+		try {
+			parts.getLength(-1);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			assertEquals("Invalid part index: -1", e.getMessage());
+		}
+	}
+}
@@ -24,6 +24,7 @@ import java.util.Map;
 
 import junit.framework.TestCase;
 
+import com.nimbusds.jose.crypto.AESDecrypter;
 import com.nimbusds.jose.crypto.ECDSAVerifier;
 import com.nimbusds.jose.crypto.RSASSAVerifier;
 import com.nimbusds.jose.jwk.ECKey;
@@ -212,7 +213,8 @@ public class JOSEObjectJSONTest extends TestCase {
 	
 	
 	// see https://datatracker.ietf.org/doc/html/rfc7516#appendix-A.5
-	public void testParseJWEFlattened_RFC_Example_Appendix() {
+	public void testParseJWEFlattened_RFC_Example_Appendix()
+		throws Exception {
 		
 		String json = 
 			"{" +
@@ -232,13 +234,15 @@ public class JOSEObjectJSONTest extends TestCase {
 			"  \"Mz-VPPyU4RlcuYv1IwIvzw\"" +
 			"}";
 		
-		try {
-			JOSEObjectJSON.parse(json);
-			fail();
-		} catch (ParseException e) {
-			// For now TODO
-			assertEquals("JWE JSON not supported", e.getMessage());
-		}
+		JWEObjectJSON jweObject = (JWEObjectJSON) JOSEObjectJSON.parse(json);
+		
+		assertEquals(EncryptionMethod.A128CBC_HS256, jweObject.getEncryptionMethod());
+		assertEquals("https://server.example.com/keys.jwks", jweObject.getSharedUnprotectedHeader().getParam("jku"));
+		assertEquals(1, jweObject.getRecipients().size());
+		assertEquals(JWEAlgorithm.A128KW, jweObject.getRecipient("7").getHeader().getAlgorithm());
+		
+		jweObject.decrypt(new AESDecrypter(new Base64URL("GawgguFyGrWKav7AX4VKUg").decode()));
+		assertEquals("Live long and prosper.", jweObject.getPayload().toString());
 	}
 	
 	
@@ -0,0 +1,435 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose;
+
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.text.ParseException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import junit.framework.TestCase;
+
+import com.nimbusds.jose.crypto.*;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.util.Pair;
+
+
+/**
+ * Tests the JWE secured object with multiple recipients.
+ */
+public class JWEObjectJSONTest extends TestCase {
+
+
+	private static final KeyPair RSA_KEY_PAIR;
+
+
+	private static final ECKey EC_JWK;
+
+
+	private static final SecretKey AES_256_KEY = new SecretKeySpec(new byte[32], "AES");
+
+
+	private static final SecretKey AES_128_KEY = new SecretKeySpec(new byte[16], "AES");
+
+
+	static {
+		try {
+			KeyPairGenerator gen = KeyPairGenerator.getInstance("RSA");
+			gen.initialize(2048);
+			RSA_KEY_PAIR = gen.generateKeyPair();
+
+			EC_JWK = new ECKeyGenerator(Curve.P_256).generate();
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+
+	private static UnprotectedHeader header(final JWEAlgorithm alg, final String kid) {
+
+		return new UnprotectedHeader.Builder()
+			.param(HeaderParameterNames.ALGORITHM, alg.getName())
+			.keyID(kid)
+			.build();
+	}
+
+
+	private static List<Pair<UnprotectedHeader, JWEKeyEncrypter>> recipients()
+		throws JOSEException {
+
+		return Arrays.asList(
+			Pair.<UnprotectedHeader, JWEKeyEncrypter>of(header(JWEAlgorithm.RSA_OAEP_256, "rsa"), new RSAEncrypter((RSAPublicKey) RSA_KEY_PAIR.getPublic())),
+			Pair.<UnprotectedHeader, JWEKeyEncrypter>of(header(JWEAlgorithm.ECDH_ES_A256KW, "ec"), new ECDHEncrypter(EC_JWK.toECPublicKey())),
+			Pair.<UnprotectedHeader, JWEKeyEncrypter>of(header(JWEAlgorithm.A256KW, "aes"), new AESEncrypter(AES_256_KEY)),
+			Pair.<UnprotectedHeader, JWEKeyEncrypter>of(header(JWEAlgorithm.A128GCMKW, "aes-gcm"), new AESEncrypter(AES_128_KEY))
+		);
+	}
+
+
+	private static Map<String, JWEDecrypter> decrypters()
+		throws JOSEException {
+
+		Map<String, JWEDecrypter> decrypters = new LinkedHashMap<>();
+		decrypters.put("rsa", new RSADecrypter((RSAPrivateKey) RSA_KEY_PAIR.getPrivate()));
+		decrypters.put("ec", new ECDHDecrypter(EC_JWK));
+		decrypters.put("aes", new AESDecrypter(AES_256_KEY));
+		decrypters.put("aes-gcm", new AESDecrypter(AES_128_KEY));
+		return decrypters;
+	}
+
+
+	private static void assertDecryptsForAll(final String json)
+		throws Exception {
+
+		for (Map.Entry<String, JWEDecrypter> en: decrypters().entrySet()) {
+			JWEObjectJSON jweObject = JWEObjectJSON.parse(json);
+			assertEquals(JWEObject.State.ENCRYPTED, jweObject.getState());
+			jweObject.decrypt(en.getKey(), en.getValue());
+			assertEquals(JWEObject.State.DECRYPTED, jweObject.getState());
+			assertEquals("Hello, world!", jweObject.getPayload().toString());
+		}
+	}
+
+
+	public void testMultipleRecipients_executor()
+		throws Exception {
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			JWEObjectJSON jweObject = new JWEObjectJSON(EncryptionMethod.A256GCM, new Payload("Hello, world!"));
+			assertEquals(JWEObject.State.UNENCRYPTED, jweObject.getState());
+			assertEquals("{\"enc\":\"A256GCM\"}", jweObject.getProtectedHeader().decodeToString());
+			assertTrue(jweObject.getRecipients().isEmpty());
+
+			jweObject.encrypt(recipients(), executor);
+
+			assertEquals(JWEObject.State.ENCRYPTED, jweObject.getState());
+			assertEquals(EncryptionMethod.A256GCM, jweObject.getEncryptionMethod());
+			assertNotNull(jweObject.getIV());
+			assertNotNull(jweObject.getCipherText());
+			assertNotNull(jweObject.getAuthTag());
+
+			List<JWEObjectJSON.Recipient> recipients = jweObject.getRecipients();
+			assertEquals(4, recipients.size());
+
+			for (JWEObjectJSON.Recipient recipient: recipients) {
+				assertNotNull(recipient.getEncryptedKey());
+				assertEquals(jweObject.getProtectedHeader(), recipient.getHeader().toBase64URL());
+				assertEquals(EncryptionMethod.A256GCM, recipient.getHeader().getEncryptionMethod());
+				assertNull(recipient.getUnprotectedHeader().getParam(HeaderParameterNames.ENCRYPTION_ALGORITHM));
+			}
+
+			assertEquals(JWEAlgorithm.RSA_OAEP_256, recipients.get(0).getHeader().getAlgorithm());
+			assertEquals("rsa", recipients.get(0).getUnprotectedHeader().getKeyID());
+
+			// Key management params added to the per-recipient header
+			assertNotNull(jweObject.getRecipient("ec").getUnprotectedHeader().getParam(HeaderParameterNames.EPHEMERAL_PUBLIC_KEY));
+			assertNotNull(jweObject.getRecipient("ec").getHeader().getEphemeralPublicKey());
+			assertNotNull(jweObject.getRecipient("aes-gcm").getUnprotectedHeader().getParam(HeaderParameterNames.INITIALIZATION_VECTOR));
+			assertNotNull(jweObject.getRecipient("aes-gcm").getUnprotectedHeader().getParam(HeaderParameterNames.AUTHENTICATION_TAG));
+			assertNull(jweObject.getRecipient("aes").getUnprotectedHeader().getParam(HeaderParameterNames.INITIALIZATION_VECTOR));
+
+			String json = jweObject.serializeGeneral();
+
+			Map<String, Object> jsonObject = com.nimbusds.jose.util.JSONObjectUtils.parse(json);
+			assertEquals(jweObject.getProtectedHeader().toString(), jsonObject.get("protected"));
+			assertEquals(4, ((List<?>) jsonObject.get("recipients")).size());
+			assertFalse(jsonObject.containsKey("encrypted_key"));
+
+			assertDecryptsForAll(json);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+
+	public void testMultipleRecipients_callingThread()
+		throws Exception {
+
+		JWEObjectJSON jweObject = new JWEObjectJSON(EncryptionMethod.A128CBC_HS256, new Payload("Hello, world!"));
+		jweObject.encrypt(recipients());
+		assertDecryptsForAll(jweObject.serializeGeneral());
+	}
+
+
+	public void testMultipleRecipients_rejectingExecutor()
+		throws Exception {
+
+		Executor executor = new Executor() {
+			@Override
+			public void execute(final Runnable command) {
+				throw new RejectedExecutionException();
+			}
+		};
+
+		JWEObjectJSON jweObject = new JWEObjectJSON(EncryptionMethod.A256GCM, new Payload("Hello, world!"));
+		jweObject.encrypt(recipients(), executor);
+		assertDecryptsForAll(jweObject.serializeGeneral());
+	}
+
+
+	public void testCompression()
+		throws Exception {
+
+		JWEObjectJSON jweObject = new JWEObjectJSON(EncryptionMethod.A256GCM, CompressionAlgorithm.DEF, new Payload("Hello, world!"));
+		jweObject.encrypt(recipients());
+
+		String json = jweObject.serializeGeneral();
+		assertEquals(CompressionAlgorithm.DEF, JWEObjectJSON.parse(json).getRecipient("rsa").getHeader().getCompressionAlgorithm());
+		assertDecryptsForAll(json);
+	}
+
+
+	public void testDecryptWithoutKeyID()
+		throws Exception {
+
+		JWEObjectJSON jweObject = new JWEObjectJSON(EncryptionMethod.A256GCM, new Payload("Hello, world!"));
+		jweObject.encrypt(recipients());
+		String json = jweObject.serializeGeneral();
+
+		// Tries the A256KW and A128GCMKW recipients
+		jweObject = JWEObjectJSON.parse(json);
+		jweObject.decrypt(new AESDecrypter(AES_128_KEY));
+		assertEquals("Hello, world!", jweObject.getPayload().toString());
+
+		jweObject = JWEObjectJSON.parse(json);
+		jweObject.decrypt(new ECDHDecrypter(EC_JWK));
+		assertEquals("Hello, world!", jweObject.getPayload().toString());
+
+		jweObject = JWEObjectJSON.parse(json);
+		try {
+			jweObject.decrypt(new DirectDecrypter(new byte[32]));
+			fail();
+		} catch (JOSEException e) {
+			assertTrue(e.getMessage().startsWith("No recipient with a JWE algorithm supported by the JWE decrypter"));
+		}
+	}
+
+
+	public void testDecrypt_unknownKeyID()
+		throws Exception {
+
+		JWEObjectJSON jweObject = new JWEObjectJSON(EncryptionMethod.A256GCM, new Payload("Hello, world!"));
+		jweObject.encrypt(recipients());
+
+		jweObject = JWEObjectJSON.parse(jweObject.serializeGeneral());
+		assertNull(jweObject.getRecipient("xyz"));
+
+		try {
+			jweObject.decrypt("xyz", new AESDecrypter(AES_256_KEY));
+			fail();
+		} catch (JOSEException e) {
+			assertEquals("No recipient with key ID xyz", e.getMessage());
+		}
+	}
+
+
+	public void testFlattened()
+		throws Exception {
+
+		JWEObjectJSON jweObject = new JWEObjectJSON(EncryptionMethod.A256GCM, new Payload("Hello, world!"));
+		jweObject.encrypt(Collections.singletonList(
+			Pair.<UnprotectedHeader, JWEKeyEncrypter>of(header(JWEAlgorithm.ECDH_ES_A128KW, "ec"), new ECDHEncrypter(EC_JWK.toECPublicKey()))));
+
+		String json = jweObject.serializeFlattened();
+
+		Map<String, Object> jsonObject = com.nimbusds.jose.util.JSONObjectUtils.parse(json);
+		assertFalse(jsonObject.containsKey("recipients"));
+		assertNotNull(jsonObject.get("header"));
+		assertNotNull(jsonObject.get("encrypted_key"));
+
+		JWEObjectJSON parsed = (JWEObjectJSON) JOSEObjectJSON.parse(json);
+		parsed.decrypt(new ECDHDecrypter(EC_JWK));
+		assertEquals("Hello, world!", parsed.getPayload().toString());
+	}
+
+
+	public void testFlattened_multipleRecipients()
+		throws Exception {
+
+		JWEObjectJSON jweObject = new JWEObjectJSON(EncryptionMethod.A256GCM, new Payload("Hello, world!"));
+		jweObject.encrypt(recipients());
+
+		try {
+			jweObject.serializeFlattened();
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals("The flattened JWE JSON serialization requires exactly one recipient", e.getMessage());
+		}
+	}
+
+
+	public void testSerializeUnencrypted() {
+
+		JWEObjectJSON jweObject = new JWEObjectJSON(EncryptionMethod.A256GCM, new Payload("Hello, world!"));
+
+		try {
+			jweObject.serializeGeneral();
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals("The JWE object must be in an encrypted or decrypted state", e.getMessage());
+		}
+	}
+
+
+	public void testEncryptTwice()
+		throws Exception {
+
+		JWEObjectJSON jweObject = new JWEObjectJSON(EncryptionMethod.A256GCM, new Payload("Hello, world!"));
+		jweObject.encrypt(recipients());
+
+		try {
+			jweObject.encrypt(recipients());
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals("The JWE object must be in an unencrypted state", e.getMessage());
+		}
+	}
+
+
+	public void testRecipientHeaderNotDisjoint()
+		throws Exception {
+
+		UnprotectedHeader header = new UnprotectedHeader.Builder()
+			.param(HeaderParameterNames.ALGORITHM, JWEAlgorithm.A256KW.getName())
+			.param(HeaderParameterNames.ENCRYPTION_ALGORITHM, EncryptionMethod.A128GCM.getName())
+			.build();
+
+		JWEObjectJSON jweObject = new JWEObjectJSON(EncryptionMethod.A256GCM, new Payload("Hello, world!"));
+
+		try {
+			jweObject.encrypt(Collections.singletonList(Pair.<UnprotectedHeader, JWEKeyEncrypter>of(header, new AESEncrypter(AES_256_KEY))));
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("Invalid recipient header: The parameters in the JWE protected header, the shared unprotected header and the per-recipient unprotected header must be disjoint", e.getMessage());
+		}
+	}
+
+
+	public void testRecipientHeaderMissingAlgorithm()
+		throws Exception {
+
+		JWEObjectJSON jweObject = new JWEObjectJSON(EncryptionMethod.A256GCM, new Payload("Hello, world!"));
+
+		try {
+			jweObject.encrypt(Collections.singletonList(Pair.<UnprotectedHeader, JWEKeyEncrypter>of(new UnprotectedHeader.Builder().keyID("1").build(), new AESEncrypter(AES_256_KEY))));
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("Invalid recipient header: Missing JWE \"alg\" parameter", e.getMessage());
+		}
+	}
+
+
+	public void testUnsupportedAlgorithm()
+		throws Exception {
+
+		JWEObjectJSON jweObject = new JWEObjectJSON(EncryptionMethod.A256GCM, new Payload("Hello, world!"));
+
+		try {
+			jweObject.encrypt(Collections.singletonList(Pair.<UnprotectedHeader, JWEKeyEncrypter>of(header(JWEAlgorithm.RSA_OAEP_256, "1"), new AESEncrypter(AES_256_KEY))));
+			fail();
+		} catch (JOSEException e) {
+			assertEquals("The RSA-OAEP-256 algorithm is not supported by the JWE encrypter: Supported algorithms: " + new AESEncrypter(AES_256_KEY).supportedJWEAlgorithms(), e.getMessage());
+		}
+	}
+
+
+	public void testDirectKeyAgreementRejected()
+		throws Exception {
+
+		JWEObjectJSON jweObject = new JWEObjectJSON(EncryptionMethod.A256GCM, new Payload("Hello, world!"));
+
+		try {
+			jweObject.encrypt(Collections.singletonList(Pair.<UnprotectedHeader, JWEKeyEncrypter>of(header(JWEAlgorithm.ECDH_ES, "1"), new ECDHEncrypter(EC_JWK.toECPublicKey()))));
+			fail();
+		} catch (JOSEException e) {
+			assertEquals("The ECDH-ES algorithm doesn't wrap a content encryption key (CEK)", e.getMessage());
+		}
+
+		assertEquals(JWEObject.State.UNENCRYPTED, jweObject.getState());
+	}
+
+
+	public void testDeprecatedEncryptionMethodRejected() {
+
+		try {
+			new JWEObjectJSON(EncryptionMethod.A128CBC_HS256_DEPRECATED, new Payload("Hello, world!"));
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The A128CBC+HS256 encryption method is not supported with multiple recipients", e.getMessage());
+		}
+	}
+
+
+	public void testParse_aadNotSupported()
+		throws Exception {
+
+		JWEObjectJSON jweObject = new JWEObjectJSON(EncryptionMethod.A256GCM, new Payload("Hello, world!"));
+		jweObject.encrypt(recipients());
+
+		Map<String, Object> jsonObject = jweObject.toGeneralJSONObject();
+		jsonObject.put("aad", "YWFk");
+
+		try {
+			JWEObjectJSON.parse(jsonObject);
+			fail();
+		} catch (ParseException e) {
+			assertEquals("The JWE \"aad\" member is not supported", e.getMessage());
+		}
+	}
+
+
+	public void testParse_missingProtectedHeader() {
+
+		try {
+			JWEObjectJSON.parse("{\"ciphertext\":\"YWFk\",\"header\":{\"alg\":\"A128KW\",\"enc\":\"A128GCM\"}}");
+			fail();
+		} catch (ParseException e) {
+			assertEquals("Missing protected header (required by this library)", e.getMessage());
+		}
+	}
+
+
+	public void testParse_modifiedProtectedHeader()
+		throws Exception {
+
+		JWEObjectJSON jweObject = new JWEObjectJSON(EncryptionMethod.A256GCM, new Payload("Hello, world!"));
+		jweObject.encrypt(recipients());
+
+		Map<String, Object> jsonObject = jweObject.toGeneralJSONObject();
+		jsonObject.put("protected", com.nimbusds.jose.util.Base64URL.encode("{\"enc\":\"A256GCM\",\"typ\":\"JWT\"}").toString());
+
+		try {
+			JWEObjectJSON.parse(jsonObject).decrypt("aes", new AESDecrypter(AES_256_KEY));
+			fail();
+		} catch (JOSEException e) {
+			// AAD mismatch
+			assertNotNull(e.getMessage());
+		}
+	}
+}
@@ -19,8 +19,11 @@ package com.nimbusds.jose;
 
 
 import java.text.ParseException;
-import java.util.Collections;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 import junit.framework.TestCase;
 
@@ -28,9 +31,11 @@ import com.nimbusds.jose.crypto.*;
 import com.nimbusds.jose.jwk.*;
 import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
 import com.nimbusds.jose.jwk.gen.OctetKeyPairGenerator;
+import com.nimbusds.jose.jwk.gen.OctetSequenceKeyGenerator;
 import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
 import com.nimbusds.jose.util.Base64URL;
 import com.nimbusds.jose.util.JSONObjectUtils;
+import com.nimbusds.jose.util.Pair;
 
 
 /**
@@ -38,7 +43,7 @@ import com.nimbusds.jose.util.JSONObjectUtils;
  *
  * @author Alexander Martynov
  * @author Vladimir Dzhuvinov
- * @version 2021-10-09
+ * @version 2022-06-09
  */
 public class JWSObjectJSONTest extends TestCase {
 	
@@ -81,6 +86,14 @@ public class JWSObjectJSONTest extends TestCase {
 	}
 	
 	
+	public void testVerificationPolicyEnum() {
+		
+		assertEquals("ANY_OF", JWSObjectJSON.VerificationPolicy.ANY_OF.name());
+		assertEquals("ALL_OF", JWSObjectJSON.VerificationPolicy.ALL_OF.name());
+		assertEquals(2, JWSObjectJSON.VerificationPolicy.values().length);
+	}
+	
+	
 	public void testGeneral_singleSignature()
 		throws Exception {
 		
@@ -859,4 +872,180 @@ public class JWSObjectJSONTest extends TestCase {
 			System.out.println("JWS JSON invalid");
 		}
 	}
-}
\ No newline at end of file
+	
+	
+	private static final Executor REJECTING_EXECUTOR = new Executor() {
+		@Override
+		public void execute(final Runnable command) {
+			throw new RejectedExecutionException();
+		}
+	};
+	
+	
+	public void testBatchSignAndVerify()
+		throws Exception {
+		
+		RSAKey rsaJWK = new RSAKeyGenerator(2048).keyID("1").generate();
+		ECKey ecJWK = new ECKeyGenerator(Curve.P_256).keyID("2").generate();
+		OctetSequenceKey hmacJWK = new OctetSequenceKey.Builder(new byte[32]).keyID("3").build();
+		
+		List<Pair<JWSHeader, JWSSigner>> signers = Arrays.asList(
+			Pair.of(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("1").build(), (JWSSigner) new RSASSASigner(rsaJWK)),
+			Pair.of(new JWSHeader.Builder(JWSAlgorithm.ES256).keyID("2").build(), (JWSSigner) new ECDSASigner(ecJWK)),
+			Pair.of(new JWSHeader.Builder(JWSAlgorithm.HS256).keyID("3").build(), (JWSSigner) new MACSigner(hmacJWK))
+		);
+		
+		List<JWSVerifier> verifiers = Arrays.<JWSVerifier>asList(
+			new MACVerifier(hmacJWK),
+			new ECDSAVerifier(ecJWK.toPublicJWK()),
+			new RSASSAVerifier(rsaJWK.toPublicJWK())
+		);
+		
+		ExecutorService executorService = Executors.newFixedThreadPool(2);
+		
+		try {
+			for (Executor executor: new Executor[]{executorService, null, REJECTING_EXECUTOR}) {
+				
+				JWSObjectJSON jwsObject = new JWSObjectJSON(PAYLOAD);
+				jwsObject.sign(signers, executor);
+				assertEquals(JWSObjectJSON.State.SIGNED, jwsObject.getState());
+				
+				// Signatures in the order of the signers
+				assertEquals(3, jwsObject.getSignatures().size());
+				for (int i=0; i < 3; i++) {
+					JWSObjectJSON.Signature sig = jwsObject.getSignatures().get(i);
+					assertEquals(signers.get(i).getLeft(), sig.getHeader());
+					assertNull(sig.getUnprotectedHeader());
+				}
+				
+				assertTrue(jwsObject.verify(verifiers, JWSObjectJSON.VerificationPolicy.ALL_OF, executor));
+				assertEquals(JWSObjectJSON.State.VERIFIED, jwsObject.getState());
+				
+				jwsObject = JWSObjectJSON.parse(jwsObject.serializeGeneral());
+				assertTrue(jwsObject.verify(verifiers, JWSObjectJSON.VerificationPolicy.ALL_OF, executor));
+				assertEquals(JWSObjectJSON.State.VERIFIED, jwsObject.getState());
+				
+				jwsObject = JWSObjectJSON.parse(jwsObject.serializeGeneral());
+				assertTrue(jwsObject.verify(verifiers, JWSObjectJSON.VerificationPolicy.ANY_OF, executor));
+			}
+			
+			// Calling thread
+			JWSObjectJSON jwsObject = new JWSObjectJSON(PAYLOAD);
+			jwsObject.sign(signers);
+			assertTrue(jwsObject.verify(verifiers, JWSObjectJSON.VerificationPolicy.ALL_OF));
+			
+		} finally {
+			executorService.shutdown();
+		}
+	}
+	
+	
+	public void testBatchVerify_policies()
+		throws Exception {
+		
+		ECKey ecJWK = new ECKeyGenerator(Curve.P_256).generate();
+		OctetSequenceKey hmacJWK = new OctetSequenceKey.Builder(new byte[32]).build();
+		
+		JWSObjectJSON jwsObject = new JWSObjectJSON(PAYLOAD);
+		jwsObject.sign(Arrays.asList(
+			Pair.of(new JWSHeader(JWSAlgorithm.ES256), (JWSSigner) new ECDSASigner(ecJWK)),
+			Pair.of(new JWSHeader(JWSAlgorithm.HS256), (JWSSigner) new MACSigner(hmacJWK))
+		));
+		
+		List<JWSVerifier> wrongHMACKey = Arrays.<JWSVerifier>asList(
+			new ECDSAVerifier(ecJWK.toPublicJWK()),
+			new MACVerifier(new OctetSequenceKeyGenerator(256).generate())
+		);
+		
+		ExecutorService executorService = Executors.newFixedThreadPool(2);
+		
+		try {
+			for (Executor executor: new Executor[]{executorService, null}) {
+				
+				jwsObject = JWSObjectJSON.parse(jwsObject.serializeGeneral());
+				assertFalse(jwsObject.verify(wrongHMACKey, JWSObjectJSON.VerificationPolicy.ALL_OF, executor));
+				assertEquals(JWSObjectJSON.State.SIGNED, jwsObject.getState());
+				
+				jwsObject = JWSObjectJSON.parse(jwsObject.serializeGeneral());
+				assertTrue(jwsObject.verify(wrongHMACKey, JWSObjectJSON.VerificationPolicy.ANY_OF, executor));
+				assertEquals(JWSObjectJSON.State.SIGNED, jwsObject.getState());
+				
+				// No verifier for HS256
+				List<JWSVerifier> ecOnly = Collections.singletonList((JWSVerifier) new ECDSAVerifier(ecJWK.toPublicJWK()));
+				assertFalse(jwsObject.verify(ecOnly, JWSObjectJSON.VerificationPolicy.ALL_OF, executor));
+				assertTrue(jwsObject.verify(ecOnly, JWSObjectJSON.VerificationPolicy.ANY_OF, executor));
+				
+				// No verifier for any signature
+				assertFalse(jwsObject.verify(Collections.<JWSVerifier>emptyList(), JWSObjectJSON.VerificationPolicy.ANY_OF, executor));
+				assertFalse(jwsObject.verify(Collections.<JWSVerifier>emptyList(), JWSObjectJSON.VerificationPolicy.ALL_OF, executor));
+			}
+		} finally {
+			executorService.shutdown();
+		}
+	}
+	
+	
+	public void testBatchVerify_tryAllVerifiersForAlgorithm()
+		throws Exception {
+		
+		OctetSequenceKey hmacJWK = new OctetSequenceKey.Builder(new byte[32]).build();
+		
+		JWSObjectJSON jwsObject = new JWSObjectJSON(PAYLOAD);
+		jwsObject.sign(new JWSHeader(JWSAlgorithm.HS256), new MACSigner(hmacJWK));
+		
+		List<JWSVerifier> verifiers = Arrays.<JWSVerifier>asList(
+			new MACVerifier(new OctetSequenceKeyGenerator(256).generate()),
+			new MACVerifier(hmacJWK)
+		);
+		
+		assertTrue(jwsObject.verify(verifiers, JWSObjectJSON.VerificationPolicy.ALL_OF));
+		assertTrue(jwsObject.getSignatures().get(0).isVerified());
+	}
+	
+	
+	public void testBatchSign_unsupportedAlgorithm()
+		throws Exception {
+		
+		OctetSequenceKey hmacJWK = new OctetSequenceKey.Builder(new byte[32]).build();
+		
+		JWSObjectJSON jwsObject = new JWSObjectJSON(PAYLOAD);
+		
+		try {
+			jwsObject.sign(Arrays.asList(
+				Pair.of(new JWSHeader(JWSAlgorithm.HS256), (JWSSigner) new MACSigner(hmacJWK)),
+				Pair.of(new JWSHeader(JWSAlgorithm.RS256), (JWSSigner) new MACSigner(hmacJWK))
+			));
+			fail();
+		} catch (JOSEException e) {
+			assertEquals("The RS256 algorithm is not allowed or supported by the JWS signer: Supported algorithms: [HS256]", e.getMessage());
+		}
+		
+		assertTrue(jwsObject.getSignatures().isEmpty());
+	}
+	
+	
+	public void testBatchSign_noSigners()
+		throws Exception {
+		
+		JWSObjectJSON jwsObject = new JWSObjectJSON(PAYLOAD);
+		
+		try {
+			jwsObject.sign(Collections.<Pair<JWSHeader, JWSSigner>>emptyList());
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("At least one signer required", e.getMessage());
+		}
+	}
+	
+	
+	public void testBatchVerify_unsigned()
+		throws Exception {
+		
+		try {
+			new JWSObjectJSON(PAYLOAD).verify(Collections.<JWSVerifier>emptyList(), JWSObjectJSON.VerificationPolicy.ANY_OF);
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals("The JWS object must be in a signed or verified state", e.getMessage());
+		}
+	}
+}
@@ -198,4 +198,82 @@ public class JWSObjectTest extends TestCase {
 		assertNotNull(payload.toString());
 		assertNull(payload.toJSONObject());
 	}
-}
\ No newline at end of file
+	
+	
+	public void testParseKeepsSigningInputSlice()
+		throws Exception {
+		
+		OctetSequenceKey key = new OctetSequenceKeyGenerator(256).generate();
+		
+		JWSObject jwsObject = new JWSObject(new JWSHeader(JWSAlgorithm.HS256), new Payload("Hello, world!"));
+		jwsObject.sign(new MACSigner(key));
+		String jws = jwsObject.serialize();
+		
+		JWSObject parsed = JWSObject.parse(jws);
+		
+		assertEquals(jws.substring(0, jws.lastIndexOf('.')), new String(parsed.getSigningInput(), "UTF-8"));
+		assertNotSame(parsed.getSigningInput(), parsed.getSigningInput());
+		assertEquals(jws, parsed.serialize());
+		assertEquals(jwsObject.getHeader().toBase64URL(), parsed.getParsedParts()[0]);
+		assertEquals(jwsObject.getPayload().toBase64URL(), parsed.getParsedParts()[1]);
+		assertEquals(jwsObject.getSignature(), parsed.getParsedParts()[2]);
+		assertEquals("Hello, world!", parsed.getPayload().toString());
+		
+		assertTrue(new MACVerifier(key) instanceof JWSSliceVerifier);
+		assertTrue(parsed.verify(new MACVerifier(key)));
+		assertEquals(JWSObject.State.VERIFIED, parsed.getState());
+		
+		// Tampered signing input
+		String tampered = jws.substring(0, jws.indexOf('.') + 1) + Base64URL.encode("Hello, world?") + jws.substring(jws.lastIndexOf('.'));
+		assertFalse(JWSObject.parse(tampered).verify(new MACVerifier(key)));
+	}
+	
+	
+	public void testSliceVerifierReceivesCompactSerialization()
+		throws Exception {
+		
+		final OctetSequenceKey key = new OctetSequenceKeyGenerator(256).generate();
+		
+		JWSObject jwsObject = new JWSObject(new JWSHeader(JWSAlgorithm.HS256), new Payload("Hello, world!"));
+		jwsObject.sign(new MACSigner(key));
+		final String jws = jwsObject.serialize();
+		
+		final int[] calls = new int[1];
+		
+		JWSVerifier verifier = new MACVerifier(key) {
+			@Override
+			public boolean verify(final JWSHeader header, final byte[] buf, final int offset, final int length, final Base64URL signature)
+				throws JOSEException {
+				calls[0]++;
+				assertEquals(0, offset);
+				assertEquals(jws.lastIndexOf('.'), length);
+				assertEquals(jws.length(), buf.length);
+				return super.verify(header, buf, offset, length, signature);
+			}
+		};
+		
+		assertTrue(JWSObject.parse(jws).verify(verifier));
+		assertEquals(1, calls[0]);
+	}
+	
+	
+	public void testParseUnencodedPayloadFallsBackToComposedSigningInput()
+		throws Exception {
+		
+		OctetSequenceKey key = new OctetSequenceKeyGenerator(256).generate();
+		
+		JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.HS256)
+			.base64URLEncodePayload(false)
+			.criticalParams(java.util.Collections.singleton("b64"))
+			.build();
+		
+		JWSObject jwsObject = new JWSObject(header, new Payload("Hello"));
+		jwsObject.sign(new MACSigner(key));
+		String detached = jwsObject.serialize(true);
+		
+		JWSObject parsed = JWSObject.parse(detached, new Payload("Hello"));
+		assertTrue(parsed.verify(new MACVerifier(key)));
+		assertEquals(new Base64URL(""), parsed.getParsedParts()[1]);
+	}
+}
+
@@ -0,0 +1,315 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2016, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Random;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import junit.framework.TestCase;
+
+import com.nimbusds.jose.crypto.DirectDecrypter;
+import com.nimbusds.jose.crypto.DirectEncrypter;
+import com.nimbusds.jose.crypto.RSADecrypter;
+import com.nimbusds.jose.crypto.RSAEncrypter;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jose.util.DeflateUtils;
+import com.nimbusds.jose.util.StandardCharset;
+
+
+/**
+ * Tests streaming JWE encryption and decryption.
+ */
+public class StreamingJWETest extends TestCase {
+
+
+	private static final EncryptionMethod[] STREAMING_ENCS = {
+		EncryptionMethod.A128CBC_HS256,
+		EncryptionMethod.A192CBC_HS384,
+		EncryptionMethod.A256CBC_HS512,
+		EncryptionMethod.A128GCM,
+		EncryptionMethod.A192GCM,
+		EncryptionMethod.A256GCM
+	};
+
+
+	private static final KeyPair RSA_KEY_PAIR;
+
+
+	static {
+		try {
+			KeyPairGenerator gen = KeyPairGenerator.getInstance("RSA");
+			gen.initialize(2048);
+			RSA_KEY_PAIR = gen.generateKeyPair();
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+
+	private static byte[] randomBytes(final int length) {
+
+		byte[] bytes = new byte[length];
+		new Random(length).nextBytes(bytes);
+		return bytes;
+	}
+
+
+	private static SecretKey randomKey(final EncryptionMethod enc) {
+
+		return new SecretKeySpec(randomBytes(enc.cekBitLength() / 8), "AES");
+	}
+
+
+	private static String encrypt(final JWEHeader header, final byte[] clearText, final StreamingJWEEncrypter encrypter)
+		throws Exception {
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		StreamingJWE.encrypt(header, new ByteArrayInputStream(clearText), encrypter, out);
+		return new String(out.toByteArray(), StandardCharset.UTF_8);
+	}
+
+
+	private static byte[] decrypt(final String jwe, final StreamingJWEDecrypter decrypter)
+		throws Exception {
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		StreamingJWE.decrypt(new ByteArrayInputStream(jwe.getBytes(StandardCharset.UTF_8)), decrypter, out);
+		return out.toByteArray();
+	}
+
+
+	public void testDirect_interopWithJWEObject()
+		throws Exception {
+
+		for (EncryptionMethod enc: STREAMING_ENCS) {
+			for (CompressionAlgorithm zip: new CompressionAlgorithm[]{null, CompressionAlgorithm.DEF}) {
+
+				SecretKey key = randomKey(enc);
+				JWEHeader header = new JWEHeader.Builder(JWEAlgorithm.DIR, enc).compressionAlgorithm(zip).build();
+				byte[] clearText = ("Hello, world! " + enc + " " + zip).getBytes(StandardCharset.UTF_8);
+
+				// Stream encrypt, JWEObject decrypt
+				String jwe = encrypt(header, clearText, new DirectEncrypter(key));
+				JWEObject jweObject = JWEObject.parse(jwe);
+				assertEquals(header.toJSONObject(), jweObject.getHeader().toJSONObject());
+				jweObject.decrypt(new DirectDecrypter(key));
+				assertTrue(Arrays.equals(clearText, jweObject.getPayload().toBytes()));
+
+				// JWEObject encrypt, stream decrypt
+				jweObject = new JWEObject(header, new Payload(clearText));
+				jweObject.encrypt(new DirectEncrypter(key));
+				assertTrue(Arrays.equals(clearText, decrypt(jweObject.serialize(), new DirectDecrypter(key))));
+			}
+		}
+	}
+
+
+	public void testRSA_largePayload()
+		throws Exception {
+
+		RSAEncrypter encrypter = new RSAEncrypter((RSAPublicKey) RSA_KEY_PAIR.getPublic());
+		RSADecrypter decrypter = new RSADecrypter((RSAPrivateKey) RSA_KEY_PAIR.getPrivate());
+
+		byte[] clearText = randomBytes(3 * 1024 * 1024 + 5);
+
+		for (EncryptionMethod enc: new EncryptionMethod[]{EncryptionMethod.A256GCM, EncryptionMethod.A128CBC_HS256}) {
+
+			JWEHeader header = new JWEHeader(JWEAlgorithm.RSA_OAEP_256, enc);
+			String jwe = encrypt(header, clearText, encrypter);
+
+			assertTrue(Arrays.equals(clearText, decrypt(jwe, decrypter)));
+
+			JWEObject jweObject = JWEObject.parse(jwe);
+			jweObject.decrypt(decrypter);
+			assertTrue(Arrays.equals(clearText, jweObject.getPayload().toBytes()));
+		}
+	}
+
+
+	public void testEmptyClearText()
+		throws Exception {
+
+		SecretKey key = randomKey(EncryptionMethod.A128GCM);
+		String jwe = encrypt(new JWEHeader(JWEAlgorithm.DIR, EncryptionMethod.A128GCM), new byte[0], new DirectEncrypter(key));
+		assertEquals(0, decrypt(jwe, new DirectDecrypter(key)).length);
+	}
+
+
+	public void testTrailingLineBreakIgnored()
+		throws Exception {
+
+		SecretKey key = randomKey(EncryptionMethod.A128GCM);
+		String jwe = encrypt(new JWEHeader(JWEAlgorithm.DIR, EncryptionMethod.A128GCM), randomBytes(100), new DirectEncrypter(key));
+		assertTrue(Arrays.equals(randomBytes(100), decrypt(jwe + "\n", new DirectDecrypter(key))));
+	}
+
+
+	public void testRejectModifiedAuthTag()
+		throws Exception {
+
+		for (EncryptionMethod enc: new EncryptionMethod[]{EncryptionMethod.A128GCM, EncryptionMethod.A128CBC_HS256}) {
+
+			SecretKey key = randomKey(enc);
+			JWEObject jweObject = JWEObject.parse(encrypt(new JWEHeader(JWEAlgorithm.DIR, enc), randomBytes(1000), new DirectEncrypter(key)));
+
+			byte[] authTag = jweObject.getAuthTag().decode();
+			authTag[0] ^= 1;
+
+			String modified = jweObject.getParsedParts()[0] + ".." + jweObject.getIV() + "." +
+				jweObject.getCipherText() + "." + com.nimbusds.jose.util.Base64URL.encode(authTag);
+
+			try {
+				decrypt(modified, new DirectDecrypter(key));
+				fail();
+			} catch (JOSEException e) {
+				if (enc.equals(EncryptionMethod.A128CBC_HS256)) {
+					assertEquals("MAC check failed", e.getMessage());
+				} else {
+					assertTrue(e.getMessage().startsWith("AES/GCM/NoPadding decryption failed"));
+				}
+			}
+		}
+	}
+
+
+	public void testRejectMissingAuthTag()
+		throws Exception {
+
+		SecretKey key = randomKey(EncryptionMethod.A128GCM);
+		String jwe = encrypt(new JWEHeader(JWEAlgorithm.DIR, EncryptionMethod.A128GCM), randomBytes(100), new DirectEncrypter(key));
+
+		String[] truncated = {
+			jwe.substring(0, jwe.lastIndexOf('.')),
+			jwe.substring(0, jwe.lastIndexOf('.') + 1)
+		};
+
+		for (String s: truncated) {
+			try {
+				decrypt(s, new DirectDecrypter(key));
+				fail();
+			} catch (JOSEException e) {
+				assertEquals("Missing JWE authentication tag", e.getMessage());
+			}
+		}
+	}
+
+
+	public void testRejectTooFewParts()
+		throws Exception {
+
+		try {
+			decrypt(new JWEHeader(JWEAlgorithm.DIR, EncryptionMethod.A128GCM).toBase64URL() + ".", new DirectDecrypter(randomKey(EncryptionMethod.A128GCM)));
+			fail();
+		} catch (java.text.ParseException e) {
+			assertEquals("Unexpected number of Base64URL parts, must be five", e.getMessage());
+		}
+	}
+
+
+	public void testUnsupportedEncryptionMethod()
+		throws Exception {
+
+		SecretKey key = randomKey(EncryptionMethod.XC20P);
+
+		try {
+			encrypt(new JWEHeader(JWEAlgorithm.DIR, EncryptionMethod.XC20P), randomBytes(10), new DirectEncrypter(key));
+			fail();
+		} catch (JOSEException e) {
+			assertEquals("Streaming isn't supported for the XC20P encryption method", e.getMessage());
+		}
+	}
+
+
+	public void testUnsupportedAlgorithm()
+		throws Exception {
+
+		try {
+			encrypt(new JWEHeader(JWEAlgorithm.A128KW, EncryptionMethod.A128GCM), randomBytes(10), new DirectEncrypter(randomKey(EncryptionMethod.A128GCM)));
+			fail();
+		} catch (JOSEException e) {
+			assertTrue(e.getMessage().startsWith("The A128KW algorithm is not supported by the JWE encrypter"));
+		}
+	}
+
+
+	public void testDecompressionLimit()
+		throws Exception {
+
+		SecretKey key = randomKey(EncryptionMethod.A128GCM);
+		JWEHeader header = new JWEHeader.Builder(JWEAlgorithm.DIR, EncryptionMethod.A128GCM).compressionAlgorithm(CompressionAlgorithm.DEF).build();
+		String jwe = encrypt(header, new byte[10_000], new DirectEncrypter(key));
+
+		DeflateUtils.setMaxDecompressedLength(1000);
+		try {
+			decrypt(jwe, new DirectDecrypter(key));
+			fail();
+		} catch (JOSEException e) {
+			assertEquals("Couldn't decompress plain text: The decompressed length exceeds the maximum of 1000 bytes", e.getMessage());
+		} finally {
+			DeflateUtils.setMaxDecompressedLength(DeflateUtils.DEFAULT_MAX_DECOMPRESSED_LENGTH);
+		}
+	}
+	
+	
+	public void testRejectModifiedCompressedCipherText_sameAsModifiedAuthTag()
+		throws Exception {
+		
+		SecretKey key = randomKey(EncryptionMethod.A128CBC_HS256);
+		JWEHeader header = new JWEHeader.Builder(JWEAlgorithm.DIR, EncryptionMethod.A128CBC_HS256).compressionAlgorithm(CompressionAlgorithm.DEF).build();
+		
+		StringBuilder sb = new StringBuilder();
+		for (int i=0; i < 200; i++) {
+			sb.append("Hello, world! ").append(i).append(' ');
+		}
+		JWEObject jweObject = JWEObject.parse(encrypt(header, sb.toString().getBytes(StandardCharset.UTF_8), new DirectEncrypter(key)));
+		
+		byte[] cipherText = jweObject.getCipherText().decode();
+		
+		// Modified auth tag
+		byte[] authTag = jweObject.getAuthTag().decode();
+		authTag[0] ^= 1;
+		try {
+			decrypt(jweObject.getParsedParts()[0] + ".." + jweObject.getIV() + "." + jweObject.getCipherText() + "." + Base64URL.encode(authTag), new DirectDecrypter(key));
+			fail();
+		} catch (JOSEException e) {
+			assertEquals("MAC check failed", e.getMessage());
+		}
+		
+		// Modified cipher text, garbles the inflater input
+		for (int pos: new int[]{0, 5, 16, cipherText.length / 2, cipherText.length - 17}) {
+			
+			byte[] modified = cipherText.clone();
+			modified[pos] ^= 0x55;
+			
+			try {
+				decrypt(jweObject.getParsedParts()[0] + ".." + jweObject.getIV() + "." + Base64URL.encode(modified) + "." + jweObject.getAuthTag(), new DirectDecrypter(key));
+				fail();
+			} catch (JOSEException e) {
+				assertEquals("MAC check failed", e.getMessage());
+			}
+		}
+	}
+}
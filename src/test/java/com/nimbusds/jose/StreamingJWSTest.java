@@ -0,0 +1,294 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import com.nimbusds.jose.crypto.*;
+import com.nimbusds.jose.jwk.Curve;
+
+
+/**
+ * Tests streaming JWS signing and verification.
+ */
+public class StreamingJWSTest extends TestCase {
+
+
+	private static final byte[] HMAC_SECRET = randomBytes(64);
+
+
+	private static final KeyPair RSA_KEY_PAIR;
+
+
+	private static final KeyPair EC_KEY_PAIR;
+
+
+	static {
+		try {
+			KeyPairGenerator gen = KeyPairGenerator.getInstance("RSA");
+			gen.initialize(2048);
+			RSA_KEY_PAIR = gen.generateKeyPair();
+
+			gen = KeyPairGenerator.getInstance("EC");
+			gen.initialize(Curve.P_256.toECParameterSpec());
+			EC_KEY_PAIR = gen.generateKeyPair();
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+
+	private static byte[] randomBytes(final int length) {
+
+		byte[] bytes = new byte[length];
+		new Random(length).nextBytes(bytes);
+		return bytes;
+	}
+
+
+	/**
+	 * JWSObject composes the unencoded (b64=false) signing input from
+	 * the payload string, the interop checks with it need UTF-8 text.
+	 */
+	private static byte[] randomText(final int length) {
+
+		byte[] bytes = new byte[length];
+		Random random = new Random(length);
+		for (int i=0; i < length; i++) {
+			bytes[i] = (byte) ('a' + random.nextInt(26));
+		}
+		return bytes;
+	}
+
+
+	private static JWSHeader header(final JWSAlgorithm alg, final boolean b64) {
+
+		if (b64) {
+			return new JWSHeader(alg);
+		}
+
+		return new JWSHeader.Builder(alg)
+			.base64URLEncodePayload(false)
+			.criticalParams(Collections.singleton(HeaderParameterNames.BASE64_URL_ENCODE_PAYLOAD))
+			.build();
+	}
+
+
+	private static StreamingJWSSigner signer(final JWSAlgorithm alg)
+		throws JOSEException {
+
+		if (JWSAlgorithm.Family.HMAC_SHA.contains(alg)) {
+			return new MACSigner(HMAC_SECRET);
+		} else if (JWSAlgorithm.Family.RSA.contains(alg)) {
+			return new RSASSASigner(RSA_KEY_PAIR.getPrivate());
+		} else {
+			return new ECDSASigner((ECPrivateKey) EC_KEY_PAIR.getPrivate());
+		}
+	}
+
+
+	private static StreamingJWSVerifier verifier(final JWSAlgorithm alg)
+		throws JOSEException {
+
+		if (JWSAlgorithm.Family.HMAC_SHA.contains(alg)) {
+			return new MACVerifier(HMAC_SECRET);
+		} else if (JWSAlgorithm.Family.RSA.contains(alg)) {
+			return new RSASSAVerifier((RSAPublicKey) RSA_KEY_PAIR.getPublic());
+		} else {
+			return new ECDSAVerifier((ECPublicKey) EC_KEY_PAIR.getPublic());
+		}
+	}
+
+
+	public void testInteropWithJWSObject()
+		throws Exception {
+
+		for (JWSAlgorithm alg: new JWSAlgorithm[]{JWSAlgorithm.HS256, JWSAlgorithm.RS256, JWSAlgorithm.PS256, JWSAlgorithm.ES256}) {
+			for (boolean b64: new boolean[]{true, false}) {
+
+				JWSHeader header = header(alg, b64);
+				byte[] payload = b64 ? randomBytes(1000) : randomText(1000);
+
+				// Stream sign, JWSObject verify
+				String jws = StreamingJWS.sign(header, new ByteArrayInputStream(payload), signer(alg));
+				assertEquals("", JOSEObject.split(jws)[1].toString());
+				JWSObject jwsObject = JWSObject.parse(jws, new Payload(payload));
+				assertTrue(jwsObject.verify(verifier(alg)));
+
+				// JWSObject sign, stream verify
+				jwsObject = new JWSObject(header, new Payload(payload));
+				jwsObject.sign(signer(alg));
+				assertTrue(StreamingJWS.verify(jwsObject.serialize(true), new ByteArrayInputStream(payload), verifier(alg)));
+			}
+		}
+	}
+
+
+	public void testHMACSignatureMatchesJWSObject()
+		throws Exception {
+
+		for (boolean b64: new boolean[]{true, false}) {
+
+			byte[] payload = b64 ? randomBytes(101) : randomText(101);
+
+			JWSObject jwsObject = new JWSObject(header(JWSAlgorithm.HS256, b64), new Payload(payload));
+			jwsObject.sign(new MACSigner(HMAC_SECRET));
+
+			assertEquals(jwsObject.serialize(true), StreamingJWS.sign(jwsObject.getHeader(), new ByteArrayInputStream(payload), new MACSigner(HMAC_SECRET)));
+		}
+	}
+
+
+	public void testLargePayload_unencoded()
+		throws Exception {
+
+		final int length = 8 * 1024 * 1024 + 3;
+
+		// Generated on the fly, never held in memory
+		InputStream payload = new InputStream() {
+			private int pos;
+			@Override
+			public int read() {
+				return pos < length ? 'a' + (pos++ * 31) % 26 : -1;
+			}
+			@Override
+			public int read(final byte[] b, final int off, final int len) {
+				if (pos == length) {
+					return -1;
+				}
+				int n = Math.min(len, length - pos);
+				for (int i=0; i < n; i++) {
+					b[off + i] = (byte) read();
+				}
+				return n;
+			}
+		};
+
+		JWSHeader header = header(JWSAlgorithm.RS256, false);
+		String jws = StreamingJWS.sign(header, payload, signer(JWSAlgorithm.RS256));
+
+		byte[] expected = new byte[length];
+		for (int i=0; i < length; i++) {
+			expected[i] = (byte) ('a' + (i * 31) % 26);
+		}
+		assertTrue(JWSObject.parse(jws, new Payload(expected)).verify(verifier(JWSAlgorithm.RS256)));
+	}
+
+
+	public void testFileAndByteBuffer()
+		throws Exception {
+
+		byte[] payload = randomBytes(100 * 1024 + 1);
+
+		Path file = Files.createTempFile("streaming-jws", ".bin");
+		try {
+			Files.write(file, payload);
+
+			for (boolean b64: new boolean[]{true, false}) {
+
+				JWSHeader header = header(JWSAlgorithm.ES256, b64);
+
+				String jws = StreamingJWS.sign(header, file, signer(JWSAlgorithm.ES256));
+
+				ByteBuffer buf = ByteBuffer.wrap(payload);
+				assertTrue(StreamingJWS.verify(jws, buf, verifier(JWSAlgorithm.ES256)));
+				assertEquals("Position unchanged", 0, buf.position());
+
+				jws = StreamingJWS.sign(header, ByteBuffer.wrap(payload), signer(JWSAlgorithm.ES256));
+				assertTrue(StreamingJWS.verify(jws, file, verifier(JWSAlgorithm.ES256)));
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+
+	public void testRejectModifiedPayload()
+		throws Exception {
+
+		for (JWSAlgorithm alg: new JWSAlgorithm[]{JWSAlgorithm.HS256, JWSAlgorithm.RS256, JWSAlgorithm.ES256}) {
+
+			byte[] payload = randomBytes(500);
+			String jws = StreamingJWS.sign(header(alg, false), new ByteArrayInputStream(payload), signer(alg));
+
+			payload[250] ^= 1;
+			assertFalse(StreamingJWS.verify(jws, new ByteArrayInputStream(payload), verifier(alg)));
+		}
+	}
+
+
+	public void testUnsupportedAlgorithm()
+		throws Exception {
+
+		try {
+			StreamingJWS.sign(new JWSHeader(JWSAlgorithm.RS256), new ByteArrayInputStream(new byte[1]), new MACSigner(HMAC_SECRET));
+			fail();
+		} catch (JOSEException e) {
+			assertEquals("The RS256 algorithm is not allowed or supported by the JWS signer: Supported algorithms: [HS256, HS384, HS512]", e.getMessage());
+		}
+	}
+
+
+	public void testRejectAttachedPayload()
+		throws Exception {
+
+		JWSObject jwsObject = new JWSObject(new JWSHeader(JWSAlgorithm.HS256), new Payload("Hello, world!"));
+		jwsObject.sign(new MACSigner(HMAC_SECRET));
+
+		try {
+			StreamingJWS.verify(jwsObject.serialize(), new ByteArrayInputStream(new byte[0]), new MACVerifier(HMAC_SECRET));
+			fail();
+		} catch (ParseException e) {
+			assertEquals("The payload Base64URL part must be empty", e.getMessage());
+		}
+	}
+
+
+	public void testReadErrorPropagated()
+		throws Exception {
+
+		InputStream payload = new InputStream() {
+			@Override
+			public int read() throws IOException {
+				throw new IOException("Read error");
+			}
+		};
+
+		try {
+			StreamingJWS.sign(new JWSHeader(JWSAlgorithm.HS256), payload, new MACSigner(HMAC_SECRET));
+			fail();
+		} catch (IOException e) {
+			assertEquals("Read error", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,246 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.crypto;
+
+
+import java.security.KeyPair;
+import java.security.interfaces.ECPublicKey;
+import java.util.*;
+
+import junit.framework.TestCase;
+
+import com.nimbusds.jose.*;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.OctetKeyPairGenerator;
+
+
+/**
+ * Tests the ephemeral key pair pool.
+ */
+public class EphemeralKeyPairPoolTest extends TestCase {
+
+
+	private static void awaitFull(final EphemeralKeyPairPool pool, final Curve crv)
+		throws InterruptedException {
+
+		long deadline = System.currentTimeMillis() + 10_000L;
+		while (pool.size(crv) < pool.getCapacity() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10L);
+		}
+		assertEquals(pool.getCapacity(), pool.size(crv));
+	}
+
+
+	public void testDefaultCapacity()
+		throws Exception {
+
+		assertEquals(64, EphemeralKeyPairPool.DEFAULT_CAPACITY);
+
+		EphemeralKeyPairPool pool = new EphemeralKeyPairPool(Collections.singleton(Curve.P_256));
+		try {
+			assertEquals(EphemeralKeyPairPool.DEFAULT_CAPACITY, pool.getCapacity());
+			assertEquals(Collections.singleton(Curve.P_256), pool.getCurves());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+
+	public void testEachKeyPairTakenOnce_refilled()
+		throws Exception {
+
+		EphemeralKeyPairPool pool = new EphemeralKeyPairPool(new HashSet<>(Arrays.asList(Curve.P_256, Curve.X25519)), 8);
+		try {
+			awaitFull(pool, Curve.P_256);
+			awaitFull(pool, Curve.X25519);
+
+			Set<Object> taken = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+
+			for (int i=0; i < 8; i++) {
+				KeyPair ecKeyPair = pool.pollECKeyPair(Curve.P_256);
+				assertNotNull(ecKeyPair);
+				assertEquals(Curve.P_256, Curve.forECParameterSpec(((ECPublicKey) ecKeyPair.getPublic()).getParams()));
+				assertTrue(taken.add(ecKeyPair));
+
+				OctetKeyPair okp = pool.pollOctetKeyPair(Curve.X25519);
+				assertNotNull(okp);
+				assertTrue(okp.isPrivate());
+				assertEquals(Curve.X25519, okp.getCurve());
+				assertTrue(taken.add(okp));
+			}
+
+			// Refilled asynchronously with new key pairs
+			awaitFull(pool, Curve.P_256);
+			awaitFull(pool, Curve.X25519);
+
+			for (int i=0; i < 8; i++) {
+				assertTrue(taken.add(pool.pollECKeyPair(Curve.P_256)));
+				assertTrue(taken.add(pool.pollOctetKeyPair(Curve.X25519)));
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+
+	public void testCurveNotPooled()
+		throws Exception {
+
+		EphemeralKeyPairPool pool = new EphemeralKeyPairPool(Collections.singleton(Curve.P_256), 4);
+		try {
+			assertNull(pool.pollECKeyPair(Curve.P_384));
+			assertNull(pool.pollOctetKeyPair(Curve.X25519));
+			assertEquals(0, pool.size(Curve.P_384));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+
+	public void testUnsupportedCurve() {
+
+		try {
+			new EphemeralKeyPairPool(Collections.singleton(Curve.SECP256K1), 4);
+			fail();
+		} catch (JOSEException e) {
+			assertEquals("Unsupported ephemeral key pair curve: secp256k1", e.getMessage());
+		}
+	}
+
+
+	public void testIllegalArguments()
+		throws Exception {
+
+		try {
+			new EphemeralKeyPairPool(Collections.<Curve>emptySet(), 4);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The curves must not be empty", e.getMessage());
+		}
+
+		try {
+			new EphemeralKeyPairPool(Collections.singleton(Curve.P_256), 0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The capacity must be positive", e.getMessage());
+		}
+	}
+
+
+	public void testShutdown()
+		throws Exception {
+
+		EphemeralKeyPairPool pool = new EphemeralKeyPairPool(Collections.singleton(Curve.P_256), 4);
+		assertFalse(pool.isShutdown());
+		pool.shutdown();
+		assertTrue(pool.isShutdown());
+		assertNull(pool.pollECKeyPair(Curve.P_256));
+		assertEquals(0, pool.size(Curve.P_256));
+	}
+
+
+	public void testECDHEncrypter_roundTrip()
+		throws Exception {
+
+		ECKey ecJWK = new ECKeyGenerator(Curve.P_256).generate();
+
+		EphemeralKeyPairPool pool = new EphemeralKeyPairPool(Collections.singleton(Curve.P_256), 4);
+		try {
+			ECDHEncrypter encrypter = new ECDHEncrypter(ecJWK.toPublicJWK());
+			assertNull(encrypter.getEphemeralKeyPairPool());
+			encrypter.setEphemeralKeyPairPool(pool);
+			assertEquals(pool, encrypter.getEphemeralKeyPairPool());
+
+			awaitFull(pool, Curve.P_256);
+
+			Set<String> epks = new HashSet<>();
+
+			// Exhausts the pool, continues with inline generation
+			for (int i=0; i < 8; i++) {
+				JWEObject jweObject = new JWEObject(new JWEHeader(JWEAlgorithm.ECDH_ES, EncryptionMethod.A128GCM), new Payload("Hello, world!"));
+				jweObject.encrypt(encrypter);
+				assertTrue(epks.add(jweObject.getHeader().getEphemeralPublicKey().toJSONString()));
+
+				jweObject = JWEObject.parse(jweObject.serialize());
+				jweObject.decrypt(new ECDHDecrypter(ecJWK));
+				assertEquals("Hello, world!", jweObject.getPayload().toString());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+
+	public void testECDH1PUEncrypter_roundTrip()
+		throws Exception {
+
+		ECKey senderJWK = new ECKeyGenerator(Curve.P_256).generate();
+		ECKey recipientJWK = new ECKeyGenerator(Curve.P_256).generate();
+
+		EphemeralKeyPairPool pool = new EphemeralKeyPairPool(Collections.singleton(Curve.P_256), 4);
+		try {
+			ECDH1PUEncrypter encrypter = new ECDH1PUEncrypter(senderJWK.toECPrivateKey(), recipientJWK.toECPublicKey());
+			encrypter.setEphemeralKeyPairPool(pool);
+
+			JWEObject jweObject = new JWEObject(new JWEHeader(JWEAlgorithm.ECDH_1PU_A128KW, EncryptionMethod.A128CBC_HS256), new Payload("Hello, world!"));
+			jweObject.encrypt(encrypter);
+
+			jweObject = JWEObject.parse(jweObject.serialize());
+			jweObject.decrypt(new ECDH1PUDecrypter(recipientJWK.toECPrivateKey(), senderJWK.toECPublicKey()));
+			assertEquals("Hello, world!", jweObject.getPayload().toString());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+
+	public void testX25519Encrypters_roundTrip()
+		throws Exception {
+
+		OctetKeyPair senderJWK = new OctetKeyPairGenerator(Curve.X25519).generate();
+		OctetKeyPair recipientJWK = new OctetKeyPairGenerator(Curve.X25519).generate();
+
+		EphemeralKeyPairPool pool = new EphemeralKeyPairPool(Collections.singleton(Curve.X25519), 4);
+		try {
+			X25519Encrypter encrypter = new X25519Encrypter(recipientJWK.toPublicJWK());
+			encrypter.setEphemeralKeyPairPool(pool);
+
+			JWEObject jweObject = new JWEObject(new JWEHeader(JWEAlgorithm.ECDH_ES, EncryptionMethod.A128GCM), new Payload("Hello, world!"));
+			jweObject.encrypt(encrypter);
+			assertNull(jweObject.getHeader().getEphemeralPublicKey().toJSONObject().get("d"));
+
+			jweObject = JWEObject.parse(jweObject.serialize());
+			jweObject.decrypt(new X25519Decrypter(recipientJWK));
+			assertEquals("Hello, world!", jweObject.getPayload().toString());
+
+			ECDH1PUX25519Encrypter encrypter1PU = new ECDH1PUX25519Encrypter(senderJWK, recipientJWK.toPublicJWK());
+			encrypter1PU.setEphemeralKeyPairPool(pool);
+
+			jweObject = new JWEObject(new JWEHeader(JWEAlgorithm.ECDH_1PU_A128KW, EncryptionMethod.A128CBC_HS256), new Payload("Hello, world!"));
+			jweObject.encrypt(encrypter1PU);
+
+			jweObject = JWEObject.parse(jweObject.serialize());
+			jweObject.decrypt(new ECDH1PUX25519Decrypter(recipientJWK, senderJWK.toPublicJWK()));
+			assertEquals("Hello, world!", jweObject.getPayload().toString());
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
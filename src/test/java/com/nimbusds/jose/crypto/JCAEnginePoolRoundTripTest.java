@@ -0,0 +1,219 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.crypto;
+
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Provider;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+import junit.framework.TestCase;
+
+import com.nimbusds.jose.*;
+import com.nimbusds.jose.crypto.impl.*;
+import com.nimbusds.jose.jwk.Curve;
+
+
+/**
+ * Tests signing, verification, encryption and decryption with a JCA engine
+ * pool.
+ */
+public class JCAEnginePoolRoundTripTest extends TestCase {
+
+
+	private static class CountingPool implements JCAEnginePool {
+
+		final JCAEnginePool pool;
+
+		final AtomicInteger acquired = new AtomicInteger();
+
+		final AtomicInteger released = new AtomicInteger();
+
+		CountingPool(final JCAEnginePool pool) {
+			this.pool = pool;
+		}
+
+		@Override
+		public <T> T acquire(final JCAEngineFactory<T> factory, final String algorithm, final Provider provider)
+			throws JOSEException {
+			acquired.incrementAndGet();
+			return pool.acquire(factory, algorithm, provider);
+		}
+
+		@Override
+		public <T> void release(final JCAEngineFactory<T> factory, final String algorithm, final Provider provider, final T engine) {
+			released.incrementAndGet();
+			pool.release(factory, algorithm, provider, engine);
+		}
+	}
+
+
+	private static List<CountingPool> pools() {
+
+		return Arrays.asList(
+			new CountingPool(new ThreadLocalJCAEnginePool()),
+			new CountingPool(new BoundedQueueJCAEnginePool()),
+			new CountingPool(new StripedJCAEnginePool()));
+	}
+
+
+	private static void assertSignVerify(final JWSAlgorithm alg, final JWSSigner signer, final JWSVerifier verifier, final CountingPool pool)
+		throws JOSEException {
+
+		assertSignVerify(alg, signer, verifier, pool, 9);
+	}
+
+
+	private static void assertSignVerify(final JWSAlgorithm alg, final JWSSigner signer, final JWSVerifier verifier, final CountingPool pool, final int expectedPoolUses)
+		throws JOSEException {
+
+		signer.getJCAContext().setEnginePool(pool);
+		verifier.getJCAContext().setEnginePool(pool);
+
+		for (int i=0; i < 3; i++) {
+			JWSObject jwsObject = new JWSObject(new JWSHeader(alg), new Payload("Hello, world! " + i));
+			jwsObject.sign(signer);
+			assertTrue(verifier.verify(jwsObject.getHeader(), jwsObject.getSigningInput(), jwsObject.getSignature()));
+
+			// Tampered
+			JWSObject otherJWSObject = new JWSObject(new JWSHeader(alg), new Payload("Tampered " + i));
+			assertFalse(verifier.verify(otherJWSObject.getHeader(), otherJWSObject.getSigningInput(), jwsObject.getSignature()));
+		}
+
+		assertEquals(expectedPoolUses, pool.acquired.get());
+		assertEquals(expectedPoolUses, pool.released.get());
+	}
+
+
+	public void testHMAC()
+		throws Exception {
+
+		SecretKey key = KeyGenerator.getInstance("HmacSHA256").generateKey();
+
+		for (CountingPool pool: pools()) {
+			// The MAC signer and verifier clone their keyed Mac template,
+			// the pool is only used if the provider doesn't support cloning
+			assertSignVerify(JWSAlgorithm.HS256, new MACSigner(key), new MACVerifier(key), pool, 0);
+		}
+	}
+
+
+	public void testRSASSA()
+		throws Exception {
+
+		KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
+		keyGen.initialize(2048);
+		KeyPair keyPair = keyGen.generateKeyPair();
+
+		for (JWSAlgorithm alg: Arrays.asList(JWSAlgorithm.RS256, JWSAlgorithm.PS256, JWSAlgorithm.PS512)) {
+			for (CountingPool pool : pools()) {
+				assertSignVerify(
+					alg,
+					new RSASSASigner((RSAPrivateKey) keyPair.getPrivate()),
+					new RSASSAVerifier((RSAPublicKey) keyPair.getPublic()),
+					pool);
+			}
+		}
+	}
+
+
+	public void testECDSA()
+		throws Exception {
+
+		KeyPairGenerator keyGen = KeyPairGenerator.getInstance("EC");
+		keyGen.initialize(Curve.P_256.toECParameterSpec());
+		KeyPair keyPair = keyGen.generateKeyPair();
+
+		for (CountingPool pool: pools()) {
+			assertSignVerify(
+				JWSAlgorithm.ES256,
+				new ECDSASigner((ECPrivateKey) keyPair.getPrivate()),
+				new ECDSAVerifier((ECPublicKey) keyPair.getPublic()),
+				pool);
+		}
+	}
+
+
+	public void testAESKWWithAESGCM()
+		throws Exception {
+
+		SecretKey key = KeyGenerator.getInstance("AES").generateKey();
+
+		for (CountingPool pool: pools()) {
+
+			AESEncrypter encrypter = new AESEncrypter(key);
+			encrypter.getJCAContext().setEnginePool(pool);
+
+			AESDecrypter decrypter = new AESDecrypter(key);
+			decrypter.getJCAContext().setEnginePool(pool);
+
+			for (int i=0; i < 3; i++) {
+				JWEObject jweObject = new JWEObject(new JWEHeader(JWEAlgorithm.A128KW, EncryptionMethod.A128GCM), new Payload("Hello, world! " + i));
+				jweObject.encrypt(encrypter);
+				jweObject = JWEObject.parse(jweObject.serialize());
+				jweObject.decrypt(decrypter);
+				assertEquals("Hello, world! " + i, jweObject.getPayload().toString());
+			}
+
+			// Key wrap + content encryption, for each encryption and decryption
+			assertEquals(12, pool.acquired.get());
+			assertEquals(12, pool.released.get());
+		}
+	}
+
+
+	public void testAESGCMDecryptionFailure()
+		throws Exception {
+
+		SecretKey key = KeyGenerator.getInstance("AES").generateKey();
+
+		CountingPool pool = pools().get(1);
+
+		DirectEncrypter encrypter = new DirectEncrypter(key);
+		encrypter.getJCAContext().setEnginePool(pool);
+
+		DirectDecrypter decrypter = new DirectDecrypter(key);
+		decrypter.getJCAContext().setEnginePool(pool);
+
+		JWEObject jweObject = new JWEObject(new JWEHeader(JWEAlgorithm.DIR, EncryptionMethod.A128GCM), new Payload("Hello, world!"));
+		jweObject.encrypt(encrypter);
+		String[] parts = jweObject.serialize().split("\\.");
+		String tampered = parts[0] + "." + parts[1] + "." + parts[2] + "." + parts[3] + "." + parts[2];
+
+		try {
+			JWEObject.parse(tampered).decrypt(decrypter);
+			fail();
+		} catch (JOSEException e) {
+			assertTrue(e.getMessage().startsWith("AES/GCM/NoPadding decryption failed"));
+		}
+
+		// Pool still usable
+		jweObject = JWEObject.parse(jweObject.serialize());
+		jweObject.decrypt(decrypter);
+		assertEquals("Hello, world!", jweObject.getPayload().toString());
+	}
+}
@@ -28,6 +28,8 @@ import static org.junit.Assert.assertArrayEquals;
 import junit.framework.TestCase;
 
 import com.nimbusds.jose.*;
+import com.nimbusds.jose.crypto.bc.BouncyCastleProviderSingleton;
+import com.nimbusds.jose.crypto.impl.HMAC;
 import com.nimbusds.jose.crypto.impl.MACProvider;
 import com.nimbusds.jose.jwk.OctetSequenceKey;
 import com.nimbusds.jose.util.Base64URL;
@@ -454,4 +456,52 @@ public class MACTest extends TestCase {
 		JWSObject jwsObject = new JWSObject(new JWSHeader(JWSAlgorithm.HS384), new Payload("Hello world!"));
 		jwsObject.sign(signer);
 	}
+
+
+	public void testKeyedMACTemplateMatchesHMACCompute()
+		throws Exception {
+
+		byte[] secret = new byte[64];
+		new SecureRandom().nextBytes(secret);
+
+		MACSigner signer = new MACSigner(secret);
+		MACVerifier verifier = new MACVerifier(secret);
+
+		for (JWSAlgorithm alg: MACSigner.SUPPORTED_ALGORITHMS) {
+
+			// Repeat to exercise the cached keyed template
+			for (int i=0; i < 3; i++) {
+				JWSHeader header = new JWSHeader(alg);
+				byte[] message = ("Hello world! " + i).getBytes();
+				Base64URL signature = signer.sign(header, message);
+
+				String jcaAlg = alg.equals(JWSAlgorithm.HS256) ? "HMACSHA256" : alg.equals(JWSAlgorithm.HS384) ? "HMACSHA384" : "HMACSHA512";
+				assertArrayEquals(HMAC.compute(jcaAlg, secret, message, null), signature.decode());
+
+				assertTrue(verifier.verify(header, message, signature));
+				assertFalse(verifier.verify(header, ("Tampered " + i).getBytes(), signature));
+			}
+		}
+	}
+
+
+	public void testKeyedMACTemplateFollowsProviderChange()
+		throws Exception {
+
+		byte[] secret = new byte[32];
+		new SecureRandom().nextBytes(secret);
+
+		MACSigner signer = new MACSigner(secret);
+		JWSHeader header = new JWSHeader(JWSAlgorithm.HS256);
+
+		Base64URL sigDefault = signer.sign(header, "Hello world!".getBytes());
+
+		signer.getJCAContext().setProvider(BouncyCastleProviderSingleton.getInstance());
+		Base64URL sigBC = signer.sign(header, "Hello world!".getBytes());
+
+		assertEquals(sigDefault, sigBC);
+
+		signer.getJCAContext().setProvider(null);
+		assertEquals(sigDefault, signer.sign(header, "Hello world!".getBytes()));
+	}
 }
@@ -0,0 +1,234 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.crypto;
+
+
+import javax.crypto.SecretKey;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import junit.framework.TestCase;
+
+import com.nimbusds.jose.*;
+import com.nimbusds.jose.crypto.impl.ECDH;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.OctetKeyPairGenerator;
+import com.nimbusds.jose.util.Base64URL;
+
+
+/**
+ * Tests the ECDH-1PU static shared secret cache.
+ */
+public class StaticSharedSecretCacheTest extends TestCase {
+
+
+	public void testDefaultMaxSize() {
+
+		assertEquals(100, StaticSharedSecretCache.DEFAULT_MAX_SIZE);
+		assertEquals(100, new StaticSharedSecretCache().getMaxSize());
+	}
+
+
+	public void testIllegalMaxSize() {
+
+		try {
+			new StaticSharedSecretCache(0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The maximum cache size must be positive", e.getMessage());
+		}
+	}
+
+
+	public void testEC_sameForSenderAndRecipient()
+		throws Exception {
+
+		ECKey sender = new ECKeyGenerator(Curve.P_256).generate();
+		ECKey recipient = new ECKeyGenerator(Curve.P_256).generate();
+
+		StaticSharedSecretCache cache = new StaticSharedSecretCache();
+
+		SecretKey senderZs = cache.getStaticSharedSecret(sender.toECPrivateKey(), recipient.toECPublicKey(), null);
+		SecretKey recipientZs = cache.getStaticSharedSecret(recipient.toECPrivateKey(), sender.toECPublicKey(), null);
+
+		assertArrayEquals(senderZs.getEncoded(), recipientZs.getEncoded());
+		assertArrayEquals(ECDH.deriveSharedSecret(recipient.toECPublicKey(), sender.toECPrivateKey(), null).getEncoded(), senderZs.getEncoded());
+
+		assertEquals(2, cache.size());
+		assertEquals(0, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+
+		// Keys converted again, same thumbprint and private key
+		assertSame(senderZs, cache.getStaticSharedSecret(sender.toECPrivateKey(), recipient.toECPublicKey(), null));
+		assertEquals(1, cache.getHitCount());
+
+		cache.clear();
+		assertEquals(0, cache.size());
+	}
+
+
+	public void testOKP_sameForSenderAndRecipient()
+		throws Exception {
+
+		OctetKeyPair sender = new OctetKeyPairGenerator(Curve.X25519).generate();
+		OctetKeyPair recipient = new OctetKeyPairGenerator(Curve.X25519).generate();
+
+		StaticSharedSecretCache cache = new StaticSharedSecretCache();
+
+		SecretKey senderZs = cache.getStaticSharedSecret(sender, recipient.toPublicJWK());
+		SecretKey recipientZs = cache.getStaticSharedSecret(recipient, sender.toPublicJWK());
+
+		assertArrayEquals(senderZs.getEncoded(), recipientZs.getEncoded());
+		assertSame(senderZs, cache.getStaticSharedSecret(sender, recipient.toPublicJWK()));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+	}
+
+
+	public void testOKP_requirePrivateKey()
+		throws Exception {
+
+		OctetKeyPair sender = new OctetKeyPairGenerator(Curve.X25519).generate();
+		OctetKeyPair recipient = new OctetKeyPairGenerator(Curve.X25519).generate();
+
+		try {
+			new StaticSharedSecretCache().getStaticSharedSecret(sender.toPublicJWK(), recipient.toPublicJWK());
+			fail();
+		} catch (JOSEException e) {
+			assertEquals("OKP private key should be a private key", e.getMessage());
+		}
+	}
+
+
+	public void testEC_invalidPublicKeyNotCached()
+		throws Exception {
+
+		ECKey sender = new ECKeyGenerator(Curve.P_256).generate();
+		ECKey recipient = new ECKeyGenerator(Curve.P_384).generate();
+
+		StaticSharedSecretCache cache = new StaticSharedSecretCache();
+
+		try {
+			cache.getStaticSharedSecret(sender.toECPrivateKey(), recipient.toECPublicKey(), null);
+			fail();
+		} catch (JOSEException e) {
+			assertEquals("Curve of public key does not match curve of private key", e.getMessage());
+		}
+
+		assertEquals(0, cache.size());
+	}
+
+
+	public void testLeastRecentlyUsedEvicted()
+		throws Exception {
+
+		ECKey sender = new ECKeyGenerator(Curve.P_256).generate();
+		ECKey recipient1 = new ECKeyGenerator(Curve.P_256).generate();
+		ECKey recipient2 = new ECKeyGenerator(Curve.P_256).generate();
+		ECKey recipient3 = new ECKeyGenerator(Curve.P_256).generate();
+
+		StaticSharedSecretCache cache = new StaticSharedSecretCache(2);
+
+		cache.getStaticSharedSecret(sender.toECPrivateKey(), recipient1.toECPublicKey(), null);
+		cache.getStaticSharedSecret(sender.toECPrivateKey(), recipient2.toECPublicKey(), null);
+		cache.getStaticSharedSecret(sender.toECPrivateKey(), recipient1.toECPublicKey(), null);
+		cache.getStaticSharedSecret(sender.toECPrivateKey(), recipient3.toECPublicKey(), null);
+		assertEquals(2, cache.size());
+
+		// recipient2 evicted
+		cache.getStaticSharedSecret(sender.toECPrivateKey(), recipient1.toECPublicKey(), null);
+		assertEquals(2, cache.getHitCount());
+		cache.getStaticSharedSecret(sender.toECPrivateKey(), recipient2.toECPublicKey(), null);
+		assertEquals(2, cache.getHitCount());
+	}
+
+
+	public void testECDH1PU_roundTrip()
+		throws Exception {
+
+		ECKey sender = new ECKeyGenerator(Curve.P_256).generate();
+		ECKey recipient = new ECKeyGenerator(Curve.P_256).generate();
+
+		StaticSharedSecretCache cache = new StaticSharedSecretCache();
+
+		ECDH1PUEncrypter encrypter = new ECDH1PUEncrypter(sender.toECPrivateKey(), recipient.toECPublicKey());
+		assertNull(encrypter.getStaticSharedSecretCache());
+		encrypter.setStaticSharedSecretCache(cache);
+		assertEquals(cache, encrypter.getStaticSharedSecretCache());
+
+		ECDH1PUDecrypter decrypter = new ECDH1PUDecrypter(recipient.toECPrivateKey(), sender.toECPublicKey());
+		decrypter.setStaticSharedSecretCache(cache);
+
+		ECDH1PUDecrypter uncachedDecrypter = new ECDH1PUDecrypter(recipient.toECPrivateKey(), sender.toECPublicKey());
+
+		for (int i=0; i < 3; i++) {
+			for (JWEAlgorithm alg: new JWEAlgorithm[]{JWEAlgorithm.ECDH_1PU, JWEAlgorithm.ECDH_1PU_A128KW}) {
+
+				EncryptionMethod enc = JWEAlgorithm.ECDH_1PU.equals(alg) ? EncryptionMethod.A128GCM : EncryptionMethod.A128CBC_HS256;
+
+				JWEObject jweObject = new JWEObject(
+					new JWEHeader.Builder(alg, enc).agreementPartyUInfo(Base64URL.encode("Alice")).build(),
+					new Payload("Hello, world!"));
+				jweObject.encrypt(encrypter);
+				String jwe = jweObject.serialize();
+
+				jweObject = JWEObject.parse(jwe);
+				jweObject.decrypt(decrypter);
+				assertEquals("Hello, world!", jweObject.getPayload().toString());
+
+				jweObject = JWEObject.parse(jwe);
+				jweObject.decrypt(uncachedDecrypter);
+				assertEquals("Hello, world!", jweObject.getPayload().toString());
+			}
+		}
+
+		assertEquals(2, cache.size());
+		assertEquals(2, cache.getMissCount());
+		assertEquals(10, cache.getHitCount());
+	}
+
+
+	public void testECDH1PUX25519_roundTrip()
+		throws Exception {
+
+		OctetKeyPair sender = new OctetKeyPairGenerator(Curve.X25519).generate();
+		OctetKeyPair recipient = new OctetKeyPairGenerator(Curve.X25519).generate();
+
+		StaticSharedSecretCache cache = new StaticSharedSecretCache();
+
+		ECDH1PUX25519Encrypter encrypter = new ECDH1PUX25519Encrypter(sender, recipient.toPublicJWK());
+		encrypter.setStaticSharedSecretCache(cache);
+
+		ECDH1PUX25519Decrypter decrypter = new ECDH1PUX25519Decrypter(recipient, sender.toPublicJWK());
+		decrypter.setStaticSharedSecretCache(cache);
+
+		for (int i=0; i < 3; i++) {
+			JWEObject jweObject = new JWEObject(new JWEHeader(JWEAlgorithm.ECDH_1PU_A256KW, EncryptionMethod.A256CBC_HS512), new Payload("Hello, world!"));
+			jweObject.encrypt(encrypter);
+
+			jweObject = JWEObject.parse(jweObject.serialize());
+			jweObject.decrypt(decrypter);
+			assertEquals("Hello, world!", jweObject.getPayload().toString());
+		}
+
+		assertEquals(2, cache.size());
+		assertEquals(4, cache.getHitCount());
+	}
+}
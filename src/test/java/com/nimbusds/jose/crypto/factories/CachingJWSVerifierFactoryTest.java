@@ -0,0 +1,240 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.crypto.factories;
+
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import junit.framework.TestCase;
+
+import com.nimbusds.jose.*;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.crypto.bc.BouncyCastleProviderSingleton;
+import com.nimbusds.jose.jca.JCAAware;
+import com.nimbusds.jose.proc.JWSVerifierFactory;
+
+
+/**
+ * Tests the caching JWS verifier factory.
+ */
+public class CachingJWSVerifierFactoryTest extends TestCase {
+
+
+	private static SecretKey generateHMACKey()
+		throws Exception {
+
+		return KeyGenerator.getInstance("HMACSHA256").generateKey();
+	}
+
+
+	public void testDefaultConstructor() {
+
+		CachingJWSVerifierFactory factory = new CachingJWSVerifierFactory();
+
+		assertTrue(factory instanceof JWSVerifierFactory);
+		assertTrue(factory instanceof JCAAware);
+		assertTrue(factory.getUnderlyingFactory() instanceof DefaultJWSVerifierFactory);
+		assertEquals(CachingJWSVerifierFactory.DEFAULT_MAX_SIZE, factory.getMaxSize());
+		assertEquals(CachingJWSVerifierFactory.DEFAULT_MAX_IDLE_TIME_MINUTES, factory.getMaxIdleTime(TimeUnit.MINUTES));
+		assertEquals(DefaultJWSVerifierFactory.SUPPORTED_ALGORITHMS, factory.supportedJWSAlgorithms());
+		assertSame(factory.getUnderlyingFactory().getJCAContext(), factory.getJCAContext());
+		assertEquals(0, factory.size());
+		assertEquals(0L, factory.getHitCount());
+		assertEquals(0L, factory.getMissCount());
+	}
+
+
+	public void testRejectIllegalArgs() {
+
+		try {
+			new CachingJWSVerifierFactory(new DefaultJWSVerifierFactory(), 0, -1, null);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The maximum cache size must be positive", e.getMessage());
+		}
+
+		try {
+			new CachingJWSVerifierFactory(new DefaultJWSVerifierFactory(), 10, 1, null);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("A time unit must be specified for a non-negative maximum idle time", e.getMessage());
+		}
+	}
+
+
+	public void testNoIdleTimeLimit() {
+
+		CachingJWSVerifierFactory factory = new CachingJWSVerifierFactory(new DefaultJWSVerifierFactory(), 10, -1, null);
+		assertEquals(-1L, factory.getMaxIdleTime(TimeUnit.SECONDS));
+	}
+
+
+	public void testCacheHitAndMiss()
+		throws Exception {
+
+		CachingJWSVerifierFactory factory = new CachingJWSVerifierFactory();
+
+		SecretKey key = generateHMACKey();
+
+		JWSVerifier v1 = factory.createJWSVerifier(new JWSHeader(JWSAlgorithm.HS256), key);
+		assertTrue(v1 instanceof MACVerifier);
+		assertEquals(0L, factory.getHitCount());
+		assertEquals(1L, factory.getMissCount());
+
+		// Equal key, different instance
+		JWSVerifier v2 = factory.createJWSVerifier(new JWSHeader(JWSAlgorithm.HS256), new SecretKeySpec(key.getEncoded(), "HMACSHA256"));
+		assertSame(v1, v2);
+		assertEquals(1L, factory.getHitCount());
+		assertEquals(1L, factory.getMissCount());
+
+		// Different alg
+		JWSVerifier v3 = factory.createJWSVerifier(new JWSHeader(JWSAlgorithm.HS384), key);
+		assertNotSame(v1, v3);
+		assertEquals(1L, factory.getHitCount());
+		assertEquals(2L, factory.getMissCount());
+
+		assertEquals(2, factory.size());
+
+		factory.clear();
+		assertEquals(0, factory.size());
+		assertEquals(1L, factory.getHitCount());
+		assertEquals(2L, factory.getMissCount());
+	}
+
+
+	public void testCachedVerifierWorks()
+		throws Exception {
+
+		CachingJWSVerifierFactory factory = new CachingJWSVerifierFactory();
+
+		SecretKey key = generateHMACKey();
+
+		for (int i=0; i < 3; i++) {
+			JWSObject jwsObject = new JWSObject(new JWSHeader(JWSAlgorithm.HS256), new Payload("Hello, world!" + i));
+			jwsObject.sign(new MACSigner(key));
+			assertTrue(jwsObject.verify(factory.createJWSVerifier(jwsObject.getHeader(), key)));
+		}
+
+		assertEquals(2L, factory.getHitCount());
+		assertEquals(1L, factory.getMissCount());
+	}
+
+
+	public void testRSA()
+		throws Exception {
+
+		KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
+		keyGen.initialize(2048);
+		KeyPair keyPair = keyGen.generateKeyPair();
+
+		CachingJWSVerifierFactory factory = new CachingJWSVerifierFactory();
+
+		JWSVerifier v1 = factory.createJWSVerifier(new JWSHeader(JWSAlgorithm.RS256), keyPair.getPublic());
+		assertTrue(v1 instanceof RSASSAVerifier);
+		assertSame(v1, factory.createJWSVerifier(new JWSHeader(JWSAlgorithm.RS256), keyPair.getPublic()));
+		assertEquals(1L, factory.getHitCount());
+	}
+
+
+	public void testKeyTypeExceptionNotCached()
+		throws Exception {
+
+		CachingJWSVerifierFactory factory = new CachingJWSVerifierFactory();
+
+		try {
+			factory.createJWSVerifier(new JWSHeader(JWSAlgorithm.RS256), generateHMACKey());
+			fail();
+		} catch (KeyTypeException e) {
+			// ok
+		}
+
+		assertEquals(0, factory.size());
+	}
+
+
+	public void testEvictLeastRecentlyUsed()
+		throws Exception {
+
+		CachingJWSVerifierFactory factory = new CachingJWSVerifierFactory(new DefaultJWSVerifierFactory(), 2, -1, null);
+
+		SecretKey k1 = generateHMACKey();
+		SecretKey k2 = generateHMACKey();
+		SecretKey k3 = generateHMACKey();
+
+		JWSHeader header = new JWSHeader(JWSAlgorithm.HS256);
+
+		JWSVerifier v1 = factory.createJWSVerifier(header, k1);
+		factory.createJWSVerifier(header, k2);
+		assertSame(v1, factory.createJWSVerifier(header, k1)); // k1 now most recent
+		factory.createJWSVerifier(header, k3); // evicts k2
+		assertEquals(2, factory.size());
+
+		assertSame(v1, factory.createJWSVerifier(header, k1));
+		assertEquals(2L, factory.getHitCount());
+		assertEquals(3L, factory.getMissCount());
+
+		factory.createJWSVerifier(header, k2);
+		assertEquals(4L, factory.getMissCount());
+	}
+
+
+	public void testEvictIdle()
+		throws Exception {
+
+		CachingJWSVerifierFactory factory = new CachingJWSVerifierFactory(new DefaultJWSVerifierFactory(), 10, 100, TimeUnit.MILLISECONDS);
+
+		SecretKey key = generateHMACKey();
+		JWSHeader header = new JWSHeader(JWSAlgorithm.HS256);
+
+		JWSVerifier v1 = factory.createJWSVerifier(header, key);
+		assertSame(v1, factory.createJWSVerifier(header, key));
+
+		Thread.sleep(200);
+
+		assertNotSame(v1, factory.createJWSVerifier(header, key));
+		assertEquals(1L, factory.getHitCount());
+		assertEquals(2L, factory.getMissCount());
+		assertEquals(1, factory.size());
+	}
+
+
+	public void testProviderChangeInvalidates()
+		throws Exception {
+
+		CachingJWSVerifierFactory factory = new CachingJWSVerifierFactory();
+
+		SecretKey key = generateHMACKey();
+		JWSHeader header = new JWSHeader(JWSAlgorithm.HS256);
+
+		JWSVerifier v1 = factory.createJWSVerifier(header, key);
+		assertNull(v1.getJCAContext().getProvider());
+
+		factory.getJCAContext().setProvider(BouncyCastleProviderSingleton.getInstance());
+
+		JWSVerifier v2 = factory.createJWSVerifier(header, key);
+		assertNotSame(v1, v2);
+		assertEquals("BC", v2.getJCAContext().getProvider().getName());
+	}
+}
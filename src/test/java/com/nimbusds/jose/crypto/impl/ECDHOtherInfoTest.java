@@ -0,0 +1,98 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.crypto.impl;
+
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import junit.framework.TestCase;
+
+import com.nimbusds.jose.util.Base64URL;
+
+
+/**
+ * Tests the ECDH Concat KDF OtherInfo with precomputed fixed fields.
+ */
+public class ECDHOtherInfoTest extends TestCase {
+
+
+	private static final Base64URL[] PARTY_INFOS = {
+		null,
+		Base64URL.encode(new byte[0]),
+		Base64URL.encode("Alice"),
+		Base64URL.encode("Bob")
+	};
+
+
+	public void testSharedInstance() {
+
+		ECDHOtherInfo otherInfo = ECDHOtherInfo.getInstance("A128GCM", 128);
+		assertEquals(128, otherInfo.getKeyLength());
+		assertSame(otherInfo, ECDHOtherInfo.getInstance("A128GCM", 128));
+	}
+
+
+	public void testKeyLengthMismatch() {
+
+		ECDHOtherInfo otherInfo = ECDHOtherInfo.getInstance("ECDH-ES+A256KW", 256);
+		ECDHOtherInfo other = ECDHOtherInfo.getInstance("ECDH-ES+A256KW", 128);
+		assertNotSame(otherInfo, other);
+		assertEquals(128, other.getKeyLength());
+	}
+
+
+	public void testComposeMatchesConcatKDF() {
+
+		for (Base64URL apu: PARTY_INFOS) {
+			for (Base64URL apv: PARTY_INFOS) {
+
+				byte[] expected = ConcatKDF.composeOtherInfo(
+					ConcatKDF.encodeDataWithLength("A256GCM".getBytes(StandardCharsets.US_ASCII)),
+					ConcatKDF.encodeDataWithLength(apu),
+					ConcatKDF.encodeDataWithLength(apv),
+					ConcatKDF.encodeIntData(256),
+					ConcatKDF.encodeNoData());
+
+				assertArrayEquals(expected, ECDHOtherInfo.getInstance("A256GCM", 256).compose(apu, apv));
+			}
+		}
+	}
+
+
+	public void testComposeWithTagMatchesConcatKDF() {
+
+		Base64URL tag = Base64URL.encode("tag-tag-tag-tag!");
+
+		for (Base64URL apu: PARTY_INFOS) {
+			for (Base64URL apv: PARTY_INFOS) {
+
+				byte[] expected = ConcatKDF.composeOtherInfo(
+					ConcatKDF.encodeDataWithLength("ECDH-1PU+A128KW".getBytes(StandardCharsets.US_ASCII)),
+					ConcatKDF.encodeDataWithLength(apu),
+					ConcatKDF.encodeDataWithLength(apv),
+					ConcatKDF.encodeIntData(128),
+					ConcatKDF.encodeNoData(),
+					ConcatKDF.encodeDataWithLength(tag));
+
+				assertArrayEquals(expected, ECDHOtherInfo.getInstance("ECDH-1PU+A128KW", 128).compose(apu, apv, tag));
+			}
+		}
+	}
+}
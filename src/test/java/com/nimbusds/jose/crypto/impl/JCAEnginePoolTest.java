@@ -0,0 +1,206 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jose.crypto.impl;
+
+
+import java.security.Provider;
+import java.security.Signature;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+
+import junit.framework.TestCase;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.crypto.bc.BouncyCastleProviderSingleton;
+
+
+/**
+ * Tests the JCA engine pool implementations.
+ */
+public class JCAEnginePoolTest extends TestCase {
+
+
+	private static class CountingFactory implements JCAEngineFactory<Object> {
+
+		final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Object create(final String algorithm, final Provider provider) {
+			count.incrementAndGet();
+			return new Object();
+		}
+	}
+
+
+	public void testStandardFactories()
+		throws JOSEException {
+
+		assertTrue(JCAEngines.MAC.create("HmacSHA256", null) instanceof Mac);
+		assertTrue(JCAEngines.SIGNATURE.create("SHA256withRSA", null) instanceof Signature);
+		assertTrue(JCAEngines.CIPHER.create("AES/GCM/NoPadding", null) instanceof Cipher);
+		assertEquals("BC", JCAEngines.MAC.create("HmacSHA256", BouncyCastleProviderSingleton.getInstance()).getProvider().getName());
+	}
+
+
+	public void testStandardFactoryUnsupportedAlgorithm() {
+
+		try {
+			JCAEngines.MAC.create("no-such-alg", null);
+			fail();
+		} catch (JOSEException e) {
+			assertEquals("Algorithm no-such-alg not available", e.getMessage());
+			assertNotNull(e.getCause());
+		}
+	}
+
+
+	public void testNoPool()
+		throws JOSEException {
+
+		CountingFactory factory = new CountingFactory();
+
+		Object e1 = JCAEngines.acquire(null, factory, "alg", null);
+		JCAEngines.release(null, factory, "alg", null, e1);
+		Object e2 = JCAEngines.acquire(null, factory, "alg", null);
+		assertNotSame(e1, e2);
+		assertEquals(2, factory.count.get());
+	}
+
+
+	private static void assertReuse(final JCAEnginePool pool)
+		throws JOSEException {
+
+		CountingFactory factory = new CountingFactory();
+
+		Object e1 = pool.acquire(factory, "alg", null);
+		Object e2 = pool.acquire(factory, "alg", null);
+		assertNotSame(e1, e2);
+		assertEquals(2, factory.count.get());
+
+		pool.release(factory, "alg", null, e1);
+		assertSame(e1, pool.acquire(factory, "alg", null));
+		assertEquals(2, factory.count.get());
+
+		// Different alg
+		pool.release(factory, "alg", null, e1);
+		Object e3 = pool.acquire(factory, "other-alg", null);
+		assertNotSame(e1, e3);
+		assertEquals(3, factory.count.get());
+
+		// Different provider
+		Object e4 = pool.acquire(factory, "alg", BouncyCastleProviderSingleton.getInstance());
+		assertNotSame(e1, e4);
+		assertEquals(4, factory.count.get());
+
+		// Different factory
+		CountingFactory otherFactory = new CountingFactory();
+		pool.acquire(otherFactory, "alg", null);
+		assertEquals(1, otherFactory.count.get());
+
+		assertSame(e1, pool.acquire(factory, "alg", null));
+	}
+
+
+	public void testThreadLocalPool()
+		throws Exception {
+
+		final ThreadLocalJCAEnginePool pool = new ThreadLocalJCAEnginePool();
+		assertReuse(pool);
+
+		// Not shared between threads
+		final CountingFactory factory = new CountingFactory();
+		pool.release(factory, "alg", null, pool.acquire(factory, "alg", null));
+
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					pool.acquire(factory, "alg", null);
+				} catch (JOSEException e) {
+					fail(e.getMessage());
+				}
+			}
+		};
+		thread.start();
+		thread.join();
+
+		assertEquals(2, factory.count.get());
+	}
+
+
+	public void testBoundedQueuePool()
+		throws JOSEException {
+
+		assertEquals(BoundedQueueJCAEnginePool.DEFAULT_MAX_IDLE, new BoundedQueueJCAEnginePool().getMaxIdle());
+		assertReuse(new BoundedQueueJCAEnginePool());
+	}
+
+
+	public void testBoundedQueuePoolMaxIdle()
+		throws JOSEException {
+
+		BoundedQueueJCAEnginePool pool = new BoundedQueueJCAEnginePool(1);
+		assertEquals(1, pool.getMaxIdle());
+
+		CountingFactory factory = new CountingFactory();
+
+		Object e1 = pool.acquire(factory, "alg", null);
+		Object e2 = pool.acquire(factory, "alg", null);
+		pool.release(factory, "alg", null, e1);
+		pool.release(factory, "alg", null, e2); // discarded
+
+		assertSame(e1, pool.acquire(factory, "alg", null));
+		Object e3 = pool.acquire(factory, "alg", null);
+		assertNotSame(e2, e3);
+		assertEquals(3, factory.count.get());
+	}
+
+
+	public void testBoundedQueuePoolRejectIllegalMaxIdle() {
+
+		try {
+			new BoundedQueueJCAEnginePool(0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The maximum idle engine count must be positive", e.getMessage());
+		}
+	}
+
+
+	public void testStripedPool()
+		throws JOSEException {
+
+		assertEquals(Runtime.getRuntime().availableProcessors(), new StripedJCAEnginePool().getStripeCount());
+
+		StripedJCAEnginePool pool = new StripedJCAEnginePool(4, 2);
+		assertEquals(4, pool.getStripeCount());
+		assertReuse(pool);
+	}
+
+
+	public void testStripedPoolRejectIllegalStripeCount() {
+
+		try {
+			new StripedJCAEnginePool(0, 1);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The stripe count must be positive", e.getMessage());
+		}
+	}
+}
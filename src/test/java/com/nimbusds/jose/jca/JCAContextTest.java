@@ -28,7 +28,7 @@ import junit.framework.TestCase;
  * Tests the simple JCA context.
  *
  * @author Vladimir Dzhuvinov
- * @version 2015-06-08
+ * @version 2022-06-09
  */
 public class JCAContextTest extends TestCase {
 
@@ -65,4 +65,32 @@ public class JCAContextTest extends TestCase {
 		context.setSecureRandom(sr);
 		assertEquals(sr, context.getSecureRandom());
 	}
+
+
+	public void testSecureRandomSource() {
+
+		JCAContext context = new JCAContext();
+		assertNull(context.getSecureRandomSource());
+		assertNotSame(context.getSecureRandom(), context.getSecureRandom());
+
+		SecureRandomSource source = new ThreadLocalSecureRandomSource();
+		context.setSecureRandomSource(source);
+		assertEquals(source, context.getSecureRandomSource());
+		assertSame(source.getSecureRandom(), context.getSecureRandom());
+		assertSame(context.getSecureRandom(), context.getSecureRandom());
+
+		context.setSecureRandomSource(null);
+		assertNull(context.getSecureRandomSource());
+	}
+
+
+	public void testSpecificSecureRandomTakesPrecedenceOverSource() {
+
+		SecureRandom sr = new SecureRandom();
+
+		JCAContext context = new JCAContext(null, sr);
+		context.setSecureRandomSource(new StripedSecureRandomSource(2));
+
+		assertEquals(sr, context.getSecureRandom());
+	}
 }
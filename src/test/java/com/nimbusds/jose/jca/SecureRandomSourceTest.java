@@ -0,0 +1,168 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2016, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.jca;
+
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+
+/**
+ * Tests the secure random sources.
+ */
+public class SecureRandomSourceTest extends TestCase {
+
+
+	private static SecureRandom getFromOtherThread(final SecureRandomSource source)
+		throws InterruptedException {
+
+		final AtomicReference<SecureRandom> ref = new AtomicReference<>();
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				ref.set(source.getSecureRandom());
+			}
+		};
+		thread.start();
+		thread.join();
+		return ref.get();
+	}
+
+
+	public void testThreadLocal()
+		throws InterruptedException {
+
+		SecureRandomSource source = new ThreadLocalSecureRandomSource();
+
+		SecureRandom sr = source.getSecureRandom();
+		assertNotNull(sr);
+		assertSame(sr, source.getSecureRandom());
+
+		SecureRandom other = getFromOtherThread(source);
+		assertNotNull(other);
+		assertNotSame(sr, other);
+	}
+
+
+	public void testThreadLocal_algorithm()
+		throws Exception {
+
+		SecureRandomSource source = new ThreadLocalSecureRandomSource("SHA1PRNG", null);
+		assertEquals("SHA1PRNG", source.getSecureRandom().getAlgorithm());
+		assertEquals("SHA1PRNG", getFromOtherThread(source).getAlgorithm());
+	}
+
+
+	public void testThreadLocal_unsupportedAlgorithm() {
+
+		try {
+			new ThreadLocalSecureRandomSource("no-such-alg", null);
+			fail();
+		} catch (NoSuchAlgorithmException e) {
+			// ok
+		}
+	}
+
+
+	public void testStriped() {
+
+		StripedSecureRandomSource source = new StripedSecureRandomSource(3);
+		assertEquals(3, source.getStripeCount());
+		assertSame(source.getSecureRandom(), source.getSecureRandom());
+
+		assertEquals(Runtime.getRuntime().availableProcessors(), new StripedSecureRandomSource().getStripeCount());
+	}
+
+
+	public void testStriped_algorithm()
+		throws Exception {
+
+		StripedSecureRandomSource source = new StripedSecureRandomSource(2, "SHA1PRNG", null);
+		assertEquals("SHA1PRNG", source.getSecureRandom().getAlgorithm());
+	}
+
+
+	public void testStriped_rejectZeroStripes() {
+
+		try {
+			new StripedSecureRandomSource(0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The stripe count must be positive", e.getMessage());
+		}
+	}
+
+
+	public void testPrefetching()
+		throws InterruptedException {
+
+		PrefetchingSecureRandomSource source = new PrefetchingSecureRandomSource(64);
+		assertEquals(64, source.getBlockSize());
+
+		SecureRandom sr = source.getSecureRandom();
+		assertSame(sr, source.getSecureRandom());
+		assertNotSame(sr, getFromOtherThread(source));
+
+		// Short requests served from blocks, across block boundaries
+		Set<String> ivs = new HashSet<>();
+		for (int i=0; i < 100; i++) {
+			byte[] iv = new byte[12];
+			sr.nextBytes(iv);
+			assertTrue(ivs.add(Arrays.toString(iv)));
+		}
+
+		// Long request passed through
+		byte[] large = new byte[1000];
+		sr.nextBytes(large);
+		assertFalse(Arrays.equals(new byte[1000], large));
+
+		assertEquals(16, sr.generateSeed(16).length);
+	}
+
+
+	public void testPrefetching_defaultBlockSize() {
+
+		assertEquals(PrefetchingSecureRandomSource.DEFAULT_BLOCK_SIZE, new PrefetchingSecureRandomSource().getBlockSize());
+	}
+
+
+	public void testPrefetching_algorithm()
+		throws Exception {
+
+		SecureRandom sr = new PrefetchingSecureRandomSource(32, "SHA1PRNG", null).getSecureRandom();
+		byte[] bytes = new byte[40];
+		sr.nextBytes(bytes);
+		assertFalse(Arrays.equals(new byte[40], bytes));
+	}
+
+
+	public void testPrefetching_rejectZeroBlockSize() {
+
+		try {
+			new PrefetchingSecureRandomSource(0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The block size must be positive", e.getMessage());
+		}
+	}
+}
@@ -82,7 +82,7 @@ public class JWKMatcherTest extends TestCase {
 		}
 	}
 	
-	private static RSAKey generateRSAKeyWithSelfSignedCert()
+	static RSAKey generateRSAKeyWithSelfSignedCert()
 		throws IOException, OperatorCreationException, JOSEException, CertificateEncodingException {
 		
 		RSAKey rsaJWK = new RSAKeyGenerator(2048)
@@ -26,7 +26,9 @@ import java.security.spec.ECParameterSpec;
 import java.util.*;
 
 import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
 import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jose.util.X509CertUtils;
 import junit.framework.TestCase;
 
 
@@ -34,7 +36,7 @@ import junit.framework.TestCase;
  * Tests the JWK selector.
  *
  * @author Vladimir Dzhuvinov
- * @version 2017-04-13
+ * @version 2022-06-05
  */
 public class JWKSelectorTest extends TestCase {
 	
@@ -350,4 +352,96 @@ public class JWKSelectorTest extends TestCase {
 
 		assertEquals(1, matches.size());
 	}
+
+
+	private static List<JWK> linearSelect(final JWKMatcher matcher, final JWKSet jwkSet) {
+
+		List<JWK> out = new LinkedList<>();
+		for (JWK jwk: jwkSet.getKeys()) {
+			if (matcher.matches(jwk)) {
+				out.add(jwk);
+			}
+		}
+		return out;
+	}
+
+
+	public void testIndexedSelectionMatchesLinearScan() {
+
+		KeyUse[] uses = { KeyUse.SIGNATURE, KeyUse.ENCRYPTION, null };
+		JWSAlgorithm[] algs = { JWSAlgorithm.HS256, JWSAlgorithm.HS512, null };
+
+		List<JWK> keyList = new ArrayList<>();
+		for (int i=0; i < 300; i++) {
+			keyList.add(new OctetSequenceKey.Builder(new byte[32])
+				.keyID(i % 10 == 0 ? null : "k" + (i % 150)) // with duplicates
+				.keyUse(uses[i % uses.length])
+				.algorithm(algs[i % algs.length])
+				.build());
+			keyList.add(new ECKey.Builder(Curve.P_256, EC_P256_X, EC_P256_Y)
+				.keyID("k" + i)
+				.algorithm(i % 2 == 0 ? JWSAlgorithm.ES256 : null)
+				.build());
+		}
+
+		JWKSet jwkSet = new JWKSet(keyList);
+
+		List<JWKMatcher> matchers = Arrays.asList(
+			JWKMatcher.forJWSHeader(new JWSHeader.Builder(JWSAlgorithm.HS256).keyID("k42").build()),
+			JWKMatcher.forJWSHeader(new JWSHeader.Builder(JWSAlgorithm.HS512).build()),
+			JWKMatcher.forJWSHeader(new JWSHeader.Builder(JWSAlgorithm.ES256).keyID("k43").build()),
+			JWKMatcher.forJWSHeader(new JWSHeader.Builder(JWSAlgorithm.ES256).keyID("no-such-kid").build()),
+			new JWKMatcher.Builder().keyIDs("k1", "k2", "k3").build(),
+			new JWKMatcher.Builder().keyUses(KeyUse.ENCRYPTION, null).keyType(KeyType.OCT).build(),
+			new JWKMatcher.Builder().algorithms(JWSAlgorithm.ES256, JWSAlgorithm.HS256).hasKeyID(true).build(),
+			new JWKMatcher.Builder().keySize(256).build(),
+			new JWKMatcher.Builder().build()
+		);
+
+		for (JWKMatcher matcher: matchers) {
+			List<JWK> expected = linearSelect(matcher, jwkSet);
+			assertEquals(matcher.toString(), expected, new JWKSelector(matcher).select(jwkSet));
+		}
+	}
+
+
+	public void testSelectByX5CComputedThumbprint()
+		throws Exception {
+
+		RSAKey rsaJWK = JWKMatcherTest.generateRSAKeyWithSelfSignedCert();
+		RSAKey otherRSAJWK = JWKMatcherTest.generateRSAKeyWithSelfSignedCert();
+
+		Base64URL x5t256 = X509CertUtils.computeSHA256Thumbprint(X509CertUtils.parse(rsaJWK.getX509CertChain().get(0).decode()));
+
+		JWKSet jwkSet = new JWKSet(Arrays.asList((JWK) otherRSAJWK, rsaJWK));
+
+		List<JWK> matches = new JWKSelector(new JWKMatcher.Builder().x509CertSHA256Thumbprint(x5t256).build()).select(jwkSet);
+		assertEquals(Collections.singletonList((JWK) rsaJWK), matches);
+	}
+
+
+	public void testGetKeyByKeyIdReturnsFirst() {
+
+		JWK k1 = new OctetSequenceKey.Builder(new byte[32]).keyID("1").build();
+		JWK k2 = new OctetSequenceKey.Builder(new byte[16]).keyID("1").build();
+
+		JWKSet jwkSet = new JWKSet(Arrays.asList(k1, k2));
+
+		assertSame(k1, jwkSet.getKeyByKeyId("1"));
+		assertNull(jwkSet.getKeyByKeyId("2"));
+		assertNull(jwkSet.getKeyByKeyId(null));
+	}
+
+
+	public void testJWKSetCopiesKeyList() {
+
+		List<JWK> keyList = new ArrayList<>();
+		keyList.add(new OctetSequenceKey.Builder(new byte[32]).keyID("1").build());
+
+		JWKSet jwkSet = new JWKSet(keyList);
+		keyList.add(new OctetSequenceKey.Builder(new byte[32]).keyID("2").build());
+
+		assertEquals(1, jwkSet.getKeys().size());
+		assertNull(jwkSet.getKeyByKeyId("2"));
+	}
 }
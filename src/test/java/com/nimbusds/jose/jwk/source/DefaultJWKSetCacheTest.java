@@ -205,4 +205,65 @@ public class DefaultJWKSetCacheTest extends TestCase {
 		first.join();
 		second.join();
 	}
+
+	
+	
+	public void testPutWithLifespan() throws InterruptedException {
+		
+		DefaultJWKSetCache cache = new DefaultJWKSetCache(1L, 1L, TimeUnit.MINUTES);
+		
+		JWKSet jwkSet = new JWKSet();
+		
+		cache.put(jwkSet, 200L, TimeUnit.MILLISECONDS);
+		assertEquals(jwkSet, cache.get());
+		assertFalse(cache.requiresRefresh());
+		assertFalse(cache.isExpired());
+		
+		// Configured lifespan unaffected
+		assertEquals(1L, cache.getLifespan(TimeUnit.MINUTES));
+		assertEquals(1L, cache.getRefreshTime(TimeUnit.MINUTES));
+		
+		Thread.sleep(300L);
+		
+		// Refresh time capped at lifespan
+		assertTrue(cache.requiresRefresh());
+		assertTrue(cache.isExpired());
+		assertNull(cache.get());
+		
+		// Plain put reverts to the configured lifespan
+		cache.put(jwkSet);
+		Thread.sleep(300L);
+		assertFalse(cache.requiresRefresh());
+		assertFalse(cache.isExpired());
+		assertEquals(jwkSet, cache.get());
+	}
+	
+	
+	public void testPutWithLifespan_longerThanRefreshTime() {
+		
+		DefaultJWKSetCache cache = new DefaultJWKSetCache(1L, 0L, TimeUnit.MINUTES);
+		
+		cache.put(new JWKSet(), 10L, TimeUnit.MINUTES);
+		assertFalse(cache.isExpired());
+	}
+	
+	
+	public void testPutWithLifespan_rejectIllegalArgs() {
+		
+		DefaultJWKSetCache cache = new DefaultJWKSetCache();
+		
+		try {
+			cache.put(null, 1L, TimeUnit.MINUTES);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The JWK set must not be null", e.getMessage());
+		}
+		
+		try {
+			cache.put(new JWKSet(), -1L, TimeUnit.MINUTES);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The lifespan must not be negative", e.getMessage());
+		}
+	}
 }
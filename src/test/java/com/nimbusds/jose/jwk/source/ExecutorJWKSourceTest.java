@@ -0,0 +1,192 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.jwk.source;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import junit.framework.TestCase;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetSequenceKey;
+import com.nimbusds.jose.jwk.gen.OctetSequenceKeyGenerator;
+import com.nimbusds.jose.proc.SecurityContext;
+
+
+/**
+ * Tests the executor JWK source.
+ */
+public class ExecutorJWKSourceTest extends TestCase {
+
+
+	/**
+	 * Executor which queues the tasks for running on demand.
+	 */
+	private static class QueueingExecutor implements Executor {
+
+		final List<Runnable> tasks = new ArrayList<>();
+
+		@Override
+		public void execute(final Runnable task) {
+			tasks.add(task);
+		}
+
+		void runAll() {
+			for (Runnable task: tasks) {
+				task.run();
+			}
+			tasks.clear();
+		}
+	}
+
+
+	/**
+	 * Callback which records the outcome.
+	 */
+	private static class RecordingCallback implements AsyncJWKSource.Callback {
+
+		List<JWK> jwks;
+
+		KeySourceException exception;
+
+		@Override
+		public void onSuccess(final List<JWK> jwks) {
+			this.jwks = jwks;
+		}
+
+		@Override
+		public void onFailure(final KeySourceException e) {
+			exception = e;
+		}
+	}
+
+
+	private static final JWKSelector SELECTOR = new JWKSelector(new JWKMatcher.Builder().keyID("1").build());
+
+
+	public void testImmutableJWKSetInCallingThread()
+		throws Exception {
+
+		OctetSequenceKey jwk = new OctetSequenceKeyGenerator(256).keyID("1").generate();
+		QueueingExecutor executor = new QueueingExecutor();
+
+		ExecutorJWKSource<SecurityContext> source = new ExecutorJWKSource<>(new ImmutableJWKSet<SecurityContext>(new JWKSet(jwk)), executor);
+		assertTrue(source.getJWKSource() instanceof ImmutableJWKSet);
+		assertSame(executor, source.getExecutor());
+
+		RecordingCallback callback = new RecordingCallback();
+		source.get(SELECTOR, null, callback);
+
+		assertTrue(executor.tasks.isEmpty());
+		assertEquals(Collections.singletonList((JWK)jwk), callback.jwks);
+		assertNull(callback.exception);
+	}
+
+
+	public void testOtherSourceOnExecutor()
+		throws Exception {
+
+		final OctetSequenceKey jwk = new OctetSequenceKeyGenerator(256).keyID("1").generate();
+		QueueingExecutor executor = new QueueingExecutor();
+
+		ExecutorJWKSource<SecurityContext> source = new ExecutorJWKSource<>(new JWKSource<SecurityContext>() {
+			@Override
+			public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) {
+				return Collections.singletonList((JWK)jwk);
+			}
+		}, executor);
+
+		RecordingCallback callback = new RecordingCallback();
+		source.get(SELECTOR, null, callback);
+
+		assertEquals(1, executor.tasks.size());
+		assertNull(callback.jwks);
+
+		executor.runAll();
+		assertEquals(Collections.singletonList((JWK)jwk), callback.jwks);
+		assertNull(callback.exception);
+	}
+
+
+	public void testSourceException() {
+
+		QueueingExecutor executor = new QueueingExecutor();
+
+		ExecutorJWKSource<SecurityContext> source = new ExecutorJWKSource<>(new JWKSource<SecurityContext>() {
+			@Override
+			public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) throws KeySourceException {
+				throw new KeySourceException("Retrieval failed");
+			}
+		}, executor);
+
+		RecordingCallback callback = new RecordingCallback();
+		source.get(SELECTOR, null, callback);
+		executor.runAll();
+
+		assertNull(callback.jwks);
+		assertEquals("Retrieval failed", callback.exception.getMessage());
+	}
+
+
+	public void testSourceRuntimeException() {
+
+		QueueingExecutor executor = new QueueingExecutor();
+
+		ExecutorJWKSource<SecurityContext> source = new ExecutorJWKSource<>(new JWKSource<SecurityContext>() {
+			@Override
+			public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) {
+				throw new IllegalStateException("Bug");
+			}
+		}, executor);
+
+		RecordingCallback callback = new RecordingCallback();
+		source.get(SELECTOR, null, callback);
+		executor.runAll();
+
+		assertEquals("Bug", callback.exception.getMessage());
+		assertTrue(callback.exception.getCause() instanceof IllegalStateException);
+	}
+
+
+	public void testExecutorRejects() {
+
+		ExecutorJWKSource<SecurityContext> source = new ExecutorJWKSource<>(new JWKSource<SecurityContext>() {
+			@Override
+			public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) {
+				return Collections.emptyList();
+			}
+		}, new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				throw new RejectedExecutionException();
+			}
+		});
+
+		RecordingCallback callback = new RecordingCallback();
+		source.get(SELECTOR, null, callback);
+
+		assertEquals("JWK source lookup rejected by the executor", callback.exception.getMessage());
+	}
+}
@@ -715,4 +715,412 @@ public class RemoteJWKSetTest {
 		
 		assertEquals("Retriever must be called exactly once", 1, invocationCounter.intValue());
 	}
+	
+	
+	private static class SwitchingRetriever implements ResourceRetriever {
+		
+		final AtomicInteger invocationCounter = new AtomicInteger(0);
+		
+		volatile JWKSet jwkSet;
+		
+		volatile boolean fail;
+		
+		SwitchingRetriever(final JWKSet jwkSet) {
+			this.jwkSet = jwkSet;
+		}
+		
+		@Override
+		public Resource retrieveResource(URL url) throws IOException {
+			invocationCounter.incrementAndGet();
+			if (fail) {
+				throw new SocketTimeoutException("Read timed out");
+			}
+			return new Resource(JSONObjectUtils.toJSONString(jwkSet.toJSONObject(true)), "application/json");
+		}
+	}
+	
+	
+	@Test
+	public void testComputeRetryDelay() {
+		
+		assertEquals(1000L, RemoteJWKSet.computeRetryDelay(1, 60_000L));
+		assertEquals(2000L, RemoteJWKSet.computeRetryDelay(2, 60_000L));
+		assertEquals(4000L, RemoteJWKSet.computeRetryDelay(3, 60_000L));
+		assertEquals(32_000L, RemoteJWKSet.computeRetryDelay(6, 60_000L));
+		assertEquals(60_000L, RemoteJWKSet.computeRetryDelay(7, 60_000L));
+		assertEquals(60_000L, RemoteJWKSet.computeRetryDelay(Integer.MAX_VALUE, 60_000L));
+		assertEquals(100L, RemoteJWKSet.computeRetryDelay(1, 100L));
+	}
+	
+	
+	@Test
+	public void testRefreshAhead_defaultDisabled()
+		throws Exception {
+		
+		RemoteJWKSet<SecurityContext> jwkSetSource = new RemoteJWKSet<>(new URL("http://localhost/jwks.json"));
+		assertFalse(jwkSetSource.isRefreshAhead());
+	}
+	
+	
+	@Test
+	public void testRefreshAhead_backgroundRefresh()
+		throws Exception {
+		
+		SwitchingRetriever retriever = new SwitchingRetriever(new JWKSet((JWK) RSA_JWK_1));
+		
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		
+		RemoteJWKSet<SecurityContext> jwkSetSource = new RemoteJWKSet<>(
+			new URL("http://localhost/jwks.json"),
+			null,
+			retriever,
+			new DefaultJWKSetCache(5, 1, TimeUnit.SECONDS),
+			scheduler);
+		
+		assertTrue(jwkSetSource.isRefreshAhead());
+		
+		List<JWK> matches = jwkSetSource.get(new JWKSelector(new JWKMatcher.Builder().keyID("1").build()), null);
+		assertEquals(RSA_JWK_1.getKeyID(), matches.get(0).getKeyID());
+		assertEquals(1, retriever.invocationCounter.get());
+		
+		// Key rotation
+		retriever.jwkSet = new JWKSet((JWK) RSA_JWK_2);
+		
+		Thread.sleep(1500L);
+		
+		// Refreshed in the background
+		assertEquals(2, retriever.invocationCounter.get());
+		
+		matches = jwkSetSource.get(new JWKSelector(new JWKMatcher.Builder().keyID("2").build()), null);
+		assertEquals(RSA_JWK_2.getKeyID(), matches.get(0).getKeyID());
+		assertEquals(2, retriever.invocationCounter.get());
+		
+		jwkSetSource.close();
+		assertFalse(jwkSetSource.isRefreshAhead());
+		
+		Thread.sleep(1500L);
+		assertEquals(2, retriever.invocationCounter.get());
+		
+		scheduler.shutdown();
+	}
+	
+	
+	@Test
+	public void testRefreshAhead_servesStaleJWKSetOnFailure()
+		throws Exception {
+		
+		SwitchingRetriever retriever = new SwitchingRetriever(new JWKSet((JWK) RSA_JWK_1));
+		
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		
+		RemoteJWKSet<SecurityContext> jwkSetSource = new RemoteJWKSet<>(
+			new URL("http://localhost/jwks.json"),
+			null,
+			retriever,
+			new DefaultJWKSetCache(300, 100, TimeUnit.MILLISECONDS),
+			scheduler);
+		
+		JWKSelector selector = new JWKSelector(new JWKMatcher.Builder().keyID("1").build());
+		
+		assertEquals(1, jwkSetSource.get(selector, null).size());
+		
+		retriever.fail = true;
+		
+		Thread.sleep(1000L); // past the cache lifespan
+		
+		assertNull(jwkSetSource.getCachedJWKSet());
+		
+		assertTrue(retriever.invocationCounter.get() > 1); // retried in the background
+		
+		// Stale JWK set served
+		assertEquals(1, jwkSetSource.get(selector, null).size());
+		
+		// Recovery
+		retriever.fail = false;
+		retriever.jwkSet = new JWKSet((JWK) RSA_JWK_2);
+		
+		Thread.sleep(500L);
+		
+		assertEquals(1, jwkSetSource.get(new JWKSelector(new JWKMatcher.Builder().keyID("2").build()), null).size());
+		assertNotNull(jwkSetSource.getCachedJWKSet());
+		
+		jwkSetSource.close();
+		scheduler.shutdown();
+	}
+	
+	
+	@Test
+	public void testUnknownKeyIDRefreshInterval_default()
+		throws Exception {
+		
+		assertEquals(0, RemoteJWKSet.DEFAULT_UNKNOWN_KEY_ID_REFRESH_INTERVAL);
+		assertEquals(1000, RemoteJWKSet.MAX_MISSING_KEY_IDS);
+		
+		RemoteJWKSet<SecurityContext> jwkSetSource = new RemoteJWKSet<>(new URL("http://localhost/jwks.json"));
+		assertEquals(0L, jwkSetSource.getUnknownKeyIDRefreshInterval(TimeUnit.SECONDS));
+		
+		jwkSetSource.setUnknownKeyIDRefreshInterval(1, TimeUnit.MINUTES);
+		assertEquals(60_000L, jwkSetSource.getUnknownKeyIDRefreshInterval(TimeUnit.MILLISECONDS));
+		
+		try {
+			jwkSetSource.setUnknownKeyIDRefreshInterval(-1, TimeUnit.SECONDS);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The unknown key ID refresh interval must not be negative", e.getMessage());
+		}
+		
+		System.setProperty("com.nimbusds.jose.jwk.source.RemoteJWKSet.defaultUnknownKeyIDRefreshInterval", "2500");
+		try {
+			assertEquals(2500, RemoteJWKSet.resolveDefaultUnknownKeyIDRefreshInterval());
+			jwkSetSource = new RemoteJWKSet<>(new URL("http://localhost/jwks.json"));
+			assertEquals(2500L, jwkSetSource.getUnknownKeyIDRefreshInterval(TimeUnit.MILLISECONDS));
+		} finally {
+			System.clearProperty("com.nimbusds.jose.jwk.source.RemoteJWKSet.defaultUnknownKeyIDRefreshInterval");
+		}
+	}
+	
+	
+	@Test
+	public void testUnknownKeyID_rateLimitAndMissingKeyIDs()
+		throws Exception {
+		
+		SwitchingRetriever retriever = new SwitchingRetriever(new JWKSet((JWK) RSA_JWK_1));
+		
+		RemoteJWKSet<SecurityContext> jwkSetSource = new RemoteJWKSet<>(new URL("http://localhost/jwks.json"), retriever);
+		jwkSetSource.setUnknownKeyIDRefreshInterval(10, TimeUnit.SECONDS);
+		
+		assertEquals(1, jwkSetSource.get(new JWKSelector(new JWKMatcher.Builder().keyID("1").build()), null).size());
+		assertEquals(1, retriever.invocationCounter.get());
+		
+		// Unknown kid, refresh
+		assertTrue(jwkSetSource.get(new JWKSelector(new JWKMatcher.Builder().keyID("x").build()), null).isEmpty());
+		assertEquals(2, retriever.invocationCounter.get());
+		assertEquals(1L, jwkSetSource.getUnknownKeyIDRefreshCount());
+		
+		// Same unknown kid, remembered as missing
+		assertTrue(jwkSetSource.get(new JWKSelector(new JWKMatcher.Builder().keyID("x").build()), null).isEmpty());
+		assertEquals(2, retriever.invocationCounter.get());
+		assertEquals(1L, jwkSetSource.getMissingKeyIDHitCount());
+		
+		// Other unknown kid, rate limited
+		retriever.jwkSet = new JWKSet(Arrays.asList((JWK) RSA_JWK_1, RSA_JWK_2));
+		assertTrue(jwkSetSource.get(new JWKSelector(new JWKMatcher.Builder().keyID("2").build()), null).isEmpty());
+		assertEquals(2, retriever.invocationCounter.get());
+		assertEquals(1L, jwkSetSource.getRateLimitedRefreshCount());
+		
+		// Remove limit
+		jwkSetSource.setUnknownKeyIDRefreshInterval(0, TimeUnit.SECONDS);
+		assertEquals(1, jwkSetSource.get(new JWKSelector(new JWKMatcher.Builder().keyID("2").build()), null).size());
+		assertEquals(3, retriever.invocationCounter.get());
+		assertEquals(2L, jwkSetSource.getUnknownKeyIDRefreshCount());
+		
+		assertTrue(jwkSetSource.get(new JWKSelector(new JWKMatcher.Builder().keyID("x").build()), null).isEmpty());
+		assertEquals(4, retriever.invocationCounter.get());
+		assertEquals(3L, jwkSetSource.getUnknownKeyIDRefreshCount());
+		assertEquals(1L, jwkSetSource.getMissingKeyIDHitCount());
+		assertEquals(0L, jwkSetSource.getCoalescedRefreshCount());
+	}
+	
+	
+	@Test
+	public void testUnknownKeyID_concurrentRefreshesCoalesced()
+		throws Exception {
+		
+		final JWKSet jwkSet = new JWKSet((JWK) RSA_JWK_1);
+		
+		final AtomicInteger invocationCounter = new AtomicInteger(0);
+		
+		ResourceRetriever retriever = new ResourceRetriever() {
+			@Override
+			public Resource retrieveResource(URL url) throws IOException {
+				invocationCounter.incrementAndGet();
+				try {
+					Thread.sleep(200L);
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+				return new Resource(JSONObjectUtils.toJSONString(jwkSet.toJSONObject(true)), "application/json");
+			}
+		};
+		
+		DefaultJWKSetCache cache = new DefaultJWKSetCache();
+		cache.put(jwkSet);
+		
+		final RemoteJWKSet<SecurityContext> jwkSetSource = new RemoteJWKSet<>(new URL("http://localhost/jwks.json"), retriever, cache);
+		
+		int numberOfThreads = 20;
+		final CountDownLatch latch = new CountDownLatch(numberOfThreads);
+		ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads);
+		List<Future<List<JWK>>> futures = new ArrayList<>();
+		
+		for (int i = 0; i < numberOfThreads; i++) {
+			final String kid = "unknown-" + i;
+			futures.add(executorService.submit(new Callable<List<JWK>>() {
+				@Override
+				public List<JWK> call() throws Exception {
+					latch.countDown();
+					latch.await(1, TimeUnit.MINUTES);
+					return jwkSetSource.get(new JWKSelector(new JWKMatcher.Builder().keyID(kid).build()), null);
+				}
+			}));
+		}
+		
+		for (Future<List<JWK>> future : futures) {
+			assertTrue(future.get(1, TimeUnit.MINUTES).isEmpty());
+		}
+		
+		executorService.shutdown();
+		executorService.awaitTermination(1, TimeUnit.SECONDS);
+		
+		assertEquals("Retriever must be called exactly once", 1, invocationCounter.intValue());
+		assertEquals(1L, jwkSetSource.getUnknownKeyIDRefreshCount());
+	}
+	
+	
+	@Test
+	public void testUnknownKeyID_refreshSerialisedWithOtherRefreshes()
+		throws Exception {
+		
+		SwitchingRetriever retriever = new SwitchingRetriever(new JWKSet((JWK) RSA_JWK_1));
+		
+		final RemoteJWKSet<SecurityContext> jwkSetSource = new RemoteJWKSet<>(new URL("http://localhost/jwks.json"), retriever);
+		
+		assertEquals(1, jwkSetSource.get(new JWKSelector(new JWKMatcher.Builder().keyID("1").build()), null).size());
+		assertEquals(1, retriever.invocationCounter.get());
+		
+		retriever.jwkSet = new JWKSet(Arrays.asList((JWK) RSA_JWK_1, RSA_JWK_2));
+		
+		ExecutorService executorService = Executors.newSingleThreadExecutor();
+		
+		try {
+			Future<List<JWK>> future;
+			
+			// Holds the lock of the expiry and refresh-ahead retrievals
+			synchronized (jwkSetSource) {
+				future = executorService.submit(new Callable<List<JWK>>() {
+					@Override
+					public List<JWK> call() throws Exception {
+						return jwkSetSource.get(new JWKSelector(new JWKMatcher.Builder().keyID("2").build()), null);
+					}
+				});
+				
+				Thread.sleep(200L);
+				assertEquals(1, retriever.invocationCounter.get());
+				assertFalse(future.isDone());
+			}
+			
+			assertEquals(1, future.get(1, TimeUnit.MINUTES).size());
+			assertEquals(2, retriever.invocationCounter.get());
+		} finally {
+			executorService.shutdown();
+		}
+	}
+	
+	
+	@Test
+	public void testDefaultRetrieverUsesConditionalRequests()
+		throws Exception {
+		
+		RemoteJWKSet<SecurityContext> jwkSetSource = new RemoteJWKSet<>(new URL("http://localhost/jwks.json"));
+		assertTrue(((DefaultResourceRetriever) jwkSetSource.getResourceRetriever()).usesConditionalRequests());
+		assertFalse(jwkSetSource.honoursCacheControl());
+		assertEquals(60_000L, RemoteJWKSet.MIN_CACHE_CONTROL_LIFESPAN);
+	}
+	
+	
+	@Test
+	public void testNotModifiedKeepsParsedJWKSet_honourCacheControl()
+		throws Exception {
+		
+		final String content = JSONObjectUtils.toJSONString(new JWKSet((JWK) RSA_JWK_1).toJSONObject(true));
+		final AtomicInteger invocationCounter = new AtomicInteger(0);
+		
+		ResourceRetriever retriever = new ResourceRetriever() {
+			@Override
+			public Resource retrieveResource(URL url) {
+				boolean notModified = invocationCounter.getAndIncrement() > 0;
+				return new Resource(content, "application/json", "\"v1\"", null, 120L, notModified);
+			}
+		};
+		
+		DefaultJWKSetCache cache = new DefaultJWKSetCache(100L, -1L, TimeUnit.MILLISECONDS);
+		
+		RemoteJWKSet<SecurityContext> jwkSetSource = new RemoteJWKSet<>(new URL("http://localhost/jwks.json"), retriever, cache);
+		jwkSetSource.setHonoursCacheControl(true);
+		assertTrue(jwkSetSource.honoursCacheControl());
+		jwkSetSource.setUnknownKeyIDRefreshInterval(0L, TimeUnit.SECONDS);
+		
+		assertEquals(1, jwkSetSource.get(new JWKSelector(new JWKMatcher.Builder().keyID("1").build()), null).size());
+		JWKSet jwkSet = jwkSetSource.getCachedJWKSet();
+		assertNotNull(jwkSet);
+		
+		// Lifespan determined by max-age
+		Thread.sleep(200L);
+		assertSame(jwkSet, jwkSetSource.getCachedJWKSet());
+		assertFalse(cache.requiresRefresh());
+		
+		// Unknown kid, refresh finds the JWK set not modified
+		assertTrue(jwkSetSource.get(new JWKSelector(new JWKMatcher.Builder().keyID("2").build()), null).isEmpty());
+		assertEquals(2, invocationCounter.get());
+		assertEquals(1L, jwkSetSource.getNotModifiedCount());
+		assertSame(jwkSet, jwkSetSource.getCachedJWKSet());
+	}
+	
+	
+	@Test
+	public void testCacheControlNotHonouredByDefault()
+		throws Exception {
+		
+		final String content = JSONObjectUtils.toJSONString(new JWKSet((JWK) RSA_JWK_1).toJSONObject(true));
+		
+		ResourceRetriever retriever = new ResourceRetriever() {
+			@Override
+			public Resource retrieveResource(URL url) {
+				return new Resource(content, "application/json", null, null, 120L, false);
+			}
+		};
+		
+		DefaultJWKSetCache cache = new DefaultJWKSetCache(100L, 50L, TimeUnit.MILLISECONDS);
+		
+		RemoteJWKSet<SecurityContext> jwkSetSource = new RemoteJWKSet<>(new URL("http://localhost/jwks.json"), retriever, cache);
+		
+		assertEquals(1, jwkSetSource.get(new JWKSelector(new JWKMatcher.Builder().keyID("1").build()), null).size());
+		
+		Thread.sleep(200L);
+		assertNull(jwkSetSource.getCachedJWKSet());
+	}
+	
+	
+	@Test
+	public void testGetIfCached()
+		throws Exception {
+		
+		JWKSet jwkSet = new JWKSet(Arrays.asList(RSA_JWK_1, (JWK)RSA_JWK_2));
+		
+		onRequest()
+			.havingMethodEqualTo("GET")
+			.havingPathEqualTo("/jwks.json")
+			.respond()
+			.withStatus(200)
+			.withHeader("Content-Type", "application/json")
+			.withBody(JSONObjectUtils.toJSONString(jwkSet.toJSONObject(true)));
+		
+		RemoteJWKSet<SecurityContext> jwkSetSource = new RemoteJWKSet<>(new URL("http://localhost:" + port() + "/jwks.json"));
+		
+		JWKSelector selector = new JWKSelector(new JWKMatcher.Builder().keyID("1").build());
+		
+		// Not retrieved yet
+		assertNull(jwkSetSource.getIfCached(selector));
+		
+		assertEquals(1, jwkSetSource.get(selector, null).size());
+		
+		List<JWK> matches = jwkSetSource.getIfCached(selector);
+		assertEquals(1, matches.size());
+		assertEquals("1", matches.get(0).getKeyID());
+		
+		// Unknown kid
+		assertNull(jwkSetSource.getIfCached(new JWKSelector(new JWKMatcher.Builder().keyID("3").build())));
+		
+		verifyThatRequest().receivedOnce();
+	}
 }
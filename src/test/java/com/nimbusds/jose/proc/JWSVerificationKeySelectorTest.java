@@ -36,7 +36,10 @@ import java.util.Set;
 import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.JWSHeader;
 import com.nimbusds.jose.jwk.*;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
 import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.util.Base64URL;
 import com.nimbusds.jose.util.X509CertUtils;
 import junit.framework.TestCase;
@@ -252,4 +255,76 @@ public class JWSVerificationKeySelectorTest extends TestCase {
 			// pass
 		}
 	}
+
+
+	public void testConvertedKeysAreCached()
+		throws Exception {
+
+		RSAKey rsaJWK = new RSAKeyGenerator(2048).keyID("1").generate();
+		ECKey ecJWK = new ECKeyGenerator(Curve.P_256).keyID("2").generate();
+
+		JWSVerificationKeySelector<SecurityContext> keySelector = new JWSVerificationKeySelector<>(
+			new HashSet<>(Arrays.asList(JWSAlgorithm.RS256, JWSAlgorithm.ES256)),
+			new ImmutableJWKSet<SecurityContext>(new JWKSet(Arrays.asList((JWK) rsaJWK, ecJWK)))
+		);
+
+		JWSHeader rsaHeader = new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("1").build();
+		List<Key> candidates = keySelector.selectJWSKeys(rsaHeader, null);
+		assertEquals(1, candidates.size());
+		assertEquals(rsaJWK.toRSAPublicKey(), candidates.get(0));
+		assertSame(candidates.get(0), keySelector.selectJWSKeys(rsaHeader, null).get(0));
+
+		JWSHeader ecHeader = new JWSHeader.Builder(JWSAlgorithm.ES256).keyID("2").build();
+		candidates = keySelector.selectJWSKeys(ecHeader, null);
+		assertEquals(1, candidates.size());
+		assertEquals(ecJWK.toECPublicKey(), candidates.get(0));
+		assertSame(candidates.get(0), keySelector.selectJWSKeys(ecHeader, null).get(0));
+	}
+
+
+	public void testConvertedKeysFollowJWKSetUpdate()
+		throws Exception {
+
+		final RSAKey rsaJWK1 = new RSAKeyGenerator(2048).keyID("1").generate();
+		final RSAKey rsaJWK2 = new RSAKeyGenerator(2048).keyID("1").generate();
+
+		final JWKSet[] jwkSet = { new JWKSet(rsaJWK1) };
+
+		JWSVerificationKeySelector<SecurityContext> keySelector = new JWSVerificationKeySelector<>(
+			JWSAlgorithm.RS256,
+			new JWKSource<SecurityContext>() {
+				@Override
+				public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) {
+					return jwkSelector.select(jwkSet[0]);
+				}
+			}
+		);
+
+		JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("1").build();
+		assertEquals(rsaJWK1.toRSAPublicKey(), keySelector.selectJWSKeys(header, null).get(0));
+
+		// Key rotation with same kid
+		jwkSet[0] = new JWKSet(rsaJWK2);
+		assertEquals(rsaJWK2.toRSAPublicKey(), keySelector.selectJWSKeys(header, null).get(0));
+	}
+
+
+	public void testPrivateKeysSkippedWhenCached()
+		throws Exception {
+
+		RSAKey rsaJWK = new RSAKeyGenerator(2048).keyID("1").generate(); // with private key
+
+		JWSVerificationKeySelector<SecurityContext> keySelector = new JWSVerificationKeySelector<>(
+			JWSAlgorithm.RS256,
+			new ImmutableJWKSet<SecurityContext>(new JWKSet(rsaJWK))
+		);
+
+		JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("1").build();
+
+		for (int i=0; i < 2; i++) {
+			List<Key> candidates = keySelector.selectJWSKeys(header, null);
+			assertEquals(1, candidates.size());
+			assertTrue(candidates.get(0) instanceof RSAPublicKey);
+		}
+	}
 }
@@ -0,0 +1,163 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2016, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jose.util;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+
+/**
+ * Tests the Base64URL output and input streams.
+ */
+public class Base64URLStreamsTest extends TestCase {
+
+
+	private static String encode(final byte[] bytes, final int chunkSize)
+		throws IOException {
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Base64URLOutputStream b64Out = new Base64URLOutputStream(out);
+		for (int pos=0; pos < bytes.length; pos += chunkSize) {
+			int len = Math.min(chunkSize, bytes.length - pos);
+			if (len == 1) {
+				b64Out.write(bytes[pos]);
+			} else {
+				b64Out.write(bytes, pos, len);
+			}
+		}
+		b64Out.finish();
+		return new String(out.toByteArray(), StandardCharset.UTF_8);
+	}
+
+
+	private static byte[] readAll(final InputStream in)
+		throws IOException {
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buf = new byte[1000];
+		int n;
+		while ((n = in.read(buf)) != -1) {
+			out.write(buf, 0, n);
+		}
+		return out.toByteArray();
+	}
+
+
+	private static byte[] decode(final String s)
+		throws IOException {
+
+		PushbackInputStream in = new PushbackInputStream(
+			new ByteArrayInputStream(s.getBytes(StandardCharset.UTF_8)),
+			Base64URLInputStream.READ_AHEAD_SIZE);
+		return readAll(new Base64URLInputStream(in));
+	}
+
+
+	public void testEncodeMatchesBase64URL()
+		throws Exception {
+
+		Random random = new Random(1);
+
+		for (int length: new int[]{0, 1, 2, 3, 4, 5, 100, 3071, 3072, 3073, 10_000}) {
+			byte[] bytes = new byte[length];
+			random.nextBytes(bytes);
+			String expected = Base64URL.encode(bytes).toString();
+			for (int chunkSize: new int[]{1, 2, 7, 4096}) {
+				assertEquals(expected, encode(bytes, chunkSize));
+			}
+			assertTrue(Arrays.equals(bytes, decode(expected)));
+		}
+	}
+
+
+	public void testWriteAfterFinish()
+		throws Exception {
+
+		Base64URLOutputStream out = new Base64URLOutputStream(new ByteArrayOutputStream());
+		out.finish();
+
+		try {
+			out.write(1);
+			fail();
+		} catch (IOException e) {
+			assertEquals("The Base64URL output stream is finished", e.getMessage());
+		}
+	}
+
+
+	public void testDecodeStopsAtDelimiter()
+		throws Exception {
+
+		byte[] part1 = new byte[5000];
+		new Random(2).nextBytes(part1);
+
+		String s = Base64URL.encode(part1) + "." + Base64URL.encode("rest");
+
+		PushbackInputStream in = new PushbackInputStream(
+			new ByteArrayInputStream(s.getBytes(StandardCharset.UTF_8)),
+			Base64URLInputStream.READ_AHEAD_SIZE);
+
+		Base64URLInputStream b64In = new Base64URLInputStream(in);
+		assertTrue(Arrays.equals(part1, readAll(b64In)));
+		assertTrue(b64In.isDelimited());
+		assertEquals(-1, b64In.read());
+
+		Base64URLInputStream rest = new Base64URLInputStream(in);
+		assertEquals("rest", new String(readAll(rest), StandardCharset.UTF_8));
+		assertFalse(rest.isDelimited());
+	}
+
+
+	public void testDecodeEmptyPart()
+		throws Exception {
+
+		assertEquals(0, decode("").length);
+		assertEquals(0, decode(".abc").length);
+	}
+
+
+	public void testDecodeRejectsInvalidCharacters() {
+
+		for (String s: new String[]{"ab+c", "ab/c", "abc=", "ab c", "ab\nc"}) {
+			try {
+				decode(s);
+				fail(s);
+			} catch (IOException e) {
+				assertEquals("Invalid Base64URL character", e.getMessage());
+			}
+		}
+	}
+
+
+	public void testDecodeRejectsTruncated() {
+
+		try {
+			decode("abcde");
+			fail();
+		} catch (IOException e) {
+			assertEquals("Truncated Base64URL", e.getMessage());
+		}
+	}
+}
@@ -23,6 +23,7 @@ import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.net.ServerSocket;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -33,6 +34,9 @@ import static net.jadler.Jadler.*;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.*;
 
+import net.jadler.Request;
+import net.jadler.stubbing.Responder;
+import net.jadler.stubbing.StubResponse;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -427,4 +431,146 @@ public class DefaultResourceRetrieverTest {
 			.havingHeader("MultipleValues", equalTo(multipleValueHeader))
 			.receivedOnce();
 	}
+
+
+	@Test
+	public void testConditionalRequestsDisabledByDefault() {
+
+		assertFalse(new DefaultResourceRetriever().usesConditionalRequests());
+	}
+
+
+	private static void stubConditional(final String eTag, final String lastModified, final String cacheControl, final List<String> receivedConditions) {
+
+		onRequest()
+			.havingMethodEqualTo("GET")
+			.havingPathEqualTo("/c2id/jwks.json")
+			.respondUsing(new Responder() {
+				@Override
+				public StubResponse nextResponse(Request request) {
+
+					String ifNoneMatch = request.getHeaders().getValue("If-None-Match");
+					String ifModifiedSince = request.getHeaders().getValue("If-Modified-Since");
+					receivedConditions.add(ifNoneMatch + " " + ifModifiedSince);
+
+					StubResponse.Builder builder = StubResponse.builder();
+					if (cacheControl != null) {
+						builder.header("Cache-Control", cacheControl);
+					}
+
+					if ((eTag != null && eTag.equals(ifNoneMatch)) || (eTag == null && lastModified != null && lastModified.equals(ifModifiedSince))) {
+						return builder.status(304).build();
+					}
+
+					if (eTag != null) {
+						builder.header("ETag", eTag);
+					}
+					if (lastModified != null) {
+						builder.header("Last-Modified", lastModified);
+					}
+
+					return builder
+						.status(200)
+						.header("Content-Type", "application/json")
+						.body("{\"A\":\"B\"}", StandardCharset.UTF_8)
+						.build();
+				}
+			});
+	}
+
+
+	@Test
+	public void testConditionalRequest_eTag()
+		throws Exception {
+
+		List<String> receivedConditions = new ArrayList<>();
+		stubConditional("\"v1\"", null, "public, max-age=300", receivedConditions);
+
+		DefaultResourceRetriever resourceRetriever = new DefaultResourceRetriever();
+		resourceRetriever.setUsesConditionalRequests(true);
+		assertTrue(resourceRetriever.usesConditionalRequests());
+
+		URL url = new URL("http://localhost:" + port() + "/c2id/jwks.json");
+
+		Resource resource = resourceRetriever.retrieveResource(url);
+		assertEquals("{\"A\":\"B\"}", resource.getContent());
+		assertEquals("application/json", resource.getContentType());
+		assertEquals("\"v1\"", resource.getETag());
+		assertNull(resource.getLastModified());
+		assertEquals(300L, resource.getMaxAge());
+		assertFalse(resource.isNotModified());
+
+		resource = resourceRetriever.retrieveResource(url);
+		assertEquals("{\"A\":\"B\"}", resource.getContent());
+		assertEquals("application/json", resource.getContentType());
+		assertEquals("\"v1\"", resource.getETag());
+		assertEquals(300L, resource.getMaxAge());
+		assertTrue(resource.isNotModified());
+
+		assertEquals(Arrays.asList("null null", "\"v1\" null"), receivedConditions);
+
+		// Disabling discards the validators
+		resourceRetriever.setUsesConditionalRequests(false);
+		assertFalse(resourceRetriever.retrieveResource(url).isNotModified());
+		assertEquals("null null", receivedConditions.get(2));
+	}
+
+
+	@Test
+	public void testConditionalRequest_lastModified()
+		throws Exception {
+
+		List<String> receivedConditions = new ArrayList<>();
+		stubConditional(null, "Wed, 08 Jun 2022 10:00:00 GMT", null, receivedConditions);
+
+		DefaultResourceRetriever resourceRetriever = new DefaultResourceRetriever();
+		resourceRetriever.setUsesConditionalRequests(true);
+
+		URL url = new URL("http://localhost:" + port() + "/c2id/jwks.json");
+
+		Resource resource = resourceRetriever.retrieveResource(url);
+		assertEquals("Wed, 08 Jun 2022 10:00:00 GMT", resource.getLastModified());
+		assertEquals(-1L, resource.getMaxAge());
+		assertFalse(resource.isNotModified());
+
+		resource = resourceRetriever.retrieveResource(url);
+		assertEquals("{\"A\":\"B\"}", resource.getContent());
+		assertTrue(resource.isNotModified());
+
+		assertEquals(Arrays.asList("null null", "null Wed, 08 Jun 2022 10:00:00 GMT"), receivedConditions);
+	}
+
+
+	@Test
+	public void testConditionalRequest_noValidators()
+		throws Exception {
+
+		List<String> receivedConditions = new ArrayList<>();
+		stubConditional(null, null, null, receivedConditions);
+
+		DefaultResourceRetriever resourceRetriever = new DefaultResourceRetriever();
+		resourceRetriever.setUsesConditionalRequests(true);
+
+		URL url = new URL("http://localhost:" + port() + "/c2id/jwks.json");
+
+		assertFalse(resourceRetriever.retrieveResource(url).isNotModified());
+		assertFalse(resourceRetriever.retrieveResource(url).isNotModified());
+
+		assertEquals(Arrays.asList("null null", "null null"), receivedConditions);
+	}
+
+
+	@Test
+	public void testParseMaxAge() {
+
+		assertEquals(-1L, DefaultResourceRetriever.parseMaxAge(null));
+		assertEquals(-1L, DefaultResourceRetriever.parseMaxAge(""));
+		assertEquals(-1L, DefaultResourceRetriever.parseMaxAge("no-cache"));
+		assertEquals(60L, DefaultResourceRetriever.parseMaxAge("max-age=60"));
+		assertEquals(60L, DefaultResourceRetriever.parseMaxAge("public, MAX-AGE=60, must-revalidate"));
+		assertEquals(60L, DefaultResourceRetriever.parseMaxAge("max-age=\"60\""));
+		assertEquals(0L, DefaultResourceRetriever.parseMaxAge("max-age=0"));
+		assertEquals(-1L, DefaultResourceRetriever.parseMaxAge("max-age=-1"));
+		assertEquals(-1L, DefaultResourceRetriever.parseMaxAge("max-age=abc"));
+	}
 }
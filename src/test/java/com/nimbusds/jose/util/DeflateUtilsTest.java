@@ -18,7 +18,16 @@
 package com.nimbusds.jose.util;
 
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 import com.nimbusds.jose.util.DeflateUtils;
 import junit.framework.TestCase;
@@ -27,7 +36,7 @@ import junit.framework.TestCase;
 /**
  * Tests DEFLATE compression.
  *
- * @version 2013-03-26
+ * @version 2022-06-09
  */
 public class DeflateUtilsTest extends TestCase  {
 
@@ -49,4 +58,163 @@ public class DeflateUtilsTest extends TestCase  {
 
 		assertEquals("text comparison", text, textDecompressed);
 	}
+
+
+	private static byte[] sampleText(final int length) {
+
+		StringBuilder sb = new StringBuilder();
+		Random random = new Random(42);
+		while (sb.length() < length) {
+			sb.append("claim-").append(random.nextInt(1000)).append(' ');
+		}
+		return sb.substring(0, length).getBytes(StandardCharsets.UTF_8);
+	}
+
+
+	public void testEmpty()
+		throws Exception {
+
+		byte[] compressed = DeflateUtils.compress(new byte[0]);
+		assertEquals(0, DeflateUtils.decompress(compressed).length);
+	}
+
+
+	public void testRoundTrip_variousLengths()
+		throws Exception {
+
+		// Repeated calls reuse the pooled deflaters and inflaters
+		for (int length: new int[]{1, 100, 1000, 10_000, 100_000, 1_000_000}) {
+			byte[] text = sampleText(length);
+			byte[] compressed = DeflateUtils.compress(text);
+			assertTrue(Arrays.equals(text, DeflateUtils.decompress(compressed)));
+		}
+	}
+
+
+	public void testRoundTrip_incompressible()
+		throws Exception {
+
+		byte[] random = new byte[100_000];
+		new Random(1).nextBytes(random);
+		byte[] compressed = DeflateUtils.compress(random);
+		assertTrue(compressed.length > random.length);
+		assertTrue(Arrays.equals(random, DeflateUtils.decompress(compressed)));
+	}
+
+
+	public void testInteropWithStreams()
+		throws Exception {
+
+		byte[] text = sampleText(50_000);
+
+		// Compress with streams, decompress with utils
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Deflater deflater = new Deflater(Deflater.DEFLATED, true);
+		try (DeflaterOutputStream def = new DeflaterOutputStream(out, deflater)) {
+			def.write(text);
+		}
+		deflater.end();
+		assertTrue(Arrays.equals(out.toByteArray(), DeflateUtils.compress(text)));
+		assertTrue(Arrays.equals(text, DeflateUtils.decompress(out.toByteArray())));
+
+		// Compress with utils, decompress with streams
+		Inflater inflater = new Inflater(true);
+		out = new ByteArrayOutputStream();
+		try (InflaterInputStream inf = new InflaterInputStream(new ByteArrayInputStream(DeflateUtils.compress(text)), inflater)) {
+			byte[] buf = new byte[1024];
+			int len;
+			while ((len = inf.read(buf)) > 0) {
+				out.write(buf, 0, len);
+			}
+		}
+		inflater.end();
+		assertTrue(Arrays.equals(text, out.toByteArray()));
+	}
+
+
+	public void testMaxDecompressedLength()
+		throws Exception {
+
+		byte[] text = sampleText(10_000);
+		byte[] compressed = DeflateUtils.compress(text);
+
+		assertTrue(Arrays.equals(text, DeflateUtils.decompress(compressed, 10_000)));
+
+		try {
+			DeflateUtils.decompress(compressed, 9_999);
+			fail();
+		} catch (IOException e) {
+			assertEquals("The decompressed length exceeds the maximum of 9999 bytes", e.getMessage());
+		}
+
+		// The inflater is reusable after exceeding the limit
+		assertTrue(Arrays.equals(text, DeflateUtils.decompress(compressed)));
+	}
+
+
+	public void testDecompressionBomb()
+		throws Exception {
+
+		byte[] compressed = DeflateUtils.compress(new byte[100 * 1024 * 1024]);
+		assertTrue(compressed.length < 200_000);
+
+		assertEquals(DeflateUtils.DEFAULT_MAX_DECOMPRESSED_LENGTH, DeflateUtils.getMaxDecompressedLength());
+
+		try {
+			DeflateUtils.decompress(compressed);
+			fail();
+		} catch (IOException e) {
+			assertEquals("The decompressed length exceeds the maximum of " + DeflateUtils.DEFAULT_MAX_DECOMPRESSED_LENGTH + " bytes", e.getMessage());
+		}
+	}
+
+
+	public void testSetMaxDecompressedLength()
+		throws Exception {
+
+		byte[] compressed = DeflateUtils.compress(sampleText(1000));
+
+		try {
+			DeflateUtils.setMaxDecompressedLength(100);
+			assertEquals(100, DeflateUtils.getMaxDecompressedLength());
+			DeflateUtils.decompress(compressed);
+			fail();
+		} catch (IOException e) {
+			assertEquals("The decompressed length exceeds the maximum of 100 bytes", e.getMessage());
+		} finally {
+			DeflateUtils.setMaxDecompressedLength(DeflateUtils.DEFAULT_MAX_DECOMPRESSED_LENGTH);
+		}
+
+		try {
+			DeflateUtils.setMaxDecompressedLength(0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The maximum decompressed length must be positive", e.getMessage());
+		}
+	}
+
+
+	public void testTruncatedInput()
+		throws Exception {
+
+		byte[] compressed = DeflateUtils.compress(sampleText(1000));
+
+		try {
+			DeflateUtils.decompress(Arrays.copyOf(compressed, compressed.length / 2));
+			fail();
+		} catch (IOException e) {
+			assertEquals("Unexpected end of DEFLATE input", e.getMessage());
+		}
+	}
+
+
+	public void testInvalidInput() {
+
+		try {
+			DeflateUtils.decompress(new byte[]{(byte) 0xff, (byte) 0xff, (byte) 0xff});
+			fail();
+		} catch (IOException e) {
+			assertNotNull(e.getMessage());
+		}
+	}
 }
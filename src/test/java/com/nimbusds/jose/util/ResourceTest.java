@@ -56,4 +56,26 @@ public class ResourceTest extends TestCase {
 			assertEquals("The resource content must not be null", e.getMessage());
 		}
 	}
+
+
+	public void testDefaultCachingMetadata() {
+
+		Resource resource = new Resource("content", "text/plain");
+		assertNull(resource.getETag());
+		assertNull(resource.getLastModified());
+		assertEquals(-1L, resource.getMaxAge());
+		assertFalse(resource.isNotModified());
+	}
+
+
+	public void testWithCachingMetadata() {
+
+		Resource resource = new Resource("content", "text/plain", "\"v1\"", "Wed, 08 Jun 2022 10:00:00 GMT", 60L, true);
+		assertEquals("content", resource.getContent());
+		assertEquals("text/plain", resource.getContentType());
+		assertEquals("\"v1\"", resource.getETag());
+		assertEquals("Wed, 08 Jun 2022 10:00:00 GMT", resource.getLastModified());
+		assertEquals(60L, resource.getMaxAge());
+		assertTrue(resource.isNotModified());
+	}
 }
@@ -0,0 +1,275 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.nimbusds.jwt;
+
+
+import java.io.*;
+import java.text.ParseException;
+import java.util.*;
+
+import junit.framework.TestCase;
+
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jose.util.JSONObjectUtils;
+
+
+/**
+ * Tests the streaming JWT claims set parser against the JSON object map
+ * parsing.
+ */
+public class JWTClaimsSetParserTest extends TestCase {
+
+
+	private static final String[] HANDLED = {
+		"{}",
+		" {\"iss\":\"https://c2id.com\"} \n",
+		"{\"iss\":\"https://c2id.com\",\"sub\":\"alice\",\"aud\":\"client\",\"exp\":1300819380,\"nbf\":1300819000,\"iat\":1300818000,\"jti\":\"abc\"}",
+		"{\"aud\":[\"a\",\"b\"],\"scope\":\"openid email\",\"email_verified\":true,\"age\":42,\"score\":1.5}",
+		"{\"aud\":[]}",
+		"{\"iss\":null,\"sub\":null,\"aud\":null,\"jti\":null,\"x\":null}",
+		"{\"sub\":\"al\\\"ice\\\\\\/\\u00e9\\n\",\"n\\u0061me\":\"value\"}",
+		"{\"exp\":-1,\"nbf\":0,\"iat\":-0}",
+		"{\"a\":{\"b\":[1,2,{\"c\":[true,false,null]}],\"d\":{}},\"e\":[]}",
+		"{\"big\":12345678901234567890,\"precise\":0.1234567890123456789,\"exp10\":1E+2,\"neg\":-2.5e-3}",
+		"{\"sub\":\"first\",\"x\":1,\"sub\":\"second\",\"x\":2}",
+		"{ \"iss\" : \"a\" ,\n\t\"custom\" : [ 1 , 2 ] \r\n}",
+		"{\"z\":1,\"y\":2,\"x\":3,\"w\":4,\"v\":5,\"u\":6,\"t\":7,\"s\":8,\"r\":9,\"q\":10,\"p\":11,\"o\":12,\"n\":13,\"m\":14,\"l\":15,\"k\":16,\"j\":17,\"i\":18}"
+	};
+
+
+	private static final String[] NOT_HANDLED = {
+		"",
+		"[]",
+		"{\"exp\":1.5}",
+		"{\"exp\":1e9}",
+		"{\"exp\":1234567890123456789012}",
+		"{\"exp\":null}",
+		"{\"iss\":1}",
+		"{\"aud\":1}",
+		"{\"aud\":[\"a\",null]}",
+		"{\"\\u0065xp\":1}",
+		"{\"a\":\"x\ty\"}",
+		"{\"a\":01}",
+		"{\"a\":-}",
+		"{\"a\":1,}",
+		"{\"a\":[1,]}",
+		"{\"a\":1}x",
+		"{\"a\":tru}",
+		"{\"a\":\"\\x\"}",
+		"{a:1}",
+		"{\"a\":1"
+	};
+
+
+	private static JWTClaimsSet parseWithMap(final String s)
+		throws ParseException {
+
+		return JWTClaimsSet.parse(JSONObjectUtils.parse(s));
+	}
+
+
+	private static String deepNesting(final int depth) {
+
+		StringBuilder sb = new StringBuilder("{\"a\":");
+		for (int i=0; i < depth; i++) {
+			sb.append('[');
+		}
+		for (int i=0; i < depth; i++) {
+			sb.append(']');
+		}
+		return sb.append('}').toString();
+	}
+
+
+	public void testHandledInputsMatchMapParsing()
+		throws ParseException {
+
+		for (String s: HANDLED) {
+
+			assertNotNull(s, JWTClaimsSetParser.parse(s));
+
+			JWTClaimsSet expected = parseWithMap(s);
+
+			// Lazy access first
+			JWTClaimsSet claimsSet = JWTClaimsSet.parse(s);
+			for (String name: expected.getClaims().keySet()) {
+				assertEquals(s + " " + name, expected.getClaim(name), claimsSet.getClaim(name));
+			}
+			assertEquals(s, expected.getIssuer(), claimsSet.getIssuer());
+			assertEquals(s, expected.getSubject(), claimsSet.getSubject());
+			assertEquals(s, expected.getAudience(), claimsSet.getAudience());
+			assertEquals(s, expected.getExpirationTime(), claimsSet.getExpirationTime());
+			assertEquals(s, expected.getNotBeforeTime(), claimsSet.getNotBeforeTime());
+			assertEquals(s, expected.getIssueTime(), claimsSet.getIssueTime());
+			assertEquals(s, expected.getJWTID(), claimsSet.getJWTID());
+			assertNull(claimsSet.getClaim("no-such-claim"));
+
+			// Materialised
+			assertEquals(s, expected, claimsSet);
+			assertEquals(s, expected.hashCode(), claimsSet.hashCode());
+			assertEquals(s, new ArrayList<>(expected.getClaims().keySet()), new ArrayList<>(claimsSet.getClaims().keySet()));
+			assertEquals(s, expected.toString(), claimsSet.toString());
+			assertEquals(s, expected.toString(true), claimsSet.toString(true));
+		}
+	}
+
+
+	public void testNotHandledInputsFallBack() {
+
+		for (String s: NOT_HANDLED) {
+
+			assertNull(s, JWTClaimsSetParser.parse(s));
+
+			JWTClaimsSet expected;
+			try {
+				expected = parseWithMap(s);
+			} catch (ParseException e) {
+				try {
+					JWTClaimsSet.parse(s);
+					fail(s);
+				} catch (ParseException e2) {
+					assertEquals(s, e.getMessage(), e2.getMessage());
+				}
+				continue;
+			}
+
+			try {
+				assertEquals(s, expected, JWTClaimsSet.parse(s));
+			} catch (ParseException e) {
+				fail(s + ": " + e.getMessage());
+			}
+		}
+	}
+
+
+	public void testNestingDepthLimit()
+		throws ParseException {
+
+		String s = deepNesting(JWTClaimsSetParser.MAX_NESTING_DEPTH);
+		assertNotNull(JWTClaimsSetParser.parse(s));
+		assertEquals(parseWithMap(s), JWTClaimsSet.parse(s));
+
+		s = deepNesting(JWTClaimsSetParser.MAX_NESTING_DEPTH + 1);
+		assertNull(JWTClaimsSetParser.parse(s));
+		assertEquals(parseWithMap(s), JWTClaimsSet.parse(s));
+	}
+
+
+	public void testCustomClaimMaterialisedOnce()
+		throws ParseException {
+
+		JWTClaimsSet claimsSet = JWTClaimsSet.parse("{\"sub\":\"alice\",\"obj\":{\"a\":1},\"n\":null}");
+
+		Object obj = claimsSet.getClaim("obj");
+		assertSame(obj, claimsSet.getClaim("obj"));
+		assertSame(obj, claimsSet.getClaims().get("obj"));
+		assertEquals(Collections.singletonMap("a", 1L), claimsSet.getJSONObjectClaim("obj"));
+
+		assertNull(claimsSet.getClaim("n"));
+		assertNull(claimsSet.getClaim("n"));
+		assertTrue(claimsSet.getClaims().containsKey("n"));
+	}
+
+
+	public void testTypedRegisteredClaims()
+		throws ParseException {
+
+		ParsedClaims parsed = JWTClaimsSetParser.parse("{\"iss\":\"i\",\"aud\":\"a\",\"exp\":1300819380,\"iat\":1300819000}");
+
+		assertEquals("i", parsed.iss);
+		assertNull(parsed.sub);
+		assertEquals(Collections.singletonList("a"), parsed.aud);
+		assertTrue(parsed.hasExp);
+		assertEquals(1300819380L, parsed.exp);
+		assertFalse(parsed.hasNbf);
+		assertTrue(parsed.hasIat);
+		assertEquals(1300819000L, parsed.iat);
+
+		assertEquals(new Date(1300819380000L), JWTClaimsSet.parse("{\"exp\":1300819380}").getExpirationTime());
+	}
+
+
+	public void testBuilderCopy()
+		throws ParseException {
+
+		JWTClaimsSet claimsSet = JWTClaimsSet.parse("{\"sub\":\"alice\",\"x\":[1,2]}");
+		JWTClaimsSet copy = new JWTClaimsSet.Builder(claimsSet).claim("y", "z").build();
+
+		assertEquals("alice", copy.getSubject());
+		assertEquals(Arrays.asList(1L, 2L), copy.getClaim("x"));
+		assertEquals("z", copy.getClaim("y"));
+	}
+
+
+	public void testJavaSerialization()
+		throws Exception {
+
+		JWTClaimsSet claimsSet = JWTClaimsSet.parse("{\"sub\":\"alice\",\"exp\":1300819380,\"x\":{\"a\":\"b\"}}");
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bos);
+		out.writeObject(claimsSet);
+		out.close();
+
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+		JWTClaimsSet deserialized = (JWTClaimsSet) in.readObject();
+
+		assertEquals(claimsSet, deserialized);
+		assertEquals("alice", deserialized.getSubject());
+		assertEquals(new Date(1300819380000L), deserialized.getExpirationTime());
+	}
+
+
+	public void testParsePayload()
+		throws ParseException {
+
+		String json = "{\"sub\":\"alice\",\"exp\":1300819380}";
+
+		JWTClaimsSet expected = parseWithMap(json);
+
+		assertEquals(expected, JWTClaimsSet.parse(new Payload(json), "message"));
+		assertEquals(expected, JWTClaimsSet.parse(new Payload(Base64URL.encode(json)), "message"));
+		assertEquals(expected, JWTClaimsSet.parse(new Payload(JSONObjectUtils.parse(json)), "message"));
+
+		try {
+			JWTClaimsSet.parse(new Payload("not JSON"), "message");
+			fail();
+		} catch (ParseException e) {
+			assertEquals("message", e.getMessage());
+		}
+
+		try {
+			JWTClaimsSet.parse(new Payload("{\"exp\":\"tomorrow\"}"), "message");
+			fail();
+		} catch (ParseException e) {
+			assertEquals(parseWithMapError("{\"exp\":\"tomorrow\"}"), e.getMessage());
+		}
+	}
+
+
+	private static String parseWithMapError(final String s) {
+
+		try {
+			parseWithMap(s);
+		} catch (ParseException e) {
+			return e.getMessage();
+		}
+		throw new AssertionError("Expected exception");
+	}
+}
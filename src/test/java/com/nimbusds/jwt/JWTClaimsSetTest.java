@@ -1024,4 +1024,63 @@ public class JWTClaimsSetTest extends TestCase {
 		
 		assertEquals(Collections.singletonList("https://server.example.org"), claimsSet.getStringListClaim("aud"));
 	}
+
+	
+	public void testEpochSecondGetters()
+		throws ParseException {
+		
+		JWTClaimsSet claimsSet = new JWTClaimsSet.Builder().build();
+		assertEquals(JWTClaimsSet.UNSPECIFIED_TIME, claimsSet.getExpirationTimeEpochSecond());
+		assertEquals(JWTClaimsSet.UNSPECIFIED_TIME, claimsSet.getNotBeforeTimeEpochSecond());
+		assertEquals(JWTClaimsSet.UNSPECIFIED_TIME, claimsSet.getIssueTimeEpochSecond());
+		
+		claimsSet = new JWTClaimsSet.Builder()
+			.expirationTime(new Date(3_000_999L))
+			.notBeforeTime(new Date(2_000_000L))
+			.claim("iat", 1000L)
+			.build();
+		assertEquals(3000L, claimsSet.getExpirationTimeEpochSecond());
+		assertEquals(2000L, claimsSet.getNotBeforeTimeEpochSecond());
+		assertEquals(1000L, claimsSet.getIssueTimeEpochSecond());
+		
+		// Parsed
+		claimsSet = JWTClaimsSet.parse("{\"exp\":3000,\"nbf\":2000,\"iat\":1000}");
+		assertEquals(3000L, claimsSet.getExpirationTimeEpochSecond());
+		assertEquals(2000L, claimsSet.getNotBeforeTimeEpochSecond());
+		assertEquals(1000L, claimsSet.getIssueTimeEpochSecond());
+		
+		claimsSet = JWTClaimsSet.parse("{\"sub\":\"alice\"}");
+		assertEquals(JWTClaimsSet.UNSPECIFIED_TIME, claimsSet.getExpirationTimeEpochSecond());
+		assertEquals(JWTClaimsSet.UNSPECIFIED_TIME, claimsSet.getNotBeforeTimeEpochSecond());
+		assertEquals(JWTClaimsSet.UNSPECIFIED_TIME, claimsSet.getIssueTimeEpochSecond());
+		
+		// Not a date
+		claimsSet = new JWTClaimsSet.Builder().claim("exp", "tomorrow").build();
+		assertNull(claimsSet.getExpirationTime());
+		assertEquals(JWTClaimsSet.UNSPECIFIED_TIME, claimsSet.getExpirationTimeEpochSecond());
+	}
+
+	
+	public void testContainsClaim()
+		throws ParseException {
+		
+		JWTClaimsSet claimsSet = new JWTClaimsSet.Builder()
+			.subject("alice")
+			.claim("x", null)
+			.build();
+		assertTrue(claimsSet.containsClaim("sub"));
+		assertTrue(claimsSet.containsClaim("x"));
+		assertFalse(claimsSet.containsClaim("iss"));
+		
+		claimsSet = JWTClaimsSet.parse("{\"sub\":\"alice\",\"x\":null,\"y\":[1,2]}");
+		assertTrue(claimsSet.containsClaim("sub"));
+		assertTrue(claimsSet.containsClaim("x"));
+		assertTrue(claimsSet.containsClaim("y"));
+		assertFalse(claimsSet.containsClaim("iss"));
+		
+		// Materialised
+		assertTrue(claimsSet.getClaims().containsKey("x"));
+		assertTrue(claimsSet.containsClaim("x"));
+		assertFalse(claimsSet.containsClaim("iss"));
+	}
 }
@@ -0,0 +1,412 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jwt.proc;
+
+
+import java.security.Key;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import com.nimbusds.jose.*;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetSequenceKey;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.OctetSequenceKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.AsyncJWKSource;
+import com.nimbusds.jose.jwk.source.ExecutorJWKSource;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.BadJWSException;
+import com.nimbusds.jose.proc.DefaultJOSEObjectTypeVerifier;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.PlainJWT;
+import com.nimbusds.jwt.SignedJWT;
+
+
+/**
+ * Tests the asynchronous JWT processor.
+ */
+public class AsyncJWTProcessorTest extends TestCase {
+
+
+	/**
+	 * Callback which records the outcome and the calling thread.
+	 */
+	private static class RecordingCallback implements AsyncJWTProcessor.Callback {
+
+		final CountDownLatch done = new CountDownLatch(1);
+
+		volatile JWTClaimsSet claimsSet;
+
+		volatile Exception exception;
+
+		volatile Thread thread;
+
+		@Override
+		public void onSuccess(final JWTClaimsSet claimsSet) {
+			this.claimsSet = claimsSet;
+			thread = Thread.currentThread();
+			done.countDown();
+		}
+
+		@Override
+		public void onFailure(final Exception e) {
+			exception = e;
+			thread = Thread.currentThread();
+			done.countDown();
+		}
+
+		void await() throws InterruptedException {
+			assertTrue(done.await(10, TimeUnit.SECONDS));
+		}
+	}
+
+
+	private static final ThreadFactory VERIFIER_THREADS = new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			return new Thread(r, "verifier");
+		}
+	};
+
+
+	private ExecutorService verificationExecutor;
+
+
+	private ExecutorService ioExecutor;
+
+
+	@Override
+	public void setUp() {
+		verificationExecutor = Executors.newFixedThreadPool(2, VERIFIER_THREADS);
+		ioExecutor = Executors.newSingleThreadExecutor();
+	}
+
+
+	@Override
+	public void tearDown() {
+		verificationExecutor.shutdown();
+		ioExecutor.shutdown();
+	}
+
+
+	private static String sign(final JWSSigner signer, final JWSAlgorithm alg, final String kid, final JWTClaimsSet claimsSet)
+		throws JOSEException {
+
+		SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(alg).keyID(kid).build(), claimsSet);
+		jwt.sign(signer);
+		return jwt.serialize();
+	}
+
+
+	public void testConstructor() {
+
+		AsyncJWKSource<SecurityContext> jwkSource = new ExecutorJWKSource<>(new ImmutableJWKSet<SecurityContext>(new JWKSet()), ioExecutor);
+		DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+
+		AsyncJWTProcessor<SecurityContext> asyncProcessor = new AsyncJWTProcessor<>(
+			Collections.singleton(JWSAlgorithm.RS256), jwkSource, verificationExecutor, processor);
+
+		assertEquals(Collections.singleton(JWSAlgorithm.RS256), asyncProcessor.getExpectedJWSAlgorithms());
+		assertSame(jwkSource, asyncProcessor.getJWKSource());
+		assertSame(verificationExecutor, asyncProcessor.getVerificationExecutor());
+		assertSame(processor, asyncProcessor.getProcessor());
+
+		try {
+			new AsyncJWTProcessor<>(Collections.<JWSAlgorithm>emptySet(), jwkSource, verificationExecutor, processor);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The JWS algorithms must not be null or empty", e.getMessage());
+		}
+	}
+
+
+	public void testProcessSigned()
+		throws Exception {
+
+		RSAKey rsaJWK = new RSAKeyGenerator(2048).keyID("1").generate();
+		OctetSequenceKey hmacJWK = new OctetSequenceKeyGenerator(256).keyID("2").generate();
+
+		AsyncJWTProcessor<SecurityContext> processor = new AsyncJWTProcessor<>(
+			new HashSet<>(Arrays.asList(JWSAlgorithm.RS256, JWSAlgorithm.HS256)),
+			new ExecutorJWKSource<>(new ImmutableJWKSet<SecurityContext>(new JWKSet(Arrays.asList(rsaJWK, (JWK)hmacJWK))), ioExecutor),
+			verificationExecutor,
+			new DefaultJWTProcessor<SecurityContext>());
+
+		JWTClaimsSet claimsSet = new JWTClaimsSet.Builder()
+			.subject("alice")
+			.expirationTime(new Date(new Date().getTime() + 60_000L))
+			.build();
+
+		RecordingCallback callback = new RecordingCallback();
+		processor.process(sign(new RSASSASigner(rsaJWK), JWSAlgorithm.RS256, "1", claimsSet), null, callback);
+		callback.await();
+		assertNull(callback.exception);
+		assertEquals("alice", callback.claimsSet.getSubject());
+		assertEquals("verifier", callback.thread.getName());
+
+		callback = new RecordingCallback();
+		processor.process(sign(new MACSigner(hmacJWK), JWSAlgorithm.HS256, "2", claimsSet), null, callback);
+		callback.await();
+		assertEquals("alice", callback.claimsSet.getSubject());
+
+		// Forged
+		callback = new RecordingCallback();
+		processor.process(sign(new RSASSASigner(new RSAKeyGenerator(2048).generate()), JWSAlgorithm.RS256, "1", claimsSet), null, callback);
+		callback.await();
+		assertNull(callback.claimsSet);
+		assertTrue(callback.exception instanceof BadJWSException);
+		assertEquals("Signed JWT rejected: Invalid signature", callback.exception.getMessage());
+
+		// Unknown key
+		callback = new RecordingCallback();
+		processor.process(sign(new MACSigner(hmacJWK), JWSAlgorithm.HS256, "3", claimsSet), null, callback);
+		callback.await();
+		assertEquals("Signed JWT rejected: Another algorithm expected, or no matching key(s) found", callback.exception.getMessage());
+
+		// Expired
+		callback = new RecordingCallback();
+		processor.process(sign(new MACSigner(hmacJWK), JWSAlgorithm.HS256, "2", new JWTClaimsSet.Builder().expirationTime(new Date(0L)).build()), null, callback);
+		callback.await();
+		assertTrue(callback.exception instanceof BadJWTException);
+		assertEquals("Expired JWT", callback.exception.getMessage());
+	}
+
+
+	public void testRejectInCallingThread()
+		throws Exception {
+
+		OctetSequenceKey hmacJWK = new OctetSequenceKeyGenerator(256).keyID("1").generate();
+
+		AsyncJWTProcessor<SecurityContext> processor = new AsyncJWTProcessor<>(
+			Collections.singleton(JWSAlgorithm.RS256),
+			new ExecutorJWKSource<>(new ImmutableJWKSet<SecurityContext>(new JWKSet(hmacJWK)), ioExecutor),
+			verificationExecutor,
+			new DefaultJWTProcessor<SecurityContext>());
+
+		// Unexpected alg
+		RecordingCallback callback = new RecordingCallback();
+		processor.process(sign(new MACSigner(hmacJWK), JWSAlgorithm.HS256, "1", new JWTClaimsSet.Builder().build()), null, callback);
+		callback.await();
+		assertSame(Thread.currentThread(), callback.thread);
+		assertTrue(callback.exception instanceof BadJOSEException);
+		assertEquals("Signed JWT rejected: Another algorithm expected, or no matching key(s) found", callback.exception.getMessage());
+
+		// Invalid JWT
+		callback = new RecordingCallback();
+		processor.process("invalid", null, callback);
+		callback.await();
+		assertSame(Thread.currentThread(), callback.thread);
+		assertTrue(callback.exception instanceof ParseException);
+	}
+
+
+	public void testRejectTypeBeforeKeySource()
+		throws Exception {
+
+		OctetSequenceKey hmacJWK = new OctetSequenceKeyGenerator(256).keyID("1").generate();
+
+		final AtomicInteger keySourceCalls = new AtomicInteger();
+
+		DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+		jwtProcessor.setJWSTypeVerifier(new DefaultJOSEObjectTypeVerifier<>(new JOSEObjectType("at+jwt")));
+
+		AsyncJWTProcessor<SecurityContext> processor = new AsyncJWTProcessor<>(
+			Collections.singleton(JWSAlgorithm.HS256),
+			new AsyncJWKSource<SecurityContext>() {
+				@Override
+				public void get(JWKSelector jwkSelector, SecurityContext context, Callback callback) {
+					keySourceCalls.incrementAndGet();
+					callback.onFailure(new KeySourceException("Unexpected JWK set retrieval"));
+				}
+			},
+			verificationExecutor,
+			jwtProcessor);
+
+		// Missing typ, unknown kid
+		RecordingCallback callback = new RecordingCallback();
+		processor.process(sign(new MACSigner(hmacJWK), JWSAlgorithm.HS256, "unknown", new JWTClaimsSet.Builder().build()), null, callback);
+		callback.await();
+		assertSame(Thread.currentThread(), callback.thread);
+		assertTrue(callback.exception instanceof BadJOSEException);
+		assertEquals("Required JOSE header typ (type) parameter is missing", callback.exception.getMessage());
+
+		// No type verifier
+		jwtProcessor.setJWSTypeVerifier(null);
+		callback = new RecordingCallback();
+		processor.process(sign(new MACSigner(hmacJWK), JWSAlgorithm.HS256, "unknown", new JWTClaimsSet.Builder().build()), null, callback);
+		callback.await();
+		assertSame(Thread.currentThread(), callback.thread);
+		assertEquals("Signed JWT rejected: No JWS header typ (type) verifier is configured", callback.exception.getMessage());
+
+		assertEquals(0, keySourceCalls.get());
+	}
+
+
+	public void testKeySourceAnswersInCallingThread()
+		throws Exception {
+
+		final RSAKey rsaJWK = new RSAKeyGenerator(2048).keyID("1").generate();
+		final RSAKey rsaPublicJWK = rsaJWK.toPublicJWK();
+
+		// Answers in the calling thread, as when the JWK set is in memory
+		final AtomicInteger keySourceCalls = new AtomicInteger();
+		AsyncJWTProcessor<SecurityContext> processor = new AsyncJWTProcessor<>(
+			Collections.singleton(JWSAlgorithm.RS256),
+			new AsyncJWKSource<SecurityContext>() {
+				@Override
+				public void get(JWKSelector jwkSelector, SecurityContext context, Callback callback) {
+					keySourceCalls.incrementAndGet();
+					callback.onSuccess(jwkSelector.select(new JWKSet(rsaPublicJWK)));
+				}
+			},
+			verificationExecutor,
+			new DefaultJWTProcessor<SecurityContext>());
+
+		for (int i=0; i < 3; i++) {
+			RecordingCallback callback = new RecordingCallback();
+			processor.process(sign(new RSASSASigner(rsaJWK), JWSAlgorithm.RS256, "1", new JWTClaimsSet.Builder().subject("alice").build()), null, callback);
+			callback.await();
+			assertNull(callback.exception);
+			assertEquals("alice", callback.claimsSet.getSubject());
+			assertEquals("verifier", callback.thread.getName());
+		}
+
+		assertEquals(3, keySourceCalls.get());
+	}
+
+
+	public void testKeySourceFailure()
+		throws Exception {
+
+		OctetSequenceKey hmacJWK = new OctetSequenceKeyGenerator(256).keyID("1").generate();
+
+		AsyncJWTProcessor<SecurityContext> processor = new AsyncJWTProcessor<>(
+			Collections.singleton(JWSAlgorithm.HS256),
+			new AsyncJWKSource<SecurityContext>() {
+				@Override
+				public void get(JWKSelector jwkSelector, SecurityContext context, Callback callback) {
+					callback.onFailure(new KeySourceException("JWK set unavailable"));
+				}
+			},
+			verificationExecutor,
+			new DefaultJWTProcessor<SecurityContext>());
+
+		RecordingCallback callback = new RecordingCallback();
+		processor.process(sign(new MACSigner(hmacJWK), JWSAlgorithm.HS256, "1", new JWTClaimsSet.Builder().build()), null, callback);
+		callback.await();
+		assertTrue(callback.exception instanceof KeySourceException);
+		assertEquals("JWK set unavailable", callback.exception.getMessage());
+	}
+
+
+	public void testVerificationExecutorRejects()
+		throws Exception {
+
+		OctetSequenceKey hmacJWK = new OctetSequenceKeyGenerator(256).keyID("1").generate();
+
+		verificationExecutor.shutdown();
+
+		AsyncJWTProcessor<SecurityContext> processor = new AsyncJWTProcessor<>(
+			Collections.singleton(JWSAlgorithm.HS256),
+			new ExecutorJWKSource<>(new ImmutableJWKSet<SecurityContext>(new JWKSet(hmacJWK)), ioExecutor),
+			verificationExecutor,
+			new DefaultJWTProcessor<SecurityContext>());
+
+		RecordingCallback callback = new RecordingCallback();
+		processor.process(sign(new MACSigner(hmacJWK), JWSAlgorithm.HS256, "1", new JWTClaimsSet.Builder().build()), null, callback);
+		callback.await();
+		assertTrue(callback.exception instanceof JOSEException);
+		assertEquals("JWT verification rejected by the executor", callback.exception.getMessage());
+	}
+
+
+	public void testCallingThread_onSuccessThrows_noOnFailure()
+		throws Exception {
+
+		OctetSequenceKey hmacJWK = new OctetSequenceKeyGenerator(256).keyID("1").generate();
+
+		final JWTClaimsSet claimsSet = new JWTClaimsSet.Builder().subject("alice").build();
+
+		// Accepts all JWTs processed in the calling thread
+		DefaultJWTProcessor<SecurityContext> acceptingProcessor = new DefaultJWTProcessor<SecurityContext>() {
+			@Override
+			public JWTClaimsSet process(final PlainJWT plainJWT, final SecurityContext context) {
+				return claimsSet;
+			}
+			@Override
+			JWTClaimsSet process(final SignedJWT signedJWT, final List<? extends Key> keyCandidates, final SecurityContext context) {
+				return claimsSet;
+			}
+		};
+
+		AsyncJWTProcessor<SecurityContext> processor = new AsyncJWTProcessor<>(
+			Collections.singleton(JWSAlgorithm.RS256),
+			new ExecutorJWKSource<>(new ImmutableJWKSet<SecurityContext>(new JWKSet(hmacJWK)), ioExecutor),
+			verificationExecutor,
+			acceptingProcessor);
+
+		final AtomicInteger onSuccessCount = new AtomicInteger();
+		final AtomicInteger onFailureCount = new AtomicInteger();
+
+		AsyncJWTProcessor.Callback throwingCallback = new AsyncJWTProcessor.Callback() {
+			@Override
+			public void onSuccess(final JWTClaimsSet claimsSet) {
+				onSuccessCount.incrementAndGet();
+				throw new IllegalStateException("Callback error");
+			}
+			@Override
+			public void onFailure(final Exception e) {
+				onFailureCount.incrementAndGet();
+			}
+		};
+
+		// Plain JWT
+		try {
+			processor.process(new PlainJWT(claimsSet), null, throwingCallback);
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals("Callback error", e.getMessage());
+		}
+		assertEquals(1, onSuccessCount.get());
+		assertEquals(0, onFailureCount.get());
+
+		// Unexpected JWS alg
+		try {
+			processor.process(SignedJWT.parse(sign(new MACSigner(hmacJWK), JWSAlgorithm.HS256, "1", claimsSet)), null, throwingCallback);
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals("Callback error", e.getMessage());
+		}
+		assertEquals(2, onSuccessCount.get());
+		assertEquals(0, onFailureCount.get());
+	}
+}
@@ -0,0 +1,309 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jwt.proc;
+
+
+import java.net.URL;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.RemoteJWKSet;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.BadJWSException;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+
+/**
+ * Tests the caching JWT processor.
+ */
+public class CachingJWTProcessorTest extends TestCase {
+
+
+	private static final RSAKey RSA_JWK;
+
+
+	static {
+		try {
+			RSA_JWK = new RSAKeyGenerator(2048).keyID("1").generate();
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+
+	private static String createJWT(final RSAKey rsaJWK, final JWTClaimsSet claimsSet)
+		throws Exception {
+
+		SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(rsaJWK.getKeyID()).build(), claimsSet);
+		jwt.sign(new RSASSASigner(rsaJWK));
+		return jwt.serialize();
+	}
+
+
+	private static JWTClaimsSet claimsSetExpiringIn(final long seconds) {
+
+		return new JWTClaimsSet.Builder()
+			.subject("alice")
+			.expirationTime(new Date(System.currentTimeMillis() + seconds * 1000L))
+			.build();
+	}
+
+
+	private static DefaultJWTProcessor<SecurityContext> createProcessor(final JWKSource<SecurityContext> jwkSource) {
+
+		DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+		processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource));
+		return processor;
+	}
+
+
+	public void testDefaultConstructor() {
+
+		DefaultJWTProcessor<SecurityContext> processor = createProcessor(new ImmutableJWKSet<>(new JWKSet(RSA_JWK.toPublicJWK())));
+		CachingJWTProcessor<SecurityContext> cachingProcessor = new CachingJWTProcessor<>(processor);
+
+		assertTrue(cachingProcessor instanceof JWTProcessor);
+		assertSame(processor, cachingProcessor.getProcessor());
+		assertEquals(CachingJWTProcessor.DEFAULT_MAX_SIZE, cachingProcessor.getMaxSize());
+		assertEquals(CachingJWTProcessor.DEFAULT_MAX_TIME_TO_LIVE_SECONDS, cachingProcessor.getMaxTimeToLive(TimeUnit.SECONDS));
+		assertEquals(0, cachingProcessor.size());
+		assertEquals(0L, cachingProcessor.getHitCount());
+		assertEquals(0L, cachingProcessor.getMissCount());
+	}
+
+
+	public void testRejectIllegalArgs() {
+
+		DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+
+		try {
+			new CachingJWTProcessor<>(processor, 0, 1, TimeUnit.SECONDS);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The maximum cache size must be positive", e.getMessage());
+		}
+
+		try {
+			new CachingJWTProcessor<>(processor, 10, 0, TimeUnit.SECONDS);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The maximum time-to-live must be positive", e.getMessage());
+		}
+	}
+
+
+	public void testCacheHitAndMiss()
+		throws Exception {
+
+		CachingJWTProcessor<SecurityContext> processor = new CachingJWTProcessor<>(
+			createProcessor(new ImmutableJWKSet<>(new JWKSet(RSA_JWK.toPublicJWK()))));
+
+		String jwt = createJWT(RSA_JWK, claimsSetExpiringIn(60));
+
+		JWTClaimsSet claimsSet = processor.process(jwt, null);
+		assertEquals("alice", claimsSet.getSubject());
+		assertEquals(0L, processor.getHitCount());
+		assertEquals(1L, processor.getMissCount());
+		assertEquals(1, processor.size());
+
+		assertSame(claimsSet, processor.process(jwt, null));
+		assertEquals(1L, processor.getHitCount());
+		assertEquals(1L, processor.getMissCount());
+
+		processor.clear();
+		assertEquals(0, processor.size());
+
+		assertNotSame(claimsSet, processor.process(jwt, null));
+		assertEquals(1L, processor.getHitCount());
+		assertEquals(2L, processor.getMissCount());
+	}
+
+
+	public void testBadSignatureNotCached()
+		throws Exception {
+
+		RSAKey otherJWK = new RSAKeyGenerator(2048).keyID("1").generate();
+
+		CachingJWTProcessor<SecurityContext> processor = new CachingJWTProcessor<>(
+			createProcessor(new ImmutableJWKSet<>(new JWKSet(RSA_JWK.toPublicJWK()))));
+
+		String jwt = createJWT(otherJWK, claimsSetExpiringIn(60));
+
+		for (int i=0; i < 2; i++) {
+			try {
+				processor.process(jwt, null);
+				fail();
+			} catch (BadJWSException e) {
+				assertEquals("Signed JWT rejected: Invalid signature", e.getMessage());
+			}
+		}
+
+		assertEquals(0, processor.size());
+		assertEquals(2L, processor.getMissCount());
+	}
+
+
+	public void testClaimsCheckedOnHit()
+		throws Exception {
+
+		DefaultJWTProcessor<SecurityContext> defaultProcessor = createProcessor(new ImmutableJWKSet<>(new JWKSet(RSA_JWK.toPublicJWK())));
+		CachingJWTProcessor<SecurityContext> processor = new CachingJWTProcessor<>(defaultProcessor);
+
+		String jwt = createJWT(RSA_JWK, claimsSetExpiringIn(60));
+		processor.process(jwt, null);
+
+		defaultProcessor.setJWTClaimsSetVerifier(new DefaultJWTClaimsVerifier<SecurityContext>(null, null, null) {
+			@Override
+			public void verify(final JWTClaimsSet claimsSet, final SecurityContext context)
+				throws BadJWTException {
+				throw new BadJWTException("Rejected");
+			}
+		});
+
+		try {
+			processor.process(jwt, null);
+			fail();
+		} catch (BadJWTException e) {
+			assertEquals("Rejected", e.getMessage());
+		}
+
+		assertEquals(1L, processor.getHitCount());
+		assertEquals(0, processor.size());
+	}
+
+
+	public void testTimeToLiveCappedByExpiration()
+		throws Exception {
+
+		CachingJWTProcessor<SecurityContext> processor = new CachingJWTProcessor<>(
+			createProcessor(new ImmutableJWKSet<>(new JWKSet(RSA_JWK.toPublicJWK()))),
+			10, 1, TimeUnit.HOURS);
+
+		// Expires in 1 second, the default max clock skew is 60 seconds
+		String jwt = createJWT(RSA_JWK, claimsSetExpiringIn(1));
+		JWTClaimsSet claimsSet = processor.process(jwt, null);
+		assertSame(claimsSet, processor.process(jwt, null));
+
+		Thread.sleep(1100L);
+
+		assertNotSame(claimsSet, processor.process(jwt, null));
+		assertEquals(1L, processor.getHitCount());
+		assertEquals(2L, processor.getMissCount());
+	}
+
+
+	public void testMaxTimeToLive()
+		throws Exception {
+
+		CachingJWTProcessor<SecurityContext> processor = new CachingJWTProcessor<>(
+			createProcessor(new ImmutableJWKSet<>(new JWKSet(RSA_JWK.toPublicJWK()))),
+			10, 100, TimeUnit.MILLISECONDS);
+
+		String jwt = createJWT(RSA_JWK, claimsSetExpiringIn(60));
+		JWTClaimsSet claimsSet = processor.process(jwt, null);
+
+		Thread.sleep(200L);
+
+		assertNotSame(claimsSet, processor.process(jwt, null));
+		assertEquals(0L, processor.getHitCount());
+		assertEquals(2L, processor.getMissCount());
+	}
+
+
+	public void testEvictLeastRecentlyUsed()
+		throws Exception {
+
+		CachingJWTProcessor<SecurityContext> processor = new CachingJWTProcessor<>(
+			createProcessor(new ImmutableJWKSet<>(new JWKSet(RSA_JWK.toPublicJWK()))),
+			2, 1, TimeUnit.HOURS);
+
+		String jwt1 = createJWT(RSA_JWK, claimsSetExpiringIn(60));
+		String jwt2 = createJWT(RSA_JWK, claimsSetExpiringIn(61));
+		String jwt3 = createJWT(RSA_JWK, claimsSetExpiringIn(62));
+
+		processor.process(jwt1, null);
+		processor.process(jwt2, null);
+		processor.process(jwt1, null); // jwt1 now most recent
+		processor.process(jwt3, null); // evicts jwt2
+		assertEquals(2, processor.size());
+
+		processor.process(jwt1, null);
+		assertEquals(2L, processor.getHitCount());
+		assertEquals(3L, processor.getMissCount());
+
+		processor.process(jwt2, null);
+		assertEquals(4L, processor.getMissCount());
+	}
+
+
+	public void testRemoteJWKSetChangeInvalidates()
+		throws Exception {
+
+		final AtomicReference<JWKSet> published = new AtomicReference<>(new JWKSet(RSA_JWK.toPublicJWK()));
+
+		ResourceRetriever retriever = new ResourceRetriever() {
+			@Override
+			public Resource retrieveResource(final URL url) {
+				return new Resource(published.get().toString(), "application/json");
+			}
+		};
+
+		RemoteJWKSet<SecurityContext> jwkSource = new RemoteJWKSet<>(new URL("https://c2id.com/jwks.json"), retriever);
+
+		CachingJWTProcessor<SecurityContext> processor = new CachingJWTProcessor<>(createProcessor(jwkSource));
+
+		String jwt = createJWT(RSA_JWK, claimsSetExpiringIn(60));
+		JWTClaimsSet claimsSet = processor.process(jwt, null);
+		assertSame(claimsSet, processor.process(jwt, null));
+
+		// Same keys, new JWK set instance
+		jwkSource.getJWKSetCache().put(JWKSet.parse(published.get().toString()));
+		assertSame(claimsSet, processor.process(jwt, null));
+		assertEquals(2L, processor.getHitCount());
+
+		// Rotated keys
+		RSAKey newJWK = new RSAKeyGenerator(2048).keyID("2").generate();
+		published.set(new JWKSet(newJWK.toPublicJWK()));
+		jwkSource.getJWKSetCache().put(published.get());
+
+		try {
+			processor.process(jwt, null);
+			fail();
+		} catch (BadJOSEException e) {
+			// The old key is gone
+			assertEquals("Signed JWT rejected: Another algorithm expected, or no matching key(s) found", e.getMessage());
+		}
+		assertEquals(2L, processor.getHitCount());
+		assertEquals(0, processor.size());
+	}
+}
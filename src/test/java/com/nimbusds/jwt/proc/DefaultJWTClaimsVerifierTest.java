@@ -23,8 +23,11 @@ import java.util.*;
 import junit.framework.TestCase;
 
 import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.SecurityContext;
 import com.nimbusds.jwt.JWTClaimNames;
 import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.util.CoarseEpochClock;
+import com.nimbusds.jwt.util.EpochClock;
 
 
 public class DefaultJWTClaimsVerifierTest extends TestCase {
@@ -517,8 +520,8 @@ public class DefaultJWTClaimsVerifierTest extends TestCase {
 		
 		JWTClaimsSetVerifier overriddenVerifier = new DefaultJWTClaimsVerifier(new JWTClaimsSet.Builder().build(), Collections.singleton("exp")) {
 			@Override
-			protected Date currentTime() {
-				return t;
+			protected long currentTimeMillis() {
+				return t.getTime();
 			}
 		};
 		
@@ -556,8 +559,8 @@ public class DefaultJWTClaimsVerifierTest extends TestCase {
 		// Return null to disable exp check
 		JWTClaimsSetVerifier overriddenVerifier = new DefaultJWTClaimsVerifier() {
 			@Override
-			protected Date currentTime() {
-				return null;
+			protected long currentTimeMillis() {
+				return JWTClaimsSet.UNSPECIFIED_TIME;
 			}
 		};
 		overriddenVerifier.verify(claimsSet, null);
@@ -586,8 +589,8 @@ public class DefaultJWTClaimsVerifierTest extends TestCase {
 			Collections.singleton("nbf")
 		) {
 			@Override
-			protected Date currentTime() {
-				return null;
+			protected long currentTimeMillis() {
+				return JWTClaimsSet.UNSPECIFIED_TIME;
 			}
 		};
 		overriddenVerifier.verify(claimsSet, null);
@@ -600,4 +603,210 @@ public class DefaultJWTClaimsVerifierTest extends TestCase {
 			assertEquals("JWT before use time", e.getMessage());
 		}
 	}
+	
+	
+	public void testClock()
+		throws BadJWTException {
+		
+		DefaultJWTClaimsVerifier<?> verifier = new DefaultJWTClaimsVerifier<>(null, null);
+		assertSame(EpochClock.SYSTEM, verifier.getClock());
+		
+		final long t = 1_000_000_000L;
+		verifier.setClock(new EpochClock() {
+			@Override
+			public long currentTimeMillis() {
+				return t;
+			}
+		});
+		assertEquals(new Date(t), verifier.currentTime());
+		
+		// Pass
+		verifier.verify(new JWTClaimsSet.Builder()
+			.expirationTime(new Date(t + 1000L))
+			.notBeforeTime(new Date(t))
+			.build(), null);
+		
+		// Pass, within clock skew
+		verifier.verify(new JWTClaimsSet.Builder()
+			.expirationTime(new Date(t - 59_000L))
+			.notBeforeTime(new Date(t + 59_000L))
+			.build(), null);
+		
+		try {
+			verifier.verify(new JWTClaimsSet.Builder()
+				.expirationTime(new Date(t - 60_000L))
+				.build(), null);
+			fail();
+		} catch (BadJWTException e) {
+			assertEquals("Expired JWT", e.getMessage());
+		}
+		
+		try {
+			verifier.verify(new JWTClaimsSet.Builder()
+				.notBeforeTime(new Date(t + 60_000L))
+				.build(), null);
+			fail();
+		} catch (BadJWTException e) {
+			assertEquals("JWT before use time", e.getMessage());
+		}
+		
+		try {
+			verifier.setClock(null);
+			fail();
+		} catch (NullPointerException e) {
+			// ok
+		}
+	}
+	
+	
+	public void testCoarseClock()
+		throws BadJWTException {
+		
+		DefaultJWTClaimsVerifier<?> verifier = new DefaultJWTClaimsVerifier<>(null, null);
+		verifier.setClock(CoarseEpochClock.getInstance());
+		
+		final Date now = new Date();
+		verifier.verify(new JWTClaimsSet.Builder()
+			.expirationTime(new Date(now.getTime() + 60_000L))
+			.notBeforeTime(now)
+			.build(), null);
+		
+		try {
+			verifier.verify(new JWTClaimsSet.Builder()
+				.expirationTime(new Date(now.getTime() - 120_000L))
+				.build(), null);
+			fail();
+		} catch (BadJWTException e) {
+			assertEquals("Expired JWT", e.getMessage());
+		}
+	}
+	
+	
+	public void testCurrentTimeOverrideTakesPrecedenceOverClock()
+		throws BadJWTException {
+		
+		DefaultJWTClaimsVerifier<?> verifier = new DefaultJWTClaimsVerifier<SecurityContext>(null, null) {
+			@Override
+			protected long currentTimeMillis() {
+				return JWTClaimsSet.UNSPECIFIED_TIME;
+			}
+		};
+		verifier.setClock(CoarseEpochClock.getInstance());
+		
+		// Time window check disabled
+		verifier.verify(new JWTClaimsSet.Builder()
+			.expirationTime(new Date(0L))
+			.build(), null);
+	}
+	
+	
+	public void testDeprecatedCurrentTimeOverrideIgnored()
+		throws BadJWTException {
+		
+		final long t = 1_000_000_000L;
+		DefaultJWTClaimsVerifier<?> verifier = new DefaultJWTClaimsVerifier<SecurityContext>(null, null) {
+			@Override
+			protected long currentTimeMillis() {
+				return t;
+			}
+			@Override
+			protected Date currentTime() {
+				return null;
+			}
+		};
+		
+		try {
+			verifier.verify(new JWTClaimsSet.Builder()
+				.expirationTime(new Date(t - 120_000L))
+				.build(), null);
+			fail();
+		} catch (BadJWTException e) {
+			assertEquals("Expired JWT", e.getMessage());
+		}
+	}
+	
+	
+	public void testCurrentTimeDelegatesToCurrentTimeMillis() {
+		
+		DefaultJWTClaimsVerifier<?> verifier = new DefaultJWTClaimsVerifier<SecurityContext>(null, null) {
+			@Override
+			protected long currentTimeMillis() {
+				return 1_000_000_000L;
+			}
+		};
+		assertEquals(new Date(1_000_000_000L), verifier.currentTime());
+		
+		verifier = new DefaultJWTClaimsVerifier<SecurityContext>(null, null) {
+			@Override
+			protected long currentTimeMillis() {
+				return JWTClaimsSet.UNSPECIFIED_TIME;
+			}
+		};
+		assertNull(verifier.currentTime());
+	}
+	
+	
+	public void testParsedClaimsSet()
+		throws Exception {
+		
+		DefaultJWTClaimsVerifier<?> verifier = new DefaultJWTClaimsVerifier<>(
+			new HashSet<>(Arrays.asList("123", "456")),
+			new JWTClaimsSet.Builder().issuer("https://c2id.com").build(),
+			new HashSet<>(Arrays.asList("sub", "exp")),
+			new HashSet<>(Arrays.asList("act", "may_act")));
+		
+		long exp = new Date().getTime() / 1000L + 60L;
+		
+		verifier.verify(JWTClaimsSet.parse("{\"iss\":\"https://c2id.com\",\"sub\":\"alice\",\"aud\":\"456\",\"exp\":" + exp + "}"), null);
+		verifier.verify(JWTClaimsSet.parse("{\"iss\":\"https://c2id.com\",\"sub\":\"alice\",\"aud\":[\"789\",\"123\"],\"exp\":" + exp + "}"), null);
+		
+		try {
+			verifier.verify(JWTClaimsSet.parse("{\"iss\":\"https://c2id.com\",\"sub\":\"alice\",\"aud\":[\"789\",\"000\"],\"exp\":" + exp + "}"), null);
+			fail();
+		} catch (BadJWTException e) {
+			assertEquals("JWT audience rejected: [789, 000]", e.getMessage());
+		}
+		
+		try {
+			verifier.verify(JWTClaimsSet.parse("{\"iss\":\"https://c2id.com\",\"aud\":\"123\"}"), null);
+			fail();
+		} catch (BadJWTException e) {
+			assertEquals("JWT missing required claims: [exp, sub]", e.getMessage());
+		}
+		
+		try {
+			verifier.verify(JWTClaimsSet.parse("{\"iss\":\"https://c2id.com\",\"sub\":\"alice\",\"aud\":\"123\",\"exp\":" + exp + ",\"may_act\":{},\"act\":null}"), null);
+			fail();
+		} catch (BadJWTException e) {
+			assertEquals("JWT has prohibited claims: [act, may_act]", e.getMessage());
+		}
+		
+		try {
+			verifier.verify(JWTClaimsSet.parse("{\"iss\":\"https://example.com\",\"sub\":\"alice\",\"aud\":\"123\",\"exp\":" + exp + "}"), null);
+			fail();
+		} catch (BadJWTException e) {
+			assertEquals("JWT iss claim has value https://example.com, must be https://c2id.com", e.getMessage());
+		}
+	}
+	
+	
+	public void testAudienceNotStringList()
+		throws Exception {
+		
+		DefaultJWTClaimsVerifier<?> verifier = new DefaultJWTClaimsVerifier<>("123", null, null);
+		
+		for (Object aud: Arrays.asList(Collections.emptyList(), Arrays.asList("123", 1), 123)) {
+			try {
+				verifier.verify(new JWTClaimsSet.Builder().claim("aud", aud).build(), null);
+				fail();
+			} catch (BadJWTException e) {
+				assertEquals("JWT missing required audience", e.getMessage());
+			}
+		}
+		
+		// Allow no audience
+		verifier = new DefaultJWTClaimsVerifier<>(new HashSet<>(Arrays.asList("123", null)), null, null, null);
+		verifier.verify(new JWTClaimsSet.Builder().claim("aud", Arrays.asList("123", 1)).build(), null);
+		verifier.verify(JWTClaimsSet.parse("{}"), null);
+	}
 }
@@ -24,6 +24,10 @@ import java.security.interfaces.RSAPublicKey;
 import java.security.spec.KeySpec;
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
@@ -40,6 +44,7 @@ import com.nimbusds.jose.crypto.RSAEncrypter;
 import com.nimbusds.jose.crypto.bc.BouncyCastleProviderSingleton;
 import com.nimbusds.jose.crypto.factories.DefaultJWEDecrypterFactory;
 import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.JWKSet;
 import com.nimbusds.jose.jwk.OctetSequenceKey;
 import com.nimbusds.jose.jwk.RSAKey;
@@ -56,7 +61,7 @@ import com.nimbusds.jwt.*;
 /**
  * Tests the default JWT processor.
  *
- * @version 2021-06-05
+ * @version 2022-06-09
  */
 public class DefaultJWTProcessorTest extends TestCase {
 
@@ -1374,4 +1379,227 @@ public class DefaultJWTProcessorTest extends TestCase {
 			assertEquals("Plain JWT rejected: No JWS header typ (type) verifier is configured", e.getMessage());
 		}
 	}
+	
+	
+	public void testVerifySignatureBeforeClaimsParse()
+		throws Exception {
+		
+		byte[] keyBytes = new byte[32];
+		new SecureRandom().nextBytes(keyBytes);
+		final SecretKey key = new SecretKeySpec(keyBytes, "HMAC");
+		
+		// Payload not a JSON object, forged signature
+		JWSObject jwsObject = new JWSObject(new JWSHeader(JWSAlgorithm.HS256), new Payload("not a JSON object"));
+		jwsObject.sign(new MACSigner(new OctetSequenceKeyGenerator(256).generate()));
+		String forged = jwsObject.serialize();
+		
+		final List<JWTClaimsSet> verifiedClaims = new LinkedList<>();
+		
+		ConfigurableJWTProcessor<SimpleSecurityContext> processor = new DefaultJWTProcessor<>();
+		processor.setJWSKeySelector(new JWSKeySelector<SimpleSecurityContext>() {
+			@Override
+			public List<? extends Key> selectJWSKeys(JWSHeader header, SimpleSecurityContext context) {
+				return Collections.singletonList(key);
+			}
+		});
+		processor.setJWTClaimsSetVerifier(new JWTClaimsSetVerifier<SimpleSecurityContext>() {
+			@Override
+			public void verify(JWTClaimsSet claimsSet, SimpleSecurityContext context) {
+				verifiedClaims.add(claimsSet);
+			}
+		});
+		
+		SignedJWT jwt = SignedJWT.parse(forged);
+		try {
+			processor.process(jwt, null);
+			fail();
+		} catch (BadJWSException e) {
+			assertEquals("Signed JWT rejected: Invalid signature", e.getMessage());
+		}
+		assertEquals(JWSObject.State.SIGNED, jwt.getState());
+		
+		// Valid signature, payload not a JSON object
+		jwsObject = new JWSObject(new JWSHeader(JWSAlgorithm.HS256), new Payload("not a JSON object"));
+		jwsObject.sign(new MACSigner(key));
+		try {
+			processor.process(jwsObject.serialize(), null);
+			fail();
+		} catch (BadJWTException e) {
+			assertEquals("Payload of JWS object is not a valid JSON object", e.getMessage());
+		}
+		
+		assertTrue(verifiedClaims.isEmpty());
+		
+		// Valid signature and claims
+		JWTClaimsSet claims = new JWTClaimsSet.Builder().subject("alice").build();
+		jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claims);
+		jwt.sign(new MACSigner(key));
+		assertEquals(claims.toJSONObject(), processor.process(jwt.serialize(), null).toJSONObject());
+		assertEquals(1, verifiedClaims.size());
+	}
+	
+	
+	public void testClaimsParsedBeforeSignatureWithClaimsAwareKeySelector()
+		throws Exception {
+		
+		byte[] keyBytes = new byte[32];
+		new SecureRandom().nextBytes(keyBytes);
+		final SecretKey key = new SecretKeySpec(keyBytes, "HMAC");
+		
+		JWSObject jwsObject = new JWSObject(new JWSHeader(JWSAlgorithm.HS256), new Payload("not a JSON object"));
+		jwsObject.sign(new MACSigner(new OctetSequenceKeyGenerator(256).generate()));
+		
+		ConfigurableJWTProcessor<SimpleSecurityContext> processor = new DefaultJWTProcessor<>();
+		processor.setJWTClaimsSetAwareJWSKeySelector(new JWTClaimsSetAwareJWSKeySelector<SimpleSecurityContext>() {
+			@Override
+			public List<? extends Key> selectKeys(JWSHeader header, JWTClaimsSet claimsSet, SimpleSecurityContext context) {
+				return Collections.singletonList(key);
+			}
+		});
+		
+		try {
+			processor.process(jwsObject.serialize(), null);
+			fail();
+		} catch (BadJWTException e) {
+			assertEquals("Payload of JWS object is not a valid JSON object", e.getMessage());
+		}
+	}
+	
+	
+	private static String signHS256(final OctetSequenceKey key, final JWTClaimsSet claimsSet)
+		throws JOSEException {
+		
+		SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.HS256).keyID(key.getKeyID()).build(), claimsSet);
+		jwt.sign(new MACSigner(key));
+		return jwt.serialize();
+	}
+	
+	
+	public void testProcessAll()
+		throws Exception {
+		
+		OctetSequenceKey k1 = new OctetSequenceKeyGenerator(256).keyID("1").generate();
+		OctetSequenceKey k2 = new OctetSequenceKeyGenerator(256).keyID("2").generate();
+		OctetSequenceKey unknown = new OctetSequenceKeyGenerator(256).keyID("3").generate();
+		OctetSequenceKey forging = new OctetSequenceKeyGenerator(256).keyID("1").generate();
+		
+		final AtomicInteger keySelections = new AtomicInteger();
+		final JWSKeySelector<SecurityContext> keySelector = new JWSVerificationKeySelector<>(
+			JWSAlgorithm.HS256,
+			new ImmutableJWKSet<>(new JWKSet(Arrays.<JWK>asList(k1, k2))));
+		
+		DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+		processor.setJWSKeySelector(new JWSKeySelector<SecurityContext>() {
+			@Override
+			public List<? extends Key> selectJWSKeys(JWSHeader header, SecurityContext context) throws KeySourceException {
+				keySelections.incrementAndGet();
+				return keySelector.selectJWSKeys(header, context);
+			}
+		});
+		
+		Date now = new Date();
+		List<String> jwts = new ArrayList<>();
+		for (int i=0; i < 50; i++) {
+			JWTClaimsSet claimsSet = new JWTClaimsSet.Builder().subject("user-" + i).expirationTime(new Date(now.getTime() + 60_000L)).build();
+			jwts.add(signHS256(i % 2 == 0 ? k1 : k2, claimsSet));
+		}
+		jwts.add(signHS256(forging, new JWTClaimsSet.Builder().subject("mallory").build()));
+		jwts.add(signHS256(unknown, new JWTClaimsSet.Builder().subject("eve").build()));
+		jwts.add(signHS256(k1, new JWTClaimsSet.Builder().subject("expired").expirationTime(new Date(now.getTime() - 3600_000L)).build()));
+		jwts.add("invalid");
+		jwts.add(new PlainJWT(new JWTClaimsSet.Builder().subject("plain").build()).serialize());
+		
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		
+		try {
+			for (Executor e: Arrays.asList(null, executor)) {
+				
+				keySelections.set(0);
+				List<JWTProcessingResult> results = processor.processAll(jwts, null, e);
+				assertEquals(jwts.size(), results.size());
+				
+				// One key selection per distinct header
+				assertEquals(3, keySelections.get());
+				
+				for (int i=0; i < 50; i++) {
+					assertTrue(results.get(i).isSuccess());
+					assertNull(results.get(i).getException());
+					assertEquals("user-" + i, results.get(i).getJWTClaimsSet().getSubject());
+				}
+				
+				assertEquals("Signed JWT rejected: Invalid signature", results.get(50).getException().getMessage());
+				assertTrue(results.get(50).getException() instanceof BadJWSException);
+				assertEquals("Signed JWT rejected: Another algorithm expected, or no matching key(s) found", results.get(51).getException().getMessage());
+				assertEquals("Expired JWT", results.get(52).getException().getMessage());
+				assertTrue(results.get(53).getException() instanceof ParseException);
+				assertEquals("Unsecured (plain) JWTs are rejected, extend class to handle", results.get(54).getException().getMessage());
+				
+				// Same outcome as individual processing
+				for (int i=50; i < jwts.size(); i++) {
+					assertFalse(results.get(i).isSuccess());
+					assertNull(results.get(i).getJWTClaimsSet());
+					try {
+						processor.process(jwts.get(i), null);
+						fail();
+					} catch (Exception ex) {
+						assertEquals(ex.getClass(), results.get(i).getException().getClass());
+						assertEquals(ex.getMessage(), results.get(i).getException().getMessage());
+					}
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	
+	public void testProcessAll_empty() {
+		
+		DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+		assertTrue(processor.processAll(Collections.<String>emptyList(), null).isEmpty());
+		assertTrue(processor.processAll(Collections.<String>emptyList(), null, Executors.newSingleThreadExecutor()).isEmpty());
+	}
+	
+	
+	public void testProcessAll_subclassOverridingProcessSignedJWT()
+		throws Exception {
+		
+		OctetSequenceKey key = new OctetSequenceKeyGenerator(256).keyID("1").generate();
+		
+		final AtomicInteger calls = new AtomicInteger();
+		DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<SecurityContext>() {
+			@Override
+			public JWTClaimsSet process(SignedJWT signedJWT, SecurityContext context) throws BadJOSEException, JOSEException {
+				calls.incrementAndGet();
+				if ("mallory".equals(signedJWT.getPayload().toJSONObject().get("sub"))) {
+					throw new BadJWTException("Subject rejected");
+				}
+				return super.process(signedJWT, context);
+			}
+		};
+		
+		final AtomicInteger keySelections = new AtomicInteger();
+		final JWSKeySelector<SecurityContext> keySelector = new JWSVerificationKeySelector<>(JWSAlgorithm.HS256, new ImmutableJWKSet<>(new JWKSet(key)));
+		processor.setJWSKeySelector(new JWSKeySelector<SecurityContext>() {
+			@Override
+			public List<? extends Key> selectJWSKeys(JWSHeader header, SecurityContext context) throws KeySourceException {
+				keySelections.incrementAndGet();
+				return keySelector.selectJWSKeys(header, context);
+			}
+		});
+		
+		List<JWTProcessingResult> results = processor.processAll(Arrays.asList(
+			signHS256(key, new JWTClaimsSet.Builder().subject("alice").build()),
+			signHS256(key, new JWTClaimsSet.Builder().subject("mallory").build()),
+			signHS256(key, new JWTClaimsSet.Builder().subject("bob").build())),
+			null);
+		
+		assertEquals("alice", results.get(0).getJWTClaimsSet().getSubject());
+		assertEquals("Subject rejected", results.get(1).getException().getMessage());
+		assertEquals("bob", results.get(2).getJWTClaimsSet().getSubject());
+		assertEquals(3, calls.get());
+		
+		// Still grouped by JWS header
+		assertEquals(1, keySelections.get());
+	}
 }
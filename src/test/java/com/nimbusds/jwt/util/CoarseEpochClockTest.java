@@ -0,0 +1,91 @@
+/*
+ * nimbus-jose-jwt
+ *
+ * Copyright 2012-2022, Connect2id Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.nimbusds.jwt.util;
+
+
+import junit.framework.TestCase;
+
+
+/**
+ * Tests the coarse epoch clock.
+ */
+public class CoarseEpochClockTest extends TestCase {
+
+
+	public void testSharedInstance() {
+
+		CoarseEpochClock clock = CoarseEpochClock.getInstance();
+		assertSame(clock, CoarseEpochClock.getInstance());
+		assertEquals(CoarseEpochClock.DEFAULT_TICK_MILLIS, clock.getTickMillis());
+		assertFalse(clock.isShutdown());
+		assertTrue(Math.abs(System.currentTimeMillis() - clock.currentTimeMillis()) < 1000L);
+	}
+
+
+	public void testSharedInstanceCannotBeShutDown()
+		throws InterruptedException {
+
+		CoarseEpochClock clock = CoarseEpochClock.getInstance();
+		clock.shutdown();
+		assertFalse(clock.isShutdown());
+
+		long t0 = clock.currentTimeMillis();
+		Thread.sleep(100L);
+		assertTrue(clock.currentTimeMillis() > t0);
+	}
+
+
+	public void testTicks()
+		throws InterruptedException {
+
+		CoarseEpochClock clock = new CoarseEpochClock(5L);
+		assertEquals(5L, clock.getTickMillis());
+
+		long t0 = clock.currentTimeMillis();
+		Thread.sleep(100L);
+		long t1 = clock.currentTimeMillis();
+		assertTrue(t1 > t0);
+
+		clock.shutdown();
+		assertTrue(clock.isShutdown());
+
+		// Falls back to the system time
+		long before = System.currentTimeMillis();
+		long t2 = clock.currentTimeMillis();
+		assertTrue(t2 >= before);
+	}
+
+
+	public void testRejectNonPositiveTick() {
+
+		try {
+			new CoarseEpochClock(0L);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The tick period must be positive", e.getMessage());
+		}
+	}
+
+
+	public void testSystemClock() {
+
+		long before = System.currentTimeMillis();
+		long t = EpochClock.SYSTEM.currentTimeMillis();
+		assertTrue(t >= before);
+		assertTrue(t <= System.currentTimeMillis());
+	}
+}
@@ -192,4 +192,18 @@ public class DateUtilsTest extends TestCase {
 		assertFalse(DateUtils.isWithin(tenSecondsAgo, ref, 9));
 		assertFalse(DateUtils.isWithin(tenSecondsAhead, ref, 9));
 	}
+	
+	
+	public void testAfterAndBeforeMillis() {
+		
+		assertTrue(DateUtils.isAfter(100001L, 100000L, 0L));
+		assertFalse(DateUtils.isAfter(100000L, 100000L, 0L));
+		assertTrue(DateUtils.isAfter(100000L, 159999L, 60L));
+		assertFalse(DateUtils.isAfter(100000L, 160000L, 60L));
+		
+		assertTrue(DateUtils.isBefore(99999L, 100000L, 0L));
+		assertFalse(DateUtils.isBefore(100000L, 100000L, 0L));
+		assertTrue(DateUtils.isBefore(160000L, 100001L, 60L));
+		assertFalse(DateUtils.isBefore(160000L, 100000L, 60L));
+	}
 }